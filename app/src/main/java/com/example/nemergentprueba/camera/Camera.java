@@ -12,6 +12,7 @@ import android.os.Build;
 import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.util.Log;
 import android.widget.Toast;
@@ -29,6 +30,11 @@ import androidx.lifecycle.LifecycleOwner;
 import com.example.nemergentprueba.R;
 import com.example.nemergentprueba.database.PhotoEntity;
 import com.example.nemergentprueba.database.PhotoRepository;
+import com.example.nemergentprueba.location.LocationCadenceController;
+import com.example.nemergentprueba.location.LocationEngine;
+import com.example.nemergentprueba.location.LocationHistory;
+import com.example.nemergentprueba.utils.PhotoMetadataExtractor;
+import com.example.nemergentprueba.utils.PhotoMetadataExtractor.PhotoMetadata;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.File;
@@ -44,6 +50,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class Camera {
     private static final String TAG = "Camera";
+    private static final String MIME_TYPE_JPEG = "image/jpeg";
 
     protected Context context;
     protected PreviewView viewFinder;
@@ -55,7 +62,10 @@ public abstract class Camera {
     protected final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private PhotoRepository photoRepository;
+    private final LocationCadenceController cadenceController;
     private Location currentLocation;
+    // Resultado reutilizado al localizar cada captura (solo en el hilo principal)
+    private final LocationHistory.Fix captureFix = new LocationHistory.Fix();
 
     public Camera(Context context, PreviewView viewFinder, int lensFacing) {
         this.context = context;
@@ -63,6 +73,7 @@ public abstract class Camera {
         this.lensFacing = lensFacing;
 
         photoRepository = new PhotoRepository(context);
+        cadenceController = LocationCadenceController.getInstance(context);
         this.imageCapture = createImageCaptureUseCase();
     }
 
@@ -186,6 +197,7 @@ public abstract class Camera {
             return;
         }
 
+        boolean captureStarted = false;
         try {
             File photoFile = createTempJpegFile();
             if (photoFile == null) {
@@ -202,6 +214,13 @@ public abstract class Camera {
             Log.d(TAG, context.getString(R.string.processing_image));
 
             final Date captureDate = new Date();
+            // Instante de la captura en el reloj del historial de posiciones
+            final long captureElapsedMs = SystemClock.elapsedRealtime();
+
+            // Alta precisión mientras dura la captura: las posiciones que lleguen justo
+            // después también sirven para interpolar la de este instante
+            cadenceController.onCaptureStarted();
+            captureStarted = true;
 
             imageCapture.takePicture(
                     outputOptions,
@@ -211,9 +230,18 @@ public abstract class Camera {
                         public void onImageSaved(@NonNull ImageCapture.OutputFileResults results) {
                             try {
                                 Log.d(TAG, "Imagen capturada correctamente, guardando en galería");
-                                String relativePath = saveImageToGallery(photoFile, captureDate);
+                                Bitmap bitmap = BitmapFactory.decodeFile(photoFile.getAbsolutePath());
+                                if (bitmap == null) {
+                                    throw new IOException(context.getString(R.string.error_decoding_image));
+                                }
+                                String relativePath = saveImageToGallery(bitmap, captureDate);
+
+                                // Metadatos para que la galería maquete la foto sin decodificarla
+                                PhotoMetadata metadata = PhotoMetadataExtractor.fromBitmap(bitmap, MIME_TYPE_JPEG);
+                                metadata.fileSize = PhotoMetadataExtractor.querySize(context, relativePath);
+                                bitmap.recycle();
 
-                                savePhotoInfoToDatabase(relativePath, captureDate);
+                                savePhotoInfoToDatabase(relativePath, captureDate, captureElapsedMs, metadata);
 
                                 cleanupTempFile(photoFile);
 
@@ -223,6 +251,7 @@ public abstract class Camera {
                                 Log.e(TAG, context.getString(R.string.error_processing_image));
                             } finally {
                                 isCapturing.set(false);
+                                mainHandler.post(cadenceController::onCaptureFinished);
                             }
                         }
 
@@ -234,6 +263,7 @@ public abstract class Camera {
                             cleanupTempFile(photoFile);
                             resetImageCaptureIfNeeded();
                             isCapturing.set(false);
+                            mainHandler.post(cadenceController::onCaptureFinished);
                         }
                     }
             );
@@ -241,6 +271,9 @@ public abstract class Camera {
             Log.e(TAG, "Error general al preparar captura: " + e.getMessage(), e);
             Log.e(TAG, context.getString(R.string.error_preparing_camera));
             isCapturing.set(false);
+            if (captureStarted) {
+                cadenceController.onCaptureFinished();
+            }
 
             mainHandler.postDelayed(this::attemptRecovery, 500);
         }
@@ -298,15 +331,30 @@ public abstract class Camera {
         });
     }
 
-    private void savePhotoInfoToDatabase(String relativePath, Date captureDate) {
+    /**
+     * Guarda la foto en la base de datos con la posición del instante de la captura:
+     * interpolada entre las posiciones del historial que la rodean o, si no hay,
+     * la más cercana. Se registra también la antigüedad de esa posición.
+     */
+    private void savePhotoInfoToDatabase(String relativePath, Date captureDate, long captureElapsedMs,
+                                         PhotoMetadata metadata) {
         double latitude = 0.0;
         double longitude = 0.0;
         Float accuracy = null;
-
-        if (currentLocation != null && currentLocation.getLatitude() != 0 && currentLocation.getLongitude() != 0) {
+        long locationAgeMs = -1;
+
+        LocationHistory history = LocationEngine.getInstance(context).getHistory();
+        if (history.locate(captureElapsedMs, captureFix)
+                && (captureFix.latitude != 0 || captureFix.longitude != 0)) {
+            latitude = captureFix.latitude;
+            longitude = captureFix.longitude;
+            accuracy = captureFix.getAccuracyOrNull();
+            locationAgeMs = captureFix.stalenessMs;
+        } else if (currentLocation != null && currentLocation.getLatitude() != 0 && currentLocation.getLongitude() != 0) {
             latitude = currentLocation.getLatitude();
             longitude = currentLocation.getLongitude();
             accuracy = currentLocation.hasAccuracy() ? currentLocation.getAccuracy() : null;
+            locationAgeMs = Math.abs(captureElapsedMs - currentLocation.getElapsedRealtimeNanos() / 1_000_000);
         } else {
             Log.w(TAG, "Ubicación no disponible o inválida (0,0)");
         }
@@ -318,6 +366,8 @@ public abstract class Camera {
                 longitude,
                 accuracy
         );
+        photoEntity.setLocationAgeMs(locationAgeMs);
+        metadata.applyTo(photoEntity);
 
         photoRepository.insertPhoto(photoEntity, savedPhoto -> {
             Log.d(TAG, "Foto guardada en base de datos con ID: " + savedPhoto.getId());
@@ -332,12 +382,7 @@ public abstract class Camera {
         return File.createTempFile(fileName, ".jpg", storageDir);
     }
 
-    private String saveImageToGallery(File imageFile, Date captureDate) throws IOException {
-        Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath());
-        if (bitmap == null) {
-            throw new IOException(context.getString(R.string.error_decoding_image));
-        }
-
+    private String saveImageToGallery(Bitmap bitmap, Date captureDate) throws IOException {
         String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(captureDate);
         String fileName = "IMG_" + timeStamp + ".jpg";
         String relativePath = "";
@@ -346,7 +391,7 @@ public abstract class Camera {
             ContentResolver resolver = context.getContentResolver();
             ContentValues contentValues = new ContentValues();
             contentValues.put(MediaStore.MediaColumns.DISPLAY_NAME, fileName);
-            contentValues.put(MediaStore.MediaColumns.MIME_TYPE, "image/jpeg");
+            contentValues.put(MediaStore.MediaColumns.MIME_TYPE, MIME_TYPE_JPEG);
             contentValues.put(MediaStore.MediaColumns.RELATIVE_PATH, Environment.DIRECTORY_DCIM + "/Camera");
 
             relativePath = Environment.DIRECTORY_DCIM + "/Camera/" + fileName;
@@ -8,6 +8,7 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -16,7 +17,7 @@ import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
 
 import com.example.nemergentprueba.R;
-import com.example.nemergentprueba.location.LocationCache;
+import com.example.nemergentprueba.location.LocationCadenceController;
 import com.example.nemergentprueba.location.LocationService;
 import com.example.nemergentprueba.utils.PermissionHelper;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -57,7 +58,7 @@ public class CameraActivity extends AppCompatActivity implements LocationService
     private Runnable cameraRestartRunnable;
     
     private LocationService locationService;
-    private LocationCache locationCache;
+    private LocationCadenceController cadenceController;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -72,11 +73,18 @@ public class CameraActivity extends AppCompatActivity implements LocationService
         switchCameraButton.setEnabled(false);
         
         captureButton.setOnClickListener(view -> takePhoto());
+        // Al empezar a pulsar el disparador se sube la precisión antes de la captura
+        captureButton.setOnTouchListener((view, event) -> {
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                cadenceController.onCaptureLikely();
+            }
+            return false;
+        });
         switchCameraButton.setOnClickListener(view -> toggleCamera());
 
         cameraExecutor = Executors.newSingleThreadExecutor();
         locationService = new LocationService(this);
-        locationCache = LocationCache.getInstance(this);
+        cadenceController = LocationCadenceController.getInstance(this);
         cameraRestartRunnable = this::restartCamera;
         
         requestCameraPermissions();
@@ -101,14 +109,11 @@ public class CameraActivity extends AppCompatActivity implements LocationService
             startCamera();
         }
         
-        // Iniciar actualizaciones de ubicación continuas
+        // Iniciar actualizaciones de ubicación continuas (el motor ignora registros repetidos)
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == 
                 PackageManager.PERMISSION_GRANTED) {
             locationService.startLocationUpdates(this);
             
-            // Asegurar que tenemos actualizaciones continuas desde el inicio
-            locationCache.startContinuousUpdates();
-            
             // Actualizamos la cámara con la ubicación actual
             updateCameraWithCurrentLocation();
         }
@@ -171,7 +176,6 @@ public class CameraActivity extends AppCompatActivity implements LocationService
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == 
                 PackageManager.PERMISSION_GRANTED) {
             locationService.startLocationUpdates(this);
-            locationCache.startContinuousUpdates();
         }
     }
     
@@ -347,15 +351,10 @@ public class CameraActivity extends AppCompatActivity implements LocationService
             currentCamera = null;
         }
         
-        // Detener las actualizaciones de ubicación solo cuando se destruye la actividad
+        // Al ser el último consumidor, el motor de localización apaga los radios
         if (locationService != null) {
             locationService.stopLocationUpdates();
         }
-        
-        // Pausar las actualizaciones continuas pero mantener la caché
-        if (locationCache != null) {
-            locationCache.pauseContinuousUpdates();
-        }
     }
     
     @Override
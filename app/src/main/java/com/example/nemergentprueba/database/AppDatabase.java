@@ -6,20 +6,83 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 /**
  * Clase principal de la base de datos Room.
  * Define las entidades, versión y proporciona acceso a los DAOs.
  */
-@Database(entities = {PhotoEntity.class}, version = 1, exportSchema = false)
+@Database(entities = {PhotoEntity.class, EventEntity.class, EventPhotoEntity.class,
+        PingSampleEntity.class, PingRollupEntity.class}, version = 6, exportSchema = false)
 @TypeConverters({Converters.class})
 public abstract class AppDatabase extends RoomDatabase {
 
     // Singleton para evitar múltiples instancias de la base de datos
     private static volatile AppDatabase INSTANCE;
 
-    // DAO
+    // DAOs
     public abstract PhotoDao photoDao();
+    public abstract EventDao eventDao();
+    public abstract PingHistoryDao pingHistoryDao();
+
+    // Versión 2: metadatos de imagen en la tabla de fotos
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE photos ADD COLUMN width INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE photos ADD COLUMN height INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE photos ADD COLUMN fileSize INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE photos ADD COLUMN mimeType TEXT");
+            database.execSQL("ALTER TABLE photos ADD COLUMN placeholderColor INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Versión 3: antigüedad de la posición usada para geoetiquetar cada foto
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE photos ADD COLUMN locationAgeMs INTEGER NOT NULL DEFAULT -1");
+        }
+    };
+
+    // Versión 4: nombre del lugar de cada foto (geocodificación inversa sin red)
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE photos ADD COLUMN placeName TEXT");
+        }
+    };
+
+    // Versión 5: eventos, pertenencia de las fotos a ellos e índice por fecha de captura
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_photos_captureDate ON photos (captureDate)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS events (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "startDate INTEGER NOT NULL, endDate INTEGER NOT NULL, photoCount INTEGER NOT NULL, "
+                    + "geotaggedCount INTEGER NOT NULL, latitude REAL NOT NULL, longitude REAL NOT NULL)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS event_photos (photoId INTEGER NOT NULL, "
+                    + "eventId INTEGER NOT NULL, PRIMARY KEY(photoId))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_event_photos_eventId ON event_photos (eventId)");
+        }
+    };
+
+    // Versión 6: historial de pings (muestras en bruto y agregados por minuto y por hora)
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS ping_samples (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "target TEXT NOT NULL, timestamp INTEGER NOT NULL, status INTEGER NOT NULL, "
+                    + "rttMicros INTEGER NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_ping_samples_timestamp ON ping_samples (timestamp)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS ping_rollups (resolutionMs INTEGER NOT NULL, "
+                    + "target TEXT NOT NULL, bucketStart INTEGER NOT NULL, count INTEGER NOT NULL, "
+                    + "lost INTEGER NOT NULL, minMicros INTEGER NOT NULL, avgMicros INTEGER NOT NULL, "
+                    + "maxMicros INTEGER NOT NULL, p95Micros INTEGER NOT NULL, "
+                    + "PRIMARY KEY(resolutionMs, target, bucketStart))");
+        }
+    };
 
     // Método para obtener la instancia única de la base de datos
     public static AppDatabase getInstance(Context context) {
@@ -30,7 +93,9 @@ public abstract class AppDatabase extends RoomDatabase {
                             context.getApplicationContext(),
                             AppDatabase.class,
                             "photo_database")
-                            .fallbackToDestructiveMigration() // Si cambia la versión, recrea la BD
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+                                    MIGRATION_5_6)
+                            .fallbackToDestructiveMigration() // Sin migración definida, recrea la BD
                             .build();
                 }
             }
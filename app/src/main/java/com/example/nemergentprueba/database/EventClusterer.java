@@ -0,0 +1,350 @@
+package com.example.nemergentprueba.database;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Agrupa las fotos en eventos: series de capturas consecutivas en las que entre una foto
+ * y la siguiente no hay más de {@link #MAX_TIME_GAP_MS} ni, si ambas tienen coordenadas,
+ * un salto de más de {@link #MAX_DISTANCE_JUMP_KM}.
+ *
+ * Como la regla solo depende de cada par de fotos consecutivas, los eventos se mantienen
+ * de forma incremental: al insertar o borrar una foto solo se revisan los enlaces con sus
+ * vecinas en la línea temporal, dividiendo o uniendo como mucho dos eventos. Solo se
+ * recalculan los agregados de los eventos afectados. La reconstrucción completa, para
+ * catálogos que aún no tienen eventos, es una única pasada por las fotos ordenadas por fecha.
+ *
+ * Cada operación se ejecuta en una transacción. Hace E/S: no llamar desde el hilo principal.
+ */
+public class EventClusterer {
+    private static final String TAG = "EventClusterer";
+
+    // Separación máxima entre dos fotos consecutivas del mismo evento
+    static final long MAX_TIME_GAP_MS = 3 * 60 * 60 * 1000;
+    static final double MAX_DISTANCE_JUMP_KM = 10.0;
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * Ejecuta un bloque en una transacción; en la aplicación es la de la base de datos
+     */
+    interface TransactionRunner {
+        void runInTransaction(Runnable body);
+    }
+
+    private final TransactionRunner transactions;
+    private final PhotoDao photoDao;
+    private final EventDao eventDao;
+
+    public EventClusterer(AppDatabase database) {
+        this(database.photoDao(), database.eventDao(), database::runInTransaction);
+    }
+
+    EventClusterer(PhotoDao photoDao, EventDao eventDao, TransactionRunner transactions) {
+        this.photoDao = photoDao;
+        this.eventDao = eventDao;
+        this.transactions = transactions;
+    }
+
+    /**
+     * Indica si dos fotos consecutivas de la línea temporal pertenecen al mismo evento
+     */
+    static boolean belongTogether(TimelineEntry earlier, TimelineEntry later) {
+        if (Math.abs(later.captureDate.getTime() - earlier.captureDate.getTime()) > MAX_TIME_GAP_MS) {
+            return false;
+        }
+        // Sin coordenadas en alguna de las dos solo cuenta el tiempo
+        if (!isGeotagged(earlier) || !isGeotagged(later)) {
+            return true;
+        }
+        return haversineKm(earlier.latitude, earlier.longitude, later.latitude, later.longitude)
+                <= MAX_DISTANCE_JUMP_KM;
+    }
+
+    /**
+     * Inserta una foto y la asigna a su evento en la misma transacción, de modo que
+     * {@link #rebuildIfNeeded()} nunca la ve sin evento
+     * @return ID de la foto insertada
+     */
+    public long insertPhoto(PhotoEntity photo) {
+        long[] photoId = new long[1];
+        transactions.runInTransaction(() -> {
+            photoId[0] = photoDao.insertPhoto(photo);
+            assignToEvent(photoId[0]);
+        });
+        return photoId[0];
+    }
+
+    private void assignToEvent(long photoId) {
+        TimelineEntry photo = eventDao.getTimelineEntry(photoId);
+        if (photo == null || photo.eventId != null) {
+            return;
+        }
+        TimelineEntry previous = eventDao.getPreviousInTimeline(photo.captureDate, photo.id);
+        TimelineEntry next = eventDao.getNextInTimeline(photo.captureDate, photo.id);
+
+        // Caso habitual (foto nueva al final de la línea temporal): se une al evento anterior
+        // y el enlace con la siguiente no cambia nada
+        if (previous != null && previous.eventId != null && belongTogether(previous, photo)
+                && (next == null || next.eventId == null
+                || previous.eventId.equals(next.eventId) == belongTogether(photo, next))) {
+            appendToEvent(previous.eventId, photo);
+            return;
+        }
+
+        Set<Long> touched = new HashSet<>();
+        if (previous != null && next != null && previous.eventId != null
+                && previous.eventId.equals(next.eventId)) {
+            // La foto cae dentro de un evento: se divide por ella antes de volver a enlazar
+            next.eventId = split(previous.eventId, next, touched);
+        }
+        photo.eventId = createEvent(photo);
+        touched.add(photo.eventId);
+        if (previous != null) {
+            relink(previous, photo, touched);
+        }
+        if (next != null) {
+            relink(photo, next, touched);
+        }
+        refresh(touched);
+    }
+
+    /**
+     * Revisa el evento de una foto cuyas coordenadas han cambiado (la fecha de captura no cambia)
+     */
+    public void onPhotoLocationChanged(long photoId) {
+        transactions.runInTransaction(() -> {
+            TimelineEntry photo = eventDao.getTimelineEntry(photoId);
+            if (photo == null || photo.eventId == null) {
+                return;
+            }
+            Set<Long> touched = new HashSet<>();
+            touched.add(photo.eventId);
+            TimelineEntry previous = eventDao.getPreviousInTimeline(photo.captureDate, photo.id);
+            if (previous != null) {
+                relink(previous, photo, touched);
+            }
+            // Se lee después: la división o unión anterior puede haber movido la siguiente de evento
+            TimelineEntry next = eventDao.getNextInTimeline(photo.captureDate, photo.id);
+            if (next != null) {
+                relink(photo, next, touched);
+            }
+            refresh(touched);
+        });
+    }
+
+    /**
+     * Elimina una foto de la base de datos y de su evento
+     */
+    public void deletePhoto(long photoId) {
+        transactions.runInTransaction(() -> {
+            TimelineEntry photo = eventDao.getTimelineEntry(photoId);
+            photoDao.deletePhotoById(photoId);
+            eventDao.deleteMembership(photoId);
+            if (photo == null || photo.eventId == null) {
+                return;
+            }
+            Set<Long> touched = new HashSet<>();
+            touched.add(photo.eventId);
+            // Sus vecinas pasan a ser consecutivas: puede que ahora se enlacen o que ya no
+            TimelineEntry previous = eventDao.getPreviousInTimeline(photo.captureDate, photo.id);
+            TimelineEntry next = eventDao.getNextInTimeline(photo.captureDate, photo.id);
+            if (previous != null && next != null) {
+                relink(previous, next, touched);
+            }
+            refresh(touched);
+        });
+    }
+
+    /**
+     * Reconstruye todos los eventos si hay fotos sin evento asignado. La comprobación y la
+     * reconstrucción van en la misma transacción: ninguna inserción puede colarse entre ambas
+     */
+    public void rebuildIfNeeded() {
+        transactions.runInTransaction(() -> {
+            int missing = eventDao.countPhotosWithoutEvent();
+            if (missing > 0) {
+                Log.d(TAG, missing + " fotos sin evento, reconstruyendo eventos");
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * Reconstruye todos los eventos en una sola pasada por las fotos en orden de captura,
+     * leyendo por páginas para no cargar el catálogo entero en memoria
+     * @return Número de eventos creados
+     */
+    public int rebuild() {
+        long start = System.nanoTime();
+        int[] eventCount = new int[1];
+        int[] photoCount = new int[1];
+        transactions.runInTransaction(() -> {
+            eventDao.deleteAllMemberships();
+            eventDao.deleteAllEvents();
+
+            TimelineEntry previous = null;
+            EventEntity current = null;
+            List<EventPhotoEntity> memberships = new ArrayList<>(REBUILD_PAGE_SIZE);
+            Date afterDate = new Date(Long.MIN_VALUE);
+            long afterId = Long.MIN_VALUE;
+            List<TimelineEntry> page;
+            while (!(page = eventDao.getTimelinePage(afterDate, afterId, REBUILD_PAGE_SIZE)).isEmpty()) {
+                for (TimelineEntry entry : page) {
+                    if (current == null || !belongTogether(previous, entry)) {
+                        if (current != null) {
+                            eventDao.updateEvent(current);
+                        }
+                        current = new EventEntity(entry.captureDate, entry.captureDate);
+                        current.setId(eventDao.insertEvent(current));
+                        eventCount[0]++;
+                    }
+                    addToAggregates(current, entry);
+                    memberships.add(new EventPhotoEntity(entry.id, current.getId()));
+                    previous = entry;
+                }
+                eventDao.setMemberships(memberships);
+                photoCount[0] += memberships.size();
+                memberships.clear();
+                afterDate = previous.captureDate;
+                afterId = previous.id;
+            }
+            if (current != null) {
+                eventDao.updateEvent(current);
+            }
+        });
+        Log.d(TAG, "Eventos reconstruidos: " + eventCount[0] + " eventos con " + photoCount[0]
+                + " fotos en " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return eventCount[0];
+    }
+
+    /**
+     * Comprueba el enlace entre dos fotos consecutivas y divide o une sus eventos si no
+     * coincide con la regla. Actualiza el evento de ambas entradas.
+     */
+    private void relink(TimelineEntry earlier, TimelineEntry later, Set<Long> touched) {
+        if (earlier.eventId == null || later.eventId == null) {
+            // Fotos pendientes de la reconstrucción completa
+            return;
+        }
+        boolean together = belongTogether(earlier, later);
+        if (earlier.eventId.equals(later.eventId)) {
+            if (!together) {
+                later.eventId = split(earlier.eventId, later, touched);
+            }
+        } else if (together) {
+            long survivor = merge(earlier.eventId, later.eventId, touched);
+            earlier.eventId = survivor;
+            later.eventId = survivor;
+        }
+    }
+
+    /**
+     * Pasa a un evento nuevo las fotos del evento desde la foto dada (incluida) en adelante
+     * @return ID del evento nuevo
+     */
+    private long split(long eventId, TimelineEntry first, Set<Long> touched) {
+        long newEventId = eventDao.insertEvent(new EventEntity(first.captureDate, first.captureDate));
+        eventDao.moveMembershipsFrom(eventId, newEventId, first.captureDate, first.id);
+        touched.add(eventId);
+        touched.add(newEventId);
+        return newEventId;
+    }
+
+    /**
+     * Une dos eventos moviendo las fotos del más pequeño al más grande
+     * @return ID del evento que se conserva
+     */
+    private long merge(long firstEventId, long secondEventId, Set<Long> touched) {
+        EventEntity first = eventDao.getEvent(firstEventId);
+        EventEntity second = eventDao.getEvent(secondEventId);
+        int firstCount = first != null ? first.getPhotoCount() : 0;
+        int secondCount = second != null ? second.getPhotoCount() : 0;
+        long survivor = firstCount >= secondCount ? firstEventId : secondEventId;
+        long absorbed = survivor == firstEventId ? secondEventId : firstEventId;
+
+        eventDao.moveMemberships(absorbed, survivor);
+        eventDao.deleteEventById(absorbed);
+        touched.remove(absorbed);
+        touched.add(survivor);
+        return survivor;
+    }
+
+    private long createEvent(TimelineEntry photo) {
+        EventEntity event = new EventEntity(photo.captureDate, photo.captureDate);
+        addToAggregates(event, photo);
+        long eventId = eventDao.insertEvent(event);
+        eventDao.setMembership(new EventPhotoEntity(photo.id, eventId));
+        return eventId;
+    }
+
+    /**
+     * Añade una foto a un evento actualizando sus agregados sin recorrer sus fotos
+     */
+    private void appendToEvent(long eventId, TimelineEntry photo) {
+        eventDao.setMembership(new EventPhotoEntity(photo.id, eventId));
+        EventEntity event = eventDao.getEvent(eventId);
+        if (event == null) {
+            refresh(Collections.singleton(eventId));
+            return;
+        }
+        addToAggregates(event, photo);
+        eventDao.updateEvent(event);
+    }
+
+    private static void addToAggregates(EventEntity event, TimelineEntry photo) {
+        if (event.getPhotoCount() == 0 || photo.captureDate.before(event.getStartDate())) {
+            event.setStartDate(photo.captureDate);
+        }
+        if (event.getPhotoCount() == 0 || photo.captureDate.after(event.getEndDate())) {
+            event.setEndDate(photo.captureDate);
+        }
+        event.setPhotoCount(event.getPhotoCount() + 1);
+        if (isGeotagged(photo)) {
+            // Media incremental del centroide
+            int geotagged = event.getGeotaggedCount() + 1;
+            event.setLatitude(event.getLatitude() + (photo.latitude - event.getLatitude()) / geotagged);
+            event.setLongitude(event.getLongitude() + (photo.longitude - event.getLongitude()) / geotagged);
+            event.setGeotaggedCount(geotagged);
+        }
+    }
+
+    /**
+     * Recalcula los agregados de los eventos dados y elimina los que se han quedado vacíos
+     */
+    private void refresh(Set<Long> eventIds) {
+        for (long eventId : eventIds) {
+            EventStats stats = eventDao.getEventStats(eventId);
+            if (stats == null || stats.photoCount == 0) {
+                eventDao.deleteEventById(eventId);
+                continue;
+            }
+            EventEntity event = new EventEntity(stats.startDate, stats.endDate);
+            event.setId(eventId);
+            event.setPhotoCount(stats.photoCount);
+            event.setGeotaggedCount(stats.geotaggedCount);
+            event.setLatitude(stats.latitude != null ? stats.latitude : 0);
+            event.setLongitude(stats.longitude != null ? stats.longitude : 0);
+            eventDao.updateEvent(event);
+        }
+    }
+
+    private static boolean isGeotagged(TimelineEntry entry) {
+        return entry.latitude != 0 || entry.longitude != 0;
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.nemergentprueba.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * DAO para los eventos y la pertenencia de las fotos a ellos.
+ * Las consultas de línea temporal ordenan por (captureDate, id), un orden total
+ * que permite paginar y partir eventos por posición sin ambigüedad.
+ */
+@Dao
+public interface EventDao {
+
+    String TIMELINE_SELECT = "SELECT p.id, p.captureDate, p.latitude, p.longitude, m.eventId "
+            + "FROM photos p LEFT JOIN event_photos m ON m.photoId = p.id ";
+
+    @Query("SELECT * FROM events WHERE id = :eventId")
+    EventEntity getEvent(long eventId);
+
+    @Insert
+    long insertEvent(EventEntity event);
+
+    @Update
+    void updateEvent(EventEntity event);
+
+    @Query("DELETE FROM events WHERE id = :eventId")
+    void deleteEventById(long eventId);
+
+    @Query("DELETE FROM events")
+    void deleteAllEvents();
+
+    /**
+     * Asigna (o reasigna) una foto a un evento
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void setMembership(EventPhotoEntity membership);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void setMemberships(List<EventPhotoEntity> memberships);
+
+    @Query("DELETE FROM event_photos WHERE photoId = :photoId")
+    void deleteMembership(long photoId);
+
+    @Query("DELETE FROM event_photos")
+    void deleteAllMemberships();
+
+    /**
+     * Mueve todas las fotos de un evento a otro (unión de eventos)
+     */
+    @Query("UPDATE event_photos SET eventId = :toEventId WHERE eventId = :fromEventId")
+    void moveMemberships(long fromEventId, long toEventId);
+
+    /**
+     * Mueve a otro evento las fotos de un evento desde una posición de la línea temporal
+     * (incluida) en adelante (división de eventos)
+     */
+    @Query("UPDATE event_photos SET eventId = :toEventId WHERE eventId = :fromEventId AND photoId IN "
+            + "(SELECT id FROM photos WHERE captureDate > :date OR (captureDate = :date AND id >= :photoId))")
+    void moveMembershipsFrom(long fromEventId, long toEventId, Date date, long photoId);
+
+    /**
+     * Recalcula los agregados de un evento a partir de sus fotos
+     */
+    @Query("SELECT COUNT(*) AS photoCount, MIN(p.captureDate) AS startDate, MAX(p.captureDate) AS endDate, "
+            + "SUM(CASE WHEN p.latitude = 0 AND p.longitude = 0 THEN 0 ELSE 1 END) AS geotaggedCount, "
+            + "AVG(CASE WHEN p.latitude = 0 AND p.longitude = 0 THEN NULL ELSE p.latitude END) AS latitude, "
+            + "AVG(CASE WHEN p.latitude = 0 AND p.longitude = 0 THEN NULL ELSE p.longitude END) AS longitude "
+            + "FROM event_photos m JOIN photos p ON p.id = m.photoId WHERE m.eventId = :eventId")
+    EventStats getEventStats(long eventId);
+
+    @Query(TIMELINE_SELECT + "WHERE p.id = :photoId")
+    TimelineEntry getTimelineEntry(long photoId);
+
+    /**
+     * Foto inmediatamente anterior a una posición de la línea temporal
+     */
+    @Query(TIMELINE_SELECT + "WHERE p.captureDate < :date OR (p.captureDate = :date AND p.id < :photoId) "
+            + "ORDER BY p.captureDate DESC, p.id DESC LIMIT 1")
+    TimelineEntry getPreviousInTimeline(Date date, long photoId);
+
+    /**
+     * Foto inmediatamente posterior a una posición de la línea temporal
+     */
+    @Query(TIMELINE_SELECT + "WHERE p.captureDate > :date OR (p.captureDate = :date AND p.id > :photoId) "
+            + "ORDER BY p.captureDate, p.id LIMIT 1")
+    TimelineEntry getNextInTimeline(Date date, long photoId);
+
+    /**
+     * Página de la línea temporal posterior a una posición, en orden ascendente
+     */
+    @Query(TIMELINE_SELECT + "WHERE p.captureDate > :date OR (p.captureDate = :date AND p.id > :photoId) "
+            + "ORDER BY p.captureDate, p.id LIMIT :limit")
+    List<TimelineEntry> getTimelinePage(Date date, long photoId, int limit);
+
+    /**
+     * Número de fotos sin evento asignado (catálogos anteriores a la versión 5 de la base de datos)
+     */
+    @Query("SELECT COUNT(*) FROM photos p LEFT JOIN event_photos m ON m.photoId = p.id WHERE m.photoId IS NULL")
+    int countPhotosWithoutEvent();
+}
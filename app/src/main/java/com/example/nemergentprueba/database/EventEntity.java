@@ -0,0 +1,98 @@
+package com.example.nemergentprueba.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+/**
+ * Entidad que representa un evento: una serie de fotos consecutivas sin grandes saltos
+ * de tiempo ni de distancia entre ellas. Guarda los agregados que la galería necesita
+ * para mostrar la cabecera del evento sin recorrer sus fotos.
+ * La pertenencia de cada foto a un evento está en {@link EventPhotoEntity}.
+ */
+@Entity(tableName = "events")
+public class EventEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private Date startDate;
+
+    @NonNull
+    private Date endDate;
+
+    private int photoCount;
+    // Fotos del evento con coordenadas, usadas para el centroide
+    private int geotaggedCount;
+    // Centroide de las fotos geoetiquetadas (0,0 si no hay ninguna)
+    private double latitude;
+    private double longitude;
+
+    // Constructor
+    public EventEntity(@NonNull Date startDate, @NonNull Date endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    // Getters and Setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(@NonNull Date startDate) {
+        this.startDate = startDate;
+    }
+
+    @NonNull
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(@NonNull Date endDate) {
+        this.endDate = endDate;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    public void setPhotoCount(int photoCount) {
+        this.photoCount = photoCount;
+    }
+
+    public int getGeotaggedCount() {
+        return geotaggedCount;
+    }
+
+    public void setGeotaggedCount(int geotaggedCount) {
+        this.geotaggedCount = geotaggedCount;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.nemergentprueba.database;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Pertenencia de una foto a un evento. Está en su propia tabla, y no como columna de
+ * {@link PhotoEntity}, para que las actualizaciones de fotos completas (p. ej. los rellenos
+ * de metadatos) nunca sobrescriban una asignación hecha a la vez por el agrupador.
+ */
+@Entity(tableName = "event_photos", indices = {@Index("eventId")})
+public class EventPhotoEntity {
+
+    @PrimaryKey
+    private long photoId;
+
+    private long eventId;
+
+    // Constructor
+    public EventPhotoEntity(long photoId, long eventId) {
+        this.photoId = photoId;
+        this.eventId = eventId;
+    }
+
+    // Getters and Setters
+    public long getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(long photoId) {
+        this.photoId = photoId;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.nemergentprueba.database;
+
+import java.util.Date;
+
+/**
+ * Agregados de las fotos de un evento, calculados por la base de datos
+ */
+public class EventStats {
+    public int photoCount;
+    public Date startDate;
+    public Date endDate;
+    public int geotaggedCount;
+    public Double latitude;
+    public Double longitude;
+}
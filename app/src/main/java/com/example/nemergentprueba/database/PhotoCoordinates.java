@@ -0,0 +1,11 @@
+package com.example.nemergentprueba.database;
+
+/**
+ * Proyección de la tabla de fotos con solo el ID y las coordenadas,
+ * para construir el índice espacial sin cargar las entidades completas.
+ */
+public class PhotoCoordinates {
+    public long id;
+    public double latitude;
+    public double longitude;
+}
@@ -51,6 +51,29 @@ public interface PhotoDao {
     @Query("SELECT * FROM photos WHERE latitude BETWEEN :minLat AND :maxLat AND longitude BETWEEN :minLong AND :maxLong")
     List<PhotoEntity> getPhotosByLocation(double minLat, double maxLat, double minLong, double maxLong);
 
+    /**
+     * Obtiene el ID y las coordenadas de todas las fotos geoetiquetadas
+     * @return Lista de coordenadas, sin las fotos guardadas sin posición (0,0)
+     */
+    @Query("SELECT id, latitude, longitude FROM photos WHERE NOT (latitude = 0 AND longitude = 0)")
+    List<PhotoCoordinates> getAllPhotoCoordinates();
+
+    /**
+     * Obtiene las fotos con los IDs dados, sin un orden concreto
+     * @param ids IDs de las fotos
+     * @return Lista de fotos encontradas
+     */
+    @Query("SELECT * FROM photos WHERE id IN (:ids)")
+    List<PhotoEntity> getPhotosByIds(List<Long> ids);
+
+    /**
+     * Obtiene una foto por su ID
+     * @param photoId ID de la foto
+     * @return La foto o null si no existe
+     */
+    @Query("SELECT * FROM photos WHERE id = :photoId")
+    PhotoEntity getPhotoById(long photoId);
+
     /**
      * Actualiza información de una foto existente
      * @param photo La entidad de foto con los datos actualizados
@@ -58,6 +81,71 @@ public interface PhotoDao {
     @Update
     void updatePhoto(PhotoEntity photo);
 
+    /**
+     * Actualiza varias fotos en una sola transacción
+     * @param photos Las entidades con los datos actualizados
+     */
+    @Update
+    void updatePhotos(List<PhotoEntity> photos);
+
+    /**
+     * Guarda solo los metadatos de imagen de una foto, sin tocar el resto de columnas
+     * (que otros rellenos en segundo plano pueden estar actualizando a la vez)
+     */
+    @Query("UPDATE photos SET width = :width, height = :height, fileSize = :fileSize, mimeType = :mimeType, "
+            + "placeholderColor = :placeholderColor WHERE id = :photoId")
+    void updateImageMetadata(long photoId, int width, int height, long fileSize, String mimeType, int placeholderColor);
+
+    /**
+     * Geoetiqueta una foto guardada sin coordenadas, sin tocar el resto de columnas.
+     * Si mientras tanto la foto ya ha recibido coordenadas no se cambia nada.
+     * @param placeName Lugar de las nuevas coordenadas, o null si no se conoce
+     * @return Número de filas actualizadas (0 o 1)
+     */
+    @Query("UPDATE photos SET latitude = :latitude, longitude = :longitude, accuracy = :accuracy, "
+            + "locationAgeMs = :locationAgeMs, placeName = :placeName "
+            + "WHERE id = :photoId AND latitude = 0 AND longitude = 0")
+    int updateMissingLocation(long photoId, double latitude, double longitude, Float accuracy,
+                              long locationAgeMs, String placeName);
+
+    /**
+     * Guarda solo el nombre del lugar de una foto, y solo si sigue sin él y con las mismas
+     * coordenadas con las que se calculó
+     * @return Número de filas actualizadas (0 o 1)
+     */
+    @Query("UPDATE photos SET placeName = :placeName WHERE id = :photoId AND placeName IS NULL "
+            + "AND latitude = :latitude AND longitude = :longitude")
+    int updateMissingPlaceName(long photoId, double latitude, double longitude, String placeName);
+
+    /**
+     * Obtiene un lote de fotos cuyos metadatos de imagen aún no se han calculado
+     * (las que no se pudieron leer se marcan con ancho -1 y no se vuelven a devolver)
+     * @param limit Número máximo de fotos a devolver
+     * @return Lista de fotos sin dimensiones
+     */
+    @Query("SELECT * FROM photos WHERE width = 0 ORDER BY id LIMIT :limit")
+    List<PhotoEntity> getPhotosMissingMetadata(int limit);
+
+    /**
+     * Obtiene un lote de fotos guardadas sin coordenadas (0,0), paginado por ID
+     * para que las que no se puedan completar no se vuelvan a devolver en la misma pasada
+     * @param afterId Se devuelven solo fotos con ID mayor que este
+     * @param limit Número máximo de fotos a devolver
+     * @return Lista de fotos sin coordenadas
+     */
+    @Query("SELECT * FROM photos WHERE latitude = 0 AND longitude = 0 AND id > :afterId ORDER BY id LIMIT :limit")
+    List<PhotoEntity> getPhotosMissingLocation(long afterId, int limit);
+
+    /**
+     * Obtiene un lote de fotos con coordenadas cuyo lugar aún no se ha calculado, paginado por ID
+     * @param afterId Se devuelven solo fotos con ID mayor que este
+     * @param limit Número máximo de fotos a devolver
+     * @return Lista de fotos sin nombre de lugar
+     */
+    @Query("SELECT * FROM photos WHERE placeName IS NULL AND NOT (latitude = 0 AND longitude = 0) "
+            + "AND id > :afterId ORDER BY id LIMIT :limit")
+    List<PhotoEntity> getPhotosMissingPlace(long afterId, int limit);
+
     /**
      * Elimina una foto de la base de datos
      * @param photo La entidad de foto a eliminar
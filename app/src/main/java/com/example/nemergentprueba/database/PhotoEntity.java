@@ -2,6 +2,7 @@ package com.example.nemergentprueba.database;
 
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.Date;
@@ -9,9 +10,10 @@ import java.util.Date;
 /**
  * Entidad que representa una foto guardada en la base de datos.
  * Contiene información sobre la fecha de captura, ruta relativa del archivo
- * y coordenadas de localización en el momento de la captura.
+ * y coordenadas de localización en el momento de la captura, además de los
+ * metadatos de imagen que la galería usa para maquetar sin decodificar.
  */
-@Entity(tableName = "photos")
+@Entity(tableName = "photos", indices = {@Index("captureDate")})
 public class PhotoEntity {
 
     @PrimaryKey(autoGenerate = true)
@@ -27,6 +29,17 @@ public class PhotoEntity {
     private double latitude;
     private double longitude;
     private Float accuracy; // Precisión en metros, puede ser null
+    // Distancia en tiempo entre la captura y la posición usada; -1 si no hay posición o no se conoce
+    private long locationAgeMs = -1;
+    // Lugar más cercano según el índice sin red; null si no se ha calculado, vacío si no hay ninguno cerca
+    private String placeName;
+
+    // Metadatos de imagen (0 / null mientras no se hayan calculado)
+    private int width;
+    private int height;
+    private long fileSize; // En bytes
+    private String mimeType;
+    private int placeholderColor; // Color ARGB medio de la imagen, 0 si no se conoce
 
     // Constructor
     public PhotoEntity(@NonNull Date captureDate, @NonNull String relativePath, 
@@ -88,4 +101,67 @@ public class PhotoEntity {
     public void setAccuracy(Float accuracy) {
         this.accuracy = accuracy;
     }
+
+    public long getLocationAgeMs() {
+        return locationAgeMs;
+    }
+
+    public void setLocationAgeMs(long locationAgeMs) {
+        this.locationAgeMs = locationAgeMs;
+    }
+
+    public String getPlaceName() {
+        return placeName;
+    }
+
+    public void setPlaceName(String placeName) {
+        this.placeName = placeName;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public int getPlaceholderColor() {
+        return placeholderColor;
+    }
+
+    public void setPlaceholderColor(int placeholderColor) {
+        this.placeholderColor = placeholderColor;
+    }
+
+    /**
+     * Indica si ya se han calculado los metadatos de imagen
+     */
+    public boolean hasImageMetadata() {
+        return width > 0 && height > 0;
+    }
 }
\ No newline at end of file
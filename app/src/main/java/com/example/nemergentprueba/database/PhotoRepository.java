@@ -2,11 +2,26 @@ package com.example.nemergentprueba.database;
 
 import android.content.Context;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import com.example.nemergentprueba.location.GeoKdTree;
+import com.example.nemergentprueba.location.LocationEngine;
+import com.example.nemergentprueba.location.LocationHistory;
+import com.example.nemergentprueba.location.LocationTraceLog;
+import com.example.nemergentprueba.location.OfflineGeocoder;
+import com.example.nemergentprueba.utils.PhotoFileResolver;
+import com.example.nemergentprueba.utils.PhotoMetadataExtractor;
+import com.example.nemergentprueba.utils.PhotoMetadataExtractor.PhotoMetadata;
+
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -15,14 +30,36 @@ import java.util.concurrent.Executors;
  * para no bloquear el hilo principal.
  */
 public class PhotoRepository {
+    private static final String TAG = "PhotoRepository";
+    // Tamaño de lote del relleno de metadatos: una transacción por lote
+    private static final int METADATA_BACKFILL_BATCH = 50;
+    private static final int LOCATION_BACKFILL_BATCH = 100;
+    private static final int PLACE_BACKFILL_BATCH = 100;
+    // Antigüedad máxima de la posición del registro para usarla en una foto sin coordenadas
+    private static final long MAX_BACKFILL_LOCATION_AGE_MS = 5 * 60 * 1000;
+    // Límite de resultados de la búsqueda por cercanía (y de variables de la consulta IN)
+    public static final int MAX_NEAREST_RESULTS = 500;
+
+    // Índice espacial de las fotos geoetiquetadas, compartido como la base de datos.
+    // Se carga la primera vez que se consulta y después se mantiene con cada cambio.
+    private static final GeoKdTree locationIndex = new GeoKdTree();
+    // Protegido por locationIndex
+    private static boolean locationIndexLoaded;
+
+    private final Context appContext;
+    private final AppDatabase database;
     private final PhotoDao photoDao;
+    private final EventClusterer eventClusterer;
     private final LiveData<List<PhotoEntity>> allPhotos;
     private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     public PhotoRepository(Context context) {
-        AppDatabase db = AppDatabase.getInstance(context);
-        photoDao = db.photoDao();
+        appContext = context.getApplicationContext();
+        database = AppDatabase.getInstance(context);
+        photoDao = database.photoDao();
         allPhotos = photoDao.getAllPhotos();
+        eventClusterer = new EventClusterer(database);
         // Crear un pool de hilos para operaciones asíncronas
         executor = Executors.newFixedThreadPool(4);
     }
@@ -32,30 +69,432 @@ public class PhotoRepository {
         return allPhotos;
     }
 
-    // Insertar una nueva foto
+    // Insertar una nueva foto (con el nombre del lugar si tiene coordenadas)
     public void insertPhoto(PhotoEntity photo, OnPhotoSavedListener listener) {
         executor.execute(() -> {
-            long id = photoDao.insertPhoto(photo);
+            if (photo.getPlaceName() == null) {
+                applyPlaceName(photo);
+            }
+            // La foto se inserta ya asignada a su evento
+            long id = eventClusterer.insertPhoto(photo);
+            photo.setId(id); // Asignar el ID generado
+            indexPhoto(photo);
             if (listener != null) {
-                photo.setId(id); // Asignar el ID generado
                 listener.onPhotoSaved(photo);
             }
         });
     }
 
+    // Cargar una foto por su ID; el listener recibe null si no existe
+    public void loadPhoto(long photoId, OnPhotoLoadedListener listener) {
+        executor.execute(() -> {
+            PhotoEntity photo = photoDao.getPhotoById(photoId);
+            mainHandler.post(() -> listener.onPhotoLoaded(photo));
+        });
+    }
+
+    /**
+     * Carga el ID y las coordenadas de todas las fotos geoetiquetadas, sin las entidades completas
+     * @param listener Recibe el resultado en el hilo principal
+     */
+    public void loadPhotoCoordinates(OnPhotoCoordinatesLoadedListener listener) {
+        executor.execute(() -> {
+            List<PhotoCoordinates> coordinates = photoDao.getAllPhotoCoordinates();
+            mainHandler.post(() -> listener.onPhotoCoordinatesLoaded(coordinates));
+        });
+    }
+
     // Actualizar foto existente
     public void updatePhoto(PhotoEntity photo) {
-        executor.execute(() -> photoDao.updatePhoto(photo));
+        executor.execute(() -> {
+            photoDao.updatePhoto(photo);
+            indexPhoto(photo);
+            eventClusterer.onPhotoLocationChanged(photo.getId());
+        });
     }
 
     // Eliminar foto
     public void deletePhoto(PhotoEntity photo) {
-        executor.execute(() -> photoDao.deletePhoto(photo));
+        executor.execute(() -> {
+            eventClusterer.deletePhoto(photo.getId());
+            unindexPhoto(photo.getId());
+        });
+    }
+
+    /**
+     * Elimina la foto del almacenamiento y, solo si lo consigue, su fila de la base de datos.
+     * Si el archivo no se puede borrar la fila se conserva, de modo que el catálogo nunca
+     * apunta a menos fotos de las que hay en disco. Una foto que ya no existía en disco
+     * se considera borrada y su fila se elimina.
+     * @param listener Recibe el resultado en el hilo principal
+     */
+    public void deletePhotoWithFile(PhotoEntity photo, OnPhotoDeletedListener listener) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            boolean success = false;
+            boolean fileFound = false;
+            try {
+                fileFound = PhotoFileResolver.deletePhoto(appContext, photo.getRelativePath());
+                eventClusterer.deletePhoto(photo.getId());
+                unindexPhoto(photo.getId());
+                success = true;
+            } catch (Exception e) {
+                Log.e(TAG, "Error al eliminar la foto " + photo.getRelativePath() + ": " + e.getMessage(), e);
+            }
+
+            DeleteResult result = new DeleteResult(photo, success, fileFound,
+                    (System.nanoTime() - start) / 1_000_000);
+            Log.d(TAG, "Eliminación de foto " + photo.getId() + (success ? " completada" : " fallida")
+                    + " en " + result.getElapsedMs() + "ms" + (fileFound ? "" : " (sin archivo en disco)"));
+            if (listener != null) {
+                mainHandler.post(() -> listener.onPhotoDeleted(result));
+            }
+        });
     }
 
     // Eliminar foto por ID
     public void deletePhotoById(long photoId) {
-        executor.execute(() -> photoDao.deletePhotoById(photoId));
+        executor.execute(() -> {
+            eventClusterer.deletePhoto(photoId);
+            unindexPhoto(photoId);
+        });
+    }
+
+    /**
+     * Calcula en segundo plano los metadatos de imagen de las fotos que no los tienen
+     * (fotos anteriores a la versión 2 de la base de datos o importadas).
+     * Se procesa por lotes y cada lote se guarda en una única transacción. Solo se escriben
+     * las columnas de metadatos, así que no pisa las coordenadas ni el lugar que los otros
+     * rellenos pueden estar guardando a la vez para las mismas fotos.
+     */
+    public void backfillImageMetadata() {
+        executor.execute(() -> {
+            int updated = 0;
+            List<PhotoEntity> batch;
+            while (!(batch = photoDao.getPhotosMissingMetadata(METADATA_BACKFILL_BATCH)).isEmpty()) {
+                for (PhotoEntity photo : batch) {
+                    PhotoMetadata metadata = PhotoMetadataExtractor.fromStoredPhoto(appContext, photo.getRelativePath());
+                    if (metadata != null) {
+                        metadata.applyTo(photo);
+                    } else {
+                        // No se puede leer: marcar para no reintentarlo en cada arranque
+                        photo.setWidth(-1);
+                        photo.setHeight(-1);
+                    }
+                }
+                List<PhotoEntity> measured = batch;
+                database.runInTransaction(() -> {
+                    for (PhotoEntity photo : measured) {
+                        photoDao.updateImageMetadata(photo.getId(), photo.getWidth(), photo.getHeight(),
+                                photo.getFileSize(), photo.getMimeType(), photo.getPlaceholderColor());
+                    }
+                });
+                updated += batch.size();
+            }
+            if (updated > 0) {
+                Log.d(TAG, "Metadatos de imagen calculados para " + updated + " fotos");
+            }
+        });
+    }
+
+    /**
+     * Completa en segundo plano las coordenadas de las fotos guardadas sin posición (0,0)
+     * buscando en el registro persistente de posiciones el instante de su captura.
+     * Solo se usan posiciones a menos de {@link #MAX_BACKFILL_LOCATION_AGE_MS} de la captura.
+     * Cada lote actualizado se guarda en una única transacción y solo escribe las columnas
+     * de posición y el lugar, sin pisar lo que guardan a la vez los otros rellenos.
+     */
+    public void backfillLocations() {
+        executor.execute(() -> {
+            LocationTraceLog traceLog = LocationEngine.getInstance(appContext).getTraceLog();
+            LocationHistory.Fix fix = new LocationHistory.Fix();
+            long lastId = 0;
+            int scanned = 0;
+            int updated = 0;
+            try {
+                List<PhotoEntity> batch;
+                while (!(batch = photoDao.getPhotosMissingLocation(lastId, LOCATION_BACKFILL_BATCH)).isEmpty()) {
+                    List<PhotoEntity> located = new ArrayList<>();
+                    for (PhotoEntity photo : batch) {
+                        lastId = photo.getId();
+                        if (traceLog.locate(photo.getCaptureDate().getTime(), fix)
+                                && fix.stalenessMs <= MAX_BACKFILL_LOCATION_AGE_MS
+                                && (fix.latitude != 0 || fix.longitude != 0)) {
+                            photo.setLatitude(fix.latitude);
+                            photo.setLongitude(fix.longitude);
+                            photo.setAccuracy(fix.getAccuracyOrNull());
+                            photo.setLocationAgeMs(fix.stalenessMs);
+                            applyPlaceName(photo);
+                            located.add(photo);
+                        }
+                    }
+                    List<PhotoEntity> written = new ArrayList<>();
+                    if (!located.isEmpty()) {
+                        database.runInTransaction(() -> {
+                            for (PhotoEntity photo : located) {
+                                if (photoDao.updateMissingLocation(photo.getId(), photo.getLatitude(),
+                                        photo.getLongitude(), photo.getAccuracy(), photo.getLocationAgeMs(),
+                                        photo.getPlaceName()) > 0) {
+                                    written.add(photo);
+                                }
+                            }
+                        });
+                        for (PhotoEntity photo : written) {
+                            indexPhoto(photo);
+                            eventClusterer.onPhotoLocationChanged(photo.getId());
+                        }
+                    }
+                    scanned += batch.size();
+                    updated += written.size();
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error al completar coordenadas desde el registro de posiciones", e);
+            }
+            if (scanned > 0) {
+                Log.d(TAG, "Coordenadas completadas para " + updated + " de " + scanned + " fotos sin posición");
+            }
+        });
+    }
+
+    /**
+     * Agrupa en eventos, en una sola pasada en segundo plano, las fotos que aún no tienen
+     * evento (catálogos anteriores a la versión 5 de la base de datos). Las fotos nuevas
+     * se asignan a su evento de forma incremental al guardarlas.
+     */
+    public void rebuildEventsIfNeeded() {
+        executor.execute(() -> {
+            try {
+                eventClusterer.rebuildIfNeeded();
+            } catch (Exception e) {
+                Log.e(TAG, "Error al reconstruir los eventos", e);
+            }
+        });
+    }
+
+    /**
+     * Busca las fotos geoetiquetadas más cercanas a una posición, ordenadas por distancia
+     * de círculo máximo (haversine)
+     * @param limit Número máximo de fotos, como mucho {@link #MAX_NEAREST_RESULTS}
+     * @param listener Recibe el resultado en el hilo principal
+     */
+    public void findNearestPhotos(double latitude, double longitude, int limit, OnNearestPhotosListener listener) {
+        executor.execute(() -> {
+            List<NearbyPhoto> result = new ArrayList<>();
+            try {
+                ensureLocationIndex();
+                int maxResults = Math.max(0, Math.min(limit, MAX_NEAREST_RESULTS));
+                long[] ids = new long[maxResults];
+                double[] distancesKm = new double[maxResults];
+                long start = System.nanoTime();
+                int found = locationIndex.nearest(latitude, longitude, maxResults, ids, distancesKm);
+                long queryUs = (System.nanoTime() - start) / 1000;
+
+                List<Long> idList = new ArrayList<>(found);
+                for (int i = 0; i < found; i++) {
+                    idList.add(ids[i]);
+                }
+                Map<Long, PhotoEntity> photosById = new HashMap<>();
+                if (found > 0) {
+                    for (PhotoEntity photo : photoDao.getPhotosByIds(idList)) {
+                        photosById.put(photo.getId(), photo);
+                    }
+                }
+                // Mantener el orden por distancia del índice
+                for (int i = 0; i < found; i++) {
+                    PhotoEntity photo = photosById.get(ids[i]);
+                    if (photo != null) {
+                        result.add(new NearbyPhoto(photo, distancesKm[i]));
+                    }
+                }
+                Log.d(TAG, "Búsqueda por cercanía: " + result.size() + " fotos en " + queryUs + "us");
+            } catch (Exception e) {
+                Log.e(TAG, "Error en la búsqueda por cercanía", e);
+            }
+            if (listener != null) {
+                mainHandler.post(() -> listener.onNearestPhotosFound(result));
+            }
+        });
+    }
+
+    /**
+     * Carga el índice espacial con las coordenadas de la base de datos si aún no se ha hecho
+     */
+    private void ensureLocationIndex() {
+        synchronized (locationIndex) {
+            if (locationIndexLoaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<PhotoCoordinates> coordinates = photoDao.getAllPhotoCoordinates();
+            int count = coordinates.size();
+            long[] ids = new long[count];
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            for (int i = 0; i < count; i++) {
+                PhotoCoordinates c = coordinates.get(i);
+                ids[i] = c.id;
+                latitudes[i] = c.latitude;
+                longitudes[i] = c.longitude;
+            }
+            locationIndex.build(ids, latitudes, longitudes, count);
+            locationIndexLoaded = true;
+            Log.d(TAG, "Índice espacial construido con " + count + " fotos en "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+
+    /**
+     * Refleja en el índice espacial la posición actual de una foto ya guardada.
+     * Mientras el índice no esté cargado no hace nada: la carga lee la base de datos.
+     */
+    private static void indexPhoto(PhotoEntity photo) {
+        synchronized (locationIndex) {
+            if (!locationIndexLoaded) {
+                return;
+            }
+            if (photo.getLatitude() == 0 && photo.getLongitude() == 0) {
+                locationIndex.remove(photo.getId());
+            } else {
+                locationIndex.insert(photo.getId(), photo.getLatitude(), photo.getLongitude());
+            }
+        }
+    }
+
+    private static void unindexPhoto(long photoId) {
+        synchronized (locationIndex) {
+            if (locationIndexLoaded) {
+                locationIndex.remove(photoId);
+            }
+        }
+    }
+
+    /**
+     * Calcula en segundo plano el nombre del lugar de las fotos con coordenadas que aún
+     * no lo tienen (fotos anteriores a la versión 4 de la base de datos).
+     * Cada lote se guarda en una única transacción y solo escribe la columna del lugar.
+     * Así no pisa los metadatos ni las coordenadas que guardan a la vez los otros rellenos.
+     */
+    public void backfillPlaceNames() {
+        executor.execute(() -> {
+            long lastId = 0;
+            int updated = 0;
+            List<PhotoEntity> batch;
+            while (!(batch = photoDao.getPhotosMissingPlace(lastId, PLACE_BACKFILL_BATCH)).isEmpty()) {
+                List<PhotoEntity> named = new ArrayList<>();
+                for (PhotoEntity photo : batch) {
+                    lastId = photo.getId();
+                    if (applyPlaceName(photo)) {
+                        named.add(photo);
+                    }
+                }
+                if (named.isEmpty()) {
+                    // Índice no disponible: no tiene sentido seguir
+                    break;
+                }
+                database.runInTransaction(() -> {
+                    for (PhotoEntity photo : named) {
+                        photoDao.updateMissingPlaceName(photo.getId(), photo.getLatitude(), photo.getLongitude(),
+                                photo.getPlaceName());
+                    }
+                });
+                updated += named.size();
+            }
+            if (updated > 0) {
+                Log.d(TAG, "Lugar calculado para " + updated + " fotos");
+            }
+        });
+    }
+
+    /**
+     * Asigna a la foto el nombre del lugar más cercano a sus coordenadas
+     * @return false si la foto no tiene coordenadas o el índice de lugares no está disponible
+     */
+    private boolean applyPlaceName(PhotoEntity photo) {
+        if (photo.getLatitude() == 0 && photo.getLongitude() == 0) {
+            return false;
+        }
+        String placeName = OfflineGeocoder.getInstance(appContext)
+                .getPlaceName(photo.getLatitude(), photo.getLongitude());
+        if (placeName == null) {
+            return false;
+        }
+        photo.setPlaceName(placeName);
+        return true;
+    }
+
+    /**
+     * Resultado de {@link #deletePhotoWithFile}
+     */
+    public static class DeleteResult {
+        private final PhotoEntity photo;
+        private final boolean successful;
+        private final boolean fileFound;
+        private final long elapsedMs;
+
+        public DeleteResult(PhotoEntity photo, boolean successful, boolean fileFound, long elapsedMs) {
+            this.photo = photo;
+            this.successful = successful;
+            this.fileFound = fileFound;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public PhotoEntity getPhoto() {
+            return photo;
+        }
+
+        public boolean isSuccessful() {
+            return successful;
+        }
+
+        // false si la foto ya no estaba en el almacenamiento y solo se ha eliminado la fila
+        public boolean isFileFound() {
+            return fileFound;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+
+    /**
+     * Foto encontrada por {@link #findNearestPhotos} con su distancia a la posición buscada
+     */
+    public static class NearbyPhoto {
+        private final PhotoEntity photo;
+        private final double distanceKm;
+
+        public NearbyPhoto(PhotoEntity photo, double distanceKm) {
+            this.photo = photo;
+            this.distanceKm = distanceKm;
+        }
+
+        public PhotoEntity getPhoto() {
+            return photo;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    // Interfaz de callback para devolver las fotos más cercanas a una posición
+    public interface OnNearestPhotosListener {
+        void onNearestPhotosFound(List<NearbyPhoto> photos);
+    }
+
+    // Interfaz de callback para devolver una foto cargada por ID
+    public interface OnPhotoLoadedListener {
+        void onPhotoLoaded(PhotoEntity photo);
+    }
+
+    // Interfaz de callback para devolver las coordenadas de las fotos geoetiquetadas
+    public interface OnPhotoCoordinatesLoadedListener {
+        void onPhotoCoordinatesLoaded(List<PhotoCoordinates> coordinates);
+    }
+
+    // Interfaz de callback para notificar cuando se elimina una foto
+    public interface OnPhotoDeletedListener {
+        void onPhotoDeleted(DeleteResult result);
     }
 
     // Interfaz de callback para notificar cuando se guarda una foto
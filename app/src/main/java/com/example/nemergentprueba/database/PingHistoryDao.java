@@ -0,0 +1,72 @@
+package com.example.nemergentprueba.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * DAO para el historial de pings: muestras en bruto y agregados por minuto y por hora.
+ * Los rangos de tiempo son semiabiertos, [from, to), en milisegundos desde la época.
+ */
+@Dao
+public interface PingHistoryDao {
+
+    /**
+     * Inserta un lote de muestras en una única transacción
+     */
+    @Insert
+    void insertSamples(List<PingSampleEntity> samples);
+
+    /**
+     * Muestras de todos los destinos en un rango, agrupadas por destino y en orden temporal
+     */
+    @Query("SELECT * FROM ping_samples WHERE timestamp >= :from AND timestamp < :to ORDER BY target, timestamp")
+    List<PingSampleEntity> getSamplesBetween(long from, long to);
+
+    /**
+     * Muestras en bruto de un destino, para el detalle de las últimas horas
+     */
+    @Query("SELECT * FROM ping_samples WHERE target = :target AND timestamp >= :from AND timestamp < :to "
+            + "ORDER BY timestamp")
+    List<PingSampleEntity> getTargetSamples(String target, long from, long to);
+
+    @Query("SELECT MIN(timestamp) FROM ping_samples")
+    Long getOldestSampleTimestamp();
+
+    @Query("DELETE FROM ping_samples WHERE timestamp < :before")
+    int deleteSamplesBefore(long before);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertRollups(List<PingRollupEntity> rollups);
+
+    /**
+     * Agregados de un destino con una resolución dada; usa directamente la clave primaria
+     */
+    @Query("SELECT * FROM ping_rollups WHERE resolutionMs = :resolutionMs AND target = :target "
+            + "AND bucketStart >= :from AND bucketStart < :to ORDER BY bucketStart")
+    List<PingRollupEntity> getRollups(long resolutionMs, String target, long from, long to);
+
+    /**
+     * Inicio del último intervalo agregado con una resolución, null si no hay ninguno
+     */
+    @Query("SELECT MAX(bucketStart) FROM ping_rollups WHERE resolutionMs = :resolutionMs")
+    Long getLastRollupStart(long resolutionMs);
+
+    @Query("DELETE FROM ping_rollups WHERE resolutionMs = :resolutionMs AND bucketStart < :before")
+    int deleteRollupsBefore(long resolutionMs, long before);
+
+    /**
+     * Destinos con historial, en orden alfabético
+     */
+    @Query("SELECT DISTINCT target FROM ping_rollups ORDER BY target")
+    List<String> getHistoryTargets();
+
+    @Query("DELETE FROM ping_samples")
+    void deleteAllSamples();
+
+    @Query("DELETE FROM ping_rollups")
+    void deleteAllRollups();
+}
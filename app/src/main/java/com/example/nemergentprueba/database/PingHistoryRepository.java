@@ -0,0 +1,246 @@
+package com.example.nemergentprueba.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingEngine;
+import com.example.nemergentprueba.network.PingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositorio del historial de pings. Los resultados se acumulan en memoria y se escriben
+ * por lotes, cada lote en una única transacción, desde un solo hilo. Ese mismo hilo agrega
+ * cada minuto las muestras por minuto y por hora y borra lo que ha caducado: las
+ * muestras en bruto duran unos días y los agregados mucho más, así que el tamaño de la
+ * base de datos queda acotado y las consultas de semanas solo leen agregados.
+ */
+public class PingHistoryRepository implements PingEngine.ResultRecorder {
+    private static final String TAG = "PingHistoryRepository";
+    // Un lote se escribe al llenarse o, como tarde, pasado este tiempo
+    private static final int BATCH_SIZE = 200;
+    private static final long FLUSH_DELAY_MS = 2_000;
+    private static final long MAINTENANCE_INTERVAL_MS = 60_000;
+    // Un intervalo se agrega cuando ya no pueden llegar muestras suyas en un lote pendiente
+    private static final long LATE_SAMPLE_GRACE_MS = 5 * FLUSH_DELAY_MS;
+    // Conservación de cada nivel del historial
+    public static final long RAW_RETENTION_MS = TimeUnit.DAYS.toMillis(2);
+    public static final long MINUTE_RETENTION_MS = TimeUnit.DAYS.toMillis(14);
+    public static final long HOUR_RETENTION_MS = TimeUnit.DAYS.toMillis(365);
+
+    private static volatile PingHistoryRepository INSTANCE;
+
+    private final AppDatabase database;
+    private final PingHistoryDao historyDao;
+    // Un único hilo: los lotes se escriben en orden y nunca coinciden con el mantenimiento
+    private final ScheduledExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Protegidos por this
+    private List<PingSampleEntity> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    private PingHistoryRepository(Context context) {
+        database = AppDatabase.getInstance(context);
+        historyDao = database.pingHistoryDao();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ping-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // El mantenimiento no depende de que lleguen pings: también caduca el historial
+        // de una app que solo se abre para consultarlo
+        try {
+            executor.scheduleWithFixedDelay(this::maintain, 0, MAINTENANCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Historial de pings detenido: " + e.getMessage());
+        }
+    }
+
+    public static PingHistoryRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (PingHistoryRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new PingHistoryRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Añade un resultado al lote pendiente; no toca la base de datos en el hilo que llama
+     */
+    @Override
+    public void record(PingResult result) {
+        if (result.getTarget() == null) {
+            return;
+        }
+        long rttMicros = result.isSuccessful() ? TimeUnit.NANOSECONDS.toMicros(result.getCorrectedRttNanos()) : -1;
+        PingSampleEntity sample = new PingSampleEntity(result.getTarget().toString(),
+                result.getTimestamp(), result.getStatus(), rttMicros);
+        synchronized (this) {
+            pending.add(sample);
+            if (pending.size() >= BATCH_SIZE) {
+                flushScheduled = true;
+                submit(this::writePending, 0);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                submit(this::writePending, FLUSH_DELAY_MS);
+            }
+        }
+    }
+
+    /**
+     * Escribe ya el lote pendiente, p. ej. al terminar o cerrar una sesión de ping
+     */
+    @Override
+    public void flush() {
+        submit(this::writePending, 0);
+    }
+
+    private void submit(Runnable task, long delayMs) {
+        try {
+            executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Historial de pings detenido: " + e.getMessage());
+        }
+    }
+
+    private void writePending() {
+        List<PingSampleEntity> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            historyDao.insertSamples(batch);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error guardando el historial de pings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tarea periódica: una excepción que saliera de aquí cancelaría las siguientes ejecuciones
+     */
+    private void maintain() {
+        try {
+            runMaintenance(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error en el mantenimiento del historial de pings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Agrega las muestras de los intervalos cerrados desde el último agregado y borra lo caducado.
+     * Se recorre el historial por horas; cada hora se agrega en una transacción y reemplaza
+     * sus filas, así que repetir una hora ya agregada no cambia nada.
+     */
+    private void runMaintenance(long now) {
+        long start = System.nanoTime();
+        long closedBefore = now - LATE_SAMPLE_GRACE_MS;
+        long hour = PingRollupEntity.RESOLUTION_HOUR_MS;
+        long minute = PingRollupEntity.RESOLUTION_MINUTE_MS;
+        int written = 0;
+
+        Long oldest = historyDao.getOldestSampleTimestamp();
+        if (oldest != null) {
+            Long lastMinute = historyDao.getLastRollupStart(minute);
+            Long lastHour = historyDao.getLastRollupStart(hour);
+            long next = Math.min(lastMinute != null ? lastMinute + minute : oldest,
+                    lastHour != null ? lastHour + hour : oldest);
+            long window = PingRollupCalculator.bucketStart(Math.max(next, oldest), hour);
+            for (; window < closedBefore; window += hour) {
+                long from = window;
+                written += database.runInTransaction(() -> {
+                    List<PingSampleEntity> samples = historyDao.getSamplesBetween(from, from + hour);
+                    List<PingRollupEntity> rollups = new ArrayList<>(
+                            PingRollupCalculator.rollUp(samples, minute, closedBefore));
+                    rollups.addAll(PingRollupCalculator.rollUp(samples, hour, closedBefore));
+                    if (!rollups.isEmpty()) {
+                        historyDao.upsertRollups(rollups);
+                    }
+                    return rollups.size();
+                });
+            }
+        }
+
+        // Las muestras en bruto solo se borran si su hora ya está agregada
+        long rawCutoff = Math.min(now - RAW_RETENTION_MS, PingRollupCalculator.bucketStart(closedBefore, hour));
+        int purged = database.runInTransaction(() -> historyDao.deleteSamplesBefore(rawCutoff)
+                + historyDao.deleteRollupsBefore(minute, now - MINUTE_RETENTION_MS)
+                + historyDao.deleteRollupsBefore(hour, now - HOUR_RETENTION_MS));
+        Log.d(TAG, "Mantenimiento del historial de pings: " + written + " agregados, " + purged
+                + " filas caducadas en " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * Carga los agregados de un destino en un rango de tiempo
+     * @param resolutionMs PingRollupEntity.RESOLUTION_MINUTE_MS o RESOLUTION_HOUR_MS
+     * @param listener Recibe el resultado en el hilo principal
+     */
+    public void loadRollups(String target, long resolutionMs, long from, long to, OnPingRollupsLoadedListener listener) {
+        submit(() -> {
+            List<PingRollupEntity> rollups = historyDao.getRollups(resolutionMs, target, from, to);
+            mainHandler.post(() -> listener.onPingRollupsLoaded(rollups));
+        }, 0);
+    }
+
+    /**
+     * Carga las muestras en bruto de un destino; solo existen las de los últimos días
+     * @param listener Recibe el resultado en el hilo principal
+     */
+    public void loadSamples(String target, long from, long to, OnPingSamplesLoadedListener listener) {
+        submit(() -> {
+            List<PingSampleEntity> samples = historyDao.getTargetSamples(target, from, to);
+            mainHandler.post(() -> listener.onPingSamplesLoaded(samples));
+        }, 0);
+    }
+
+    /**
+     * Carga los destinos que tienen historial agregado
+     * @param listener Recibe el resultado en el hilo principal
+     */
+    public void loadHistoryTargets(OnHistoryTargetsLoadedListener listener) {
+        submit(() -> {
+            List<String> targets = historyDao.getHistoryTargets();
+            mainHandler.post(() -> listener.onHistoryTargetsLoaded(targets));
+        }, 0);
+    }
+
+    /**
+     * Borra todo el historial, incluido el lote aún no escrito
+     */
+    public void clearHistory() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        submit(() -> database.runInTransaction(() -> {
+            historyDao.deleteAllSamples();
+            historyDao.deleteAllRollups();
+        }), 0);
+    }
+
+    public interface OnPingRollupsLoadedListener {
+        void onPingRollupsLoaded(List<PingRollupEntity> rollups);
+    }
+
+    public interface OnPingSamplesLoadedListener {
+        void onPingSamplesLoaded(List<PingSampleEntity> samples);
+    }
+
+    public interface OnHistoryTargetsLoadedListener {
+        void onHistoryTargetsLoaded(List<String> targets);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.nemergentprueba.database;
+
+import com.example.nemergentprueba.network.PingResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calcula los agregados por intervalo de una serie de muestras de ping.
+ * No depende de la base de datos: recibe las muestras ya leídas y devuelve las filas a guardar.
+ */
+final class PingRollupCalculator {
+
+    private PingRollupCalculator() {
+    }
+
+    /**
+     * Inicio del intervalo que contiene un instante
+     */
+    static long bucketStart(long timestamp, long resolutionMs) {
+        return Math.floorDiv(timestamp, resolutionMs) * resolutionMs;
+    }
+
+    /**
+     * Agrega las muestras por destino e intervalo. Solo se devuelven intervalos cerrados
+     * (que terminan antes de closedBefore), porque uno abierto aún puede recibir muestras.
+     * Como en las estadísticas de la sesión, un fallo de DNS no cuenta como intento enviado
+     * ni como pérdida; un intervalo con solo fallos de DNS no tiene agregado.
+     * @param samples Muestras ordenadas por destino y hora, como las devuelve
+     *                {@link PingHistoryDao#getSamplesBetween}
+     * @param resolutionMs Duración de cada intervalo
+     * @param closedBefore Instante hasta el que los intervalos se consideran completos
+     */
+    static List<PingRollupEntity> rollUp(List<PingSampleEntity> samples, long resolutionMs, long closedBefore) {
+        List<PingRollupEntity> rollups = new ArrayList<>();
+        long[] rtts = new long[16];
+        int start = 0;
+        while (start < samples.size()) {
+            PingSampleEntity first = samples.get(start);
+            long bucket = bucketStart(first.getTimestamp(), resolutionMs);
+            int end = start + 1;
+            while (end < samples.size()
+                    && samples.get(end).getTarget().equals(first.getTarget())
+                    && bucketStart(samples.get(end).getTimestamp(), resolutionMs) == bucket) {
+                end++;
+            }
+            if (bucket + resolutionMs <= closedBefore) {
+                if (rtts.length < end - start) {
+                    rtts = new long[end - start];
+                }
+                PingRollupEntity rollup = aggregate(samples, start, end, resolutionMs, bucket, rtts);
+                if (rollup.getCount() > 0) {
+                    rollups.add(rollup);
+                }
+            }
+            start = end;
+        }
+        return rollups;
+    }
+
+    // Agrega las muestras [start, end), todas del mismo destino e intervalo
+    private static PingRollupEntity aggregate(List<PingSampleEntity> samples, int start, int end,
+                                              long resolutionMs, long bucket, long[] rtts) {
+        PingRollupEntity rollup = new PingRollupEntity(resolutionMs, samples.get(start).getTarget(), bucket);
+        int sent = 0;
+        int answered = 0;
+        long sum = 0;
+        for (int i = start; i < end; i++) {
+            PingSampleEntity sample = samples.get(i);
+            if (sample.getStatus() == PingResult.STATUS_DNS_FAILURE) {
+                // El intento no llegó a salir
+                continue;
+            }
+            sent++;
+            if (sample.getStatus() == PingResult.STATUS_OK && sample.getRttMicros() >= 0) {
+                rtts[answered++] = sample.getRttMicros();
+                sum += sample.getRttMicros();
+            }
+        }
+        rollup.setCount(sent);
+        rollup.setLost(sent - answered);
+        if (answered == 0) {
+            rollup.setMinMicros(-1);
+            rollup.setAvgMicros(-1);
+            rollup.setMaxMicros(-1);
+            rollup.setP95Micros(-1);
+            return rollup;
+        }
+        // Percentil exacto por rango más cercano; un intervalo tiene como mucho unos miles de muestras
+        Arrays.sort(rtts, 0, answered);
+        rollup.setMinMicros(rtts[0]);
+        rollup.setAvgMicros(sum / answered);
+        rollup.setMaxMicros(rtts[answered - 1]);
+        rollup.setP95Micros(rtts[(int) Math.ceil(0.95 * answered) - 1]);
+        return rollup;
+    }
+}
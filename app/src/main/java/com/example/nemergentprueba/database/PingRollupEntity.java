@@ -0,0 +1,122 @@
+package com.example.nemergentprueba.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Entidad con los agregados de los pings a un destino durante un intervalo fijo
+ * (un minuto o una hora). La clave es (resolución, destino, inicio del intervalo), así que
+ * recalcular un intervalo reemplaza la fila anterior.
+ */
+@Entity(tableName = "ping_rollups", primaryKeys = {"resolutionMs", "target", "bucketStart"})
+public class PingRollupEntity {
+    public static final long RESOLUTION_MINUTE_MS = 60_000L;
+    public static final long RESOLUTION_HOUR_MS = 60 * RESOLUTION_MINUTE_MS;
+
+    // Duración del intervalo: RESOLUTION_MINUTE_MS o RESOLUTION_HOUR_MS
+    private long resolutionMs;
+
+    @NonNull
+    private String target;
+
+    // Inicio del intervalo en milisegundos desde la época, múltiplo de la resolución
+    private long bucketStart;
+
+    // Intentos en el intervalo y cuántos de ellos fallaron
+    private int count;
+    private int lost;
+
+    // Latencias de los intentos con respuesta en microsegundos, -1 si no hubo ninguno
+    private long minMicros;
+    private long avgMicros;
+    private long maxMicros;
+    private long p95Micros;
+
+    // Constructor
+    public PingRollupEntity(long resolutionMs, @NonNull String target, long bucketStart) {
+        this.resolutionMs = resolutionMs;
+        this.target = target;
+        this.bucketStart = bucketStart;
+    }
+
+    /**
+     * Porcentaje de intentos perdidos en el intervalo
+     */
+    public double getLossPercent() {
+        return count == 0 ? 0 : 100.0 * lost / count;
+    }
+
+    // Getters and Setters
+    public long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    public void setResolutionMs(long resolutionMs) {
+        this.resolutionMs = resolutionMs;
+    }
+
+    @NonNull
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(@NonNull String target) {
+        this.target = target;
+    }
+
+    public long getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(long bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public int getLost() {
+        return lost;
+    }
+
+    public void setLost(int lost) {
+        this.lost = lost;
+    }
+
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    public void setMinMicros(long minMicros) {
+        this.minMicros = minMicros;
+    }
+
+    public long getAvgMicros() {
+        return avgMicros;
+    }
+
+    public void setAvgMicros(long avgMicros) {
+        this.avgMicros = avgMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public void setP95Micros(long p95Micros) {
+        this.p95Micros = p95Micros;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.nemergentprueba.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entidad que representa un intento de ping guardado en el historial.
+ * Las muestras en bruto solo se conservan unos días; después quedan sus agregados
+ * por minuto y por hora en {@link PingRollupEntity}.
+ */
+@Entity(tableName = "ping_samples", indices = {@Index("timestamp")})
+public class PingSampleEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    // Destino tal y como se escribió (host, host:puerto o URL)
+    @NonNull
+    private String target;
+
+    // Hora del intento en milisegundos desde la época
+    private long timestamp;
+
+    // Uno de los PingResult.STATUS_*
+    private int status;
+
+    // Latencia en microsegundos, -1 si no hubo respuesta
+    private long rttMicros;
+
+    // Constructor
+    public PingSampleEntity(@NonNull String target, long timestamp, int status, long rttMicros) {
+        this.target = target;
+        this.timestamp = timestamp;
+        this.status = status;
+        this.rttMicros = rttMicros;
+    }
+
+    // Getters and Setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(@NonNull String target) {
+        this.target = target;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public long getRttMicros() {
+        return rttMicros;
+    }
+
+    public void setRttMicros(long rttMicros) {
+        this.rttMicros = rttMicros;
+    }
+}
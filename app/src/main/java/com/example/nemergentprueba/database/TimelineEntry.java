@@ -0,0 +1,15 @@
+package com.example.nemergentprueba.database;
+
+import java.util.Date;
+
+/**
+ * Proyección de una foto en la línea temporal (orden por fecha de captura y, a igualdad, por ID)
+ * con el evento al que pertenece, o null si aún no tiene evento.
+ */
+public class TimelineEntry {
+    public long id;
+    public Date captureDate;
+    public double latitude;
+    public double longitude;
+    public Long eventId;
+}
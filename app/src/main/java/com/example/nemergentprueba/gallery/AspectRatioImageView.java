@@ -0,0 +1,58 @@
+package com.example.nemergentprueba.gallery;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.AppCompatImageView;
+
+/**
+ * ImageView que reserva su altura a partir de la relación de aspecto conocida de la foto,
+ * de modo que la celda tiene su tamaño definitivo antes de decodificar la miniatura.
+ * Si la relación no se conoce se usa la altura definida en el layout.
+ */
+public class AspectRatioImageView extends AppCompatImageView {
+
+    // Límites para que fotos panorámicas o muy verticales no descuadren la cuadrícula
+    private static final float MIN_RATIO = 0.5f;
+    private static final float MAX_RATIO = 1.5f;
+
+    // Alto / ancho; 0 si se desconoce
+    private float aspectRatio = 0f;
+
+    public AspectRatioImageView(Context context) {
+        super(context);
+    }
+
+    public AspectRatioImageView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public AspectRatioImageView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Establece la relación de aspecto a partir de las dimensiones de la foto
+     * @param width Ancho en píxeles (0 o negativo si se desconoce)
+     * @param height Alto en píxeles (0 o negativo si se desconoce)
+     */
+    public void setImageSize(int width, int height) {
+        float ratio = width > 0 && height > 0
+                ? Math.max(MIN_RATIO, Math.min((float) height / width, MAX_RATIO))
+                : 0f;
+        if (ratio != aspectRatio) {
+            aspectRatio = ratio;
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (aspectRatio > 0f) {
+            int width = getMeasuredWidth();
+            setMeasuredDimension(width, Math.round(width * aspectRatio));
+        }
+    }
+}
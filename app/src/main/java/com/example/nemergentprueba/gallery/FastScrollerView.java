@@ -0,0 +1,174 @@
+package com.example.nemergentprueba.gallery;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.nemergentprueba.R;
+
+/**
+ * Barra de desplazamiento rápido arrastrable para la galería.
+ * Al arrastrar muestra la fecha de la sección de destino y salta a ella usando
+ * el índice de secciones (búsqueda binaria), sin recorrer la lista de fotos.
+ */
+public class FastScrollerView extends View {
+
+    private static final float THUMB_WIDTH_DP = 8;
+    private static final float THUMB_HEIGHT_DP = 48;
+    private static final float TOUCH_WIDTH_DP = 32;
+    private static final float BUBBLE_PADDING_DP = 12;
+
+    private final Paint thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bubbleTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF thumbRect = new RectF();
+    private final RectF bubbleRect = new RectF();
+
+    private float density;
+    private RecyclerView recyclerView;
+    private PhotoAdapter adapter;
+    private float thumbFraction;
+    private boolean dragging;
+    private int bubbleSection = -1;
+    private String bubbleLabel;
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            if (!dragging) {
+                updateThumbFromScroll();
+            }
+        }
+    };
+
+    public FastScrollerView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public FastScrollerView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    private void init(Context context) {
+        density = context.getResources().getDisplayMetrics().density;
+        thumbPaint.setColor(ContextCompat.getColor(context, R.color.colorAccent));
+        bubblePaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+        bubbleTextPaint.setColor(ContextCompat.getColor(context, R.color.white));
+        bubbleTextPaint.setTextSize(16 * context.getResources().getDisplayMetrics().scaledDensity);
+    }
+
+    /**
+     * Conecta la barra con la lista de la galería
+     */
+    public void attachTo(RecyclerView recyclerView, PhotoAdapter adapter) {
+        this.recyclerView = recyclerView;
+        this.adapter = adapter;
+        recyclerView.addOnScrollListener(scrollListener);
+    }
+
+    private boolean isScrollable() {
+        return recyclerView != null
+                && recyclerView.computeVerticalScrollRange() > recyclerView.computeVerticalScrollExtent() * 2;
+    }
+
+    private void updateThumbFromScroll() {
+        int range = recyclerView.computeVerticalScrollRange() - recyclerView.computeVerticalScrollExtent();
+        thumbFraction = range > 0 ? (float) recyclerView.computeVerticalScrollOffset() / range : 0f;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (!isScrollable()) {
+            return;
+        }
+
+        float thumbHeight = THUMB_HEIGHT_DP * density;
+        float thumbWidth = THUMB_WIDTH_DP * density;
+        float thumbTop = thumbFraction * (getHeight() - thumbHeight);
+        thumbRect.set(getWidth() - thumbWidth * 2, thumbTop, getWidth() - thumbWidth, thumbTop + thumbHeight);
+        canvas.drawRoundRect(thumbRect, thumbWidth, thumbWidth, thumbPaint);
+
+        if (dragging && bubbleLabel != null) {
+            float padding = BUBBLE_PADDING_DP * density;
+            float textWidth = bubbleTextPaint.measureText(bubbleLabel);
+            float bubbleHeight = thumbHeight;
+            float right = thumbRect.left - padding;
+            bubbleRect.set(right - textWidth - padding * 2, thumbTop, right, thumbTop + bubbleHeight);
+            canvas.drawRoundRect(bubbleRect, padding, padding, bubblePaint);
+            float baseline = bubbleRect.centerY() - (bubbleTextPaint.descent() + bubbleTextPaint.ascent()) / 2f;
+            canvas.drawText(bubbleLabel, bubbleRect.left + padding, baseline, bubbleTextPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (adapter == null || !isScrollable()) {
+            return false;
+        }
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Solo capturamos los toques en el borde derecho; el resto llega a la lista
+                if (event.getX() < getWidth() - TOUCH_WIDTH_DP * density) {
+                    return false;
+                }
+                dragging = true;
+                getParent().requestDisallowInterceptTouchEvent(true);
+                scrollToFraction(event.getY());
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (dragging) {
+                    scrollToFraction(event.getY());
+                    return true;
+                }
+                return false;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                dragging = false;
+                bubbleSection = -1;
+                invalidate();
+                return true;
+            default:
+                return dragging;
+        }
+    }
+
+    private void scrollToFraction(float y) {
+        SectionIndex index = adapter.getSectionIndex();
+        if (index.getPhotoCount() == 0) {
+            return;
+        }
+
+        thumbFraction = Math.max(0f, Math.min(1f, y / getHeight()));
+        int photoIndex = Math.round(thumbFraction * (index.getPhotoCount() - 1));
+        int section = index.sectionForPhotoIndex(photoIndex);
+        int position = index.adapterPositionForPhotoIndex(photoIndex);
+
+        if (section != bubbleSection) {
+            bubbleSection = section;
+            bubbleLabel = adapter.getSectionLabel(section);
+        }
+
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager instanceof GridLayoutManager) {
+            ((GridLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+        } else if (layoutManager != null) {
+            layoutManager.scrollToPosition(position);
+        }
+        invalidate();
+    }
+}
@@ -1,12 +1,10 @@
 package com.example.nemergentprueba.gallery;
 
-import android.content.ContentResolver;
 import android.content.DialogInterface;
-import android.net.Uri;
-import android.os.Build;
+import android.content.Intent;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.View;
 import android.widget.TextView;
@@ -21,18 +19,42 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.nemergentprueba.R;
 import com.example.nemergentprueba.database.PhotoEntity;
 import com.example.nemergentprueba.database.PhotoRepository;
+import com.example.nemergentprueba.gallery.map.PhotoMapActivity;
+import com.example.nemergentprueba.gallery.viewer.PhotoViewerActivity;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-public class GalleryActivity extends AppCompatActivity implements PhotoAdapter.OnPhotoDeleteListener {
+public class GalleryActivity extends AppCompatActivity implements PhotoAdapter.OnPhotoDeleteListener,
+        PhotoAdapter.OnPhotoClickListener {
 
     private static final String TAG = "GalleryActivity";
+    private static final int GRID_COLUMNS = 2;
+    // Con más días distintos que este valor agrupamos por mes
+    private static final int MAX_DAY_SECTIONS = 90;
+    // Por encima de este número de cambios es más barato reconstruir el índice
+    private static final int MAX_INCREMENTAL_CHANGES = 64;
+
     private RecyclerView photoRecyclerView;
     private PhotoAdapter photoAdapter;
+    private SectionHeaderDecoration headerDecoration;
     private TextView emptyGalleryMessage;
     private PhotoRepository photoRepository;
 
+    // El índice de secciones se calcula en un hilo propio y se publica en el principal
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Solo se accede desde indexExecutor
+    private List<PhotoEntity> indexedPhotos = new ArrayList<>();
+    private SectionIndex indexedSections;
+    // Fotos quitadas de la lista cuyo borrado aún no ha terminado (hilo principal)
+    private final Set<Long> pendingDeletions = new HashSet<>();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -43,13 +65,42 @@ public class GalleryActivity extends AppCompatActivity implements PhotoAdapter.O
         emptyGalleryMessage = findViewById(R.id.emptyGalleryMessage);
 
         // Configurar RecyclerView
-        photoRecyclerView.setLayoutManager(new GridLayoutManager(this, 2)); // 2 columnas
         photoAdapter = new PhotoAdapter(this);
         photoAdapter.setOnPhotoDeleteListener(this);
+        photoAdapter.setOnPhotoClickListener(this);
+
+        GridLayoutManager layoutManager = new GridLayoutManager(this, GRID_COLUMNS);
+        // Las cabeceras de sección ocupan toda la fila
+        layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return photoAdapter.getItemViewType(position) == PhotoAdapter.VIEW_TYPE_HEADER
+                        ? GRID_COLUMNS : 1;
+            }
+        });
+        photoRecyclerView.setLayoutManager(layoutManager);
         photoRecyclerView.setAdapter(photoAdapter);
 
+        headerDecoration = new SectionHeaderDecoration(this, photoAdapter);
+        photoRecyclerView.addItemDecoration(headerDecoration);
+
+        FastScrollerView fastScroller = findViewById(R.id.fastScroller);
+        fastScroller.attachTo(photoRecyclerView, photoAdapter);
+
+        // Vista de mapa con las fotos geoetiquetadas
+        findViewById(R.id.mapButton).setOnClickListener(v ->
+                startActivity(new Intent(this, PhotoMapActivity.class)));
+
         // Inicializar el repositorio
         photoRepository = new PhotoRepository(this);
+        // Completar dimensiones y marcador de las fotos guardadas antes de tenerlos
+        photoRepository.backfillImageMetadata();
+        // Geoetiquetar con el registro de posiciones las fotos tomadas sin posición
+        photoRepository.backfillLocations();
+        // Nombre del lugar de las fotos con coordenadas guardadas antes de tenerlo
+        photoRepository.backfillPlaceNames();
+        // Agrupar en eventos las fotos guardadas antes de tenerlos
+        photoRepository.rebuildEventsIfNeeded();
 
         // Observar cambios en la lista de fotos
         observePhotosList();
@@ -58,17 +109,111 @@ public class GalleryActivity extends AppCompatActivity implements PhotoAdapter.O
     private void observePhotosList() {
         LiveData<List<PhotoEntity>> photosLiveData = photoRepository.getAllPhotos();
         
-        // Observer que actualiza la UI cuando cambia la lista de fotos
+        // Observer que recalcula las secciones en segundo plano cuando cambia la lista de fotos
         photosLiveData.observe(this, photos -> {
-            if (photos != null && !photos.isEmpty()) {
-                photoAdapter.setPhotos(photos);
-                showPhotoList();
-            } else {
+            List<PhotoEntity> snapshot = new ArrayList<>();
+            if (photos != null) {
+                // No volver a mostrar fotos cuyo borrado sigue en curso
+                for (PhotoEntity photo : photos) {
+                    if (!pendingDeletions.contains(photo.getId())) {
+                        snapshot.add(photo);
+                    }
+                }
+            }
+            indexExecutor.execute(() -> publishSections(snapshot));
+        });
+    }
+
+    /**
+     * Actualiza el índice de secciones (en indexExecutor) y lo publica en el hilo principal
+     */
+    private void publishSections(List<PhotoEntity> photos) {
+        long start = System.nanoTime();
+        SectionIndex index = updateSectionsIncrementally(photos);
+        boolean incremental = index != null;
+        if (index == null) {
+            index = buildSections(photos);
+        }
+        indexedPhotos = photos;
+        indexedSections = index;
+        Log.d(TAG, "Índice de secciones " + (incremental ? "actualizado" : "construido") + " en "
+                + ((System.nanoTime() - start) / 1000) + "us: " + index.getSectionCount() + " secciones");
+
+        // El adapter modifica su índice al borrar, así que le damos una copia propia
+        SectionIndex published = index.copy();
+        mainHandler.post(() -> {
+            if (isDestroyed()) {
+                return;
+            }
+            photoAdapter.setPhotos(photos, published);
+            headerDecoration.onIndexChanged();
+            if (photos.isEmpty()) {
                 showEmptyState();
+            } else {
+                showPhotoList();
             }
         });
     }
 
+    /**
+     * Construye el índice completo: por días, o por meses si hay demasiados días distintos
+     */
+    private SectionIndex buildSections(List<PhotoEntity> photos) {
+        long[] timestamps = new long[photos.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = photos.get(i).getCaptureDate().getTime();
+        }
+        return SectionIndex.build(timestamps, MAX_DAY_SECTIONS, TimeZone.getDefault());
+    }
+
+    /**
+     * Aplica al índice anterior solo las fotos añadidas o eliminadas
+     * @return El índice actualizado, o null si conviene reconstruirlo
+     */
+    private SectionIndex updateSectionsIncrementally(List<PhotoEntity> photos) {
+        if (indexedSections == null
+                || Math.abs(photos.size() - indexedPhotos.size()) > MAX_INCREMENTAL_CHANGES) {
+            return null;
+        }
+
+        Set<Long> previousIds = new HashSet<>();
+        for (PhotoEntity photo : indexedPhotos) {
+            previousIds.add(photo.getId());
+        }
+        Set<Long> currentIds = new HashSet<>();
+        List<PhotoEntity> added = new ArrayList<>();
+        for (PhotoEntity photo : photos) {
+            currentIds.add(photo.getId());
+            if (!previousIds.contains(photo.getId())) {
+                added.add(photo);
+            }
+        }
+        List<PhotoEntity> removed = new ArrayList<>();
+        for (PhotoEntity photo : indexedPhotos) {
+            if (!currentIds.contains(photo.getId())) {
+                removed.add(photo);
+            }
+        }
+
+        if (added.size() + removed.size() > MAX_INCREMENTAL_CHANGES) {
+            return null;
+        }
+
+        SectionIndex index = indexedSections.copy();
+        for (PhotoEntity photo : removed) {
+            index.remove(photo.getCaptureDate().getTime());
+        }
+        for (PhotoEntity photo : added) {
+            index.insert(photo.getCaptureDate().getTime());
+        }
+        // Misma regla de días o meses que en la construcción completa
+        if (index.adjustGranularity()) {
+            Log.d(TAG, "Galería agrupada ahora por " + (index.getGranularity() == SectionIndex.Granularity.DAY
+                    ? "días" : "meses"));
+        }
+        return index;
+    }
+
     private void showPhotoList() {
         photoRecyclerView.setVisibility(View.VISIBLE);
         emptyGalleryMessage.setVisibility(View.GONE);
@@ -79,67 +224,61 @@ public class GalleryActivity extends AppCompatActivity implements PhotoAdapter.O
         emptyGalleryMessage.setVisibility(View.VISIBLE);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        indexExecutor.shutdownNow();
+        photoAdapter.shutdown();
+    }
+
+    @Override
+    public void onPhotoClick(PhotoEntity photo) {
+        startActivity(PhotoViewerActivity.createIntent(this, photo.getRelativePath()));
+    }
+
     @Override
     public void onPhotoDelete(PhotoEntity photo, int position) {
         // Mostrar diálogo de confirmación
         new AlertDialog.Builder(this)
                 .setTitle(R.string.delete_photo)
                 .setMessage(R.string.confirm_delete_photo)
-                .setPositiveButton(R.string.ok, (dialog, which) -> deletePhoto(photo, position))
+                .setPositiveButton(R.string.ok, (dialog, which) -> deletePhoto(photo))
                 .setNegativeButton(R.string.cancel, null)
                 .show();
     }
     
-    private void deletePhoto(PhotoEntity photo, int position) {
-        boolean fileDeleted = false;
-        String path = photo.getRelativePath();
-        
-        try {
-            // Intentar eliminar según la versión de Android
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                if (path.startsWith("content://")) {
-                    // Es una URI de MediaStore
-                    ContentResolver resolver = getContentResolver();
-                    Uri photoUri = Uri.parse(path);
-                    int rowsDeleted = resolver.delete(photoUri, null, null);
-                    fileDeleted = rowsDeleted > 0;
-                } else {
-                    // Es una ruta de archivo
-                    File photoFile = new File(Environment.getExternalStoragePublicDirectory(
-                            Environment.DIRECTORY_DCIM), path.replace("DCIM/", ""));
-                    fileDeleted = photoFile.exists() && photoFile.delete();
-                }
-            } else {
-                // Para versiones anteriores
-                File photoFile;
-                if (path.startsWith("DCIM/")) {
-                    photoFile = new File(Environment.getExternalStoragePublicDirectory(
-                            Environment.DIRECTORY_DCIM), path.replace("DCIM/", ""));
-                } else {
-                    photoFile = new File(Environment.getExternalStoragePublicDirectory(
-                            Environment.DIRECTORY_DCIM), "Camera/" + path);
-                }
-                fileDeleted = photoFile.exists() && photoFile.delete();
+    /**
+     * Quita la foto de la lista al instante y la borra en segundo plano;
+     * si el borrado falla la foto vuelve a su sitio
+     */
+    private void deletePhoto(PhotoEntity photo) {
+        // La lista puede haberse vuelto a publicar con el diálogo abierto: la posición de
+        // la pulsación ya no vale, se busca la foto confirmada por su id
+        int position = photoAdapter.getPhotoPosition(photo.getId());
+        PhotoEntity removed = photoAdapter.removePhoto(position);
+        if (removed == null) {
+            Log.w(TAG, "La foto " + photo.getId() + " ya no está en la galería");
+            return;
+        }
+        pendingDeletions.add(photo.getId());
+        if (photoAdapter.getItemCount() == 0) {
+            showEmptyState();
+        }
+
+        photoRepository.deletePhotoWithFile(photo, result -> {
+            pendingDeletions.remove(result.getPhoto().getId());
+            if (isDestroyed()) {
+                return;
             }
-            
-            // Eliminar de la base de datos independientemente de si se eliminó el archivo
-            photoRepository.deletePhoto(photo);
-            
-            // Actualizar adapter
-            photoAdapter.removePhoto(position);
-            
-            // Verificar si la lista quedó vacía después de eliminar
-            if (photoAdapter.getItemCount() == 0) {
-                showEmptyState();
+            if (!result.isSuccessful()) {
+                // Deshacer la eliminación optimista
+                photoAdapter.restorePhoto(result.getPhoto());
+                headerDecoration.onIndexChanged();
+                showPhotoList();
             }
-            
-            Toast.makeText(this, fileDeleted ? 
-                    R.string.photo_deleted : R.string.error_deleting_photo, 
+            Toast.makeText(this, result.isSuccessful() ?
+                    R.string.photo_deleted : R.string.error_deleting_photo,
                     Toast.LENGTH_SHORT).show();
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error al eliminar foto: " + e.getMessage(), e);
-            Toast.makeText(this, R.string.error_deleting_photo, Toast.LENGTH_SHORT).show();
-        }
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,11 @@
 package com.example.nemergentprueba.gallery;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.net.Uri;
-import android.os.AsyncTask;
-import android.os.Build;
-import android.os.Environment;
-import android.provider.MediaStore;
-import android.util.LruCache;
+import android.graphics.drawable.ColorDrawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
@@ -22,58 +14,81 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.nemergentprueba.R;
 import com.example.nemergentprueba.database.PhotoEntity;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.lang.ref.WeakReference;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 
-public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.PhotoViewHolder> {
+public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    // Altura de la imagen en photo_item.xml
+    private static final int THUMBNAIL_SIZE_DP = 200;
+
+    public static final int VIEW_TYPE_HEADER = 0;
+    public static final int VIEW_TYPE_PHOTO = 1;
 
     private final Context context;
     private final List<PhotoEntity> photos;
     private final SimpleDateFormat dateFormat;
+    private final SimpleDateFormat dayFormat;
+    private final SimpleDateFormat monthFormat;
+    private SectionIndex sectionIndex;
     private OnPhotoDeleteListener deleteListener;
-    private LruCache<String, Bitmap> memoryCache;
+    private OnPhotoClickListener clickListener;
+    private final ThumbnailLoader thumbnailLoader;
 
     public PhotoAdapter(Context context) {
         this.context = context;
         this.photos = new ArrayList<>();
         this.dateFormat = new SimpleDateFormat(context.getString(R.string.date_time_format), Locale.getDefault());
-        
-        // Inicializar cache de memoria para imágenes
-        final int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
-        final int cacheSize = maxMemory / 8;
-        
-        memoryCache = new LruCache<String, Bitmap>(cacheSize) {
-            @Override
-            protected int sizeOf(String key, Bitmap bitmap) {
-                // El tamaño del cache se mide en kilobytes
-                return bitmap.getByteCount() / 1024;
-            }
-        };
+        this.dayFormat = new SimpleDateFormat(context.getString(R.string.section_day_format), Locale.getDefault());
+        this.monthFormat = new SimpleDateFormat(context.getString(R.string.section_month_format), Locale.getDefault());
+        this.sectionIndex = SectionIndex.build(new long[0], SectionIndex.Granularity.DAY, TimeZone.getDefault());
+
+        // Cargador de miniaturas con su propia caché en memoria
+        int thumbnailSizePx = (int) (THUMBNAIL_SIZE_DP * context.getResources().getDisplayMetrics().density);
+        this.thumbnailLoader = new ThumbnailLoader(context, thumbnailSizePx);
     }
 
     public void setOnPhotoDeleteListener(OnPhotoDeleteListener listener) {
         this.deleteListener = listener;
     }
 
+    public void setOnPhotoClickListener(OnPhotoClickListener listener) {
+        this.clickListener = listener;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return sectionIndex.isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_PHOTO;
+    }
+
     @NonNull
     @Override
-    public PhotoViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_HEADER) {
+            View view = LayoutInflater.from(context).inflate(R.layout.item_section_header, parent, false);
+            return new HeaderViewHolder(view);
+        }
         View view = LayoutInflater.from(context).inflate(R.layout.photo_item, parent, false);
         return new PhotoViewHolder(view);
     }
 
     @Override
-    public void onBindViewHolder(@NonNull PhotoViewHolder holder, int position) {
-        PhotoEntity photo = photos.get(position);
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, int position) {
+        if (viewHolder instanceof HeaderViewHolder) {
+            int section = sectionIndex.sectionForAdapterPosition(position);
+            ((HeaderViewHolder) viewHolder).titleTextView.setText(getSectionHeaderText(section));
+            return;
+        }
+
+        PhotoViewHolder holder = (PhotoViewHolder) viewHolder;
+        PhotoEntity photo = photos.get(sectionIndex.photoIndexForAdapterPosition(position));
         
         // Cargar la imagen de forma asíncrona
-        loadBitmapAsync(photo, holder.photoImageView);
+        loadThumbnail(photo, holder);
         
         // Configurar fecha y ubicación usando strings localizados
         holder.dateCapturedTextView.setText(context.getString(
@@ -81,144 +96,199 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.PhotoViewHol
             dateFormat.format(photo.getCaptureDate())
         ));
         
-        holder.locationTextView.setText(context.getString(
-            R.string.photo_location_label,
-            photo.getLatitude(),
-            photo.getLongitude()
-        ));
+        // El nombre del lugar, si se conoce, sustituye a las coordenadas
+        String placeName = photo.getPlaceName();
+        if (placeName != null && !placeName.isEmpty()) {
+            holder.locationTextView.setText(context.getString(R.string.photo_place_label, placeName));
+        } else {
+            holder.locationTextView.setText(context.getString(
+                R.string.photo_location_label,
+                photo.getLatitude(),
+                photo.getLongitude()
+            ));
+        }
+        
+        // Abrir la foto a pantalla completa al pulsar la imagen
+        holder.photoImageView.setOnClickListener(v -> {
+            if (clickListener != null) {
+                clickListener.onPhotoClick(photo);
+            }
+        });
         
         // Configurar botón de eliminación
         holder.deleteButton.setOnClickListener(v -> {
-            if (deleteListener != null) {
-                deleteListener.onPhotoDelete(photo, position);
+            int adapterPosition = holder.getBindingAdapterPosition();
+            if (deleteListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                deleteListener.onPhotoDelete(photo, adapterPosition);
             }
         });
     }
 
-    private void loadBitmapAsync(PhotoEntity photo, ImageView imageView) {
-        String photoPath = photo.getRelativePath();
-        
-        // Intentar obtener primero del cache
-        Bitmap cachedBitmap = getBitmapFromMemCache(photoPath);
-        if (cachedBitmap != null) {
-            imageView.setImageBitmap(cachedBitmap);
-            return;
+    private void loadThumbnail(PhotoEntity photo, PhotoViewHolder holder) {
+        // Cancelar la carga anterior si el ViewHolder se está reutilizando
+        holder.cancelPendingLoad();
+
+        // Con los metadatos del catálogo la celda se maqueta y pinta sin decodificar nada
+        holder.photoImageView.setImageSize(photo.getWidth(), photo.getHeight());
+        if (photo.hasImageMetadata()) {
+            holder.photoImageView.setImageDrawable(new ColorDrawable(photo.getPlaceholderColor()));
+        } else {
+            holder.photoImageView.setImageDrawable(null);
         }
-        
-        // Si no está en cache, cargar de forma asíncrona
-        new BitmapWorkerTask(imageView).execute(photo);
+
+        String photoPath = photo.getRelativePath();
+        holder.boundPath = photoPath;
+        holder.pendingRequest = thumbnailLoader.load(photoPath, (path, bitmap, source) -> {
+            // Ignorar resultados de una foto que ya no corresponde a este ViewHolder
+            if (path.equals(holder.boundPath)) {
+                holder.photoImageView.setImageBitmap(bitmap);
+                holder.pendingRequest = null;
+            }
+        });
     }
-    
-    private void addBitmapToMemoryCache(String key, Bitmap bitmap) {
-        if (getBitmapFromMemCache(key) == null) {
-            memoryCache.put(key, bitmap);
+
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder viewHolder) {
+        super.onViewRecycled(viewHolder);
+        if (viewHolder instanceof PhotoViewHolder) {
+            PhotoViewHolder holder = (PhotoViewHolder) viewHolder;
+            holder.cancelPendingLoad();
+            holder.boundPath = null;
         }
     }
 
-    private Bitmap getBitmapFromMemCache(String key) {
-        return memoryCache.get(key);
+    /**
+     * Texto de la cabecera de una sección según la agrupación (día o mes)
+     */
+    public String getSectionLabel(int section) {
+        SimpleDateFormat format = sectionIndex.getGranularity() == SectionIndex.Granularity.MONTH
+                ? monthFormat : dayFormat;
+        return format.format(new Date(sectionIndex.getSectionKey(section)));
     }
-    
-    // Tarea asíncrona para cargar imágenes sin bloquear la UI
-    private class BitmapWorkerTask extends AsyncTask<PhotoEntity, Void, Bitmap> {
-        private final WeakReference<ImageView> imageViewReference;
-        private PhotoEntity photoEntity = null;
 
-        BitmapWorkerTask(ImageView imageView) {
-            imageViewReference = new WeakReference<>(imageView);
-        }
+    /**
+     * Texto completo de la cabecera: fecha y número de fotos
+     */
+    public String getSectionHeaderText(int section) {
+        return context.getString(R.string.section_header_label,
+                getSectionLabel(section), sectionIndex.getSectionSize(section));
+    }
 
-        @Override
-        protected Bitmap doInBackground(PhotoEntity... params) {
-            photoEntity = params[0];
-            String path = photoEntity.getRelativePath();
-            Bitmap bitmap = null;
-            
-            try {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                    // Para Android 10 (API 29) y superior, usar MediaStore
-                    if (path.startsWith("content://")) {
-                        Uri imageUri = Uri.parse(path);
-                        try (InputStream is = context.getContentResolver().openInputStream(imageUri)) {
-                            if (is != null) {
-                                bitmap = BitmapFactory.decodeStream(is);
-                            }
-                        }
-                    } else {
-                        // Es una ruta de archivo
-                        File photoFile = new File(Environment.getExternalStoragePublicDirectory(
-                                Environment.DIRECTORY_DCIM), path.replace("DCIM/", ""));
-                        if (photoFile.exists()) {
-                            bitmap = BitmapFactory.decodeFile(photoFile.getAbsolutePath());
-                        }
-                    }
-                } else {
-                    // Para versiones anteriores
-                    File photoFile;
-                    if (path.startsWith("DCIM/")) {
-                        photoFile = new File(Environment.getExternalStoragePublicDirectory(
-                                Environment.DIRECTORY_DCIM), path.replace("DCIM/", ""));
-                    } else {
-                        photoFile = new File(Environment.getExternalStoragePublicDirectory(
-                                Environment.DIRECTORY_DCIM), "Camera/" + path);
-                    }
-                    
-                    if (photoFile.exists()) {
-                        bitmap = BitmapFactory.decodeFile(photoFile.getAbsolutePath());
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            
-            if (bitmap != null) {
-                // Agregar al cache
-                addBitmapToMemoryCache(path, bitmap);
-            }
-            
-            return bitmap;
-        }
+    public SectionIndex getSectionIndex() {
+        return sectionIndex;
+    }
 
-        @Override
-        protected void onPostExecute(Bitmap bitmap) {
-            if (bitmap != null && imageViewReference != null) {
-                final ImageView imageView = imageViewReference.get();
-                if (imageView != null) {
-                    imageView.setImageBitmap(bitmap);
-                }
-            }
-        }
+    /**
+     * Libera los recursos del cargador de miniaturas
+     */
+    public void shutdown() {
+        thumbnailLoader.shutdown();
     }
 
     @Override
     public int getItemCount() {
-        return photos.size();
+        return sectionIndex.getItemCount();
     }
 
-    public void setPhotos(List<PhotoEntity> newPhotos) {
+    /**
+     * Sustituye la lista de fotos junto con su índice de secciones ya calculado
+     * @param newPhotos Fotos ordenadas por fecha descendente
+     * @param newIndex Índice construido a partir de esas mismas fotos
+     */
+    public void setPhotos(List<PhotoEntity> newPhotos, SectionIndex newIndex) {
         this.photos.clear();
         if (newPhotos != null) {
             this.photos.addAll(newPhotos);
         }
+        this.sectionIndex = newIndex;
         notifyDataSetChanged();
     }
 
-    public void removePhoto(int position) {
-        if (position >= 0 && position < photos.size()) {
-            PhotoEntity removed = photos.remove(position);
-            // Eliminar también del cache si existe
-            if (removed != null) {
-                memoryCache.remove(removed.getRelativePath());
+    /**
+     * Posición actual de una foto en el adapter; puede cambiar cada vez que se publica la lista
+     * @return La posición, o -1 si la foto ya no está en la lista
+     */
+    public int getPhotoPosition(long photoId) {
+        for (int i = 0; i < photos.size(); i++) {
+            if (photos.get(i).getId() == photoId) {
+                return sectionIndex.adapterPositionForPhotoIndex(i);
             }
+        }
+        return -1;
+    }
+
+    /**
+     * Elimina una foto actualizando el índice de secciones de forma incremental
+     * @param position Posición de la foto en el adapter
+     * @return La foto eliminada, o null si la posición no corresponde a una foto
+     */
+    public PhotoEntity removePhoto(int position) {
+        if (position < 0 || position >= getItemCount() || sectionIndex.isHeader(position)) {
+            return null;
+        }
+
+        int section = sectionIndex.sectionForAdapterPosition(position);
+        int headerPosition = sectionIndex.getHeaderPosition(section);
+        PhotoEntity removed = photos.remove(sectionIndex.photoIndexForAdapterPosition(position));
+        // Eliminar también del cache si existe
+        thumbnailLoader.evict(removed.getRelativePath());
+
+        if (sectionIndex.remove(removed.getCaptureDate().getTime())) {
+            // La sección se ha quedado vacía: desaparecen la cabecera y la foto
+            notifyItemRangeRemoved(headerPosition, 2);
+        } else {
             notifyItemRemoved(position);
+            notifyItemChanged(headerPosition);
+        }
+        return removed;
+    }
+
+    /**
+     * Vuelve a insertar en su sitio una foto quitada con {@link #removePhoto(int)}
+     * (por ejemplo, si falla su borrado del almacenamiento)
+     */
+    public void restorePhoto(PhotoEntity photo) {
+        long timestamp = photo.getCaptureDate().getTime();
+        // Primera foto más antigua que la restaurada, igual que el ORDER BY captureDate DESC
+        int low = 0;
+        int high = photos.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (photos.get(mid).getCaptureDate().getTime() >= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        photos.add(low, photo);
+
+        int section = sectionIndex.insert(timestamp);
+        int headerPosition = sectionIndex.getHeaderPosition(section);
+        if (sectionIndex.getSectionSize(section) == 1) {
+            // Sección nueva: aparecen la cabecera y la foto
+            notifyItemRangeInserted(headerPosition, 2);
+        } else {
+            notifyItemInserted(sectionIndex.adapterPositionForPhotoIndex(low));
+            notifyItemChanged(headerPosition);
+        }
+    }
+
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        TextView titleTextView;
+
+        HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            titleTextView = itemView.findViewById(R.id.sectionTitleTextView);
         }
     }
 
     static class PhotoViewHolder extends RecyclerView.ViewHolder {
-        ImageView photoImageView;
+        AspectRatioImageView photoImageView;
         TextView dateCapturedTextView;
         TextView locationTextView;
         Button deleteButton;
+        String boundPath;
+        ThumbnailLoader.Request pendingRequest;
 
         PhotoViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -227,9 +297,20 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.PhotoViewHol
             locationTextView = itemView.findViewById(R.id.locationTextView);
             deleteButton = itemView.findViewById(R.id.deleteButton);
         }
+
+        void cancelPendingLoad() {
+            if (pendingRequest != null) {
+                pendingRequest.cancel();
+                pendingRequest = null;
+            }
+        }
     }
 
     public interface OnPhotoDeleteListener {
         void onPhotoDelete(PhotoEntity photo, int position);
     }
+
+    public interface OnPhotoClickListener {
+        void onPhotoClick(PhotoEntity photo);
+    }
 }
\ No newline at end of file
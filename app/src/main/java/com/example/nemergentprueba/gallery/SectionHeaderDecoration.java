@@ -0,0 +1,84 @@
+package com.example.nemergentprueba.gallery;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.nemergentprueba.R;
+
+/**
+ * Dibuja fija en la parte superior la cabecera de la sección visible.
+ * Cuando llega la cabecera de la siguiente sección, la empuja hacia arriba.
+ */
+public class SectionHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final PhotoAdapter adapter;
+    private final Paint backgroundPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float headerHeight;
+    private final float textPadding;
+
+    // Última etiqueta calculada, para no formatear la fecha en cada frame
+    private int cachedSection = -1;
+    private String cachedLabel;
+
+    public SectionHeaderDecoration(Context context, PhotoAdapter adapter) {
+        this.adapter = adapter;
+        float density = context.getResources().getDisplayMetrics().density;
+        float scaledDensity = context.getResources().getDisplayMetrics().scaledDensity;
+
+        headerHeight = 40 * density;
+        textPadding = 12 * density;
+        backgroundPaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+        textPaint.setColor(ContextCompat.getColor(context, R.color.white));
+        textPaint.setTextSize(16 * scaledDensity);
+        textPaint.setFakeBoldText(true);
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        SectionIndex index = adapter.getSectionIndex();
+        if (parent.getChildCount() == 0 || index.getSectionCount() == 0) {
+            return;
+        }
+
+        View firstChild = parent.getChildAt(0);
+        int position = parent.getChildAdapterPosition(firstChild);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        int section = index.sectionForAdapterPosition(position);
+        float top = 0;
+
+        // Si la cabecera de la siguiente sección ya está llegando arriba, desplazamos la fija
+        if (section + 1 < index.getSectionCount()) {
+            RecyclerView.ViewHolder next = parent.findViewHolderForAdapterPosition(
+                    index.getHeaderPosition(section + 1));
+            if (next != null && next.itemView.getTop() < headerHeight) {
+                top = next.itemView.getTop() - headerHeight;
+            }
+        }
+
+        if (section != cachedSection) {
+            cachedSection = section;
+            cachedLabel = adapter.getSectionHeaderText(section);
+        }
+
+        canvas.drawRect(0, top, parent.getWidth(), top + headerHeight, backgroundPaint);
+        float baseline = top + headerHeight / 2f - (textPaint.descent() + textPaint.ascent()) / 2f;
+        canvas.drawText(cachedLabel, textPadding, baseline, textPaint);
+    }
+
+    /**
+     * Invalida la etiqueta en caché cuando cambia el índice o el número de fotos
+     */
+    public void onIndexChanged() {
+        cachedSection = -1;
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.nemergentprueba.gallery;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Índice de secciones por fecha para la galería.
+ * Las fotos están ordenadas por fecha de captura descendente y se agrupan por día o por mes;
+ * cada sección ocupa una posición de cabecera seguida de sus fotos en el adapter.
+ *
+ * Se construye una vez en segundo plano y después se actualiza con {@link #insert(long)} y
+ * {@link #remove(long)}. Todas las consultas por posición o por fecha son búsquedas binarias
+ * sobre arrays primitivos, sin recorrer la lista de fotos. No es thread-safe: se construye
+ * en un hilo y se publica al hilo principal, que es el único que lo modifica después.
+ *
+ * Construido con un máximo de secciones diarias, el índice agrupa por días mientras no lo
+ * supere y por meses en cuanto lo hace. En modo mensual mantiene también el índice por días,
+ * así que {@link #adjustGranularity()} cambia de modo sin volver a recorrer las fotos y el
+ * resultado es el mismo que el de una construcción completa.
+ */
+public class SectionIndex {
+
+    public enum Granularity {
+        DAY,
+        MONTH
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Granularity granularity;
+    private final TimeZone timeZone;
+    // Máximo de secciones diarias antes de agrupar por meses; Integer.MAX_VALUE si es fijo
+    private final int maxDaySections;
+    // Índice por días de las mismas fotos, solo en modo mensual adaptable
+    private SectionIndex dayIndex;
+
+    // Inicio del periodo de cada sección, en orden descendente
+    private long[] sectionKeys;
+    // Número de fotos de cada sección
+    private int[] sectionCounts;
+    // Índice de la primera foto de cada sección dentro de la lista de fotos
+    private int[] firstPhoto;
+    private int sectionCount;
+    private int photoCount;
+
+    // Calendario reutilizado para calcular el inicio de cada periodo
+    private final Calendar calendar;
+
+    private SectionIndex(Granularity granularity, TimeZone timeZone, int maxDaySections, int capacity) {
+        this.granularity = granularity;
+        this.timeZone = timeZone;
+        this.maxDaySections = maxDaySections;
+        this.calendar = Calendar.getInstance(timeZone);
+        int initial = Math.max(capacity, INITIAL_CAPACITY);
+        this.sectionKeys = new long[initial];
+        this.sectionCounts = new int[initial];
+        this.firstPhoto = new int[initial];
+    }
+
+    /**
+     * Construye el índice en una sola pasada
+     * @param descendingTimestamps Fechas de captura en milisegundos, de la más reciente a la más antigua
+     */
+    public static SectionIndex build(long[] descendingTimestamps, Granularity granularity, TimeZone timeZone) {
+        return build(descendingTimestamps, granularity, timeZone, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Construye el índice por días, o por meses si salen más de maxDaySections días distintos
+     * @param descendingTimestamps Fechas de captura en milisegundos, de la más reciente a la más antigua
+     */
+    public static SectionIndex build(long[] descendingTimestamps, int maxDaySections, TimeZone timeZone) {
+        SectionIndex index = build(descendingTimestamps, Granularity.DAY, timeZone, maxDaySections);
+        index.adjustGranularity();
+        return index;
+    }
+
+    private static SectionIndex build(long[] descendingTimestamps, Granularity granularity, TimeZone timeZone,
+                                      int maxDaySections) {
+        SectionIndex index = new SectionIndex(granularity, timeZone, maxDaySections, INITIAL_CAPACITY);
+        long currentStart = Long.MAX_VALUE;
+        long currentEnd = Long.MIN_VALUE;
+
+        for (long timestamp : descendingTimestamps) {
+            // Las fotos consecutivas suelen caer en el mismo periodo: evitamos el calendario
+            if (timestamp < currentStart || timestamp >= currentEnd) {
+                currentStart = index.bucketStart(timestamp);
+                currentEnd = index.bucketEnd(currentStart);
+                index.appendSection(currentStart);
+            }
+            index.sectionCounts[index.sectionCount - 1]++;
+            index.photoCount++;
+        }
+        return index;
+    }
+
+    /**
+     * Copia independiente para aplicar cambios sin alterar el índice publicado
+     */
+    public SectionIndex copy() {
+        SectionIndex copy = new SectionIndex(granularity, timeZone, maxDaySections, sectionKeys.length);
+        copy.copySectionsFrom(this);
+        copy.dayIndex = dayIndex != null ? dayIndex.copy() : null;
+        return copy;
+    }
+
+    private void copySectionsFrom(SectionIndex other) {
+        ensureCapacity(other.sectionCount);
+        System.arraycopy(other.sectionKeys, 0, sectionKeys, 0, other.sectionCount);
+        System.arraycopy(other.sectionCounts, 0, sectionCounts, 0, other.sectionCount);
+        System.arraycopy(other.firstPhoto, 0, firstPhoto, 0, other.sectionCount);
+        sectionCount = other.sectionCount;
+        photoCount = other.photoCount;
+    }
+
+    /**
+     * Vuelve a aplicar la regla de agrupación tras insertar o eliminar fotos: pasa a meses
+     * si hay más días distintos que el máximo y vuelve a días cuando ya no los hay.
+     * Cuesta O(secciones); no hace nada en un índice de agrupación fija.
+     * @return true si ha cambiado la agrupación (las posiciones del adapter ya no valen)
+     */
+    public boolean adjustGranularity() {
+        if (maxDaySections == Integer.MAX_VALUE) {
+            return false;
+        }
+        if (granularity == Granularity.DAY && sectionCount > maxDaySections) {
+            SectionIndex days = new SectionIndex(Granularity.DAY, timeZone, maxDaySections, sectionCount);
+            days.copySectionsFrom(this);
+            dayIndex = days;
+            granularity = Granularity.MONTH;
+            mergeDaysIntoMonths(days);
+            return true;
+        }
+        if (granularity == Granularity.MONTH && dayIndex.sectionCount <= maxDaySections) {
+            granularity = Granularity.DAY;
+            copySectionsFrom(dayIndex);
+            dayIndex = null;
+            return true;
+        }
+        return false;
+    }
+
+    // Agrupa por meses las secciones diarias, que ya están en orden descendente
+    private void mergeDaysIntoMonths(SectionIndex days) {
+        sectionCount = 0;
+        photoCount = 0;
+        for (int i = 0; i < days.sectionCount; i++) {
+            long month = bucketStart(days.sectionKeys[i]);
+            if (sectionCount == 0 || sectionKeys[sectionCount - 1] != month) {
+                appendSection(month);
+            }
+            sectionCounts[sectionCount - 1] += days.sectionCounts[i];
+            photoCount += days.sectionCounts[i];
+        }
+    }
+
+    private void appendSection(long key) {
+        ensureCapacity(sectionCount + 1);
+        sectionKeys[sectionCount] = key;
+        sectionCounts[sectionCount] = 0;
+        firstPhoto[sectionCount] = photoCount;
+        sectionCount++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > sectionKeys.length) {
+            int newCapacity = Math.max(required, sectionKeys.length * 2);
+            sectionKeys = Arrays.copyOf(sectionKeys, newCapacity);
+            sectionCounts = Arrays.copyOf(sectionCounts, newCapacity);
+            firstPhoto = Arrays.copyOf(firstPhoto, newCapacity);
+        }
+    }
+
+    /**
+     * Inicio del periodo (día o mes) que contiene la fecha
+     */
+    public long bucketStart(long timestamp) {
+        calendar.setTimeInMillis(timestamp);
+        if (granularity == Granularity.MONTH) {
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+        }
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private long bucketEnd(long bucketStart) {
+        calendar.setTimeInMillis(bucketStart);
+        calendar.add(granularity == Granularity.MONTH ? Calendar.MONTH : Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Busca la sección de un periodo. Devuelve su índice o (-(punto de inserción) - 1)
+     */
+    private int findSectionByKey(long key) {
+        int low = 0;
+        int high = sectionCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = sectionKeys[mid];
+            if (midKey > key) {
+                low = mid + 1;
+            } else if (midKey < key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Registra una foto nueva
+     * @return El índice de la sección que la contiene (puede ser una sección nueva)
+     */
+    public int insert(long timestamp) {
+        if (dayIndex != null) {
+            dayIndex.insert(timestamp);
+        }
+        long key = bucketStart(timestamp);
+        int section = findSectionByKey(key);
+        if (section < 0) {
+            section = -(section + 1);
+            ensureCapacity(sectionCount + 1);
+            int tail = sectionCount - section;
+            System.arraycopy(sectionKeys, section, sectionKeys, section + 1, tail);
+            System.arraycopy(sectionCounts, section, sectionCounts, section + 1, tail);
+            System.arraycopy(firstPhoto, section, firstPhoto, section + 1, tail);
+            sectionKeys[section] = key;
+            sectionCounts[section] = 0;
+            firstPhoto[section] = section < sectionCount ? firstPhoto[section + 1] : photoCount;
+            sectionCount++;
+        }
+        sectionCounts[section]++;
+        for (int i = section + 1; i < sectionCount; i++) {
+            firstPhoto[i]++;
+        }
+        photoCount++;
+        return section;
+    }
+
+    /**
+     * Elimina una foto
+     * @return true si su sección se ha quedado vacía y ha desaparecido
+     */
+    public boolean remove(long timestamp) {
+        if (dayIndex != null) {
+            dayIndex.remove(timestamp);
+        }
+        int section = findSectionByKey(bucketStart(timestamp));
+        if (section < 0) {
+            return false;
+        }
+        sectionCounts[section]--;
+        photoCount--;
+        for (int i = section + 1; i < sectionCount; i++) {
+            firstPhoto[i]--;
+        }
+        if (sectionCounts[section] > 0) {
+            return false;
+        }
+
+        int tail = sectionCount - section - 1;
+        System.arraycopy(sectionKeys, section + 1, sectionKeys, section, tail);
+        System.arraycopy(sectionCounts, section + 1, sectionCounts, section, tail);
+        System.arraycopy(firstPhoto, section + 1, firstPhoto, section, tail);
+        sectionCount--;
+        return true;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public int getSectionCount() {
+        return sectionCount;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    /**
+     * Número total de elementos del adapter: fotos más una cabecera por sección
+     */
+    public int getItemCount() {
+        return photoCount + sectionCount;
+    }
+
+    public long getSectionKey(int section) {
+        return sectionKeys[section];
+    }
+
+    public int getSectionSize(int section) {
+        return sectionCounts[section];
+    }
+
+    /**
+     * Posición en el adapter de la cabecera de una sección
+     */
+    public int getHeaderPosition(int section) {
+        return firstPhoto[section] + section;
+    }
+
+    /**
+     * Sección a la que pertenece una posición del adapter (cabecera o foto)
+     */
+    public int sectionForAdapterPosition(int position) {
+        int low = 0;
+        int high = sectionCount - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (getHeaderPosition(mid) <= position) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    public boolean isHeader(int position) {
+        return sectionCount > 0 && getHeaderPosition(sectionForAdapterPosition(position)) == position;
+    }
+
+    /**
+     * Índice en la lista de fotos de una posición del adapter que no es cabecera
+     */
+    public int photoIndexForAdapterPosition(int position) {
+        return position - sectionForAdapterPosition(position) - 1;
+    }
+
+    /**
+     * Sección que contiene una foto de la lista
+     */
+    public int sectionForPhotoIndex(int photoIndex) {
+        int low = 0;
+        int high = sectionCount - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstPhoto[mid] <= photoIndex) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Posición en el adapter de una foto de la lista
+     */
+    public int adapterPositionForPhotoIndex(int photoIndex) {
+        return photoIndex + sectionForPhotoIndex(photoIndex) + 1;
+    }
+
+    /**
+     * Sección más cercana a una fecha: la del mismo periodo o, si no existe,
+     * la siguiente más antigua (o la última si la fecha es anterior a todas)
+     * @return Índice de sección, o -1 si el índice está vacío
+     */
+    public int sectionForTime(long timestamp) {
+        if (sectionCount == 0) {
+            return -1;
+        }
+        int section = findSectionByKey(bucketStart(timestamp));
+        if (section >= 0) {
+            return section;
+        }
+        return Math.min(-(section + 1), sectionCount - 1);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.nemergentprueba.gallery;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.Size;
+
+import com.example.nemergentprueba.utils.PhotoFileResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Carga miniaturas para la galería probando varias fuentes en orden:
+ * primero la caché en memoria, después las miniaturas que ya mantiene la plataforma
+ * ({@code ContentResolver.loadThumbnail}, API 29+) y por último nuestra propia
+ * decodificación reducida. Registra qué fuente sirvió cada petición y su latencia.
+ */
+public class ThumbnailLoader {
+    private static final String TAG = "ThumbnailLoader";
+    private static final int DECODE_THREADS = 2;
+
+    /**
+     * Fuente que ha servido una miniatura
+     */
+    public enum Source {
+        MEMORY,
+        PLATFORM,
+        DECODED
+    }
+
+    /**
+     * Callback invocado en el hilo principal cuando la miniatura está lista
+     */
+    public interface Callback {
+        void onThumbnailLoaded(String path, Bitmap bitmap, Source source);
+    }
+
+    /**
+     * Petición en curso; permite cancelar la carga cuando el ViewHolder se recicla
+     */
+    public static class Request {
+        private final String path;
+        private final CancellationSignal cancellationSignal = new CancellationSignal();
+        private volatile Future<?> future;
+
+        Request(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void cancel() {
+            cancellationSignal.cancel();
+            Future<?> pending = future;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        public boolean isCanceled() {
+            return cancellationSignal.isCanceled();
+        }
+    }
+
+    // Caché compartida entre instancias para que el visor pueda reutilizar las miniaturas
+    private static LruCache<String, Bitmap> sharedCache;
+
+    private final Context context;
+    private final int thumbnailSizePx;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Métricas por fuente: número de peticiones servidas y tiempo acumulado
+    private final AtomicLongArray servedCount = new AtomicLongArray(Source.values().length);
+    private final AtomicLongArray servedNanos = new AtomicLongArray(Source.values().length);
+
+    public ThumbnailLoader(Context context, int thumbnailSizePx) {
+        this.context = context.getApplicationContext();
+        this.thumbnailSizePx = thumbnailSizePx;
+        this.executor = Executors.newFixedThreadPool(DECODE_THREADS);
+        this.memoryCache = getSharedCache();
+    }
+
+    private static synchronized LruCache<String, Bitmap> getSharedCache() {
+        if (sharedCache == null) {
+            // Usar 1/8 de la memoria disponible para la caché, medida en kilobytes
+            final int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
+            final int cacheSize = maxMemory / 8;
+
+            sharedCache = new LruCache<String, Bitmap>(cacheSize) {
+                @Override
+                protected int sizeOf(String key, Bitmap bitmap) {
+                    return bitmap.getByteCount() / 1024;
+                }
+            };
+        }
+        return sharedCache;
+    }
+
+    /**
+     * Devuelve la miniatura ya cargada por la galería, si sigue en caché
+     */
+    public static Bitmap peekCachedThumbnail(String path) {
+        return getSharedCache().get(path);
+    }
+
+    /**
+     * Solicita la miniatura de una foto
+     * @param path Ruta relativa o URI guardada en la base de datos
+     * @param callback Callback que recibe el bitmap en el hilo principal
+     * @return La petición, o null si se sirvió directamente desde la caché
+     */
+    public Request load(String path, Callback callback) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        Bitmap cached = memoryCache.get(path);
+        if (cached != null) {
+            record(Source.MEMORY, SystemClock.elapsedRealtimeNanos() - start);
+            callback.onThumbnailLoaded(path, cached, Source.MEMORY);
+            return null;
+        }
+
+        Request request = new Request(path);
+        request.future = executor.submit(() -> loadInBackground(request, callback));
+        return request;
+    }
+
+    /**
+     * Devuelve la miniatura en caché si existe, sin lanzar ninguna carga
+     */
+    public Bitmap getCached(String path) {
+        return memoryCache.get(path);
+    }
+
+    /**
+     * Elimina una foto de la caché (por ejemplo, al borrarla)
+     */
+    public void evict(String path) {
+        memoryCache.remove(path);
+    }
+
+    private void loadInBackground(Request request, Callback callback) {
+        if (request.isCanceled()) {
+            return;
+        }
+
+        String path = request.getPath();
+        long start = SystemClock.elapsedRealtimeNanos();
+        Bitmap bitmap = null;
+        Source source = null;
+
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                bitmap = loadPlatformThumbnail(path, request.cancellationSignal);
+                source = Source.PLATFORM;
+            }
+        } catch (OperationCanceledException e) {
+            return;
+        } catch (Exception e) {
+            Log.d(TAG, "Miniatura de plataforma no disponible para " + path + ": " + e.getMessage());
+        }
+
+        if (bitmap == null && !request.isCanceled()) {
+            try {
+                bitmap = decodeSampledBitmap(path);
+                source = Source.DECODED;
+            } catch (Exception e) {
+                Log.e(TAG, "Error al decodificar miniatura de " + path, e);
+            }
+        }
+
+        if (bitmap == null || request.isCanceled()) {
+            return;
+        }
+
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        record(source, elapsed);
+        Log.d(TAG, "Miniatura servida por " + source + " en " + (elapsed / 1000) + "us: " + path);
+
+        memoryCache.put(path, bitmap);
+        final Bitmap result = bitmap;
+        final Source resultSource = source;
+        mainHandler.post(() -> {
+            if (!request.isCanceled()) {
+                callback.onThumbnailLoaded(path, result, resultSource);
+            }
+        });
+    }
+
+    /**
+     * Pide a la plataforma su miniatura en caché (API 29+)
+     */
+    private Bitmap loadPlatformThumbnail(String path, CancellationSignal signal) throws IOException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            return null;
+        }
+        Uri uri = PhotoFileResolver.findMediaStoreUri(context, path);
+        if (uri == null) {
+            return null;
+        }
+        return context.getContentResolver().loadThumbnail(
+                uri, new Size(thumbnailSizePx, thumbnailSizePx), signal);
+    }
+
+    /**
+     * Decodifica la foto reducida al tamaño de la miniatura usando inSampleSize
+     */
+    private Bitmap decodeSampledBitmap(String path) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream is = PhotoFileResolver.openInputStream(context, path)) {
+            if (is == null) {
+                return null;
+            }
+            BitmapFactory.decodeStream(is, null, options);
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, thumbnailSizePx);
+        options.inJustDecodeBounds = false;
+        try (InputStream is = PhotoFileResolver.openInputStream(context, path)) {
+            return is != null ? BitmapFactory.decodeStream(is, null, options) : null;
+        }
+    }
+
+    /**
+     * Calcula la mayor potencia de dos que mantiene ambos lados por encima del tamaño pedido
+     */
+    static int calculateInSampleSize(int width, int height, int reqSize) {
+        int inSampleSize = 1;
+        if (width <= 0 || height <= 0) {
+            return inSampleSize;
+        }
+        while ((width / (inSampleSize * 2)) >= reqSize && (height / (inSampleSize * 2)) >= reqSize) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private void record(Source source, long nanos) {
+        servedCount.incrementAndGet(source.ordinal());
+        servedNanos.addAndGet(source.ordinal(), nanos);
+    }
+
+    /**
+     * Número de miniaturas servidas por una fuente
+     */
+    public long getServedCount(Source source) {
+        return servedCount.get(source.ordinal());
+    }
+
+    /**
+     * Latencia media en microsegundos de una fuente, o 0 si no ha servido ninguna
+     */
+    public long getAverageLatencyMicros(Source source) {
+        long count = servedCount.get(source.ordinal());
+        return count == 0 ? 0 : servedNanos.get(source.ordinal()) / count / 1000;
+    }
+
+    /**
+     * Resumen de las métricas para registrar en el log
+     */
+    public String getStatsSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Source source : Source.values()) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(source).append('=').append(getServedCount(source))
+                    .append(" (").append(getAverageLatencyMicros(source)).append("us)");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Libera el pool de hilos; las peticiones pendientes se descartan
+     */
+    public void shutdown() {
+        Log.d(TAG, "Miniaturas servidas: " + getStatsSummary());
+        executor.shutdownNow();
+    }
+}
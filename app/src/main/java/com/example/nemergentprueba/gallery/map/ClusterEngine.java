@@ -0,0 +1,124 @@
+package com.example.nemergentprueba.gallery.map;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Calcula en segundo plano las agrupaciones de las teselas del mapa.
+ * Las peticiones pendientes que dejan de ser visibles (por desplazamiento o zoom) se cancelan.
+ * Los métodos públicos deben llamarse desde el hilo principal; los resultados también se
+ * entregan en el hilo principal.
+ */
+class ClusterEngine {
+    private static final String TAG = "ClusterEngine";
+
+    interface Listener {
+        void onPointsReady(GridClusterer clusterer);
+        void onTileReady(ClusterTile tile);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+    private final int cellsPerSide;
+
+    // Solo se accede desde el hilo principal
+    private final Map<Long, Future<?>> pendingTiles = new HashMap<>();
+    private GridClusterer clusterer;
+    private boolean released = false;
+
+    ClusterEngine(Listener listener, int cellsPerSide) {
+        this.listener = listener;
+        this.cellsPerSide = cellsPerSide;
+    }
+
+    /**
+     * Sustituye las coordenadas del mapa; las teselas calculadas con las anteriores se descartan
+     */
+    void setPoints(long[] photoIds, double[] latitudes, double[] longitudes, int count) {
+        cancelPending();
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            GridClusterer newClusterer = new GridClusterer(photoIds, latitudes, longitudes, count);
+            Log.d(TAG, "Índice del mapa construido con " + count + " fotos en "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+            mainHandler.post(() -> {
+                if (released) {
+                    return;
+                }
+                clusterer = newClusterer;
+                listener.onPointsReady(newClusterer);
+            });
+        });
+    }
+
+    /**
+     * Actualiza el conjunto de teselas que se quieren calcular.
+     * Cancela las pendientes que ya no aparecen y encola las nuevas en el orden recibido.
+     */
+    void requestTiles(List<Long> wantedKeys) {
+        if (released || clusterer == null) {
+            return;
+        }
+
+        Set<Long> wanted = new HashSet<>(wantedKeys);
+        Iterator<Map.Entry<Long, Future<?>>> it = pendingTiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Future<?>> entry = it.next();
+            if (!wanted.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+                it.remove();
+            }
+        }
+
+        GridClusterer current = clusterer;
+        for (Long key : wantedKeys) {
+            if (!pendingTiles.containsKey(key)) {
+                pendingTiles.put(key, executor.submit(() -> computeTile(current, key)));
+            }
+        }
+    }
+
+    private void computeTile(GridClusterer source, long key) {
+        if (released) {
+            return;
+        }
+        ClusterTile tile = source.cluster(ClusterTile.zoomOf(key), ClusterTile.xOf(key),
+                ClusterTile.yOf(key), cellsPerSide);
+        mainHandler.post(() -> {
+            // Descartar resultados de unas coordenadas ya sustituidas
+            if (released || source != clusterer) {
+                return;
+            }
+            pendingTiles.remove(key);
+            listener.onTileReady(tile);
+        });
+    }
+
+    private void cancelPending() {
+        for (Future<?> future : pendingTiles.values()) {
+            future.cancel(false);
+        }
+        pendingTiles.clear();
+    }
+
+    /**
+     * Cancela todo el trabajo pendiente y detiene el hilo de cálculo
+     */
+    void release() {
+        released = true;
+        cancelPending();
+        executor.shutdown();
+    }
+}
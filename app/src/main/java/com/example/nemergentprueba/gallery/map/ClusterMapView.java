@@ -0,0 +1,391 @@
+package com.example.nemergentprueba.gallery.map;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.LruCache;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.nemergentprueba.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vista de mapa ligera (sin SDK de mapas) con las fotos geoetiquetadas agrupadas.
+ *
+ * El mundo se divide en teselas Mercator de {@link #TILE_SIZE_PX} píxeles por nivel de zoom.
+ * Las agrupaciones de cada tesela se calculan en segundo plano y se guardan en una caché
+ * LRU, así que al desplazar el mapa solo se calculan las teselas que aparecen por el borde.
+ * Como fondo se dibuja una cuadrícula de meridianos y paralelos.
+ */
+public class ClusterMapView extends View implements ClusterEngine.Listener {
+
+    public interface OnPhotoSelectedListener {
+        void onPhotoSelected(long photoId);
+    }
+
+    private static final int TILE_SIZE_PX = 256;
+    // Rejilla de agrupación: celdas de 64 px en pantalla
+    private static final int CELLS_PER_TILE_SIDE = 4;
+    private static final int MAX_ZOOM = 18;
+    private static final int MAX_CACHED_TILES = 256;
+    private static final float DOUBLE_TAP_ZOOM = 2f;
+    // Al pulsar una agrupación se amplía dos niveles, lo justo para que se separe
+    private static final float CLUSTER_TAP_ZOOM = 4f;
+    private static final float MARKER_RADIUS_DP = 10;
+    private static final float GRATICULE_STEP_DEGREES = 30;
+
+    private final Paint backgroundPaint = new Paint();
+    private final Paint gridPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint markerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint clusterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint outlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint countPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final LruCache<Long, ClusterTile> tileCache = new LruCache<>(MAX_CACHED_TILES);
+    private final List<Long> visibleKeys = new ArrayList<>();
+
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
+    private ClusterEngine clusterEngine;
+    private GridClusterer clusterer;
+    private OnPhotoSelectedListener photoSelectedListener;
+
+    private float density;
+    // Lado del mundo completo en píxeles de pantalla y centro de la vista en Mercator normalizado
+    private double worldSize;
+    private double centerX = 0.5;
+    private double centerY = 0.5;
+    private boolean fitted;
+
+    public ClusterMapView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public ClusterMapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    private void init(Context context) {
+        density = context.getResources().getDisplayMetrics().density;
+        backgroundPaint.setColor(ContextCompat.getColor(context, R.color.backgroundColor));
+        gridPaint.setColor(ContextCompat.getColor(context, R.color.textColor));
+        gridPaint.setAlpha(40);
+        gridPaint.setStrokeWidth(density);
+        markerPaint.setColor(ContextCompat.getColor(context, R.color.colorAccent));
+        clusterPaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+        outlinePaint.setColor(ContextCompat.getColor(context, R.color.white));
+        outlinePaint.setStyle(Paint.Style.STROKE);
+        outlinePaint.setStrokeWidth(2 * density);
+        countPaint.setColor(ContextCompat.getColor(context, R.color.white));
+        countPaint.setTextAlign(Paint.Align.CENTER);
+        countPaint.setTextSize(12 * context.getResources().getDisplayMetrics().scaledDensity);
+        countPaint.setFakeBoldText(true);
+
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                panBy(-distanceX, -distanceY);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                zoomBy(DOUBLE_TAP_ZOOM, e.getX(), e.getY());
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapConfirmed(@NonNull MotionEvent e) {
+                onTap(e.getX(), e.getY());
+                return true;
+            }
+        });
+    }
+
+    public void setOnPhotoSelectedListener(OnPhotoSelectedListener listener) {
+        this.photoSelectedListener = listener;
+    }
+
+    /**
+     * Muestra las coordenadas dadas. El índice se construye en segundo plano y el mapa se
+     * ajusta a las fotos la primera vez.
+     */
+    public void setPoints(long[] photoIds, double[] latitudes, double[] longitudes, int count) {
+        if (clusterEngine == null) {
+            clusterEngine = new ClusterEngine(this, CELLS_PER_TILE_SIDE);
+        }
+        clusterEngine.setPoints(photoIds, latitudes, longitudes, count);
+    }
+
+    @Override
+    public void onPointsReady(GridClusterer newClusterer) {
+        clusterer = newClusterer;
+        tileCache.evictAll();
+        if (!fitted) {
+            fitToPoints();
+        } else {
+            updateVisibleTiles();
+        }
+    }
+
+    @Override
+    public void onTileReady(ClusterTile tile) {
+        tileCache.put(tile.key, tile);
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (!fitted) {
+            fitToPoints();
+        } else {
+            clampView();
+            updateVisibleTiles();
+        }
+    }
+
+    private void fitToPoints() {
+        if (getWidth() == 0 || getHeight() == 0 || clusterer == null) {
+            return;
+        }
+        fitted = true;
+        double minSide = Math.min(getWidth(), getHeight());
+        if (clusterer.size() == 0) {
+            worldSize = minSide;
+            centerX = 0.5;
+            centerY = 0.5;
+        } else {
+            // Margen del 20% alrededor de las fotos
+            double span = Math.max(clusterer.maxX - clusterer.minX, clusterer.maxY - clusterer.minY) * 1.2;
+            worldSize = minSide / Math.max(span, 1e-6);
+            centerX = (clusterer.minX + clusterer.maxX) / 2;
+            centerY = (clusterer.minY + clusterer.maxY) / 2;
+        }
+        clampView();
+        updateVisibleTiles();
+    }
+
+    private double minWorldSize() {
+        return Math.min(getWidth(), getHeight());
+    }
+
+    private double maxWorldSize() {
+        return (double) TILE_SIZE_PX * (1 << MAX_ZOOM);
+    }
+
+    private void zoomBy(float factor, float focusX, float focusY) {
+        if (clusterer == null) {
+            return;
+        }
+        // Mantener fijo el punto bajo el foco del gesto
+        double focusWorldX = centerX + (focusX - getWidth() / 2.0) / worldSize;
+        double focusWorldY = centerY + (focusY - getHeight() / 2.0) / worldSize;
+        worldSize = Math.max(minWorldSize(), Math.min(worldSize * factor, maxWorldSize()));
+        centerX = focusWorldX - (focusX - getWidth() / 2.0) / worldSize;
+        centerY = focusWorldY - (focusY - getHeight() / 2.0) / worldSize;
+        clampView();
+        updateVisibleTiles();
+    }
+
+    private void panBy(float dx, float dy) {
+        if (clusterer == null) {
+            return;
+        }
+        centerX -= dx / worldSize;
+        centerY -= dy / worldSize;
+        clampView();
+        updateVisibleTiles();
+    }
+
+    private void clampView() {
+        worldSize = Math.max(minWorldSize(), Math.min(worldSize, maxWorldSize()));
+        // El centro no puede dejar ver más allá del borde del mundo
+        double halfWidth = getWidth() / 2.0 / worldSize;
+        double halfHeight = getHeight() / 2.0 / worldSize;
+        centerX = halfWidth >= 0.5 ? 0.5 : Math.max(halfWidth, Math.min(1 - halfWidth, centerX));
+        centerY = halfHeight >= 0.5 ? 0.5 : Math.max(halfHeight, Math.min(1 - halfHeight, centerY));
+    }
+
+    /**
+     * Nivel de zoom de las teselas: el que deja cada tesela entre 1 y 2 veces su tamaño nominal
+     */
+    private int currentZoom() {
+        int zoom = 0;
+        while (zoom < MAX_ZOOM && worldSize / (1 << (zoom + 1)) >= TILE_SIZE_PX) {
+            zoom++;
+        }
+        return zoom;
+    }
+
+    /**
+     * Recalcula las teselas que intersectan con la pantalla y pide solo las que no están en caché
+     */
+    private void updateVisibleTiles() {
+        visibleKeys.clear();
+        if (clusterer == null || clusterEngine == null || getWidth() == 0) {
+            invalidate();
+            return;
+        }
+
+        int zoom = currentZoom();
+        int tiles = 1 << zoom;
+        double tileSpanPx = worldSize / tiles;
+        double originX = centerX * worldSize - getWidth() / 2.0;
+        double originY = centerY * worldSize - getHeight() / 2.0;
+
+        int firstColumn = Math.max(0, (int) Math.floor(originX / tileSpanPx));
+        int lastColumn = Math.min(tiles - 1, (int) Math.floor((originX + getWidth()) / tileSpanPx));
+        int firstRow = Math.max(0, (int) Math.floor(originY / tileSpanPx));
+        int lastRow = Math.min(tiles - 1, (int) Math.floor((originY + getHeight()) / tileSpanPx));
+
+        List<Long> missing = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                long key = ClusterTile.key(zoom, column, row);
+                visibleKeys.add(key);
+                if (tileCache.get(key) == null) {
+                    missing.add(key);
+                }
+            }
+        }
+
+        clusterEngine.requestTiles(missing);
+        invalidate();
+    }
+
+    private float radiusFor(int count) {
+        // Crece con el logaritmo del número de fotos para que las burbujas grandes no tapen el mapa
+        return density * (MARKER_RADIUS_DP + (count > 1 ? 5 * (float) Math.log10(count) + 4 : 0));
+    }
+
+    private void onTap(float x, float y) {
+        double originX = centerX * worldSize - getWidth() / 2.0;
+        double originY = centerY * worldSize - getHeight() / 2.0;
+        ClusterTile hitTile = null;
+        int hitIndex = -1;
+        double bestDistance = Double.MAX_VALUE;
+
+        for (int k = 0; k < visibleKeys.size(); k++) {
+            ClusterTile tile = tileCache.get(visibleKeys.get(k));
+            if (tile == null) {
+                continue;
+            }
+            for (int i = 0; i < tile.size; i++) {
+                double dx = tile.centerX[i] * worldSize - originX - x;
+                double dy = tile.centerY[i] * worldSize - originY - y;
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                if (distance <= radiusFor(tile.counts[i]) && distance < bestDistance) {
+                    bestDistance = distance;
+                    hitTile = tile;
+                    hitIndex = i;
+                }
+            }
+        }
+        if (hitTile == null) {
+            return;
+        }
+
+        if (hitTile.counts[hitIndex] == 1 || currentZoom() >= MAX_ZOOM) {
+            if (photoSelectedListener != null) {
+                photoSelectedListener.onPhotoSelected(hitTile.photoIds[hitIndex]);
+            }
+        } else {
+            // Centrar la agrupación y ampliar para separarla
+            centerX = hitTile.centerX[hitIndex];
+            centerY = hitTile.centerY[hitIndex];
+            worldSize *= CLUSTER_TAP_ZOOM;
+            clampView();
+            updateVisibleTiles();
+        }
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        canvas.drawPaint(backgroundPaint);
+        if (worldSize == 0) {
+            return;
+        }
+        double originX = centerX * worldSize - getWidth() / 2.0;
+        double originY = centerY * worldSize - getHeight() / 2.0;
+        drawGraticule(canvas, originX, originY);
+
+        for (int k = 0; k < visibleKeys.size(); k++) {
+            ClusterTile tile = tileCache.get(visibleKeys.get(k));
+            if (tile == null) {
+                continue;
+            }
+            for (int i = 0; i < tile.size; i++) {
+                float x = (float) (tile.centerX[i] * worldSize - originX);
+                float y = (float) (tile.centerY[i] * worldSize - originY);
+                int count = tile.counts[i];
+                float radius = radiusFor(count);
+                canvas.drawCircle(x, y, radius, count > 1 ? clusterPaint : markerPaint);
+                canvas.drawCircle(x, y, radius, outlinePaint);
+                if (count > 1) {
+                    float baseline = y - (countPaint.descent() + countPaint.ascent()) / 2;
+                    canvas.drawText(Integer.toString(count), x, baseline, countPaint);
+                }
+            }
+        }
+    }
+
+    private void drawGraticule(Canvas canvas, double originX, double originY) {
+        float top = (float) Math.max(0, -originY);
+        float bottom = (float) Math.min(getHeight(), worldSize - originY);
+        float left = (float) Math.max(0, -originX);
+        float right = (float) Math.min(getWidth(), worldSize - originX);
+        for (float longitude = -180; longitude <= 180; longitude += GRATICULE_STEP_DEGREES) {
+            float x = (float) (GridClusterer.mercatorX(longitude) * worldSize - originX);
+            canvas.drawLine(x, top, x, bottom, gridPaint);
+        }
+        for (float latitude = -60; latitude <= 60; latitude += GRATICULE_STEP_DEGREES) {
+            float y = (float) (GridClusterer.mercatorY(latitude) * worldSize - originY);
+            canvas.drawLine(left, y, right, y, gridPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled = gestureDetector.onTouchEvent(event) || handled;
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (clusterEngine != null) {
+            clusterEngine.release();
+            clusterEngine = null;
+        }
+        tileCache.evictAll();
+        visibleKeys.clear();
+    }
+}
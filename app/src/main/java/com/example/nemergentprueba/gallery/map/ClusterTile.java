@@ -0,0 +1,51 @@
+package com.example.nemergentprueba.gallery.map;
+
+/**
+ * Agrupaciones de fotos de una tesela del mapa para un nivel de zoom.
+ * Las posiciones están en coordenadas Mercator normalizadas (0..1 en ambos ejes).
+ */
+final class ClusterTile {
+    final int zoom;
+    final int x;
+    final int y;
+    final long key;
+
+    // Número de agrupaciones; los arrays pueden ser más largos
+    final int size;
+    final int[] counts;
+    final double[] centerX;
+    final double[] centerY;
+    // Foto representativa de cada agrupación (la primera encontrada)
+    final long[] photoIds;
+
+    ClusterTile(int zoom, int x, int y, int size, int[] counts, double[] centerX, double[] centerY, long[] photoIds) {
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+        this.key = key(zoom, x, y);
+        this.size = size;
+        this.counts = counts;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.photoIds = photoIds;
+    }
+
+    /**
+     * Clave única de una tesela: zoom, columna y fila empaquetados
+     */
+    static long key(int zoom, int x, int y) {
+        return ((long) zoom << 48) | ((long) x << 24) | y;
+    }
+
+    static int zoomOf(long key) {
+        return (int) (key >>> 48);
+    }
+
+    static int xOf(long key) {
+        return (int) ((key >>> 24) & 0xFFFFFF);
+    }
+
+    static int yOf(long key) {
+        return (int) (key & 0xFFFFFF);
+    }
+}
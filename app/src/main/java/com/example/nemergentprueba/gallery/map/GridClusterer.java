@@ -0,0 +1,146 @@
+package com.example.nemergentprueba.gallery.map;
+
+import java.util.Arrays;
+
+/**
+ * Agrupa por rejilla las coordenadas de las fotos para una tesela del mapa.
+ *
+ * Las posiciones se proyectan una vez a Mercator normalizado y se ordenan por x, así que
+ * las fotos de una tesela se encuentran con una búsqueda binaria y un recorrido de su franja
+ * vertical, sin mirar el resto del catálogo. Dentro de la tesela cada celda de la rejilla
+ * con fotos es una agrupación situada en el centroide de sus fotos.
+ *
+ * Es inmutable después de construirse: se puede consultar desde cualquier hilo.
+ */
+final class GridClusterer {
+
+    // Latitud máxima representable en Mercator (el mapa es cuadrado)
+    static final double MAX_LATITUDE = 85.05112878;
+
+    private final long[] ids;
+    private final double[] xs;
+    private final double[] ys;
+    private final int size;
+
+    // Rectángulo que contiene todas las fotos, en Mercator normalizado
+    final double minX;
+    final double minY;
+    final double maxX;
+    final double maxY;
+
+    GridClusterer(long[] photoIds, double[] latitudes, double[] longitudes, int count) {
+        // Ordenar por x empaquetando x (31 bits) y el índice original en un long primitivo
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            long quantizedX = (long) (mercatorX(longitudes[i]) * Integer.MAX_VALUE);
+            order[i] = (quantizedX << 32) | i;
+        }
+        Arrays.sort(order);
+
+        ids = new long[count];
+        xs = new double[count];
+        ys = new double[count];
+        double left = 1;
+        double top = 1;
+        double right = 0;
+        double bottom = 0;
+        for (int i = 0; i < count; i++) {
+            int source = (int) order[i];
+            ids[i] = photoIds[source];
+            xs[i] = mercatorX(longitudes[source]);
+            ys[i] = mercatorY(latitudes[source]);
+            left = Math.min(left, xs[i]);
+            right = Math.max(right, xs[i]);
+            top = Math.min(top, ys[i]);
+            bottom = Math.max(bottom, ys[i]);
+        }
+        size = count;
+        minX = left;
+        minY = top;
+        maxX = right;
+        maxY = bottom;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Calcula las agrupaciones de una tesela
+     * @param cellsPerSide Celdas de la rejilla por lado de la tesela
+     */
+    ClusterTile cluster(int zoom, int tileX, int tileY, int cellsPerSide) {
+        double span = 1.0 / (1 << zoom);
+        double left = tileX * span;
+        double top = tileY * span;
+        double right = left + span;
+        double bottom = top + span;
+
+        int cells = cellsPerSide * cellsPerSide;
+        int[] counts = new int[cells];
+        double[] sumX = new double[cells];
+        double[] sumY = new double[cells];
+        long[] firstIds = new long[cells];
+        int used = 0;
+
+        for (int i = lowerBound(left); i < size && xs[i] < right; i++) {
+            double y = ys[i];
+            if (y < top || y >= bottom) {
+                continue;
+            }
+            int column = Math.min(cellsPerSide - 1, (int) ((xs[i] - left) / span * cellsPerSide));
+            int row = Math.min(cellsPerSide - 1, (int) ((y - top) / span * cellsPerSide));
+            int cell = row * cellsPerSide + column;
+            if (counts[cell] == 0) {
+                firstIds[cell] = ids[i];
+                used++;
+            }
+            counts[cell]++;
+            sumX[cell] += xs[i];
+            sumY[cell] += y;
+        }
+
+        // Compactar en arrays del tamaño justo
+        int[] clusterCounts = new int[used];
+        double[] centerX = new double[used];
+        double[] centerY = new double[used];
+        long[] photoIds = new long[used];
+        int n = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (counts[cell] > 0) {
+                clusterCounts[n] = counts[cell];
+                centerX[n] = sumX[cell] / counts[cell];
+                centerY[n] = sumY[cell] / counts[cell];
+                photoIds[n] = firstIds[cell];
+                n++;
+            }
+        }
+        return new ClusterTile(zoom, tileX, tileY, used, clusterCounts, centerX, centerY, photoIds);
+    }
+
+    // Primera posición con x >= value
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static double mercatorX(double longitude) {
+        double x = (longitude + 180) / 360;
+        return Math.max(0, Math.min(Math.nextDown(1.0), x));
+    }
+
+    static double mercatorY(double latitude) {
+        double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double y = (1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2;
+        return Math.max(0, Math.min(Math.nextDown(1.0), y));
+    }
+}
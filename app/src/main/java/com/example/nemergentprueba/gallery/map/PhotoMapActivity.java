@@ -0,0 +1,71 @@
+package com.example.nemergentprueba.gallery.map;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.nemergentprueba.R;
+import com.example.nemergentprueba.database.PhotoCoordinates;
+import com.example.nemergentprueba.database.PhotoRepository;
+import com.example.nemergentprueba.gallery.viewer.PhotoViewerActivity;
+
+import java.util.List;
+
+/**
+ * Vista general en mapa de las fotos geoetiquetadas, agrupadas según el zoom.
+ * Al pulsar una foto suelta se abre en el visor.
+ */
+public class PhotoMapActivity extends AppCompatActivity implements ClusterMapView.OnPhotoSelectedListener {
+    private static final String TAG = "PhotoMapActivity";
+
+    private ClusterMapView mapView;
+    private TextView emptyMapMessage;
+    private PhotoRepository photoRepository;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_photo_map);
+        setTitle(R.string.map_title);
+
+        mapView = findViewById(R.id.clusterMapView);
+        emptyMapMessage = findViewById(R.id.emptyMapMessage);
+        mapView.setOnPhotoSelectedListener(this);
+
+        photoRepository = new PhotoRepository(this);
+        // Solo se cargan ID y coordenadas, no las fotos completas
+        photoRepository.loadPhotoCoordinates(this::showCoordinates);
+    }
+
+    private void showCoordinates(List<PhotoCoordinates> coordinates) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        int count = coordinates.size();
+        emptyMapMessage.setVisibility(count == 0 ? View.VISIBLE : View.GONE);
+
+        long[] ids = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            PhotoCoordinates c = coordinates.get(i);
+            ids[i] = c.id;
+            latitudes[i] = c.latitude;
+            longitudes[i] = c.longitude;
+        }
+        Log.d(TAG, "Mostrando " + count + " fotos geoetiquetadas en el mapa");
+        mapView.setPoints(ids, latitudes, longitudes, count);
+    }
+
+    @Override
+    public void onPhotoSelected(long photoId) {
+        photoRepository.loadPhoto(photoId, photo -> {
+            if (photo != null && !isFinishing()) {
+                startActivity(PhotoViewerActivity.createIntent(this, photo.getRelativePath()));
+            }
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+/**
+ * Giro con el que se muestra una foto según su orientación EXIF.
+ * {@link android.graphics.BitmapRegionDecoder} trabaja sobre los píxeles guardados, sin girar;
+ * la vista trabaja en coordenadas de la foto ya girada (las de pantalla). Esta clase traduce
+ * de unas a otras. Las orientaciones con espejo se tratan como su giro, sin voltear.
+ */
+final class ImageOrientation {
+    // Giro en el sentido de las agujas del reloj: 0, 90, 180 o 270
+    final int degrees;
+    // Tamaño de los píxeles guardados
+    final int sourceWidth;
+    final int sourceHeight;
+
+    ImageOrientation(int degrees, int sourceWidth, int sourceHeight) {
+        if (degrees != 0 && degrees != 90 && degrees != 180 && degrees != 270) {
+            throw new IllegalArgumentException("Giro no válido: " + degrees);
+        }
+        this.degrees = degrees;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+    }
+
+    boolean swapsSides() {
+        return degrees == 90 || degrees == 270;
+    }
+
+    /**
+     * Ancho de la foto tal como se muestra
+     */
+    int getWidth() {
+        return swapsSides() ? sourceHeight : sourceWidth;
+    }
+
+    /**
+     * Alto de la foto tal como se muestra
+     */
+    int getHeight() {
+        return swapsSides() ? sourceWidth : sourceHeight;
+    }
+
+    /**
+     * Convierte un rectángulo de la foto mostrada a los píxeles guardados que la forman
+     * @return {izquierda, arriba, derecha, abajo} en coordenadas de la foto guardada
+     */
+    int[] toSource(int left, int top, int right, int bottom) {
+        switch (degrees) {
+            case 90:
+                // Mostrado (x, y) = (alto - ys, xs)
+                return new int[]{top, sourceHeight - right, bottom, sourceHeight - left};
+            case 180:
+                return new int[]{sourceWidth - right, sourceHeight - bottom, sourceWidth - left, sourceHeight - top};
+            case 270:
+                // Mostrado (x, y) = (ys, ancho - xs)
+                return new int[]{sourceWidth - bottom, left, sourceWidth - top, right};
+            default:
+                return new int[]{left, top, right, bottom};
+        }
+    }
+}
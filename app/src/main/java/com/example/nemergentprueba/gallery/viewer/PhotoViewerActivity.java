@@ -0,0 +1,46 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.nemergentprueba.R;
+import com.example.nemergentprueba.gallery.ThumbnailLoader;
+
+/**
+ * Visor a pantalla completa de una foto de la galería con zoom y desplazamiento
+ */
+public class PhotoViewerActivity extends AppCompatActivity {
+    private static final String TAG = "PhotoViewerActivity";
+    private static final String EXTRA_PHOTO_PATH = "photo_path";
+
+    /**
+     * Crea el Intent para abrir el visor con una foto
+     * @param photoPath Ruta relativa o URI guardada en la base de datos
+     */
+    public static Intent createIntent(Context context, String photoPath) {
+        Intent intent = new Intent(context, PhotoViewerActivity.class);
+        intent.putExtra(EXTRA_PHOTO_PATH, photoPath);
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_photo_viewer);
+
+        String photoPath = getIntent().getStringExtra(EXTRA_PHOTO_PATH);
+        if (photoPath == null) {
+            Log.e(TAG, "No se ha indicado ninguna foto");
+            finish();
+            return;
+        }
+
+        TiledImageView imageView = findViewById(R.id.tiledImageView);
+        // Mostrar la miniatura de la galería al instante mientras se decodifican las teselas
+        imageView.setPhoto(photoPath, ThumbnailLoader.peekCachedThumbnail(photoPath));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+import android.graphics.Rect;
+
+/**
+ * Tesela de la imagen original para un nivel de submuestreo concreto.
+ * Los límites se expresan en píxeles de la foto tal como se muestra (ya girada) y la región,
+ * que es lo que se decodifica, en píxeles de la foto guardada.
+ */
+final class Tile {
+    final int sampleSize;
+    final int column;
+    final int row;
+    final int left;
+    final int top;
+    final int right;
+    final int bottom;
+    final Rect region;
+    final String key;
+
+    Tile(int sampleSize, int column, int row, int tileSizePx, ImageOrientation orientation) {
+        this.sampleSize = sampleSize;
+        this.column = column;
+        this.row = row;
+
+        // Cada tesela cubre tileSizePx píxeles de salida, es decir tileSizePx * sampleSize de la original
+        int span = tileSizePx * sampleSize;
+        this.left = column * span;
+        this.top = row * span;
+        this.right = Math.min(left + span, orientation.getWidth());
+        this.bottom = Math.min(top + span, orientation.getHeight());
+        int[] source = orientation.toSource(left, top, right, bottom);
+        this.region = new Rect(source[0], source[1], source[2], source[3]);
+        this.key = sampleSize + "/" + column + "/" + row;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * Caché LRU de teselas decodificadas, medida en kilobytes.
+ * Al expulsar una tesela se recicla su bitmap para liberar memoria nativa cuanto antes,
+ * por eso solo debe usarse desde el hilo principal (el mismo que dibuja las teselas).
+ */
+class TileCache {
+
+    private final LruCache<String, Bitmap> cache;
+
+    TileCache(int maxSizeKb) {
+        cache = new LruCache<String, Bitmap>(maxSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                // Solo reciclamos al expulsar; un reemplazo explícito conserva el bitmap del llamante
+                if (evicted && oldValue != null && !oldValue.isRecycled()) {
+                    oldValue.recycle();
+                }
+            }
+        };
+    }
+
+    /**
+     * Crea una caché que ocupa una fracción de la memoria disponible
+     */
+    static TileCache withMemoryFraction(int divisor) {
+        int maxMemoryKb = (int) (Runtime.getRuntime().maxMemory() / 1024);
+        return new TileCache(maxMemoryKb / divisor);
+    }
+
+    Bitmap get(Tile tile) {
+        Bitmap bitmap = cache.get(tile.key);
+        return bitmap != null && !bitmap.isRecycled() ? bitmap : null;
+    }
+
+    void put(Tile tile, Bitmap bitmap) {
+        cache.put(tile.key, bitmap);
+    }
+
+    void clear() {
+        cache.evictAll();
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.media.ExifInterface;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.nemergentprueba.utils.PhotoFileResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodifica regiones de la foto original en segundo plano con {@link BitmapRegionDecoder}.
+ * El decodificador ignora la orientación EXIF, así que se lee al abrir la foto y se entrega
+ * junto con el tamaño; el marcador generado aquí ya sale girado. Las peticiones pendientes que dejan de ser visibles (por desplazamiento o zoom) se cancelan.
+ * Los métodos públicos deben llamarse desde el hilo principal; los resultados también se
+ * entregan en el hilo principal.
+ */
+class TileDecoder {
+    private static final String TAG = "TileDecoder";
+
+    interface Listener {
+        void onImageReady(ImageOrientation orientation, Bitmap placeholder);
+        void onTileReady(Tile tile, Bitmap bitmap);
+        void onImageError();
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+
+    // Solo se accede desde el hilo principal
+    private final Map<String, Future<?>> pendingTiles = new HashMap<>();
+    private volatile BitmapRegionDecoder decoder;
+    private volatile boolean released = false;
+
+    TileDecoder(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Abre la foto en segundo plano y genera un marcador de baja resolución si hace falta
+     * @param placeholderSizePx Lado máximo del marcador; 0 si ya se dispone de uno
+     */
+    void open(Context context, String path, int placeholderSizePx) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try (InputStream is = PhotoFileResolver.openInputStream(appContext, path)) {
+                if (is == null) {
+                    throw new IOException("Foto no encontrada: " + path);
+                }
+                BitmapRegionDecoder regionDecoder = newRegionDecoder(is);
+                int width = regionDecoder.getWidth();
+                int height = regionDecoder.getHeight();
+                ImageOrientation orientation = new ImageOrientation(readRotation(appContext, path), width, height);
+
+                Bitmap placeholder = null;
+                if (placeholderSizePx > 0) {
+                    BitmapFactory.Options options = new BitmapFactory.Options();
+                    options.inSampleSize = sampleSizeFor(Math.max(width, height), placeholderSizePx);
+                    options.inPreferredConfig = Bitmap.Config.RGB_565;
+                    placeholder = rotate(regionDecoder.decodeRegion(new Rect(0, 0, width, height), options),
+                            orientation.degrees);
+                }
+
+                if (released) {
+                    regionDecoder.recycle();
+                    return;
+                }
+                decoder = regionDecoder;
+                final Bitmap result = placeholder;
+                mainHandler.post(() -> {
+                    if (!released) {
+                        listener.onImageReady(orientation, result);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "No se pudo abrir la foto " + path, e);
+                mainHandler.post(() -> {
+                    if (!released) {
+                        listener.onImageError();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Giro que indica la etiqueta de orientación EXIF; 0 si no la hay o no se puede leer
+     */
+    private static int readRotation(Context context, String path) {
+        try (InputStream is = PhotoFileResolver.openInputStream(context, path)) {
+            if (is == null) {
+                return 0;
+            }
+            int orientation = new ExifInterface(is).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                case ExifInterface.ORIENTATION_TRANSVERSE:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                case ExifInterface.ORIENTATION_TRANSPOSE:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "No se pudo leer la orientación de " + path + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static Bitmap rotate(Bitmap bitmap, int degrees) {
+        if (bitmap == null || degrees == 0) {
+            return bitmap;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(degrees);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) {
+            bitmap.recycle();
+        }
+        return rotated;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static BitmapRegionDecoder newRegionDecoder(InputStream is) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return BitmapRegionDecoder.newInstance(is);
+        }
+        return BitmapRegionDecoder.newInstance(is, false);
+    }
+
+    /**
+     * Actualiza el conjunto de teselas que se quieren decodificar.
+     * Cancela las pendientes que ya no aparecen y encola las nuevas en el orden recibido.
+     */
+    void requestTiles(List<Tile> wanted) {
+        if (released || decoder == null) {
+            return;
+        }
+
+        Set<String> wantedKeys = new HashSet<>();
+        for (Tile tile : wanted) {
+            wantedKeys.add(tile.key);
+        }
+
+        Iterator<Map.Entry<String, Future<?>>> it = pendingTiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Future<?>> entry = it.next();
+            if (!wantedKeys.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+                it.remove();
+            }
+        }
+
+        for (Tile tile : wanted) {
+            if (!pendingTiles.containsKey(tile.key)) {
+                pendingTiles.put(tile.key, executor.submit(() -> decodeTile(tile)));
+            }
+        }
+    }
+
+    private void decodeTile(Tile tile) {
+        BitmapRegionDecoder regionDecoder = decoder;
+        if (released || regionDecoder == null) {
+            return;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = tile.sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+
+        Bitmap bitmap;
+        try {
+            bitmap = regionDecoder.decodeRegion(tile.region, options);
+        } catch (Exception e) {
+            Log.e(TAG, "Error al decodificar la tesela " + tile.key, e);
+            bitmap = null;
+        }
+
+        final Bitmap result = bitmap;
+        mainHandler.post(() -> {
+            pendingTiles.remove(tile.key);
+            if (released) {
+                if (result != null) {
+                    result.recycle();
+                }
+                return;
+            }
+            if (result != null) {
+                listener.onTileReady(tile, result);
+            }
+        });
+    }
+
+    /**
+     * Mayor potencia de dos que deja el lado indicado por encima del tamaño pedido
+     */
+    static int sampleSizeFor(int sidePx, int reqSizePx) {
+        int sampleSize = 1;
+        while (sidePx / (sampleSize * 2) >= reqSizePx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Cancela todo el trabajo pendiente y libera el decodificador
+     */
+    void release() {
+        released = true;
+        for (Future<?> future : pendingTiles.values()) {
+            future.cancel(false);
+        }
+        pendingTiles.clear();
+        executor.execute(() -> {
+            BitmapRegionDecoder regionDecoder = decoder;
+            decoder = null;
+            if (regionDecoder != null) {
+                regionDecoder.recycle();
+            }
+        });
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vista que muestra una foto a resolución completa decodificando solo las teselas visibles
+ * para el nivel de zoom actual. Mientras llegan las teselas dibuja un marcador de baja
+ * resolución escalado a toda la imagen. Todo se calcula sobre la foto ya girada según su
+ * orientación EXIF; solo al dibujar cada tesela se gira el lienzo.
+ */
+public class TiledImageView extends View implements TileDecoder.Listener {
+
+    // Lado de cada tesela en píxeles de salida
+    private static final int TILE_SIZE_PX = 512;
+    // Zoom máximo: 2 píxeles de pantalla por píxel de la foto
+    private static final float MAX_SCALE = 2f;
+    private static final float DOUBLE_TAP_ZOOM = 3f;
+    // Fracción de memoria dedicada a teselas
+    private static final int TILE_CACHE_MEMORY_DIVISOR = 6;
+
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF destRect = new RectF();
+    private final List<Tile> visibleTiles = new ArrayList<>();
+    private final TileCache tileCache = TileCache.withMemoryFraction(TILE_CACHE_MEMORY_DIVISOR);
+
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
+    private TileDecoder tileDecoder;
+    private Bitmap placeholder;
+    private ImageOrientation orientation;
+
+    private int imageWidth;
+    private int imageHeight;
+    private float scale;
+    private float minScale;
+    private float translateX;
+    private float translateY;
+
+    public TiledImageView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public TiledImageView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    private void init(Context context) {
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                panBy(-distanceX, -distanceY);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                if (scale > minScale * 1.01f) {
+                    zoomBy(minScale / scale, e.getX(), e.getY());
+                } else {
+                    zoomBy(DOUBLE_TAP_ZOOM, e.getX(), e.getY());
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Carga una foto. Si se pasa un marcador (p. ej. la miniatura de la galería) se muestra
+     * de inmediato; si no, el decodificador genera uno de baja resolución.
+     */
+    public void setPhoto(String path, @Nullable Bitmap cachedPlaceholder) {
+        releaseDecoder();
+        tileCache.clear();
+        placeholder = cachedPlaceholder;
+        orientation = null;
+        imageWidth = 0;
+        imageHeight = 0;
+
+        int placeholderSize = cachedPlaceholder != null ? 0 : TILE_SIZE_PX;
+        tileDecoder = new TileDecoder(this);
+        tileDecoder.open(getContext(), path, placeholderSize);
+        invalidate();
+    }
+
+    @Override
+    public void onImageReady(ImageOrientation imageOrientation, Bitmap generatedPlaceholder) {
+        orientation = imageOrientation;
+        imageWidth = imageOrientation.getWidth();
+        imageHeight = imageOrientation.getHeight();
+        if (generatedPlaceholder != null) {
+            placeholder = generatedPlaceholder;
+        }
+        resetToFit();
+    }
+
+    @Override
+    public void onTileReady(Tile tile, Bitmap bitmap) {
+        tileCache.put(tile, bitmap);
+        invalidate();
+    }
+
+    @Override
+    public void onImageError() {
+        // Nos quedamos con el marcador si lo hay; no hay nada más que mostrar
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        resetToFit();
+    }
+
+    private void resetToFit() {
+        if (imageWidth == 0 || imageHeight == 0 || getWidth() == 0 || getHeight() == 0) {
+            invalidate();
+            return;
+        }
+        minScale = Math.min((float) getWidth() / imageWidth, (float) getHeight() / imageHeight);
+        scale = minScale;
+        clampTranslation();
+        updateVisibleTiles();
+    }
+
+    private void zoomBy(float factor, float focusX, float focusY) {
+        if (imageWidth == 0) {
+            return;
+        }
+        float maxScale = Math.max(MAX_SCALE, minScale);
+        float newScale = Math.max(minScale, Math.min(scale * factor, maxScale));
+        float applied = newScale / scale;
+
+        // Mantener fijo el punto bajo el foco del gesto
+        translateX = focusX - (focusX - translateX) * applied;
+        translateY = focusY - (focusY - translateY) * applied;
+        scale = newScale;
+        clampTranslation();
+        updateVisibleTiles();
+    }
+
+    private void panBy(float dx, float dy) {
+        if (imageWidth == 0) {
+            return;
+        }
+        translateX += dx;
+        translateY += dy;
+        clampTranslation();
+        updateVisibleTiles();
+    }
+
+    private void clampTranslation() {
+        float scaledWidth = imageWidth * scale;
+        float scaledHeight = imageHeight * scale;
+
+        if (scaledWidth <= getWidth()) {
+            translateX = (getWidth() - scaledWidth) / 2f;
+        } else {
+            translateX = Math.min(0, Math.max(getWidth() - scaledWidth, translateX));
+        }
+
+        if (scaledHeight <= getHeight()) {
+            translateY = (getHeight() - scaledHeight) / 2f;
+        } else {
+            translateY = Math.min(0, Math.max(getHeight() - scaledHeight, translateY));
+        }
+    }
+
+    /**
+     * Submuestreo adecuado para el zoom actual: la mayor potencia de dos que no baja de la escala
+     */
+    private int currentSampleSize() {
+        int sampleSize = 1;
+        while (sampleSize * 2 * scale <= 1f) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Recalcula las teselas que intersectan con la pantalla y pide las que faltan
+     */
+    private void updateVisibleTiles() {
+        visibleTiles.clear();
+        if (imageWidth == 0 || tileDecoder == null) {
+            invalidate();
+            return;
+        }
+
+        int sampleSize = currentSampleSize();
+        int span = TILE_SIZE_PX * sampleSize;
+
+        // Región visible en coordenadas de la imagen original
+        float visibleLeft = Math.max(0, -translateX / scale);
+        float visibleTop = Math.max(0, -translateY / scale);
+        float visibleRight = Math.min(imageWidth, (getWidth() - translateX) / scale);
+        float visibleBottom = Math.min(imageHeight, (getHeight() - translateY) / scale);
+
+        int firstColumn = (int) (visibleLeft / span);
+        int lastColumn = (int) Math.ceil(visibleRight / span) - 1;
+        int firstRow = (int) (visibleTop / span);
+        int lastRow = (int) Math.ceil(visibleBottom / span) - 1;
+
+        List<Tile> missing = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = new Tile(sampleSize, column, row, TILE_SIZE_PX, orientation);
+                visibleTiles.add(tile);
+                if (tileCache.get(tile) == null) {
+                    missing.add(tile);
+                }
+            }
+        }
+
+        tileDecoder.requestTiles(missing);
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (placeholder == null && imageWidth == 0) {
+            return;
+        }
+
+        if (imageWidth == 0) {
+            // Todavía no conocemos el tamaño real: centrar el marcador ajustado a la vista
+            float fit = Math.min((float) getWidth() / placeholder.getWidth(),
+                    (float) getHeight() / placeholder.getHeight());
+            float w = placeholder.getWidth() * fit;
+            float h = placeholder.getHeight() * fit;
+            destRect.set((getWidth() - w) / 2f, (getHeight() - h) / 2f, (getWidth() + w) / 2f, (getHeight() + h) / 2f);
+            canvas.drawBitmap(placeholder, null, destRect, bitmapPaint);
+            return;
+        }
+
+        if (placeholder != null && !placeholder.isRecycled()) {
+            destRect.set(translateX, translateY, translateX + imageWidth * scale, translateY + imageHeight * scale);
+            canvas.drawBitmap(placeholder, null, destRect, bitmapPaint);
+        }
+
+        for (int i = 0; i < visibleTiles.size(); i++) {
+            Tile tile = visibleTiles.get(i);
+            Bitmap bitmap = tileCache.get(tile);
+            if (bitmap == null) {
+                continue;
+            }
+            destRect.set(
+                    translateX + tile.left * scale,
+                    translateY + tile.top * scale,
+                    translateX + tile.right * scale,
+                    translateY + tile.bottom * scale);
+            if (orientation.degrees == 0) {
+                canvas.drawBitmap(bitmap, null, destRect, bitmapPaint);
+                continue;
+            }
+            // La tesela está decodificada sin girar: se dibuja girada sobre el centro de su sitio
+            float centerX = destRect.centerX();
+            float centerY = destRect.centerY();
+            if (orientation.swapsSides()) {
+                float halfWidth = destRect.height() / 2f;
+                float halfHeight = destRect.width() / 2f;
+                destRect.set(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight);
+            }
+            canvas.save();
+            canvas.rotate(orientation.degrees, centerX, centerY);
+            canvas.drawBitmap(bitmap, null, destRect, bitmapPaint);
+            canvas.restore();
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled = gestureDetector.onTouchEvent(event) || handled;
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseDecoder();
+        tileCache.clear();
+    }
+
+    private void releaseDecoder() {
+        if (tileDecoder != null) {
+            tileDecoder.release();
+            tileDecoder = null;
+        }
+        visibleTiles.clear();
+    }
+}
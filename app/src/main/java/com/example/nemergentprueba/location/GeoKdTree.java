@@ -0,0 +1,363 @@
+package com.example.nemergentprueba.location;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice espacial en memoria para buscar los puntos más cercanos a una posición.
+ *
+ * Cada punto se guarda como vector unitario 3D sobre la esfera: la distancia euclídea
+ * entre dos vectores (la cuerda) crece con la distancia de círculo máximo, así que el
+ * orden por cuerda es exactamente el orden por haversine, sin errores cerca de los polos
+ * ni del antimeridiano. Las distancias devueltas se convierten a kilómetros sobre la esfera.
+ *
+ * El árbol k-d se guarda de forma implícita en arrays (el nodo de un rango es su elemento
+ * central), sin un objeto por nodo. Las actualizaciones son incrementales: las inserciones
+ * van a un pequeño búfer que se recorre linealmente y los borrados marcan el punto; cuando
+ * el búfer o los borrados crecen demasiado el árbol se reconstruye entero.
+ *
+ * Todos los métodos están sincronizados.
+ */
+public class GeoKdTree {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    // Inserciones pendientes antes de reconstruir; recorrerlas cuesta poco frente a la búsqueda
+    static final int MAX_PENDING = 512;
+    // Proporción de puntos borrados del árbol que provoca una reconstrucción
+    private static final int MAX_REMOVED_DIVISOR = 4;
+
+    // Árbol: coordenadas x, y, z consecutivas por punto
+    private long[] treeIds = new long[0];
+    private double[] treeCoords = new double[0];
+    private byte[] treeAxes = new byte[0];
+    private boolean[] treeRemoved = new boolean[0];
+    private int treeSize;
+    private int removedCount;
+    // Posición en el árbol de cada ID vivo
+    private final Map<Long, Integer> treePositions = new HashMap<>();
+
+    // Inserciones aún no incorporadas al árbol
+    private long[] pendingIds = new long[MAX_PENDING];
+    private double[] pendingCoords = new double[MAX_PENDING * 3];
+    private int pendingCount;
+
+    /**
+     * Sustituye el contenido del índice por los puntos dados
+     */
+    public synchronized void build(long[] ids, double[] latitudes, double[] longitudes, int count) {
+        long[] newIds = new long[count];
+        double[] newCoords = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            newIds[i] = ids[i];
+            toUnitVector(latitudes[i], longitudes[i], newCoords, i * 3);
+        }
+        pendingCount = 0;
+        buildTree(newIds, newCoords, count);
+    }
+
+    /**
+     * Añade un punto; si el ID ya existía se sustituye su posición
+     */
+    public synchronized void insert(long id, double latitude, double longitude) {
+        remove(id);
+        if (pendingCount == MAX_PENDING) {
+            rebuild();
+        }
+        pendingIds[pendingCount] = id;
+        toUnitVector(latitude, longitude, pendingCoords, pendingCount * 3);
+        pendingCount++;
+    }
+
+    /**
+     * Quita un punto
+     * @return false si no estaba en el índice
+     */
+    public synchronized boolean remove(long id) {
+        Integer position = treePositions.remove(id);
+        if (position != null) {
+            treeRemoved[position] = true;
+            removedCount++;
+            if (removedCount > treeSize / MAX_REMOVED_DIVISOR && removedCount > MAX_PENDING) {
+                rebuild();
+            }
+            return true;
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingIds[i] == id) {
+                // Se rellena el hueco con el último pendiente
+                pendingCount--;
+                pendingIds[i] = pendingIds[pendingCount];
+                System.arraycopy(pendingCoords, pendingCount * 3, pendingCoords, i * 3, 3);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Número de puntos vivos
+     */
+    public synchronized int size() {
+        return treeSize - removedCount + pendingCount;
+    }
+
+    /**
+     * Busca los puntos más cercanos a una posición
+     * @param maxResults Número máximo de resultados
+     * @param outIds Recibe los IDs ordenados de más cercano a más lejano
+     * @param outDistancesKm Recibe las distancias en kilómetros, en el mismo orden
+     * @return Número de resultados escritos
+     */
+    public synchronized int nearest(double latitude, double longitude, int maxResults,
+                                    long[] outIds, double[] outDistancesKm) {
+        int k = Math.min(maxResults, Math.min(outIds.length, outDistancesKm.length));
+        if (k <= 0) {
+            return 0;
+        }
+        double[] query = new double[3];
+        toUnitVector(latitude, longitude, query, 0);
+        Candidates candidates = new Candidates(k);
+
+        for (int i = 0; i < pendingCount; i++) {
+            candidates.offer(pendingIds[i], squaredDistance(query, pendingCoords, i * 3));
+        }
+        search(0, treeSize, query, candidates);
+
+        // Vaciar el montículo de máximos desde el final deja los resultados en orden ascendente
+        int found = candidates.size;
+        for (int i = found - 1; i >= 0; i--) {
+            outIds[i] = candidates.ids[0];
+            outDistancesKm[i] = chordToKm(Math.sqrt(candidates.distances[0]));
+            candidates.pollMax();
+        }
+        return found;
+    }
+
+    private void search(int lo, int hi, double[] query, Candidates candidates) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (!treeRemoved[mid]) {
+                candidates.offer(treeIds[mid], squaredDistance(query, treeCoords, mid * 3));
+            }
+            int axis = treeAxes[mid];
+            double diff = query[axis] - treeCoords[mid * 3 + axis];
+            int nearLo = diff < 0 ? lo : mid + 1;
+            int nearHi = diff < 0 ? mid : hi;
+            int farLo = diff < 0 ? mid + 1 : lo;
+            int farHi = diff < 0 ? hi : mid;
+
+            // La distancia al plano de corte es una cota inferior para todo el lado lejano
+            search(nearLo, nearHi, query, candidates);
+            if (candidates.isFull() && diff * diff >= candidates.maxDistance()) {
+                return;
+            }
+            lo = farLo;
+            hi = farHi;
+        }
+    }
+
+    /**
+     * Reconstruye el árbol con los puntos vivos y los pendientes
+     */
+    private void rebuild() {
+        int count = treeSize - removedCount + pendingCount;
+        long[] newIds = new long[count];
+        double[] newCoords = new double[count * 3];
+        int n = 0;
+        for (int i = 0; i < treeSize; i++) {
+            if (!treeRemoved[i]) {
+                newIds[n] = treeIds[i];
+                System.arraycopy(treeCoords, i * 3, newCoords, n * 3, 3);
+                n++;
+            }
+        }
+        System.arraycopy(pendingIds, 0, newIds, n, pendingCount);
+        System.arraycopy(pendingCoords, 0, newCoords, n * 3, pendingCount * 3);
+        pendingCount = 0;
+        buildTree(newIds, newCoords, count);
+    }
+
+    private void buildTree(long[] ids, double[] coords, int count) {
+        treeIds = ids;
+        treeCoords = coords;
+        treeAxes = new byte[count];
+        treeRemoved = new boolean[count];
+        treeSize = count;
+        removedCount = 0;
+        buildRange(0, count);
+
+        treePositions.clear();
+        for (int i = 0; i < count; i++) {
+            treePositions.put(treeIds[i], i);
+        }
+    }
+
+    // Coloca la mediana del eje más extenso en el centro del rango y sigue con cada mitad
+    private void buildRange(int lo, int hi) {
+        while (hi - lo > 1) {
+            int axis = widestAxis(lo, hi);
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, axis);
+            treeAxes[mid] = (byte) axis;
+            buildRange(lo, mid);
+            lo = mid + 1;
+        }
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int best = 0;
+        double bestExtent = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = lo; i < hi; i++) {
+                double v = treeCoords[i * 3 + axis];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            if (max - min > bestExtent) {
+                bestExtent = max - min;
+                best = axis;
+            }
+        }
+        return best;
+    }
+
+    // Quickselect: deja en k el elemento que ocuparía esa posición ordenando [left, right] por el eje
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            int middle = (left + right) >>> 1;
+            // Pivote: mediana de tres, para no degradar con datos ya ordenados
+            if (valueAt(middle, axis) < valueAt(left, axis)) swap(middle, left);
+            if (valueAt(right, axis) < valueAt(left, axis)) swap(right, left);
+            if (valueAt(right, axis) < valueAt(middle, axis)) swap(right, middle);
+            double pivot = valueAt(middle, axis);
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (valueAt(i, axis) < pivot) i++;
+                while (valueAt(j, axis) > pivot) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double valueAt(int index, int axis) {
+        return treeCoords[index * 3 + axis];
+    }
+
+    private void swap(int a, int b) {
+        long id = treeIds[a];
+        treeIds[a] = treeIds[b];
+        treeIds[b] = id;
+        for (int axis = 0; axis < 3; axis++) {
+            double v = treeCoords[a * 3 + axis];
+            treeCoords[a * 3 + axis] = treeCoords[b * 3 + axis];
+            treeCoords[b * 3 + axis] = v;
+        }
+    }
+
+    private static void toUnitVector(double latitude, double longitude, double[] out, int offset) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        out[offset] = cosLat * Math.cos(lon);
+        out[offset + 1] = cosLat * Math.sin(lon);
+        out[offset + 2] = Math.sin(lat);
+    }
+
+    private static double squaredDistance(double[] query, double[] coords, int offset) {
+        double dx = query[0] - coords[offset];
+        double dy = query[1] - coords[offset + 1];
+        double dz = query[2] - coords[offset + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Cuerda en la esfera unidad -> distancia de círculo máximo (equivale a haversine)
+    static double chordToKm(double chord) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, chord / 2));
+    }
+
+    /**
+     * Montículo de máximos acotado con los k mejores candidatos de una búsqueda
+     */
+    private static class Candidates {
+        final long[] ids;
+        final double[] distances;
+        int size;
+
+        Candidates(int capacity) {
+            ids = new long[capacity];
+            distances = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        double maxDistance() {
+            return distances[0];
+        }
+
+        void offer(long id, double distance) {
+            if (size < ids.length) {
+                int i = size++;
+                // Subir hasta su sitio
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distance) {
+                        break;
+                    }
+                    ids[i] = ids[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                ids[i] = id;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                siftDown(id, distance);
+            }
+        }
+
+        void pollMax() {
+            size--;
+            if (size > 0) {
+                siftDown(ids[size], distances[size]);
+            }
+        }
+
+        // Coloca el elemento dado en la raíz y lo baja hasta su sitio
+        private void siftDown(long id, double distance) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                ids[i] = ids[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            ids[i] = id;
+            distances[i] = distance;
+        }
+    }
+}
@@ -1,21 +1,21 @@
 package com.example.nemergentprueba.location;
 
-import android.Manifest;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.location.Location;
-import android.location.LocationListener;
-import android.location.LocationManager;
-import android.os.Bundle;
 import android.os.SystemClock;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
-import androidx.core.app.ActivityCompat;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Clase para gestionar la ubicación con sistema de caché
- * Actualiza continuamente la ubicación cuando hay movimiento significativo
+ * Clase para gestionar la ubicación con sistema de caché.
+ * Ya no se suscribe por su cuenta al proveedor: {@link LocationEngine} le publica cada
+ * posición válida. Las actualizaciones continuas se piden registrándose como consumidor
+ * del motor, que comparte una única suscripción con el resto de la aplicación.
+ *
+ * Las lecturas se sirven de una {@link LocationSnapshot} inmutable publicada de forma
+ * atómica: no toman ningún cerrojo, no reservan memoria y nunca piden una posición al
+ * proveedor. Pedir una posición nueva es una decisión aparte ({@link #refreshIfStale()}).
  */
 public class LocationCache {
     private static final String TAG = "LocationCache";
@@ -28,16 +28,15 @@ public class LocationCache {
     private static final double DEFAULT_LATITUDE = 0.0;
     private static final double DEFAULT_LONGITUDE = 0.0;
     
-    // Variables para la caché
-    private Location lastKnownLocation;
-    private long lastLocationTime;
-    private boolean isRequestingLocation;
-    private boolean continuousUpdates = false;
+    // Última posición publicada
+    private final LocationSnapshotPublisher snapshots = new LocationSnapshotPublisher();
+    // Se devuelve mientras no haya ninguna posición, para no reservar memoria en cada lectura
+    private final Location defaultLocation;
+    private final AtomicBoolean continuousUpdates = new AtomicBoolean(false);
     
     // Referencias al sistema
-    private LocationManager locationManager;
-    private Context context;
-    private LocationListener locationListener;
+    private final Context context;
+    private final LocationEngine.Consumer engineConsumer;
     
     // Instancia única (patrón Singleton)
     private static LocationCache instance;
@@ -52,183 +51,83 @@ public class LocationCache {
         return instance;
     }
     
-    private LocationCache(Context context) {
+    LocationCache(Context context) {
         this.context = context;
-        this.locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
-        this.lastLocationTime = 0;
-        this.isRequestingLocation = false;
         
         // Inicializar con una ubicación predeterminada
-        this.lastKnownLocation = new Location("default");
-        this.lastKnownLocation.setLatitude(DEFAULT_LATITUDE);
-        this.lastKnownLocation.setLongitude(DEFAULT_LONGITUDE);
+        this.defaultLocation = new Location("default");
+        this.defaultLocation.setLatitude(DEFAULT_LATITUDE);
+        this.defaultLocation.setLongitude(DEFAULT_LONGITUDE);
         
-        // Crear el listener para actualizaciones de ubicación
-        this.locationListener = new LocationListener() {
+        // El motor ya publica cada posición en la caché: este consumidor solo mantiene
+        // viva la suscripción mientras se piden actualizaciones continuas
+        this.engineConsumer = new LocationEngine.Consumer() {
             @Override
-            public void onLocationChanged(@NonNull Location location) {
-                updateCachedLocation(location);
-                
-                // En modo continuo, no detenemos las actualizaciones
-                if (isRequestingLocation && !continuousUpdates) {
-                    stopLocationUpdates();
-                }
+            public void onLocationChanged(Location location) {
             }
             
             @Override
-            public void onStatusChanged(String provider, int status, Bundle extras) {
-                // No necesitamos implementar esto para API nivel 29+
-            }
-            
-            @Override
-            public void onProviderEnabled(@NonNull String provider) {
-                // Intenta obtener la ubicación cuando el proveedor se habilita
-                if (provider.equals(LocationManager.GPS_PROVIDER) ||
-                    provider.equals(LocationManager.NETWORK_PROVIDER)) {
-                    requestLocationUpdate();
-                }
-            }
-            
-            @Override
-            public void onProviderDisabled(@NonNull String provider) {
-                Log.d(TAG, "Proveedor deshabilitado: " + provider);
-                // Si se desactiva GPS pero tenemos NETWORK, seguir usando eso
-                if (provider.equals(LocationManager.GPS_PROVIDER) && 
-                    locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
-                    requestLocationUpdate();
-                }
+            public void onLocationError(String error) {
+                Log.w(TAG, "Error de ubicación: " + error);
             }
         };
-        
-        // Iniciar con una solicitud de ubicación para tener datos lo antes posible
-        // y mantener actualizaciones continuas
-        startContinuousUpdates();
     }
     
     /**
      * Actualiza la ubicación en caché
-     * Ahora es público para permitir actualizaciones desde LocationService
+     * La llama {@link LocationEngine} con cada posición válida. Una posición más antigua
+     * que la publicada se descarta.
      */
-    public synchronized void updateCachedLocation(Location location) {
-        if (location != null) {
+    public void updateCachedLocation(Location location) {
+        if (location == null) {
+            return;
+        }
+        long fixTimeNanos = location.getElapsedRealtimeNanos();
+        if (fixTimeNanos == 0) {
+            fixTimeNanos = SystemClock.elapsedRealtimeNanos();
+        }
+        if (snapshots.publish(LocationSnapshot.of(location, fixTimeNanos))) {
             Log.d(TAG, "Ubicación actualizada: " + location.getLatitude() + ", " + location.getLongitude());
-            lastKnownLocation = location;
-            lastLocationTime = SystemClock.elapsedRealtime();
         }
     }
     
     /**
-     * Detiene las actualizaciones de ubicación para ahorrar batería
+     * Inicia actualizaciones continuas de ubicación
      */
-    private void stopLocationUpdates() {
-        if (locationManager != null) {
-            locationManager.removeUpdates(locationListener);
-            isRequestingLocation = false;
-            continuousUpdates = false;
-            Log.d(TAG, "Actualizaciones de ubicación detenidas");
+    public void startContinuousUpdates() {
+        if (continuousUpdates.compareAndSet(false, true)) {
+            LocationEngine.getInstance(context).addConsumer(engineConsumer);
+            Log.d(TAG, "Actualizaciones continuas iniciadas");
         }
     }
     
     /**
-     * Inicia actualizaciones continuas de ubicación
+     * Pide una posición puntual al motor si la de la caché está obsoleta.
+     * No forma parte de las lecturas: se llama desde los puntos donde compensa refrescar
+     * (por ejemplo, al volver a la cámara). Con actualizaciones continuas no hace nada.
      */
-    public void startContinuousUpdates() {
-        continuousUpdates = true;
-        requestLocationUpdate();
-        Log.d(TAG, "Actualizaciones continuas iniciadas");
+    public void refreshIfStale() {
+        LocationSnapshot snapshot = snapshots.get();
+        if (!continuousUpdates.get()
+                && snapshot.ageMs(SystemClock.elapsedRealtime()) > MIN_TIME_BETWEEN_UPDATES) {
+            LocationEngine.getInstance(context).requestSingleFix();
+        }
     }
     
     /**
-     * Solicita una actualización de ubicación
+     * Última instantánea publicada. Lectura sin esperas ni reserva de memoria.
      */
-    private void requestLocationUpdate() {
-        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != 
-                PackageManager.PERMISSION_GRANTED && 
-            ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) != 
-                PackageManager.PERMISSION_GRANTED) {
-            // No tenemos permisos, no podemos continuar
-            Log.w(TAG, "Sin permisos de ubicación");
-            return;
-        }
-        
-        // Detener actualizaciones anteriores para evitar duplicados
-        if (isRequestingLocation) {
-            locationManager.removeUpdates(locationListener);
-        }
-        
-        isRequestingLocation = true;
-        
-        // Intentar primero con GPS para mayor precisión
-        if (locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)) {
-            locationManager.requestLocationUpdates(
-                LocationManager.GPS_PROVIDER,
-                MIN_TIME_BETWEEN_UPDATES,
-                MIN_DISTANCE_FOR_UPDATE,
-                locationListener
-            );
-            Log.d(TAG, "Solicitando actualizaciones GPS");
-        }
-        
-        // También solicitar con NETWORK por si el GPS falla o tarda demasiado
-        if (locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
-            locationManager.requestLocationUpdates(
-                LocationManager.NETWORK_PROVIDER,
-                MIN_TIME_BETWEEN_UPDATES,
-                MIN_DISTANCE_FOR_UPDATE,
-                locationListener
-            );
-            Log.d(TAG, "Solicitando actualizaciones NETWORK");
-        }
-        
-        // Intentar obtener una ubicación de la última conocida (rápido, pero puede ser obsoleta)
-        try {
-            Location lastNetworkLocation = null;
-            Location lastGpsLocation = null;
-            
-            if (locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
-                lastNetworkLocation = locationManager.getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
-            }
-            
-            if (locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)) {
-                lastGpsLocation = locationManager.getLastKnownLocation(LocationManager.GPS_PROVIDER);
-            }
-            
-            // Usar la más reciente de las dos
-            if (lastGpsLocation != null && lastNetworkLocation != null) {
-                if (lastGpsLocation.getTime() > lastNetworkLocation.getTime()) {
-                    updateCachedLocation(lastGpsLocation);
-                } else {
-                    updateCachedLocation(lastNetworkLocation);
-                }
-            } else if (lastGpsLocation != null) {
-                updateCachedLocation(lastGpsLocation);
-            } else if (lastNetworkLocation != null) {
-                updateCachedLocation(lastNetworkLocation);
-            }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error al obtener la última ubicación conocida", e);
-        }
+    public LocationSnapshot getSnapshot() {
+        return snapshots.get();
     }
     
     /**
-     * Obtiene la ubicación actual o actualiza si es necesario
-     * @return Un objeto Location con la ubicación actual
+     * Obtiene la ubicación actual de la caché
+     * @return Un objeto Location con la ubicación actual (0,0 si todavía no hay ninguna)
      */
-    public synchronized Location getCurrentLocation() {
-        long currentTime = SystemClock.elapsedRealtime();
-        
-        // Si ha pasado demasiado tiempo desde la última actualización, solicitar una nueva
-        if (currentTime - lastLocationTime > MIN_TIME_BETWEEN_UPDATES || 
-            lastKnownLocation.getLatitude() == DEFAULT_LATITUDE && 
-            lastKnownLocation.getLongitude() == DEFAULT_LONGITUDE) {
-            
-            if (!isRequestingLocation) {
-                requestLocationUpdate();
-            }
-        }
-        
-        return lastKnownLocation;
+    public Location getCurrentLocation() {
+        Location location = snapshots.get().location;
+        return location != null ? location : defaultLocation;
     }
     
     /**
@@ -236,7 +135,7 @@ public class LocationCache {
      * @return Latitud de la ubicación cacheada
      */
     public double getLatitude() {
-        return getCurrentLocation().getLatitude();
+        return snapshots.get().latitude;
     }
     
     /**
@@ -244,24 +143,22 @@ public class LocationCache {
      * @return Longitud de la ubicación cacheada
      */
     public double getLongitude() {
-        return getCurrentLocation().getLongitude();
+        return snapshots.get().longitude;
     }
     
     /**
      * Fuerza una actualización de ubicación, ignorando la caché
      */
     public void forceLocationUpdate() {
-        stopLocationUpdates();
-        requestLocationUpdate();
+        LocationEngine.getInstance(context).requestSingleFix();
     }
     
     /**
      * Detiene las actualizaciones continuas pero mantiene la capacidad de solicitar ubicación
      */
     public void pauseContinuousUpdates() {
-        if (continuousUpdates) {
-            stopLocationUpdates();
-            continuousUpdates = false;
+        if (continuousUpdates.compareAndSet(true, false)) {
+            LocationEngine.getInstance(context).removeConsumer(engineConsumer);
             Log.d(TAG, "Actualizaciones continuas pausadas");
         }
     }
@@ -270,7 +167,7 @@ public class LocationCache {
      * Limpia los recursos cuando ya no se necesitan
      */
     public void cleanup() {
-        stopLocationUpdates();
+        pauseContinuousUpdates();
     }
     
     /**
@@ -279,6 +176,7 @@ public class LocationCache {
      * @return true si ha cambiado significativamente
      */
     public boolean hasLocationChangedSignificantly(Location newLocation) {
+        Location lastKnownLocation = snapshots.get().location;
         if (lastKnownLocation == null || newLocation == null) {
             return false;
         }
@@ -286,4 +184,4 @@ public class LocationCache {
         float distance = lastKnownLocation.distanceTo(newLocation);
         return distance > MIN_DISTANCE_FOR_UPDATE;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.example.nemergentprueba.location;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Decide la cadencia de localización según la probabilidad de una captura.
+ * Sube a {@link LocationEngine.PowerMode#HIGH_ACCURACY} cuando se pulsa el disparador,
+ * mientras hay una captura en curso y durante {@link #HIGH_ACCURACY_HOLD_MS}
+ * después de la última captura; el resto del tiempo (p. ej. mirando la vista previa)
+ * deja el motor en {@link LocationEngine.PowerMode#LOW_POWER}.
+ *
+ * Solo cambia el modo de la suscripción compartida: los consumidores del motor siguen
+ * siendo los mismos. Los métodos deben llamarse desde el hilo principal.
+ */
+public class LocationCadenceController {
+
+    // Tiempo en alta precisión tras la última actividad de captura
+    static final long HIGH_ACCURACY_HOLD_MS = 60000;
+
+    private static LocationCadenceController instance;
+
+    private final LocationEngine locationEngine;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable evaluateRunnable = this::evaluate;
+
+    private int capturesInFlight;
+    private long lastCaptureActivity = Long.MIN_VALUE;
+
+    public static synchronized LocationCadenceController getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocationCadenceController(LocationEngine.getInstance(context));
+        }
+        return instance;
+    }
+
+    private LocationCadenceController(LocationEngine locationEngine) {
+        this.locationEngine = locationEngine;
+    }
+
+    /**
+     * El usuario ha empezado a pulsar el disparador: la captura es inminente
+     */
+    public void onCaptureLikely() {
+        markActivity();
+    }
+
+    public void onCaptureStarted() {
+        capturesInFlight++;
+        markActivity();
+    }
+
+    public void onCaptureFinished() {
+        capturesInFlight = Math.max(0, capturesInFlight - 1);
+        markActivity();
+    }
+
+    private void markActivity() {
+        lastCaptureActivity = SystemClock.elapsedRealtime();
+        evaluate();
+    }
+
+    private void evaluate() {
+        mainHandler.removeCallbacks(evaluateRunnable);
+
+        long sinceActivity = SystemClock.elapsedRealtime() - lastCaptureActivity;
+        boolean captureLikely = capturesInFlight > 0
+                || (lastCaptureActivity != Long.MIN_VALUE && sinceActivity < HIGH_ACCURACY_HOLD_MS);
+        locationEngine.setPowerMode(captureLikely
+                ? LocationEngine.PowerMode.HIGH_ACCURACY : LocationEngine.PowerMode.LOW_POWER);
+
+        if (captureLikely && capturesInFlight == 0) {
+            // Volver a evaluar cuando caduque la ventana tras la última captura
+            mainHandler.postDelayed(evaluateRunnable, HIGH_ACCURACY_HOLD_MS - sinceActivity);
+        }
+    }
+}
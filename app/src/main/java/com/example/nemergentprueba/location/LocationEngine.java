@@ -0,0 +1,490 @@
+package com.example.nemergentprueba.location;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.ActivityCompat;
+
+import com.example.nemergentprueba.R;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Motor de localización único de la aplicación.
+ * Mantiene como mucho una suscripción al proveedor de localización y reparte cada posición
+ * a los consumidores registrados. La suscripción se abre con el primer consumidor y se
+ * cierra cuando se va el último, de modo que los radios solo están activos mientras alguien
+ * necesita la ubicación. Cada posición válida también se publica en {@link LocationCache}.
+ *
+ * La suscripción funciona en uno de dos modos ({@link PowerMode}) que decide
+ * {@link LocationCadenceController} según la probabilidad de captura; el cambio de modo
+ * sustituye la petición sin cortar el reparto a los consumidores.
+ */
+public class LocationEngine {
+    private static final String TAG = "LocationEngine";
+
+    /**
+     * Modos de la suscripción: intervalo, intervalo mínimo y prioridad del proveedor
+     */
+    public enum PowerMode {
+        // Mientras es probable una captura: posiciones frecuentes y precisas
+        HIGH_ACCURACY(5000, 2000, Priority.PRIORITY_HIGH_ACCURACY),
+        // Resto del tiempo: pocas posiciones, sin GPS si hay alternativa
+        LOW_POWER(60000, 30000, Priority.PRIORITY_BALANCED_POWER_ACCURACY);
+
+        final long intervalMs;
+        final long minIntervalMs;
+        final int priority;
+
+        PowerMode(long intervalMs, long minIntervalMs, int priority) {
+            this.intervalMs = intervalMs;
+            this.minIntervalMs = minIntervalMs;
+            this.priority = priority;
+        }
+    }
+
+    // Posiciones recientes guardadas para geoetiquetar por instante de captura
+    private static final int HISTORY_CAPACITY = 64;
+    private static final String TRACE_DIRECTORY = "location_trace";
+
+    private static LocationEngine instance;
+
+    /**
+     * Acceso al proveedor de localización; permite sustituirlo en las pruebas
+     */
+    interface Provider {
+        boolean hasPermission();
+
+        /**
+         * Abre la suscripción o, si el callback ya está suscrito, sustituye su petición
+         */
+        void requestUpdates(LocationRequest request, LocationCallback callback);
+
+        void removeUpdates(LocationCallback callback);
+
+        void getLastLocation(OnSuccessListener<Location> listener);
+
+        void getCurrentLocation(int priority, OnSuccessListener<Location> listener);
+    }
+
+    private final Context context;
+    private final Provider provider;
+    private final LocationCache locationCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private final LocationHistory history = new LocationHistory(HISTORY_CAPACITY);
+    // Registro persistente de posiciones; se escribe en su propio hilo
+    private final LocationTraceLog traceLog;
+    private final ExecutorService traceExecutor = Executors.newSingleThreadExecutor();
+
+    // Estado de la suscripción: solo se modifica en el hilo principal
+    private volatile LocationCallback locationCallback;
+    private long subscriptionStartTime;
+    private boolean awaitingFirstFix;
+    private volatile Location lastFix;
+    private volatile PowerMode powerMode = PowerMode.LOW_POWER;
+    // Inicio del tramo actual en el modo vigente, y tiempo acumulado por modo en la sesión
+    private volatile long modeSince;
+    private final long[] sessionModeTimeMs = new long[PowerMode.values().length];
+    private int sessionModeSwitches;
+    private volatile String lastSessionSummary = "";
+
+    // Métricas
+    private final AtomicLong fixesReceived = new AtomicLong();
+    private final AtomicLong fixesDelivered = new AtomicLong();
+    private final AtomicLong fixesDropped = new AtomicLong();
+    private final AtomicLong subscriptionsStarted = new AtomicLong();
+    // Tiempo total con la suscripción activa en cada modo (sesiones terminadas y tramos cerrados)
+    private final AtomicLongArray radioOnTimeMs = new AtomicLongArray(PowerMode.values().length);
+    private volatile long lastTimeToFirstFixMs = -1;
+
+    public static synchronized LocationEngine getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new LocationEngine(appContext, new FusedProvider(appContext),
+                    LocationCache.getInstance(appContext),
+                    new LocationTraceLog(new File(appContext.getFilesDir(), TRACE_DIRECTORY)));
+        }
+        return instance;
+    }
+
+    LocationEngine(Context context, Provider provider, LocationCache locationCache, LocationTraceLog traceLog) {
+        this.context = context;
+        this.provider = provider;
+        this.locationCache = locationCache;
+        this.traceLog = traceLog;
+    }
+
+    /**
+     * Registra un consumidor. Si es el primero se inicia la suscripción al proveedor.
+     * Registrar dos veces el mismo consumidor no tiene efecto.
+     * Si ya hay una posición conocida se entrega de inmediato, también cuando la suscripción
+     * se vuelve a abrir: la última posición del proveedor suele ser esa misma y
+     * {@link #onFix} la descarta por no ser más reciente.
+     */
+    public void addConsumer(Consumer consumer) {
+        runOnMainThread(() -> {
+            if (consumers.contains(consumer)) {
+                return;
+            }
+            consumers.add(consumer);
+            Log.d(TAG, "Consumidor registrado (" + consumers.size() + " activos)");
+
+            Location known = lastFix;
+            if (known != null) {
+                consumer.onLocationChanged(known);
+                fixesDelivered.incrementAndGet();
+            }
+            if (locationCallback == null) {
+                startSubscription();
+            }
+        });
+    }
+
+    /**
+     * Elimina un consumidor. Si era el último se detiene la suscripción al proveedor.
+     */
+    public void removeConsumer(Consumer consumer) {
+        runOnMainThread(() -> {
+            if (!consumers.remove(consumer)) {
+                return;
+            }
+            Log.d(TAG, "Consumidor eliminado (" + consumers.size() + " activos)");
+            if (consumers.isEmpty()) {
+                stopSubscription();
+            }
+        });
+    }
+
+    private void startSubscription() {
+        if (!provider.hasPermission()) {
+            notifyError(context.getString(R.string.location_permission_required));
+            return;
+        }
+
+        LocationRequest locationRequest = buildRequest(powerMode);
+
+        locationCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(@NonNull LocationResult locationResult) {
+                for (Location location : locationResult.getLocations()) {
+                    onFix(location);
+                }
+            }
+        };
+        subscriptionStartTime = SystemClock.elapsedRealtime();
+        awaitingFirstFix = true;
+        modeSince = subscriptionStartTime;
+        Arrays.fill(sessionModeTimeMs, 0);
+        sessionModeSwitches = 0;
+
+        try {
+            provider.requestUpdates(locationRequest, locationCallback);
+            subscriptionsStarted.incrementAndGet();
+            Log.d(TAG, "Suscripción al proveedor iniciada en modo " + powerMode);
+
+            // La última posición conocida llega antes que la primera actualización
+            provider.getLastLocation(this::onFix);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Error al solicitar actualizaciones de ubicación", e);
+            locationCallback = null;
+            notifyError(context.getString(R.string.location_error, e.getMessage()));
+        }
+    }
+
+    private void stopSubscription() {
+        if (locationCallback != null) {
+            provider.removeUpdates(locationCallback);
+            accountModeTime();
+            locationCallback = null;
+            awaitingFirstFix = false;
+            lastSessionSummary = "duración=" + (SystemClock.elapsedRealtime() - subscriptionStartTime) + "ms"
+                    + " altaPrecisión=" + sessionModeTimeMs[PowerMode.HIGH_ACCURACY.ordinal()] + "ms"
+                    + " bajoConsumo=" + sessionModeTimeMs[PowerMode.LOW_POWER.ordinal()] + "ms"
+                    + " cambiosDeModo=" + sessionModeSwitches;
+            Log.d(TAG, "Suscripción al proveedor detenida. Sesión: " + lastSessionSummary
+                    + ". " + getStatsSummary());
+        }
+    }
+
+    private static LocationRequest buildRequest(PowerMode mode) {
+        return new LocationRequest.Builder(mode.intervalMs)
+                .setPriority(mode.priority)
+                .setMinUpdateIntervalMillis(mode.minIntervalMs)
+                .build();
+    }
+
+    /**
+     * Cambia el modo de la suscripción. Si hay una activa se sustituye su petición
+     * (mismo callback), así que los consumidores no notan el cambio salvo en la cadencia.
+     */
+    public void setPowerMode(PowerMode mode) {
+        runOnMainThread(() -> {
+            if (mode == powerMode) {
+                return;
+            }
+            if (locationCallback == null) {
+                powerMode = mode;
+                return;
+            }
+            accountModeTime();
+            powerMode = mode;
+            sessionModeSwitches++;
+            try {
+                provider.requestUpdates(buildRequest(mode), locationCallback);
+                Log.d(TAG, "Modo de localización: " + mode);
+            } catch (SecurityException e) {
+                Log.e(TAG, "Error al cambiar el modo de localización", e);
+            }
+        });
+    }
+
+    /**
+     * Suma al modo vigente el tiempo transcurrido desde el último cambio (hilo principal)
+     */
+    private void accountModeTime() {
+        if (locationCallback == null) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        long elapsed = now - modeSince;
+        sessionModeTimeMs[powerMode.ordinal()] += elapsed;
+        radioOnTimeMs.addAndGet(powerMode.ordinal(), elapsed);
+        modeSince = now;
+    }
+
+    /**
+     * Pide una posición puntual sin abrir una suscripción continua.
+     * Útil cuando la caché está obsoleta y no hay consumidores activos.
+     */
+    public void requestSingleFix() {
+        runOnMainThread(() -> {
+            if (locationCallback != null) {
+                // Ya hay una suscripción activa que traerá la siguiente posición
+                return;
+            }
+            if (!provider.hasPermission()) {
+                return;
+            }
+            try {
+                provider.getCurrentLocation(Priority.PRIORITY_BALANCED_POWER_ACCURACY, this::onFix);
+            } catch (SecurityException e) {
+                Log.e(TAG, "Error al solicitar una posición puntual", e);
+            }
+        });
+    }
+
+    /**
+     * Procesa una posición del proveedor (hilo principal): descarta las inválidas o
+     * antiguas y reparte el resto
+     */
+    private void onFix(Location location) {
+        if (location == null) {
+            return;
+        }
+        fixesReceived.incrementAndGet();
+
+        Location previous = lastFix;
+        if ((location.getLatitude() == 0 && location.getLongitude() == 0)
+                || (previous != null && location.getElapsedRealtimeNanos() <= previous.getElapsedRealtimeNanos())) {
+            fixesDropped.incrementAndGet();
+            return;
+        }
+
+        if (awaitingFirstFix) {
+            awaitingFirstFix = false;
+            lastTimeToFirstFixMs = SystemClock.elapsedRealtime() - subscriptionStartTime;
+            Log.d(TAG, "Primera posición en " + lastTimeToFirstFixMs + "ms");
+        }
+        lastFix = location;
+        locationCache.updateCachedLocation(location);
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : Float.NaN;
+        history.add(location.getElapsedRealtimeNanos() / 1_000_000,
+                location.getLatitude(), location.getLongitude(), accuracy);
+        appendToTrace(location.getTime(), location.getLatitude(), location.getLongitude(), accuracy);
+
+        for (Consumer consumer : consumers) {
+            consumer.onLocationChanged(location);
+            fixesDelivered.incrementAndGet();
+        }
+    }
+
+    private void appendToTrace(long timeMs, double latitude, double longitude, float accuracy) {
+        traceExecutor.execute(() -> {
+            try {
+                traceLog.append(timeMs, latitude, longitude, accuracy);
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo escribir en el registro de posiciones: " + e.getMessage());
+            }
+        });
+    }
+
+    private void notifyError(String error) {
+        for (Consumer consumer : consumers) {
+            consumer.onLocationError(error);
+        }
+    }
+
+    private void runOnMainThread(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            mainHandler.post(action);
+        }
+    }
+
+    /**
+     * Última posición válida recibida, o null si todavía no hay ninguna
+     */
+    public Location getLastFix() {
+        return lastFix;
+    }
+
+    /**
+     * Historial de posiciones recientes, para localizar un instante concreto
+     */
+    public LocationHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Registro persistente de posiciones, en hora UTC, para geoetiquetar a posteriori
+     */
+    public LocationTraceLog getTraceLog() {
+        return traceLog;
+    }
+
+    public PowerMode getPowerMode() {
+        return powerMode;
+    }
+
+    /**
+     * Tiempo total con la suscripción activa en un modo, incluido el tramo en curso
+     */
+    public long getRadioOnTimeMs(PowerMode mode) {
+        long total = radioOnTimeMs.get(mode.ordinal());
+        if (locationCallback != null && powerMode == mode) {
+            total += SystemClock.elapsedRealtime() - modeSince;
+        }
+        return total;
+    }
+
+    /**
+     * Resumen de la última sesión terminada: duración y tiempo en cada modo
+     */
+    public String getLastSessionSummary() {
+        return lastSessionSummary;
+    }
+
+    public boolean isActive() {
+        return locationCallback != null;
+    }
+
+    public int getConsumerCount() {
+        return consumers.size();
+    }
+
+    public long getFixesReceived() {
+        return fixesReceived.get();
+    }
+
+    // Entregas a consumidores: una posición repartida a tres consumidores cuenta tres veces
+    public long getFixesDelivered() {
+        return fixesDelivered.get();
+    }
+
+    public long getFixesDropped() {
+        return fixesDropped.get();
+    }
+
+    /**
+     * Tiempo hasta la primera posición de la suscripción actual o de la última, o -1
+     */
+    public long getTimeToFirstFixMs() {
+        return lastTimeToFirstFixMs;
+    }
+
+    public String getStatsSummary() {
+        return "suscripciones=" + subscriptionsStarted.get()
+                + " recibidas=" + fixesReceived.get()
+                + " entregadas=" + fixesDelivered.get()
+                + " descartadas=" + fixesDropped.get()
+                + " ttff=" + lastTimeToFirstFixMs + "ms"
+                + " altaPrecisión=" + getRadioOnTimeMs(PowerMode.HIGH_ACCURACY) + "ms"
+                + " bajoConsumo=" + getRadioOnTimeMs(PowerMode.LOW_POWER) + "ms";
+    }
+
+    /**
+     * Proveedor real: Fused Location Provider de Google Play Services, con entregas en el
+     * hilo principal. El motor comprueba el permiso con {@link #hasPermission()} antes de
+     * pedir posiciones.
+     */
+    private static final class FusedProvider implements Provider {
+        private final Context context;
+        private final FusedLocationProviderClient client;
+
+        FusedProvider(Context context) {
+            this.context = context;
+            this.client = LocationServices.getFusedLocationProviderClient(context);
+        }
+
+        @Override
+        public boolean hasPermission() {
+            return ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                    == PackageManager.PERMISSION_GRANTED;
+        }
+
+        @Override
+        @SuppressLint("MissingPermission")
+        public void requestUpdates(LocationRequest request, LocationCallback callback) {
+            client.requestLocationUpdates(request, callback, Looper.getMainLooper());
+        }
+
+        @Override
+        public void removeUpdates(LocationCallback callback) {
+            client.removeLocationUpdates(callback);
+        }
+
+        @Override
+        @SuppressLint("MissingPermission")
+        public void getLastLocation(OnSuccessListener<Location> listener) {
+            client.getLastLocation().addOnSuccessListener(listener);
+        }
+
+        @Override
+        @SuppressLint("MissingPermission")
+        public void getCurrentLocation(int priority, OnSuccessListener<Location> listener) {
+            client.getCurrentLocation(priority, null).addOnSuccessListener(listener);
+        }
+    }
+
+    /**
+     * Consumidor de posiciones. Los métodos se llaman en el hilo principal.
+     */
+    public interface Consumer {
+        void onLocationChanged(Location location);
+        void onLocationError(String error);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.nemergentprueba.location;
+
+/**
+ * Historial de capacidad fija de las últimas posiciones, guardado en arrays primitivos
+ * que funcionan como búfer circular. Permite saber dónde estaba el dispositivo en un
+ * instante concreto (p. ej. el de una captura) interpolando entre las posiciones que lo rodean.
+ *
+ * Los tiempos están en milisegundos de SystemClock.elapsedRealtime, que no salta con los
+ * cambios de hora. Ni {@link #add} ni {@link #locate} reservan memoria.
+ */
+public class LocationHistory {
+
+    // Hueco máximo entre dos posiciones para interpolar entre ellas; si es mayor se usa la más cercana
+    static final long MAX_INTERPOLATION_GAP_MS = 30000;
+
+    private final long[] times;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final float[] accuracies;
+    // Posición de la entrada más antigua y número de entradas
+    private int head;
+    private int size;
+
+    /**
+     * Resultado reutilizable de {@link #locate}
+     */
+    public static class Fix {
+        public double latitude;
+        public double longitude;
+        // Precisión en metros, o NaN si no se conoce
+        public float accuracy;
+        // Distancia en tiempo entre el instante pedido y la posición real más cercana usada
+        public long stalenessMs;
+        public boolean interpolated;
+
+        /**
+         * Precisión lista para guardar en una foto: null si no se conoce
+         */
+        public Float getAccuracyOrNull() {
+            return Float.isNaN(accuracy) ? null : accuracy;
+        }
+    }
+
+    public LocationHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 2");
+        }
+        times = new long[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        accuracies = new float[capacity];
+    }
+
+    /**
+     * Añade una posición. Se ignoran las que no son posteriores a la última guardada.
+     * @param accuracy Precisión en metros, o NaN si no se conoce
+     */
+    public synchronized void add(long timeMs, double latitude, double longitude, float accuracy) {
+        accuracy = sanitizeAccuracy(accuracy);
+        if (size > 0 && timeMs <= times[physical(size - 1)]) {
+            return;
+        }
+        int slot;
+        if (size < times.length) {
+            slot = physical(size);
+            size++;
+        } else {
+            // Lleno: se sobrescribe la más antigua
+            slot = head;
+            head = (head + 1) % times.length;
+        }
+        times[slot] = timeMs;
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        accuracies[slot] = accuracy;
+    }
+
+    /**
+     * Calcula la posición en un instante
+     * @param out Resultado a rellenar
+     * @return false si el historial está vacío (out no se modifica)
+     */
+    public synchronized boolean locate(long timeMs, Fix out) {
+        if (size == 0) {
+            return false;
+        }
+
+        // Primera entrada (lógica) con tiempo >= timeMs
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[physical(mid)] < timeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Los índices se acotan para leer siempre huecos válidos; los flags indican si existen
+        int before = physical(Math.max(low - 1, 0));
+        int after = physical(Math.min(low, size - 1));
+        resolve(timeMs,
+                low > 0, times[before], latitudes[before], longitudes[before], accuracies[before],
+                low < size, times[after], latitudes[after], longitudes[after], accuracies[after],
+                out);
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Calcula la posición en un instante a partir de las posiciones que lo rodean:
+     * interpola si están a menos de {@link #MAX_INTERPOLATION_GAP_MS} y, si no,
+     * usa la más cercana. Al menos uno de los dos lados debe existir.
+     */
+    static void resolve(long timeMs,
+                        boolean hasBefore, long beforeTime, double beforeLat, double beforeLon, float beforeAcc,
+                        boolean hasAfter, long afterTime, double afterLat, double afterLon, float afterAcc,
+                        Fix out) {
+        beforeAcc = sanitizeAccuracy(beforeAcc);
+        afterAcc = sanitizeAccuracy(afterAcc);
+        boolean useBefore;
+        if (!hasAfter) {
+            useBefore = true;
+        } else if (!hasBefore || afterTime == timeMs) {
+            useBefore = false;
+        } else {
+            long gap = afterTime - beforeTime;
+            if (gap <= MAX_INTERPOLATION_GAP_MS) {
+                double fraction = (double) (timeMs - beforeTime) / gap;
+                out.latitude = beforeLat + (afterLat - beforeLat) * fraction;
+                out.longitude = beforeLon + (afterLon - beforeLon) * fraction;
+                // La precisión de una interpolación no es mejor que la peor de sus extremos
+                // (y se desconoce si se desconoce la de alguno: Math.max propaga NaN)
+                out.accuracy = Math.max(beforeAcc, afterAcc);
+                out.stalenessMs = Math.min(timeMs - beforeTime, afterTime - timeMs);
+                out.interpolated = true;
+                return;
+            }
+            useBefore = timeMs - beforeTime <= afterTime - timeMs;
+        }
+
+        out.latitude = useBefore ? beforeLat : afterLat;
+        out.longitude = useBefore ? beforeLon : afterLon;
+        out.accuracy = useBefore ? beforeAcc : afterAcc;
+        out.stalenessMs = Math.abs(timeMs - (useBefore ? beforeTime : afterTime));
+        out.interpolated = false;
+    }
+
+    /**
+     * Precisión válida (finita y no negativa) o NaN si no se conoce o no tiene sentido
+     */
+    static float sanitizeAccuracy(float accuracy) {
+        return Float.isFinite(accuracy) && accuracy >= 0 ? accuracy : Float.NaN;
+    }
+
+    // Índice físico de la i-ésima entrada más antigua
+    private int physical(int logicalIndex) {
+        return (head + logicalIndex) % times.length;
+    }
+}
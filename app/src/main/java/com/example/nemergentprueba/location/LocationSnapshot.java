@@ -0,0 +1,71 @@
+package com.example.nemergentprueba.location;
+
+import android.location.Location;
+
+/**
+ * Copia inmutable de una posición. Se publica entera con una sola escritura de referencia,
+ * así que quien la lee ve siempre latitud, longitud y tiempos de la misma posición.
+ */
+public final class LocationSnapshot {
+
+    /** Instantánea inicial, antes de recibir ninguna posición */
+    public static final LocationSnapshot EMPTY = new LocationSnapshot(null, 0.0, 0.0, Float.NaN, 0L, 0L, 0L);
+
+    // Objeto original del proveedor; se trata como inmutable una vez publicado
+    public final Location location;
+    public final double latitude;
+    public final double longitude;
+    // Precisión en metros, o NaN si el proveedor no la indica
+    public final float accuracy;
+    // Momento de la posición según el reloj de arranque (SystemClock.elapsedRealtime)
+    public final long elapsedRealtimeMs;
+    // Momento de la posición en hora de pared (Location.getTime)
+    public final long timeMs;
+    // Orden de publicación, creciente (el momento de la posición en nanosegundos);
+    // permite descartar publicaciones fuera de orden
+    public final long sequence;
+
+    public LocationSnapshot(Location location, double latitude, double longitude, float accuracy,
+                            long elapsedRealtimeMs, long timeMs, long sequence) {
+        this.location = location;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.elapsedRealtimeMs = elapsedRealtimeMs;
+        this.timeMs = timeMs;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Crea la instantánea de una posición del proveedor
+     */
+    public static LocationSnapshot of(Location location, long sequence) {
+        return new LocationSnapshot(
+                location,
+                location.getLatitude(),
+                location.getLongitude(),
+                location.hasAccuracy() ? location.getAccuracy() : Float.NaN,
+                location.getElapsedRealtimeNanos() / 1_000_000,
+                location.getTime(),
+                sequence);
+    }
+
+    /**
+     * true si contiene una posición real (no la inicial ni 0,0)
+     */
+    public boolean isValid() {
+        return latitude != 0.0 || longitude != 0.0;
+    }
+
+    public boolean hasAccuracy() {
+        return !Float.isNaN(accuracy);
+    }
+
+    /**
+     * Antigüedad de la posición
+     * @param nowElapsedRealtimeMs Valor actual de SystemClock.elapsedRealtime
+     */
+    public long ageMs(long nowElapsedRealtimeMs) {
+        return isValid() ? nowElapsedRealtimeMs - elapsedRealtimeMs : Long.MAX_VALUE;
+    }
+}
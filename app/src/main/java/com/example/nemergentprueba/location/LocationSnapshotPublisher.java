@@ -0,0 +1,38 @@
+package com.example.nemergentprueba.location;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publica instantáneas de posición sin bloqueos.
+ * Las lecturas son una única lectura volátil: no esperan a los escritores ni reservan memoria.
+ * Las escrituras usan compareAndSet y descartan una instantánea más antigua que la publicada,
+ * de modo que un escritor lento nunca pisa una posición más reciente.
+ */
+public final class LocationSnapshotPublisher {
+
+    private final AtomicReference<LocationSnapshot> current =
+            new AtomicReference<>(LocationSnapshot.EMPTY);
+
+    /**
+     * Última instantánea publicada (nunca null)
+     */
+    public LocationSnapshot get() {
+        return current.get();
+    }
+
+    /**
+     * Publica una instantánea si es más reciente que la actual
+     * @return true si se ha publicado, false si era más antigua y se ha descartado
+     */
+    public boolean publish(LocationSnapshot snapshot) {
+        while (true) {
+            LocationSnapshot previous = current.get();
+            if (previous != LocationSnapshot.EMPTY && snapshot.sequence <= previous.sequence) {
+                return false;
+            }
+            if (current.compareAndSet(previous, snapshot)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.nemergentprueba.location;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Registro persistente de posiciones en archivos binarios mapeados en memoria.
+ * Permite geoetiquetar a posteriori fotos tomadas antes de tener posición.
+ *
+ * El registro se divide en segmentos de tamaño fijo. Cada uno empieza con una cabecera
+ * (magic, versión, número de registros) seguida de registros de 32 bytes: hora UTC en ms,
+ * latitud, longitud, precisión (NaN si no se conoce) y relleno. Los registros están
+ * ordenados por hora, así que se buscan por búsqueda binaria sin leer el archivo entero.
+ * Cuando un segmento se llena se abre otro; se conservan como mucho {@link #MAX_SEGMENTS}
+ * y se borran los que superan {@link #RETENTION_MS} de antigüedad.
+ *
+ * Todos los métodos están sincronizados y hacen E/S: no llamar desde el hilo principal.
+ */
+public class LocationTraceLog {
+
+    private static final int MAGIC = 0x4C545243; // "LTRC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 32;
+
+    // 8192 registros por segmento (256 KB); a una posición cada 5 s son más de 11 horas
+    static final int RECORDS_PER_SEGMENT = 8192;
+    static final int MAX_SEGMENTS = 8;
+    static final long RETENTION_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final String SEGMENT_PREFIX = "trace_";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private final File directory;
+    private final int recordsPerSegment;
+    // Segmentos ordenados del más antiguo al más reciente; el último es el activo
+    private final List<Segment> segments = new ArrayList<>();
+    private boolean opened;
+
+    private static class Segment {
+        final File file;
+        MappedByteBuffer buffer;
+        int count;
+
+        Segment(File file) {
+            this.file = file;
+        }
+
+        long timeAt(int index) {
+            return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE);
+        }
+
+        long firstTime() {
+            return timeAt(0);
+        }
+
+        long lastTime() {
+            return timeAt(count - 1);
+        }
+    }
+
+    public LocationTraceLog(File directory) {
+        this(directory, RECORDS_PER_SEGMENT);
+    }
+
+    LocationTraceLog(File directory, int recordsPerSegment) {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+    }
+
+    /**
+     * Abre los segmentos existentes; se llama de forma perezosa en la primera operación
+     */
+    private void ensureOpen() throws IOException {
+        if (opened) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("No se pudo crear " + directory.getAbsolutePath());
+        }
+        opened = true;
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        // El nombre lleva la hora del primer registro con ancho fijo: el orden alfabético es el temporal
+        Arrays.sort(files);
+        for (File file : files) {
+            Segment segment = new Segment(file);
+            if (map(segment, false) && segment.count > 0) {
+                segments.add(segment);
+            } else {
+                file.delete();
+            }
+        }
+        applyRetention(System.currentTimeMillis());
+    }
+
+    /**
+     * Mapea un segmento en memoria y valida su cabecera
+     * @return false si el archivo no es un segmento válido
+     */
+    private boolean map(Segment segment, boolean create) throws IOException {
+        long size = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+        try (RandomAccessFile raf = new RandomAccessFile(segment.file, "rw")) {
+            if (!create && raf.length() != size) {
+                return false;
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            segment.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        segment.buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (create) {
+            segment.buffer.putInt(0, MAGIC);
+            segment.buffer.putInt(4, VERSION);
+            segment.buffer.putInt(COUNT_OFFSET, 0);
+            segment.count = 0;
+            return true;
+        }
+        if (segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(4) != VERSION) {
+            return false;
+        }
+        segment.count = Math.max(0, Math.min(segment.buffer.getInt(COUNT_OFFSET), recordsPerSegment));
+        return true;
+    }
+
+    /**
+     * Añade una posición. Se ignoran las que no son posteriores a la última registrada.
+     * @param accuracy Precisión en metros, o NaN si no se conoce
+     * @return true si se ha registrado
+     */
+    public synchronized boolean append(long timeMs, double latitude, double longitude, float accuracy)
+            throws IOException {
+        ensureOpen();
+        Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active != null && timeMs <= active.lastTime()) {
+            return false;
+        }
+
+        if (active == null || active.count >= recordsPerSegment) {
+            if (active != null) {
+                active.buffer.force();
+            }
+            active = new Segment(new File(directory,
+                    String.format(Locale.US, "%s%013d%s", SEGMENT_PREFIX, timeMs, SEGMENT_SUFFIX)));
+            map(active, true);
+            segments.add(active);
+            applyRetention(timeMs);
+        }
+
+        int offset = HEADER_SIZE + active.count * RECORD_SIZE;
+        active.buffer.putLong(offset, timeMs);
+        active.buffer.putDouble(offset + 8, latitude);
+        active.buffer.putDouble(offset + 16, longitude);
+        active.buffer.putFloat(offset + 24, LocationHistory.sanitizeAccuracy(accuracy));
+        active.buffer.putInt(offset + 28, 0);
+        // El contador se escribe después del registro: un registro a medias nunca se lee
+        active.count++;
+        active.buffer.putInt(COUNT_OFFSET, active.count);
+        return true;
+    }
+
+    /**
+     * Borra los segmentos que sobran por número o por antigüedad (nunca el activo)
+     */
+    private void applyRetention(long nowMs) {
+        while (segments.size() > 1
+                && (segments.size() > MAX_SEGMENTS || segments.get(0).lastTime() < nowMs - RETENTION_MS)) {
+            Segment oldest = segments.remove(0);
+            oldest.buffer = null;
+            oldest.file.delete();
+        }
+    }
+
+    /**
+     * Calcula la posición en un instante a partir del registro, con las mismas reglas
+     * que {@link LocationHistory#locate}
+     * @param timeMs Hora UTC en milisegundos
+     * @return false si el registro está vacío
+     */
+    public synchronized boolean locate(long timeMs, LocationHistory.Fix out) throws IOException {
+        ensureOpen();
+        if (segments.isEmpty()) {
+            return false;
+        }
+
+        // Último segmento que empieza en o antes del instante (el primero si es anterior a todos)
+        int segmentIndex = 0;
+        for (int i = segments.size() - 1; i > 0; i--) {
+            if (segments.get(i).firstTime() <= timeMs) {
+                segmentIndex = i;
+                break;
+            }
+        }
+        Segment segment = segments.get(segmentIndex);
+
+        // Primer registro del segmento con hora >= timeMs
+        int low = 0;
+        int high = segment.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segment.timeAt(mid) < timeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Vecinos, que pueden estar en el segmento anterior o en el siguiente
+        Segment beforeSegment = segment;
+        int before = low - 1;
+        if (before < 0 && segmentIndex > 0) {
+            beforeSegment = segments.get(segmentIndex - 1);
+            before = beforeSegment.count - 1;
+        }
+        Segment afterSegment = segment;
+        int after = low;
+        if (after >= segment.count && segmentIndex < segments.size() - 1) {
+            afterSegment = segments.get(segmentIndex + 1);
+            after = 0;
+        }
+        boolean hasBefore = before >= 0;
+        boolean hasAfter = after < afterSegment.count;
+        // Acotar para leer siempre un registro válido; los flags indican si existen
+        before = Math.max(before, 0);
+        after = Math.min(after, afterSegment.count - 1);
+
+        int b = HEADER_SIZE + before * RECORD_SIZE;
+        int a = HEADER_SIZE + after * RECORD_SIZE;
+        MappedByteBuffer bb = beforeSegment.buffer;
+        MappedByteBuffer ab = afterSegment.buffer;
+        LocationHistory.resolve(timeMs,
+                hasBefore, bb.getLong(b), bb.getDouble(b + 8), bb.getDouble(b + 16), bb.getFloat(b + 24),
+                hasAfter, ab.getLong(a), ab.getDouble(a + 8), ab.getDouble(a + 16), ab.getFloat(a + 24),
+                out);
+        return true;
+    }
+
+    /**
+     * Número total de registros guardados
+     */
+    public synchronized int size() throws IOException {
+        ensureOpen();
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.count;
+        }
+        return total;
+    }
+
+    public synchronized int getSegmentCount() throws IOException {
+        ensureOpen();
+        return segments.size();
+    }
+
+    /**
+     * Vuelca a disco el segmento activo
+     */
+    public synchronized void flush() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.nemergentprueba.location;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Geocodificación inversa sin red: nombre del lugar más cercano a unas coordenadas
+ * según el índice de lugares incluido en los assets de la aplicación.
+ *
+ * El índice se carga la primera vez que se usa. Las consultas de puntos cercanos
+ * (misma celda de unos 600 m) se sirven de una caché LRU, de modo que una ráfaga de
+ * fotos en el mismo sitio solo hace una búsqueda. Las búsquedas son rápidas pero la
+ * primera lee el asset: no llamar desde el hilo principal.
+ */
+public class OfflineGeocoder {
+    private static final String TAG = "OfflineGeocoder";
+
+    private static final String INDEX_ASSET = "places.bin";
+    // Distancia máxima al lugar para etiquetar una foto con su nombre
+    static final double MAX_LABEL_DISTANCE_KM = 25.0;
+    // Nivel de las celdas de la caché (2^16 por eje, unos 600 m de lado)
+    private static final int CACHE_CELL_LEVEL = 16;
+    private static final int CACHE_SIZE = 256;
+    // Se guarda en la caché cuando no hay ningún lugar cerca (LruCache no admite null)
+    private static final String NO_PLACE = "";
+
+    private static OfflineGeocoder instance;
+
+    /**
+     * Origen del archivo del índice; en la aplicación es el asset
+     */
+    interface IndexSource {
+        InputStream open() throws IOException;
+    }
+
+    private final IndexSource indexSource;
+    private final LruCache<Long, String> cache = new LruCache<>(CACHE_SIZE);
+    private PlaceIndex index;
+    private boolean loadFailed;
+
+    public static synchronized OfflineGeocoder getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new OfflineGeocoder(() -> appContext.getAssets().open(INDEX_ASSET));
+        }
+        return instance;
+    }
+
+    OfflineGeocoder(IndexSource indexSource) {
+        this.indexSource = indexSource;
+    }
+
+    /**
+     * Nombre del lugar más cercano a unas coordenadas
+     * @return El nombre, cadena vacía si no hay ningún lugar cerca o null si el índice no está disponible
+     */
+    public String getPlaceName(double latitude, double longitude) {
+        PlaceIndex placeIndex = getIndex();
+        if (placeIndex == null) {
+            return null;
+        }
+        Long cell = PlaceIndex.cellKey(latitude, longitude, CACHE_CELL_LEVEL);
+        String name = cache.get(cell);
+        if (name == null) {
+            name = placeIndex.nearestName(latitude, longitude, MAX_LABEL_DISTANCE_KM);
+            if (name == null) {
+                name = NO_PLACE;
+            }
+            cache.put(cell, name);
+        }
+        return name;
+    }
+
+    private synchronized PlaceIndex getIndex() {
+        if (index == null && !loadFailed) {
+            long start = System.nanoTime();
+            try (InputStream is = indexSource.open()) {
+                index = PlaceIndex.load(is);
+                Log.d(TAG, "Índice de lugares cargado: " + index.size() + " lugares en "
+                        + (System.nanoTime() - start) / 1_000_000 + "ms");
+            } catch (IOException e) {
+                // No se reintenta: el asset no va a aparecer durante la ejecución
+                loadFailed = true;
+                Log.e(TAG, "No se pudo cargar el índice de lugares: " + e.getMessage(), e);
+            }
+        }
+        return index;
+    }
+}
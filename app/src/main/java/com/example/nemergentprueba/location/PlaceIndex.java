@@ -0,0 +1,174 @@
+package com.example.nemergentprueba.location;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Índice de lugares para geocodificación inversa sin red.
+ *
+ * Se carga de un archivo binario (big-endian) con una cabecera (magic, versión, número de
+ * lugares, desplazamiento de la tabla de nombres), registros de 20 bytes ordenados por clave
+ * geohash (clave, latitud, longitud, desplazamiento del nombre) y una tabla de nombres UTF-8
+ * con su longitud delante. La clave geohash intercala 26 bits de longitud y 26 de latitud, así
+ * que todos los lugares de una celda ocupan un rango contiguo que se localiza por búsqueda binaria.
+ *
+ * El archivo se genera con tools/places/PlaceIndexBuilder.java a partir de tools/places/places.csv.
+ */
+public class PlaceIndex {
+
+    private static final int MAGIC = 0x504C4349; // "PLCI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 20;
+
+    // Bits por eje de la clave geohash
+    static final int KEY_BITS = 26;
+    // Nivel de las celdas de búsqueda: 2^8 celdas por eje, unos 78 km de lado en latitud
+    private static final int SEARCH_LEVEL = 8;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final ByteBuffer data;
+    private final int count;
+    private final int namesOffset;
+
+    private PlaceIndex(ByteBuffer data) throws IOException {
+        this.data = data.order(ByteOrder.BIG_ENDIAN);
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Índice de lugares no válido");
+        }
+        this.count = data.getInt(8);
+        this.namesOffset = data.getInt(12);
+        if (count < 0 || namesOffset != HEADER_SIZE + count * RECORD_SIZE || namesOffset > data.limit()) {
+            throw new IOException("Índice de lugares corrupto");
+        }
+    }
+
+    /**
+     * Lee el índice completo de un flujo (p. ej. el asset incluido en la aplicación)
+     */
+    public static PlaceIndex load(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new PlaceIndex(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Nombre del lugar más cercano dentro de una distancia máxima
+     * @param maxDistanceKm Distancia máxima
+     * @return El nombre o null si no hay ningún lugar a esa distancia
+     */
+    public String nearestName(double latitude, double longitude, double maxDistanceKm) {
+        int latBits = quantize(latitude, -90, 180);
+        int lonBits = quantize(longitude, -180, 360);
+        int shift = KEY_BITS - SEARCH_LEVEL;
+        int cellLat = latBits >> shift;
+        int cellLon = lonBits >> shift;
+        int cells = 1 << SEARCH_LEVEL;
+
+        // Celdas vecinas que alcanza el radio en cada eje. En longitud las celdas se estrechan
+        // con cos(latitud), así que cerca de los polos hacen falta más (o todas)
+        double reachDeg = Math.toDegrees(maxDistanceKm / EARTH_RADIUS_KM);
+        int latRange = (int) Math.ceil(reachDeg / (180.0 / cells));
+        double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + reachDeg)));
+        int lonSpan = cells;
+        if (cosLat > 1e-9) {
+            long lonRange = (long) Math.ceil(reachDeg / cosLat / (360.0 / cells));
+            lonSpan = (int) Math.min(cells, 2 * lonRange + 1);
+        }
+        int firstLon = lonSpan == cells ? 0 : cellLon - lonSpan / 2;
+
+        int bestRecord = -1;
+        double bestDistance = maxDistanceKm;
+        for (int dLat = -latRange; dLat <= latRange; dLat++) {
+            int lat = cellLat + dLat;
+            if (lat < 0 || lat >= cells) {
+                continue;
+            }
+            for (int step = 0; step < lonSpan; step++) {
+                int lon = Math.floorMod(firstLon + step, cells);
+                long low = interleave(lon, lat, SEARCH_LEVEL) << (2 * shift);
+                long high = low + (1L << (2 * shift));
+                for (int i = lowerBound(low); i < count && keyAt(i) < high; i++) {
+                    int offset = HEADER_SIZE + i * RECORD_SIZE;
+                    double distance = haversineKm(latitude, longitude,
+                            data.getFloat(offset + 8), data.getFloat(offset + 12));
+                    if (distance <= bestDistance) {
+                        bestDistance = distance;
+                        bestRecord = i;
+                    }
+                }
+            }
+        }
+        return bestRecord >= 0 ? nameAt(bestRecord) : null;
+    }
+
+    /**
+     * Clave de la celda que contiene un punto a un nivel dado (bits por eje),
+     * útil como clave de caché de las búsquedas
+     */
+    public static long cellKey(double latitude, double longitude, int level) {
+        int shift = KEY_BITS - level;
+        return interleave(quantize(longitude, -180, 360) >> shift, quantize(latitude, -90, 180) >> shift, level);
+    }
+
+    private long keyAt(int index) {
+        return data.getLong(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    // Primer registro con clave >= key
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String nameAt(int index) {
+        int offset = namesOffset + data.getInt(HEADER_SIZE + index * RECORD_SIZE + 16);
+        int length = data.getShort(offset) & 0xFFFF;
+        return new String(data.array(), data.arrayOffset() + offset + 2, length, StandardCharsets.UTF_8);
+    }
+
+    private static int quantize(double value, double min, double range) {
+        long bits = (long) ((value - min) / range * (1L << KEY_BITS));
+        return (int) Math.max(0, Math.min((1L << KEY_BITS) - 1, bits));
+    }
+
+    // Intercala los bits de longitud y latitud (longitud primero, como en geohash)
+    static long interleave(int lonBits, int latBits, int bits) {
+        long key = 0;
+        for (int i = bits - 1; i >= 0; i--) {
+            key = (key << 1) | ((lonBits >> i) & 1);
+            key = (key << 1) | ((latBits >> i) & 1);
+        }
+        return key;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -7,6 +7,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
@@ -19,12 +20,17 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nemergentprueba.R;
-import com.example.nemergentprueba.network.PingService.PingObserver;
-import com.example.nemergentprueba.network.PingService.PingResult;
+import com.example.nemergentprueba.network.bandwidth.BandwidthEngine;
+import com.example.nemergentprueba.network.bandwidth.BandwidthInterval;
+import com.example.nemergentprueba.network.bandwidth.BandwidthObserver;
+import com.example.nemergentprueba.network.bandwidth.BandwidthRequest;
+import com.example.nemergentprueba.network.bandwidth.BandwidthSession;
+import com.example.nemergentprueba.network.stats.LatencySnapshot;
+import com.example.nemergentprueba.network.ui.LatencyChartView;
+import com.example.nemergentprueba.network.ui.PingStatsFormatter;
 import com.google.android.material.slider.Slider;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -32,21 +38,28 @@ import java.util.Locale;
 /**
  * Diálogo para controlar y mostrar los resultados de los pings
  */
-public class PingDialogFragment extends DialogFragment implements PingObserver {
+public class PingDialogFragment extends DialogFragment implements PingObserver, BandwidthObserver {
     
     private static final String TAG = "PingDialogFragment";
     private static final int MAX_ATTEMPTS = 100;
     private static final int MIN_ATTEMPTS = 1;
     private static final int DEFAULT_ATTEMPTS = 5;
+    private static final String DEFAULT_TARGETS = "8.8.8.8"; // Usando Google DNS en lugar de google.com
     
-    private PingService pingService;
+    private PingEngine pingEngine;
+    private PingSession pingSession;
+    private BandwidthEngine bandwidthEngine;
+    private BandwidthSession bandwidthSession;
     private Slider attemptsSlider;
     private TextView attemptsValueText;
+    private EditText targetsEditText;
     private Button actionButton;
+    private Button bandwidthButton;
     private ProgressBar progressBar;
     private TextView statusTextView;
     private TextView summaryTextView;
     private RecyclerView resultsRecyclerView;
+    private LatencyChartView latencyChart;
     private PingResultsAdapter resultsAdapter;
     
     public PingDialogFragment() {
@@ -65,9 +78,8 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
         super.onCreate(savedInstanceState);
         setStyle(DialogFragment.STYLE_NORMAL, R.style.FullScreenDialogStyle);
         
-        // Inicializar servicio de ping
-        pingService = new PingService();
-        pingService.addObserver(this);
+        pingEngine = PingEngine.getInstance(requireContext());
+        bandwidthEngine = BandwidthEngine.getInstance(requireContext());
     }
     
     @Nullable
@@ -78,13 +90,17 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
         // Inicializar vistas
         attemptsSlider = view.findViewById(R.id.sliderAttempts);
         attemptsValueText = view.findViewById(R.id.textViewAttemptsValue);
+        targetsEditText = view.findViewById(R.id.editTextTargets);
         actionButton = view.findViewById(R.id.buttonAction);
+        bandwidthButton = view.findViewById(R.id.buttonBandwidth);
         progressBar = view.findViewById(R.id.progressBarPing);
         statusTextView = view.findViewById(R.id.textViewStatus);
         summaryTextView = view.findViewById(R.id.textViewSummary);
         resultsRecyclerView = view.findViewById(R.id.recyclerViewResults);
+        latencyChart = view.findViewById(R.id.latencyChart);
         
         // Configurar slider
+        targetsEditText.setText(DEFAULT_TARGETS);
         attemptsSlider.setValue(DEFAULT_ATTEMPTS);
         attemptsValueText.setText(String.valueOf(DEFAULT_ATTEMPTS));
         attemptsSlider.addOnChangeListener((slider, value, fromUser) -> {
@@ -93,19 +109,21 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
         });
         
         // Configurar RecyclerView
-        resultsAdapter = new PingResultsAdapter(new ArrayList<>());
+        resultsAdapter = new PingResultsAdapter();
         resultsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         resultsRecyclerView.setAdapter(resultsAdapter);
         
         // Configurar botón de acción
         actionButton.setOnClickListener(v -> togglePingService());
         
+        // Configurar botón del test de velocidad
+        bandwidthButton.setOnClickListener(v -> toggleBandwidthTest());
+        
         // Configurar botón de cierre
         Button closeButton = view.findViewById(R.id.buttonClose);
         closeButton.setOnClickListener(v -> {
-            if (pingService.isRunning()) {
-                pingService.stopPing();
-            }
+            stopPing();
+            stopBandwidthTest();
             dismiss();
         });
         
@@ -119,9 +137,9 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
      * Inicia o detiene el servicio de ping según el estado actual
      */
     private void togglePingService() {
-        if (pingService.isRunning()) {
+        if (isPingRunning()) {
             // Detener el ping
-            pingService.stopPing();
+            pingSession.cancel();
         } else {
             // Iniciar el ping
             int attempts = (int) attemptsSlider.getValue();
@@ -133,12 +151,65 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
                 return;
             }
             
+            PingRequest request;
+            try {
+                request = new PingRequest.Builder(targetsEditText.getText().toString(), attempts).build();
+            } catch (IllegalArgumentException e) {
+                targetsEditText.setError(getString(R.string.ping_invalid_targets, e.getMessage()));
+                return;
+            }
+            
             // Limpiar resultados anteriores
             resultsAdapter.clearResults();
             summaryTextView.setText("");
             
             // Iniciar ping
-            pingService.startPing(attempts);
+            pingSession = pingEngine.startSession(request, this);
+            resultsAdapter.setSession(pingSession);
+            latencyChart.setSamples(pingSession.getSamples());
+        }
+    }
+    
+    /**
+     * Inicia o detiene el test de velocidad contra el primer destino de la lista,
+     * que debe llevar puerto (host:puerto)
+     */
+    private void toggleBandwidthTest() {
+        if (isBandwidthRunning()) {
+            bandwidthSession.cancel();
+            return;
+        }
+        
+        String endpoint = targetsEditText.getText().toString().trim().split("[,;\\s]+")[0];
+        BandwidthRequest request;
+        try {
+            request = new BandwidthRequest.Builder(endpoint).build();
+        } catch (IllegalArgumentException e) {
+            targetsEditText.setError(getString(R.string.bandwidth_invalid_endpoint, e.getMessage()));
+            return;
+        }
+        
+        summaryTextView.setText("");
+        bandwidthSession = bandwidthEngine.startTest(request, this);
+    }
+    
+    private boolean isBandwidthRunning() {
+        return bandwidthSession != null && bandwidthSession.isRunning();
+    }
+    
+    private void stopBandwidthTest() {
+        if (bandwidthSession != null) {
+            bandwidthSession.cancel();
+        }
+    }
+    
+    private boolean isPingRunning() {
+        return pingSession != null && pingSession.isRunning();
+    }
+    
+    private void stopPing() {
+        if (pingSession != null) {
+            pingSession.cancel();
         }
     }
     
@@ -148,80 +219,180 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
     private void updateUIState(boolean isRunning) {
         if (isRunning) {
             actionButton.setText(R.string.stop_ping);
+            bandwidthButton.setEnabled(false);
             attemptsSlider.setEnabled(false);
+            targetsEditText.setEnabled(false);
             progressBar.setVisibility(View.VISIBLE);
         } else {
             actionButton.setText(R.string.start_ping);
+            bandwidthButton.setEnabled(true);
             attemptsSlider.setEnabled(true);
+            targetsEditText.setEnabled(true);
             progressBar.setVisibility(View.GONE);
         }
     }
     
+    /**
+     * Actualiza la UI mientras corre el test de velocidad; el ping queda bloqueado
+     */
+    private void updateBandwidthUIState(boolean isRunning) {
+        bandwidthButton.setText(isRunning ? R.string.bandwidth_stop : R.string.bandwidth_start);
+        actionButton.setEnabled(!isRunning);
+        attemptsSlider.setEnabled(!isRunning);
+        targetsEditText.setEnabled(!isRunning);
+        progressBar.setVisibility(isRunning ? View.VISIBLE : View.GONE);
+    }
+    
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (pingService != null) {
-            pingService.removeObserver(this);
-            if (pingService.isRunning()) {
-                pingService.stopPing();
-            }
+        if (pingSession != null) {
+            pingSession.removeObserver(this);
+            pingSession.cancel();
+            pingSession = null;
+        }
+        if (bandwidthSession != null) {
+            bandwidthSession.removeObserver(this);
+            bandwidthSession.cancel();
+            bandwidthSession = null;
         }
     }
     
-    // ===== Implementación de PingObserver =====
+    // ===== Implementación de PingObserver (siempre en el hilo principal) =====
     
     @Override
-    public void onPingStarted(int totalAttempts) {
-        if (getActivity() == null) return;
-        getActivity().runOnUiThread(() -> {
-            updateUIState(true);
-            statusTextView.setText(getString(R.string.ping_started, totalAttempts));
-            progressBar.setMax(totalAttempts);
-            progressBar.setProgress(0);
-        });
+    public void onPingStarted(PingSession session) {
+        if (getView() == null) return;
+        updateUIState(true);
+        statusTextView.setText(getString(R.string.ping_started, session.getTotalAttempts()));
+        progressBar.setMax(session.getTotalAttempts());
+        progressBar.setProgress(0);
     }
     
     @Override
-    public void onPingProgress(int current, int total, int success, int fail, PingResult result) {
-        if (getActivity() == null) return;
-        getActivity().runOnUiThread(() -> {
-            statusTextView.setText(getString(R.string.ping_progress, current, total));
-            progressBar.setProgress(current);
-            resultsAdapter.addResult(result);
-            resultsRecyclerView.scrollToPosition(resultsAdapter.getItemCount() - 1);
-        });
+    public void onPingResult(PingSession session, PingResult result) {
+        // Puede quedar algún evento en cola de una sesión anterior ya detenida
+        if (getView() == null || session != pingSession) return;
+        int current = session.getCompletedCount();
+        statusTextView.setText(getString(R.string.ping_progress, current, session.getTotalAttempts()));
+        progressBar.setProgress(current);
+        resultsAdapter.onSampleAdded();
+        resultsRecyclerView.scrollToPosition(resultsAdapter.getItemCount() - 1);
+        latencyChart.onSamplesChanged();
+        // Estadísticas en vivo; la instantánea no bloquea a los sondeos
+        summaryTextView.setText(PingStatsFormatter.formatStats(requireContext(), session.getStats()));
     }
     
     @Override
-    public void onPingCompleted(int success, int fail, List<PingResult> results) {
-        if (getActivity() == null) return;
-        getActivity().runOnUiThread(() -> {
-            updateUIState(false);
-            statusTextView.setText(R.string.ping_completed);
-            summaryTextView.setText(getString(R.string.ping_summary, success, fail, success + fail));
-        });
+    public void onPingCompleted(PingSession session) {
+        if (getView() == null) return;
+        updateUIState(false);
+        statusTextView.setText(R.string.ping_completed);
+        showSummary(session);
     }
     
     @Override
-    public void onPingError(String message) {
-        if (getActivity() == null) return;
-        getActivity().runOnUiThread(() -> {
-            updateUIState(false);
-            statusTextView.setText(getString(R.string.ping_error, message));
-            Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
-        });
+    public void onPingStopped(PingSession session) {
+        if (getView() == null) return;
+        updateUIState(false);
+        statusTextView.setText(R.string.ping_status_stopped);
+        showSummary(session);
+    }
+    
+    @Override
+    public void onPingError(PingSession session, String message) {
+        if (getView() == null) return;
+        updateUIState(false);
+        statusTextView.setText(getString(R.string.ping_error, message));
+        Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+    }
+    
+    // ===== Implementación de BandwidthObserver (siempre en el hilo principal) =====
+    
+    @Override
+    public void onBandwidthStarted(BandwidthSession test) {
+        if (getView() == null || test != bandwidthSession) return;
+        updateBandwidthUIState(true);
+        statusTextView.setText(getString(R.string.bandwidth_started, test.getRequest().getStreams()));
+        progressBar.setMax((int) (test.getRequest().getDurationMs() / 1000));
+        progressBar.setProgress(0);
+    }
+    
+    @Override
+    public void onBandwidthInterval(BandwidthSession test, BandwidthInterval interval) {
+        if (getView() == null || test != bandwidthSession) return;
+        statusTextView.setText(getString(R.string.bandwidth_interval, interval.getIndex(), interval.getMbps()));
+        progressBar.setProgress(interval.getIndex());
+    }
+    
+    @Override
+    public void onBandwidthCompleted(BandwidthSession test) {
+        if (getView() == null || test != bandwidthSession) return;
+        updateBandwidthUIState(false);
+        statusTextView.setText(R.string.ping_completed);
+        showBandwidthSummary(test);
+    }
+    
+    @Override
+    public void onBandwidthStopped(BandwidthSession test) {
+        if (getView() == null || test != bandwidthSession) return;
+        updateBandwidthUIState(false);
+        statusTextView.setText(R.string.ping_status_stopped);
+        showBandwidthSummary(test);
+    }
+    
+    @Override
+    public void onBandwidthError(BandwidthSession test, String message) {
+        if (getView() == null || test != bandwidthSession) return;
+        updateBandwidthUIState(false);
+        statusTextView.setText(getString(R.string.ping_error, message));
+        Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+    }
+    
+    private void showBandwidthSummary(BandwidthSession test) {
+        summaryTextView.setText(getString(R.string.bandwidth_summary, test.getAggregateMbps(),
+                test.getRequest().getStreams(), test.getElapsedNanos() / 1e9, test.getFailedStreams()));
+    }
+    
+    private void showSummary(PingSession session) {
+        int success = session.getSuccessCount();
+        int fail = session.getFailureCount();
+        StringBuilder summary = new StringBuilder(getString(R.string.ping_summary, success, fail, success + fail));
+        summary.append('\n').append(PingStatsFormatter.formatStats(requireContext(), session.getStats()));
+        LatencySnapshot dnsStats = session.getDnsStats();
+        if (dnsStats.getTotal() > 0) {
+            summary.append('\n').append(PingStatsFormatter.formatDns(requireContext(), dnsStats));
+        }
+        PingPhaseStats phases = session.getPhaseStats();
+        if (phases.getTtfb().getTotal() > 0) {
+            summary.append('\n').append(PingStatsFormatter.formatHttp(requireContext(), phases, session.getStats()));
+        }
+        
+        // Comparativa por destino, de mejor a peor
+        if (session.getTargetStreams().size() > 1) {
+            for (PingTargetStream stream : session.getTargetRanking()) {
+                summary.append('\n').append(PingStatsFormatter.formatTarget(requireContext(), stream));
+            }
+        }
+        summaryTextView.setText(summary);
     }
     
     /**
-     * Adaptador para mostrar resultados de ping en RecyclerView
+     * Adaptador que lee las muestras directamente del buffer circular de la sesión,
+     * sin guardar una lista propia ni un objeto por resultado. Si el buffer se llena,
+     * las filas más antiguas desaparecen de la lista.
      */
     private static class PingResultsAdapter extends RecyclerView.Adapter<PingResultsAdapter.ViewHolder> {
         
-        private final List<PingResult> results;
         private final SimpleDateFormat timeFormat;
+        private final Date date = new Date();
+        private PingSampleRing samples;
+        private List<PingTarget> targets;
+        // Número de secuencia de la primera fila y filas notificadas a la lista
+        private long firstSequence;
+        private int count;
         
-        public PingResultsAdapter(List<PingResult> results) {
-            this.results = results;
+        public PingResultsAdapter() {
             this.timeFormat = new SimpleDateFormat("HH:mm:ss.SSS", Locale.getDefault());
         }
         
@@ -235,66 +406,84 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
         
         @Override
         public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-            PingResult result = results.get(position);
+            long sequence = firstSequence + position;
             Context context = holder.itemView.getContext();
+            if (!samples.contains(sequence)) {
+                // Sobrescrita mientras la lista aún no se había actualizado
+                holder.textViewAttempt.setText("");
+                holder.textViewStatus.setText("");
+                holder.textViewTime.setText("");
+                return;
+            }
             
             // Mostrar el número de intento usando el recurso localizado
-            holder.textViewAttempt.setText(context.getString(R.string.ping_attempt_prefix) + result.getAttemptNumber());
+            holder.textViewAttempt.setText(context.getString(R.string.ping_attempt_prefix) + samples.getAttempt(sequence)
+                    + " · " + targets.get(samples.getTargetIndex(sequence)));
             
             // Mostrar status con tiempo cuando está disponible
-            if (result.isSuccess()) {
-                String statusText = context.getString(R.string.ping_success);
-                if (result.getPingTime() > 0) {
-                    statusText += " - " + result.getPingTime() + "ms";
-                }
+            ImageView iconView = holder.itemView.findViewById(R.id.ping_status_icon);
+            if (samples.getStatus(sequence) == PingResult.STATUS_OK) {
+                String statusText = context.getString(R.string.ping_success) + " - "
+                        + PingStatsFormatter.formatLatency(context, samples.getRttMicros(sequence));
                 holder.textViewStatus.setText(statusText);
                 holder.textViewStatus.setTextColor(context.getResources().getColor(
                         R.color.ping_success, null));
                 
                 // Mostrar icono verde para ping exitoso
-                if (holder.itemView.findViewById(R.id.ping_status_icon) instanceof ImageView) {
-                    ImageView iconView = holder.itemView.findViewById(R.id.ping_status_icon);
-                    iconView.setImageResource(android.R.drawable.presence_online);
-                    iconView.setColorFilter(context.getResources().getColor(
-                            R.color.ping_success, null));
-                }
+                iconView.setImageResource(android.R.drawable.presence_online);
+                iconView.setColorFilter(context.getResources().getColor(
+                        R.color.ping_success, null));
             } else {
                 holder.textViewStatus.setText(context.getString(R.string.ping_fail));
                 holder.textViewStatus.setTextColor(context.getResources().getColor(
                         R.color.ping_fail, null));
                 
                 // Mostrar icono rojo para ping fallido
-                if (holder.itemView.findViewById(R.id.ping_status_icon) instanceof ImageView) {
-                    ImageView iconView = holder.itemView.findViewById(R.id.ping_status_icon);
-                    iconView.setImageResource(android.R.drawable.presence_busy);
-                    iconView.setColorFilter(context.getResources().getColor(
-                            R.color.ping_fail, null));
-                }
+                iconView.setImageResource(android.R.drawable.presence_busy);
+                iconView.setColorFilter(context.getResources().getColor(
+                        R.color.ping_fail, null));
             }
             
             // Mostrar timestamp
-            holder.textViewTime.setText(timeFormat.format(new Date(result.getTimestamp())));
+            date.setTime(samples.getTimestamp(sequence));
+            holder.textViewTime.setText(timeFormat.format(date));
         }
         
         @Override
         public int getItemCount() {
-            return results.size();
+            return count;
         }
         
         /**
-         * Añade un nuevo resultado y notifica cambios
+         * Empieza a mostrar las muestras de una sesión nueva
          */
-        public void addResult(PingResult result) {
-            results.add(result);
-            notifyItemInserted(results.size() - 1);
+        public void setSession(PingSession session) {
+            samples = session.getSamples();
+            targets = session.getRequest().getTargets();
+            firstSequence = 0;
+            count = 0;
+            notifyDataSetChanged();
+        }
+        
+        /**
+         * Añade la fila de la muestra que acaba de llegar
+         */
+        public void onSampleAdded() {
+            count++;
+            notifyItemInserted(count - 1);
+            if (count > samples.getCapacity()) {
+                firstSequence++;
+                count--;
+                notifyItemRemoved(0);
+            }
         }
         
         /**
          * Limpia todos los resultados
          */
         public void clearResults() {
-            int size = results.size();
-            results.clear();
+            int size = count;
+            count = 0;
             notifyItemRangeRemoved(0, size);
         }
         
@@ -311,4 +500,4 @@ public class PingDialogFragment extends DialogFragment implements PingObserver {
             }
         }
     }
-}
\ No newline at end of file
+}
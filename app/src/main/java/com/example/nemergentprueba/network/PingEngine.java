@@ -0,0 +1,169 @@
+package com.example.nemergentprueba.network;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.nemergentprueba.database.PingHistoryRepository;
+import com.example.nemergentprueba.network.probe.DnsLookupProbe;
+import com.example.nemergentprueba.network.probe.HttpProbe;
+import com.example.nemergentprueba.network.probe.IcmpDatagramProbe;
+import com.example.nemergentprueba.network.probe.PingProbe;
+import com.example.nemergentprueba.network.probe.ProbeType;
+import com.example.nemergentprueba.network.probe.ProcessPingProbe;
+import com.example.nemergentprueba.network.probe.ReachabilityProbe;
+import com.example.nemergentprueba.network.probe.TcpConnectProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor único de ping de la aplicación.
+ *
+ * Un hilo planificador decide cuándo se lanza cada intento y los sondeos bloqueantes
+ * se ejecutan en un pool propio, de modo que el ping no comparte hilos con la
+ * decodificación de la galería ni con la cola serie de AsyncTask. El número de sondeos
+ * simultáneos está limitado para todas las sesiones a la vez. Los observadores reciben
+ * los eventos en el hilo principal. Cada resultado se guarda en el historial al terminar
+ * su sondeo, haya o no una pantalla observando la sesión.
+ */
+public class PingEngine {
+    static final int MAX_CONCURRENT_PROBES = 16;
+
+    private static PingEngine instance;
+
+    /**
+     * Crea el sondeo de un destino; permite sustituir los métodos de sondeo en las pruebas
+     */
+    interface ProbeFactory {
+        PingProbe create(PingTarget target, ProbeType type, Executor probeExecutor);
+    }
+
+    /**
+     * Destino de los resultados de todas las sesiones. Se llama desde los hilos de los
+     * sondeos, así que no debe bloquear.
+     */
+    public interface ResultRecorder {
+        ResultRecorder NONE = new ResultRecorder() {
+            @Override
+            public void record(PingResult result) {
+            }
+
+            @Override
+            public void flush() {
+            }
+        };
+
+        void record(PingResult result);
+
+        /**
+         * Se llama al terminar, cancelar o fallar una sesión
+         */
+        void flush();
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService probeExecutor;
+    private final Executor callbackExecutor;
+    private final ProbeLimiter limiter;
+    private final ProbeFactory probeFactory;
+    private final ResultRecorder recorder;
+
+    public static synchronized PingEngine getInstance(Context context) {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new PingEngine(mainHandler::post, MAX_CONCURRENT_PROBES, PingEngine::createProbe,
+                    PingHistoryRepository.getInstance(context));
+        }
+        return instance;
+    }
+
+    PingEngine(Executor callbackExecutor, int maxConcurrentProbes, ProbeFactory probeFactory) {
+        this(callbackExecutor, maxConcurrentProbes, probeFactory, ResultRecorder.NONE);
+    }
+
+    /**
+     * @param callbackExecutor Ejecutor en el que se entregan los eventos a los observadores
+     * @param maxConcurrentProbes Sondeos en vuelo como máximo, sumando todas las sesiones
+     * @param recorder Recibe cada resultado aceptado de cualquier sesión
+     */
+    PingEngine(Executor callbackExecutor, int maxConcurrentProbes, ProbeFactory probeFactory,
+               ResultRecorder recorder) {
+        this.callbackExecutor = callbackExecutor;
+        this.recorder = recorder;
+        this.limiter = new ProbeLimiter(maxConcurrentProbes);
+        this.probeFactory = probeFactory;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("ping-scheduler"));
+        this.probeExecutor = Executors.newCachedThreadPool(namedThreads("ping-probe"));
+    }
+
+    /**
+     * Inicia una sesión de ping
+     * @param observer Observador que se registra antes del primer evento; puede ser null
+     */
+    public PingSession startSession(PingRequest request, PingObserver observer) {
+        List<PingTarget> targets = request.getTargets();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(request.getIntervalMs());
+        List<PingTargetStream> streams = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            PingTarget target = targets.get(i);
+            // Los destinos se reparten a lo largo del intervalo para no enviar en ráfagas
+            long offsetNanos = intervalNanos * i / targets.size();
+            PingProbe probe = probeFactory.create(target, request.getProbeType(), probeExecutor);
+            streams.add(new PingTargetStream(i, target, probe, offsetNanos));
+        }
+
+        PingSession session = new PingSession(request, streams, scheduler, limiter, callbackExecutor, recorder);
+        if (observer != null) {
+            session.addObserver(observer);
+        }
+        session.start();
+        return session;
+    }
+
+    static PingProbe createProbe(PingTarget target, ProbeType type, Executor probeExecutor) {
+        if (type == ProbeType.RESOLVE_ONLY) {
+            return new DnsLookupProbe(probeExecutor);
+        }
+        if (target.isHttp() || type == ProbeType.HTTP_HEAD || type == ProbeType.HTTP_GET) {
+            return new HttpProbe(probeExecutor, type == ProbeType.HTTP_GET ? HttpProbe.METHOD_GET : HttpProbe.METHOD_HEAD);
+        }
+        if (target.hasPort()) {
+            return new TcpConnectProbe(probeExecutor);
+        }
+        switch (type) {
+            case TCP_CONNECT:
+                return new TcpConnectProbe(probeExecutor);
+            case SYSTEM_PING:
+                return new ProcessPingProbe(probeExecutor);
+            case REACHABILITY:
+                return new ReachabilityProbe(probeExecutor);
+            case ICMP:
+            default:
+                return new IcmpDatagramProbe(probeExecutor);
+        }
+    }
+    /**
+     * Detiene los hilos del motor; solo para instancias propias (pruebas)
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
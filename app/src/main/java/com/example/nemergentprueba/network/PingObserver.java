@@ -0,0 +1,13 @@
+package com.example.nemergentprueba.network;
+
+/**
+ * Observador de una sesión de ping. Todas las llamadas llegan en el hilo principal
+ * y en el mismo orden en que ocurrieron.
+ */
+public interface PingObserver {
+    void onPingStarted(PingSession session);
+    void onPingResult(PingSession session, PingResult result);
+    void onPingCompleted(PingSession session);
+    void onPingStopped(PingSession session);
+    void onPingError(PingSession session, String message);
+}
@@ -0,0 +1,69 @@
+package com.example.nemergentprueba.network;
+
+import com.example.nemergentprueba.network.stats.LatencySnapshot;
+import com.example.nemergentprueba.network.stats.LatencyStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogramas de las fases de un intento que van aparte del RTT: consulta DNS y, en los
+ * sondeos HTTP, conexión TCP, handshake TLS y tiempo hasta el primer byte. Solo se
+ * registran las fases que de verdad ocurrieron (una conexión reutilizada no añade
+ * muestra de conexión ni de TLS).
+ */
+public class PingPhaseStats {
+    private final LatencyStats dns = new LatencyStats();
+    private final LatencyStats connect = new LatencyStats();
+    private final LatencyStats tls = new LatencyStats();
+    private final LatencyStats ttfb = new LatencyStats();
+
+    /**
+     * Un único escritor, como LatencyStats
+     */
+    void record(PingResult result) {
+        if (result.getStatus() == PingResult.STATUS_DNS_FAILURE) {
+            dns.recordLoss();
+            return;
+        }
+        recordPhase(dns, result.getDnsNanos());
+        recordPhase(connect, result.getConnectNanos());
+        recordPhase(tls, result.getTlsNanos());
+        recordPhase(ttfb, result.getTtfbNanos());
+    }
+
+    private static void recordPhase(LatencyStats stats, long nanos) {
+        if (nanos >= 0) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            stats.recordSuccess(micros, micros);
+        }
+    }
+
+    /**
+     * Consultas DNS reales (las resoluciones en caché no cuentan); los fallos de
+     * resolución aparecen como pérdidas
+     */
+    public LatencySnapshot getDns() {
+        return dns.snapshot();
+    }
+
+    /**
+     * Handshakes TCP de los sondeos HTTP
+     */
+    public LatencySnapshot getConnect() {
+        return connect.snapshot();
+    }
+
+    /**
+     * Handshakes TLS de los sondeos HTTPS
+     */
+    public LatencySnapshot getTls() {
+        return tls.snapshot();
+    }
+
+    /**
+     * Tiempo hasta el primer byte de las respuestas HTTP
+     */
+    public LatencySnapshot getTtfb() {
+        return ttfb.snapshot();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.nemergentprueba.network;
+
+import com.example.nemergentprueba.network.probe.ProbeType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parámetros de una sesión de ping. Todos los destinos se sondean en paralelo con el
+ * mismo número de intentos e intervalo; los destinos con puerto se sondean siempre
+ * con una conexión TCP.
+ */
+public class PingRequest {
+    public static final long DEFAULT_INTERVAL_MS = 500;
+    public static final long MIN_INTERVAL_MS = 10;
+    public static final int DEFAULT_TIMEOUT_MS = 1000;
+    public static final int MAX_ATTEMPTS = 100;
+    public static final int MAX_TARGETS = 32;
+
+    private final List<PingTarget> targets;
+    private final int attempts;
+    private final long intervalMs;
+    private final int timeoutMs;
+    private final ProbeType probeType;
+
+    private PingRequest(Builder builder) {
+        this.targets = Collections.unmodifiableList(new ArrayList<>(builder.targets));
+        this.attempts = builder.attempts;
+        this.intervalMs = builder.intervalMs;
+        this.timeoutMs = builder.timeoutMs;
+        this.probeType = builder.probeType;
+    }
+
+    public List<PingTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Intentos por destino
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Periodo fijo entre envíos consecutivos a un mismo destino, independiente de cuándo
+     * termine cada intento
+     */
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public int getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Método de sondeo para los destinos sin puerto
+     */
+    public ProbeType getProbeType() {
+        return probeType;
+    }
+
+    public static class Builder {
+        private final List<PingTarget> targets = new ArrayList<>();
+        private final int attempts;
+        private long intervalMs = DEFAULT_INTERVAL_MS;
+        private int timeoutMs = DEFAULT_TIMEOUT_MS;
+        private ProbeType probeType = ProbeType.ICMP;
+
+        /**
+         * @param targets Destinos separados por comas, espacios o saltos de línea
+         */
+        public Builder(String targets, int attempts) {
+            this.attempts = attempts;
+            if (targets != null) {
+                for (String target : targets.split("[,;\\s]+")) {
+                    if (!target.isEmpty()) {
+                        addTarget(PingTarget.parse(target));
+                    }
+                }
+            }
+        }
+
+        public Builder(List<PingTarget> targets, int attempts) {
+            this.attempts = attempts;
+            for (PingTarget target : targets) {
+                addTarget(target);
+            }
+        }
+
+        private void addTarget(PingTarget target) {
+            if (!targets.contains(target)) {
+                targets.add(target);
+            }
+        }
+
+        public Builder setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+            return this;
+        }
+
+        public Builder setTimeoutMs(int timeoutMs) {
+            this.timeoutMs = timeoutMs;
+            return this;
+        }
+
+        public Builder setProbeType(ProbeType probeType) {
+            this.probeType = probeType;
+            return this;
+        }
+
+        public PingRequest build() {
+            if (targets.isEmpty()) {
+                throw new IllegalArgumentException("Destino de ping vacío");
+            }
+            if (targets.size() > MAX_TARGETS) {
+                throw new IllegalArgumentException("Demasiados destinos: " + targets.size());
+            }
+            if (attempts < 1 || attempts > MAX_ATTEMPTS) {
+                throw new IllegalArgumentException("Número de intentos fuera de rango: " + attempts);
+            }
+            if (intervalMs < MIN_INTERVAL_MS || timeoutMs <= 0) {
+                throw new IllegalArgumentException("Intervalo o timeout no válidos");
+            }
+            return new PingRequest(this);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.nemergentprueba.network;
+
+import java.net.InetAddress;
+
+/**
+ * Resultado de un intento de ping. Solo guarda datos primitivos y referencias ya
+ * existentes; el texto legible se genera bajo demanda en getOutput().
+ */
+public class PingResult {
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_TIMEOUT = 1;
+    public static final byte STATUS_UNREACHABLE = 2;
+    public static final byte STATUS_ERROR = 3;
+    /** No se pudo resolver el nombre; no cuenta como pérdida en las estadísticas de RTT */
+    public static final byte STATUS_DNS_FAILURE = 4;
+
+    private final byte status;
+    private final long rttNanos;
+    private final InetAddress address;
+    private final String reason;
+    private long correctedRttNanos;
+    private long dnsNanos = -1;
+    private long connectNanos = -1;
+    private long tlsNanos = -1;
+    private long ttfbNanos = -1;
+    private int httpStatus;
+    private int attemptNumber;
+    private PingTarget target;
+    private final long timestamp;
+
+    private PingResult(byte status, long rttNanos, InetAddress address, String reason) {
+        this.status = status;
+        this.rttNanos = rttNanos;
+        this.address = address;
+        this.reason = reason;
+        this.correctedRttNanos = rttNanos;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Intento con respuesta
+     * @param rttNanos Tiempo de ida y vuelta medido con System.nanoTime()
+     * @param address Dirección que respondió; puede ser null
+     */
+    public static PingResult success(long rttNanos, InetAddress address) {
+        return new PingResult(STATUS_OK, rttNanos, address, null);
+    }
+
+    /**
+     * Intento sin respuesta dentro del timeout
+     */
+    public static PingResult timeout() {
+        return new PingResult(STATUS_TIMEOUT, -1, null, null);
+    }
+
+    /**
+     * Intento fallido por otro motivo
+     * @param status STATUS_UNREACHABLE o STATUS_ERROR
+     * @param reason Motivo tal cual llega (p. ej. el mensaje de la excepción); puede ser null
+     */
+    public static PingResult failure(byte status, String reason) {
+        return new PingResult(status, -1, null, reason);
+    }
+
+    /**
+     * Intento que no llegó a salir porque falló la resolución del nombre
+     */
+    public static PingResult dnsFailure(String reason) {
+        return new PingResult(STATUS_DNS_FAILURE, -1, null, reason);
+    }
+
+    public boolean isSuccessful() {
+        return status == STATUS_OK;
+    }
+
+    public boolean isSuccess() {
+        return isSuccessful();
+    }
+
+    public byte getStatus() {
+        return status;
+    }
+
+    /**
+     * Descripción legible del intento; se compone en cada llamada
+     */
+    public String getOutput() {
+        switch (status) {
+            case STATUS_OK:
+                String from = address != null ? address.getHostAddress() : String.valueOf(target);
+                String reply = "Respuesta desde " + from + ": tiempo=" + getPingTime() + "ms";
+                return httpStatus > 0 ? reply + " (HTTP " + httpStatus + ")" : reply;
+            case STATUS_TIMEOUT:
+                return "Tiempo de espera agotado.";
+            case STATUS_UNREACHABLE:
+                return "Destino inalcanzable: " + reason;
+            case STATUS_DNS_FAILURE:
+                return "No se pudo resolver el nombre: " + reason;
+            case STATUS_ERROR:
+            default:
+                return "Error: " + reason;
+        }
+    }
+
+    /**
+     * Tiempo de ida y vuelta en milisegundos, -1 si no hubo respuesta
+     */
+    public long getPingTime() {
+        return rttNanos < 0 ? -1 : rttNanos / 1_000_000;
+    }
+
+    /**
+     * Tiempo de ida y vuelta en nanosegundos, -1 si no hubo respuesta
+     */
+    public long getRttNanos() {
+        return rttNanos;
+    }
+
+    /**
+     * Latencia corregida por omisión coordinada: medida desde la hora a la que el intento
+     * debía salir según el ritmo fijo de la sesión, no desde que salió realmente.
+     * -1 si no hubo respuesta.
+     */
+    public long getCorrectedRttNanos() {
+        return correctedRttNanos;
+    }
+
+    void setCorrectedRttNanos(long correctedRttNanos) {
+        this.correctedRttNanos = correctedRttNanos;
+    }
+
+    /**
+     * Duración de la consulta DNS previa al intento en nanosegundos, fuera del RTT.
+     * -1 si no hubo consulta (dirección literal o resolución en caché).
+     */
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * Lo fija el sondeo cuando tuvo que consultar al DNS antes de medir
+     */
+    public void setDnsNanos(long dnsNanos) {
+        this.dnsNanos = dnsNanos;
+    }
+
+    /**
+     * Fases de un intento HTTP, en nanosegundos. El RTT del resultado es el tiempo total.
+     *
+     * @param connectNanos Handshake TCP, -1 si se reutilizó una conexión abierta
+     * @param tlsNanos Handshake TLS, -1 si no hubo (HTTP plano o conexión reutilizada)
+     * @param ttfbNanos Desde el envío de la petición hasta el primer byte de la respuesta
+     * @param httpStatus Código de estado de la respuesta
+     */
+    public void setHttpTimings(long connectNanos, long tlsNanos, long ttfbNanos, int httpStatus) {
+        this.connectNanos = connectNanos;
+        this.tlsNanos = tlsNanos;
+        this.ttfbNanos = ttfbNanos;
+        this.httpStatus = httpStatus;
+    }
+
+    /**
+     * Handshake TCP de un intento HTTP, -1 si no lo hubo
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * Handshake TLS de un intento HTTPS, -1 si no lo hubo
+     */
+    public long getTlsNanos() {
+        return tlsNanos;
+    }
+
+    /**
+     * Tiempo hasta el primer byte de la respuesta HTTP, -1 si no es un intento HTTP
+     */
+    public long getTtfbNanos() {
+        return ttfbNanos;
+    }
+
+    /**
+     * Código de estado HTTP, 0 si no es un intento HTTP
+     */
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public void setAttemptNumber(int attemptNumber) {
+        this.attemptNumber = attemptNumber;
+    }
+
+    public int getAttemptNumber() {
+        return attemptNumber;
+    }
+
+    /**
+     * Destino al que pertenece el intento
+     */
+    public PingTarget getTarget() {
+        return target;
+    }
+
+    void setTarget(PingTarget target) {
+        this.target = target;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
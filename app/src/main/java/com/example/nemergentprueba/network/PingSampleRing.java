@@ -0,0 +1,116 @@
+package com.example.nemergentprueba.network;
+
+/**
+ * Buffer circular de muestras de ping en arrays primitivos: hora, RTT en microsegundos,
+ * estado, número de intento y destino. Su tamaño es fijo, así que una sesión larga no
+ * crece en memoria: al llenarse se sobrescriben las muestras más antiguas.
+ *
+ * Las muestras se identifican por su número de secuencia absoluto (0 para la primera
+ * escrita); solo siguen disponibles las últimas getCapacity(). Lecturas y escrituras
+ * están sincronizadas y ninguna reserva memoria.
+ */
+public class PingSampleRing {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final int capacity;
+    private final long[] timestamps;
+    private final int[] rttMicros;
+    private final byte[] statuses;
+    private final int[] attempts;
+    private final byte[] targetIndexes;
+    private long written;
+
+    public PingSampleRing(int capacity) {
+        this.capacity = capacity;
+        timestamps = new long[capacity];
+        rttMicros = new int[capacity];
+        statuses = new byte[capacity];
+        attempts = new int[capacity];
+        targetIndexes = new byte[capacity];
+    }
+
+    /**
+     * Añade una muestra
+     * @param rttMicros Latencia en microsegundos, -1 si no hubo respuesta
+     * @param targetIndex Posición del destino en la petición
+     * @return Número de secuencia de la muestra
+     */
+    public synchronized long add(long timestamp, long rttMicros, byte status, int attempt, int targetIndex) {
+        int slot = (int) (written % capacity);
+        timestamps[slot] = timestamp;
+        this.rttMicros[slot] = (int) Math.min(rttMicros, Integer.MAX_VALUE);
+        statuses[slot] = status;
+        attempts[slot] = attempt;
+        targetIndexes[slot] = (byte) targetIndex;
+        return written++;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Muestras escritas desde el principio, incluidas las ya sobrescritas
+     */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Muestras disponibles ahora mismo
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    /**
+     * Indica si la muestra con ese número de secuencia sigue en el buffer
+     */
+    public synchronized boolean contains(long sequence) {
+        return sequence >= 0 && sequence < written && sequence >= written - capacity;
+    }
+
+    public synchronized long getTimestamp(long sequence) {
+        return timestamps[slot(sequence)];
+    }
+
+    public synchronized int getRttMicros(long sequence) {
+        return rttMicros[slot(sequence)];
+    }
+
+    public synchronized byte getStatus(long sequence) {
+        return statuses[slot(sequence)];
+    }
+
+    public synchronized int getAttempt(long sequence) {
+        return attempts[slot(sequence)];
+    }
+
+    public synchronized int getTargetIndex(long sequence) {
+        return targetIndexes[slot(sequence)];
+    }
+
+    /**
+     * Copia las últimas muestras, de la más antigua a la más reciente, en arrays del llamante
+     * @param outRttMicros Recibe las latencias (-1 si no hubo respuesta)
+     * @param outStatuses Recibe los estados
+     * @return Número de muestras copiadas, como mucho la longitud de los arrays
+     */
+    public synchronized int copyLatest(int[] outRttMicros, byte[] outStatuses) {
+        int count = (int) Math.min(Math.min(written, capacity), Math.min(outRttMicros.length, outStatuses.length));
+        long first = written - count;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((first + i) % capacity);
+            outRttMicros[i] = rttMicros[slot];
+            outStatuses[i] = statuses[slot];
+        }
+        return count;
+    }
+
+    private int slot(long sequence) {
+        if (sequence < 0 || sequence >= written || sequence < written - capacity) {
+            throw new IndexOutOfBoundsException("Muestra " + sequence + " fuera del buffer");
+        }
+        return (int) (sequence % capacity);
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.nemergentprueba.network;
+
+import android.util.Log;
+
+import com.example.nemergentprueba.network.stats.LatencySnapshot;
+import com.example.nemergentprueba.network.stats.LatencyStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sesión de ping en curso o terminada. Se crea con PingEngine.startSession() y se puede
+ * cancelar en cualquier momento; tras cancel() no se entrega ningún resultado más.
+ *
+ * Cada destino tiene su propio ritmo fijo (bucle abierto): su intento n sale en
+ * inicio + desfase + (n - 1) * intervalo, termine o no el anterior, así que puede haber
+ * varios sondeos pendientes a la vez y un timeout no estira el intervalo. Cada latencia
+ * se corrige además por omisión coordinada midiéndola desde la hora prevista de envío:
+ * si el planificador, el pool de sondeos o el límite global de concurrencia retrasan un
+ * envío, ese retraso cuenta como latencia en lugar de desaparecer de la muestra.
+ */
+public class PingSession {
+    private static final String TAG = "PingSession";
+
+    private final PingRequest request;
+    private final List<PingTargetStream> streams;
+    private final ScheduledExecutorService scheduler;
+    private final ProbeLimiter limiter;
+    private final Executor callbackExecutor;
+    private final PingEngine.ResultRecorder recorder;
+    private final List<PingObserver> observers = new CopyOnWriteArrayList<>();
+    // Estadísticas de todos los destinos juntos; se alimentan bajo el bloqueo de la sesión
+    private final LatencyStats stats = new LatencyStats();
+    private final PingPhaseStats phaseStats = new PingPhaseStats();
+    private final PingSampleRing samples;
+
+    // Estado protegido por this
+    private long startNanos;
+    private int completedCount;
+    private int successCount;
+    private int failureCount;
+    private boolean cancelled;
+    private boolean finished;
+
+    PingSession(PingRequest request, List<PingTargetStream> streams, ScheduledExecutorService scheduler,
+                ProbeLimiter limiter, Executor callbackExecutor, PingEngine.ResultRecorder recorder) {
+        this.request = request;
+        this.streams = Collections.unmodifiableList(new ArrayList<>(streams));
+        this.scheduler = scheduler;
+        this.limiter = limiter;
+        this.callbackExecutor = callbackExecutor;
+        this.recorder = recorder;
+        this.samples = new PingSampleRing(Math.min(PingSampleRing.DEFAULT_CAPACITY, getTotalAttempts()));
+    }
+
+    public void addObserver(PingObserver observer) {
+        if (!observers.contains(observer)) {
+            observers.add(observer);
+        }
+    }
+
+    public void removeObserver(PingObserver observer) {
+        observers.remove(observer);
+    }
+
+    void start() {
+        Log.d(TAG, "Iniciando sesión de ping a " + streams.size() + " destinos con "
+                + request.getAttempts() + " intentos cada uno");
+        dispatch(observer -> observer.onPingStarted(this));
+        synchronized (this) {
+            startNanos = System.nanoTime();
+        }
+        for (PingTargetStream stream : streams) {
+            scheduleNextProbe(stream);
+        }
+    }
+
+    /**
+     * Detiene la sesión. No hace nada si ya había terminado.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled || finished) {
+                return;
+            }
+            cancelled = true;
+        }
+        closeStreams();
+        recorder.flush();
+        Log.d(TAG, "Sesión de ping cancelada");
+        dispatch(observer -> observer.onPingStopped(this));
+    }
+
+    // Hora prevista de envío de un intento, en la escala de System.nanoTime()
+    private long intendedSendNanos(PingTargetStream stream, int attempt) {
+        return startNanos + stream.getOffsetNanos()
+                + (attempt - 1) * TimeUnit.MILLISECONDS.toNanos(request.getIntervalMs());
+    }
+
+    private synchronized void scheduleNextProbe(PingTargetStream stream) {
+        int attempt = stream.getNextAttempt();
+        if (cancelled || finished || attempt > request.getAttempts()) {
+            return;
+        }
+        long delayNanos = Math.max(0, intendedSendNanos(stream, attempt) - System.nanoTime());
+        try {
+            stream.setPendingAttempt(scheduler.schedule(() -> fireDueProbes(stream),
+                    delayNanos, TimeUnit.NANOSECONDS));
+        } catch (RejectedExecutionException e) {
+            fail("Planificador de ping detenido");
+        }
+    }
+
+    /**
+     * Lanza todos los intentos de un destino cuya hora prevista ya ha llegado (varios si
+     * el planificador se retrasó) y programa el siguiente
+     */
+    private void fireDueProbes(PingTargetStream stream) {
+        long now = System.nanoTime();
+        while (true) {
+            int attempt;
+            long intendedNanos;
+            synchronized (this) {
+                if (cancelled || finished || stream.getNextAttempt() > request.getAttempts()) {
+                    return;
+                }
+                intendedNanos = intendedSendNanos(stream, stream.getNextAttempt());
+                if (intendedNanos > now) {
+                    break;
+                }
+                attempt = stream.takeNextAttempt();
+            }
+            launchProbe(stream, attempt, intendedNanos);
+        }
+        scheduleNextProbe(stream);
+    }
+
+    private void launchProbe(PingTargetStream stream, int attempt, long intendedNanos) {
+        limiter.submit(() -> {
+            if (!isRunning()) {
+                limiter.release();
+                return;
+            }
+            try {
+                stream.getProbe().probe(stream.getTarget(), request.getTimeoutMs(), result -> {
+                    limiter.release();
+                    onProbeComplete(stream, attempt, intendedNanos, result);
+                });
+            } catch (RuntimeException e) {
+                limiter.release();
+                Log.e(TAG, "Error en el sondeo #" + attempt + " a " + stream.getTarget() + ": " + e.getMessage(), e);
+                fail(e.getMessage());
+            }
+        });
+    }
+
+    private void onProbeComplete(PingTargetStream stream, int attempt, long intendedNanos, PingResult result) {
+        long completedNanos = System.nanoTime();
+        result.setAttemptNumber(attempt);
+        result.setTarget(stream.getTarget());
+        if (result.isSuccessful()) {
+            // Desde la hora prevista, nunca menos que lo medido por el propio sondeo
+            result.setCorrectedRttNanos(Math.max(result.getRttNanos(), completedNanos - intendedNanos));
+        }
+        boolean last;
+        synchronized (this) {
+            if (cancelled || finished) {
+                return;
+            }
+            stream.record(result);
+            samples.add(result.getTimestamp(),
+                    result.isSuccessful() ? TimeUnit.NANOSECONDS.toMicros(result.getCorrectedRttNanos()) : -1,
+                    result.getStatus(), attempt, stream.getIndex());
+            completedCount++;
+            phaseStats.record(result);
+            if (result.getStatus() == PingResult.STATUS_DNS_FAILURE) {
+                failureCount++;
+            } else if (result.isSuccessful()) {
+                successCount++;
+                stats.recordSuccess(TimeUnit.NANOSECONDS.toMicros(result.getCorrectedRttNanos()),
+                        TimeUnit.NANOSECONDS.toMicros(result.getRttNanos()));
+            } else {
+                failureCount++;
+                stats.recordLoss();
+            }
+            last = completedCount >= getTotalAttempts();
+            finished = last;
+        }
+
+        // En el hilo del sondeo: no depende de que haya una pantalla observando
+        recorder.record(result);
+        dispatch(observer -> observer.onPingResult(this, result));
+        if (last) {
+            closeStreams();
+            recorder.flush();
+            Log.d(TAG, "Sesión de ping completada: " + getSuccessCount() + " éxitos, " + getFailureCount() + " fallos");
+            dispatch(observer -> observer.onPingCompleted(this));
+        }
+    }
+
+    private void fail(String message) {
+        synchronized (this) {
+            if (cancelled || finished) {
+                return;
+            }
+            finished = true;
+        }
+        closeStreams();
+        recorder.flush();
+        dispatch(observer -> observer.onPingError(this, message));
+    }
+
+    private void closeStreams() {
+        for (PingTargetStream stream : streams) {
+            stream.cancelPending();
+        }
+    }
+
+    private void dispatch(Consumer<PingObserver> event) {
+        callbackExecutor.execute(() -> {
+            for (PingObserver observer : observers) {
+                event.accept(observer);
+            }
+        });
+    }
+
+    public PingRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Resultados por destino, en el orden de la petición
+     */
+    public List<PingTargetStream> getTargetStreams() {
+        return streams;
+    }
+
+    public PingTargetStream getTargetStream(PingTarget target) {
+        for (PingTargetStream stream : streams) {
+            if (stream.getTarget().equals(target)) {
+                return stream;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Destinos ordenados de mejor a peor: primero por pérdidas y después por latencia
+     * mediana. Los destinos sin ninguna respuesta van al final.
+     */
+    public List<PingTargetStream> getTargetRanking() {
+        List<PingTargetStream> ranking = new ArrayList<>(streams);
+        Map<PingTargetStream, LatencySnapshot> snapshots = new HashMap<>();
+        for (PingTargetStream stream : streams) {
+            snapshots.put(stream, stream.getStats());
+        }
+        Collections.sort(ranking, Comparator
+                .comparing((PingTargetStream s) -> !snapshots.get(s).hasLatency())
+                .thenComparingDouble(s -> snapshots.get(s).getLossRate())
+                .thenComparingLong(s -> snapshots.get(s).getP50Micros()));
+        return ranking;
+    }
+
+    /**
+     * Últimas muestras de todos los destinos, en orden de llegada. Se escriben antes de
+     * notificar el resultado correspondiente a los observadores.
+     */
+    public PingSampleRing getSamples() {
+        return samples;
+    }
+
+    /**
+     * Estadísticas actuales de todos los destinos juntos; no bloquea a los sondeos en curso
+     */
+    public LatencySnapshot getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * Latencia de las consultas DNS de todos los destinos, aparte del RTT
+     */
+    public LatencySnapshot getDnsStats() {
+        return phaseStats.getDns();
+    }
+
+    /**
+     * Fases de los intentos de todos los destinos fuera del RTT (DNS, conexión, TLS, TTFB)
+     */
+    public PingPhaseStats getPhaseStats() {
+        return phaseStats;
+    }
+
+    /**
+     * Intentos totales de la sesión (intentos por destino × destinos)
+     */
+    public int getTotalAttempts() {
+        return request.getAttempts() * streams.size();
+    }
+
+    public synchronized int getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized int getSuccessCount() {
+        return successCount;
+    }
+
+    public synchronized int getFailureCount() {
+        return failureCount;
+    }
+
+    public synchronized boolean isRunning() {
+        return !cancelled && !finished;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.nemergentprueba.network;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Destino de ping: un host y, opcionalmente, un puerto ("host", "host:puerto" o "[ipv6]:puerto").
+ * También acepta URLs "http://" y "https://" con ruta, que se sondean a nivel HTTP.
+ */
+public class PingTarget {
+    public static final int NO_PORT = -1;
+    public static final String SCHEME_HTTP = "http";
+    public static final String SCHEME_HTTPS = "https";
+
+    private final String scheme;
+    private final String host;
+    private final int port;
+    private final String path;
+
+    public PingTarget(String host, int port) {
+        this(null, host, port, null);
+    }
+
+    /**
+     * @param scheme SCHEME_HTTP, SCHEME_HTTPS o null si no es una URL
+     * @param path Ruta de la petición HTTP; "/" si es null
+     */
+    public PingTarget(String scheme, String host, int port, String path) {
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.path = scheme == null ? null : (path == null || path.isEmpty() ? "/" : path);
+    }
+
+    /**
+     * Interpreta un destino escrito por el usuario
+     * @throws IllegalArgumentException si está vacío o el puerto no es válido
+     */
+    public static PingTarget parse(String text) {
+        String value = text == null ? "" : text.trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Destino de ping vacío");
+        }
+        String scheme = null;
+        String path = null;
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.startsWith(SCHEME_HTTP + "://") || lower.startsWith(SCHEME_HTTPS + "://")) {
+            int separator = value.indexOf("://");
+            scheme = lower.substring(0, separator);
+            value = value.substring(separator + 3);
+            int slash = value.indexOf('/');
+            if (slash >= 0) {
+                path = value.substring(slash);
+                value = value.substring(0, slash);
+            }
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("URL sin host: " + text.trim());
+            }
+        }
+        String host = value;
+        String portText = null;
+        if (value.startsWith("[")) {
+            int close = value.indexOf(']');
+            if (close < 0) {
+                throw new IllegalArgumentException("Dirección IPv6 mal formada: " + value);
+            }
+            host = value.substring(1, close);
+            if (close + 1 < value.length()) {
+                if (value.charAt(close + 1) != ':') {
+                    throw new IllegalArgumentException("Dirección IPv6 mal formada: " + value);
+                }
+                portText = value.substring(close + 2);
+            }
+        } else if (value.indexOf(':') >= 0 && value.indexOf(':') == value.lastIndexOf(':')) {
+            // Un solo ':' es separador de puerto; varios son una IPv6 sin corchetes
+            int colon = value.indexOf(':');
+            host = value.substring(0, colon);
+            portText = value.substring(colon + 1);
+        }
+
+        int port = NO_PORT;
+        if (portText != null) {
+            try {
+                port = Integer.parseInt(portText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Puerto no válido: " + portText);
+            }
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("Puerto fuera de rango: " + port);
+            }
+        }
+        if (host.isEmpty()) {
+            throw new IllegalArgumentException("Destino de ping vacío");
+        }
+        return new PingTarget(scheme, host, port, path);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean hasPort() {
+        return port != NO_PORT;
+    }
+
+    /**
+     * SCHEME_HTTP, SCHEME_HTTPS o null si el destino no es una URL
+     */
+    public String getScheme() {
+        return scheme;
+    }
+
+    /**
+     * Ruta de la petición HTTP, null si el destino no es una URL
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isHttp() {
+        return scheme != null;
+    }
+
+    public boolean isTls() {
+        return SCHEME_HTTPS.equals(scheme);
+    }
+
+    @Override
+    public String toString() {
+        String authority;
+        if (!hasPort()) {
+            authority = host.indexOf(':') >= 0 && scheme != null ? "[" + host + "]" : host;
+        } else {
+            authority = host.indexOf(':') >= 0 ? "[" + host + "]:" + port : host + ":" + port;
+        }
+        if (scheme == null) {
+            return authority;
+        }
+        return scheme + "://" + authority + ("/".equals(path) ? "" : path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PingTarget)) return false;
+        PingTarget other = (PingTarget) o;
+        return port == other.port && host.equalsIgnoreCase(other.host)
+                && Objects.equals(scheme, other.scheme) && Objects.equals(path, other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return (host.toLowerCase().hashCode() * 31 + port) * 31 + Objects.hash(scheme, path);
+    }
+}
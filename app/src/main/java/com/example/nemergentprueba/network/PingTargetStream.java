@@ -0,0 +1,127 @@
+package com.example.nemergentprueba.network;
+
+import com.example.nemergentprueba.network.probe.PingProbe;
+import com.example.nemergentprueba.network.stats.LatencySnapshot;
+import com.example.nemergentprueba.network.stats.LatencyStats;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas y planificación de un destino dentro de una sesión. Cada destino tiene su
+ * propio ritmo fijo, desfasado respecto a los demás para no enviar todo a la vez. Los
+ * resultados no se guardan: solo alimentan las estadísticas en streaming.
+ */
+public class PingTargetStream {
+    private final int index;
+    private final PingTarget target;
+    private final PingProbe probe;
+    private final long offsetNanos;
+
+    private final LatencyStats stats = new LatencyStats();
+    private final PingPhaseStats phaseStats = new PingPhaseStats();
+    private int nextAttempt = 1;
+    private int completedCount;
+    private int successCount;
+    private int failureCount;
+    private ScheduledFuture<?> pendingAttempt;
+
+    PingTargetStream(int index, PingTarget target, PingProbe probe, long offsetNanos) {
+        this.index = index;
+        this.target = target;
+        this.probe = probe;
+        this.offsetNanos = offsetNanos;
+    }
+
+    /**
+     * Posición del destino en la petición
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public PingTarget getTarget() {
+        return target;
+    }
+
+    PingProbe getProbe() {
+        return probe;
+    }
+
+    long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    synchronized int getNextAttempt() {
+        return nextAttempt;
+    }
+
+    synchronized int takeNextAttempt() {
+        return nextAttempt++;
+    }
+
+    synchronized void setPendingAttempt(ScheduledFuture<?> pendingAttempt) {
+        this.pendingAttempt = pendingAttempt;
+    }
+
+    void cancelPending() {
+        ScheduledFuture<?> future;
+        synchronized (this) {
+            future = pendingAttempt;
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+        probe.close();
+    }
+
+    synchronized void record(PingResult result) {
+        completedCount++;
+        phaseStats.record(result);
+        if (result.getStatus() == PingResult.STATUS_DNS_FAILURE) {
+            // El intento no llegó a salir: falla, pero no cuenta como pérdida de RTT
+            failureCount++;
+        } else if (result.isSuccessful()) {
+            successCount++;
+            stats.recordSuccess(TimeUnit.NANOSECONDS.toMicros(result.getCorrectedRttNanos()),
+                    TimeUnit.NANOSECONDS.toMicros(result.getRttNanos()));
+        } else {
+            failureCount++;
+            stats.recordLoss();
+        }
+    }
+
+    public synchronized int getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized int getSuccessCount() {
+        return successCount;
+    }
+
+    public synchronized int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Estadísticas actuales de este destino; no bloquea a los sondeos en curso
+     */
+    public LatencySnapshot getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * Latencia de las consultas DNS de este destino (las resoluciones en caché no cuentan);
+     * los fallos de resolución aparecen como pérdidas
+     */
+    public LatencySnapshot getDnsStats() {
+        return phaseStats.getDns();
+    }
+
+    /**
+     * Fases de los intentos de este destino fuera del RTT (DNS, conexión, TLS, TTFB)
+     */
+    public PingPhaseStats getPhaseStats() {
+        return phaseStats;
+    }
+}
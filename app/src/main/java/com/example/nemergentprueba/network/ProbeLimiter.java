@@ -0,0 +1,62 @@
+package com.example.nemergentprueba.network;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite global de sondeos simultáneos, compartido por todas las sesiones.
+ *
+ * Los lanzamientos que no caben esperan en una cola sin bloquear al planificador y
+ * arrancan en cuanto otro sondeo libera su permiso. Como la latencia se mide desde la
+ * hora prevista de envío, ese tiempo de espera queda reflejado en los resultados.
+ *
+ * La cola la vacía un solo hilo a la vez y en un bucle: un release() dentro de un lanzamiento
+ * (sondeo que termina al instante) o desde otro hilo solo deja anotado que hay que volver a
+ * mirar, así que una cadena de sondeos síncronos no crece la pila.
+ */
+class ProbeLimiter {
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    // Peticiones de vaciado pendientes; distinto de 0 mientras algún hilo está vaciando
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    ProbeLimiter(int maxConcurrentProbes) {
+        this.permits = new Semaphore(maxConcurrentProbes);
+    }
+
+    /**
+     * Ejecuta el lanzamiento cuando haya un permiso libre. El lanzamiento queda obligado
+     * a llamar a release() exactamente una vez y no debe lanzar excepciones.
+     */
+    void submit(Runnable launch) {
+        waiting.add(launch);
+        drain();
+    }
+
+    void release() {
+        permits.release();
+        drain();
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            // Ya hay un hilo vaciando (quizá este mismo, más arriba en la pila): repetirá la vuelta
+            return;
+        }
+        int requests = 1;
+        do {
+            while (permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                    break;
+                }
+                next.run();
+            }
+            // Si alguien encoló o liberó mientras tanto, se da otra vuelta
+            requests = drainRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+}
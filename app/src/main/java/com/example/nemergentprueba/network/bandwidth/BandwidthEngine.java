@@ -0,0 +1,139 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor de los tests de velocidad. Cada flujo TCP ocupa un hilo propio mientras dura el
+ * test (son pocos y de vida corta) y un hilo aparte calcula el caudal de cada segundo.
+ * Los observadores reciben los eventos en el hilo principal.
+ */
+public class BandwidthEngine {
+    private static final String TAG = "BandwidthEngine";
+    // Fichero de datos para la subida con transferTo; se queda en la caché de páginas
+    static final int PAYLOAD_FILE_BYTES = 1024 * 1024;
+    private static final String PAYLOAD_FILE_NAME = "bandwidth_payload.bin";
+
+    private static BandwidthEngine instance;
+
+    private final ExecutorService streamExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final Executor callbackExecutor;
+    private final File payloadLocation;
+    private File payloadFile;
+    private boolean payloadPrepared;
+
+    public static synchronized BandwidthEngine getInstance(Context context) {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            File payload = new File(context.getApplicationContext().getCacheDir(), PAYLOAD_FILE_NAME);
+            instance = new BandwidthEngine(mainHandler::post, payload);
+        }
+        return instance;
+    }
+
+    /**
+     * @param callbackExecutor Ejecutor en el que se entregan los eventos a los observadores
+     * @param payloadLocation Ruta del fichero de datos de subida; se reutiliza entre tests
+     *                        y entre ejecuciones de la aplicación
+     */
+    BandwidthEngine(Executor callbackExecutor, File payloadLocation) {
+        this.callbackExecutor = callbackExecutor;
+        this.payloadLocation = payloadLocation;
+        this.streamExecutor = Executors.newCachedThreadPool(namedThreads("bandwidth-stream"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("bandwidth-reporter"));
+    }
+
+    /**
+     * Inicia un test de velocidad
+     * @param observer Observador que se registra antes del primer evento; puede ser null
+     */
+    public BandwidthSession startTest(BandwidthRequest request, BandwidthObserver observer) {
+        BandwidthSession test = new BandwidthSession(request, this, streamExecutor, scheduler, callbackExecutor);
+        if (observer != null) {
+            test.addObserver(observer);
+        }
+        test.start();
+        return test;
+    }
+
+    /**
+     * Fichero de datos no comprimibles para subir con FileChannel.transferTo (sendfile en
+     * el kernel, sin copiar a la JVM). Se crea la primera vez que hace falta, en el hilo
+     * de un flujo; null si no se pudo crear y hay que subir desde un buffer directo.
+     */
+    synchronized File getPayloadFile() {
+        if (!payloadPrepared) {
+            payloadPrepared = true;
+            try {
+                payloadFile = preparePayloadFile(payloadLocation);
+            } catch (IOException e) {
+                Log.w(TAG, "Sin fichero de datos, la subida usará buffers directos: " + e.getMessage());
+                payloadFile = null;
+            }
+        }
+        return payloadFile;
+    }
+
+    /**
+     * Reutiliza el fichero si ya tiene el tamaño esperado (el contenido da igual mientras no
+     * se pueda comprimir) y si no lo escribe de nuevo
+     */
+    static File preparePayloadFile(File file) throws IOException {
+        if (file.length() == PAYLOAD_FILE_BYTES) {
+            return file;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        byte[] chunk = new byte[buffer.capacity()];
+        Random random = new Random();
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw");
+             FileChannel channel = output.getChannel()) {
+            channel.truncate(0);
+            for (int written = 0; written < PAYLOAD_FILE_BYTES; written += chunk.length) {
+                random.nextBytes(chunk);
+                buffer.clear();
+                buffer.put(chunk).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            // Un fichero a medias no se reutiliza: la próxima vez se vuelve a escribir
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Detiene los hilos del motor; solo para instancias propias (pruebas)
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+        streamExecutor.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
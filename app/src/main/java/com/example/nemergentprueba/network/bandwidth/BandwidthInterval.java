@@ -0,0 +1,65 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+/**
+ * Caudal medido durante un intervalo (normalmente un segundo) del test, en total y por flujo
+ */
+public class BandwidthInterval {
+    private final int index;
+    private final long durationNanos;
+    private final long[] streamBytes;
+    private final long bytes;
+
+    BandwidthInterval(int index, long durationNanos, long[] streamBytes) {
+        this.index = index;
+        this.durationNanos = durationNanos;
+        this.streamBytes = streamBytes;
+        long total = 0;
+        for (long value : streamBytes) {
+            total += value;
+        }
+        this.bytes = total;
+    }
+
+    /**
+     * Posición del intervalo en el test, empezando por 1
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Bytes transferidos por todos los flujos en el intervalo
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Caudal total del intervalo en megabits por segundo
+     */
+    public double getMbps() {
+        return toMbps(bytes, durationNanos);
+    }
+
+    /**
+     * Caudal de un flujo en megabits por segundo
+     */
+    public double getStreamMbps(int stream) {
+        return toMbps(streamBytes[stream], durationNanos);
+    }
+
+    public int getStreamCount() {
+        return streamBytes.length;
+    }
+
+    static double toMbps(long bytes, long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return bytes * 8.0 * 1000.0 / nanos;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+/**
+ * Observador de un test de velocidad. Todas las llamadas llegan en el hilo principal
+ * y en el mismo orden en que ocurrieron.
+ */
+public interface BandwidthObserver {
+    void onBandwidthStarted(BandwidthSession test);
+    void onBandwidthInterval(BandwidthSession test, BandwidthInterval interval);
+    void onBandwidthCompleted(BandwidthSession test);
+    void onBandwidthStopped(BandwidthSession test);
+    void onBandwidthError(BandwidthSession test, String message);
+}
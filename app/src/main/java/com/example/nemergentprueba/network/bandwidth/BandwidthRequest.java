@@ -0,0 +1,136 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+import com.example.nemergentprueba.network.PingTarget;
+
+/**
+ * Parámetros de un test de velocidad: destino (host:puerto de un servidor que hable el
+ * protocolo descrito en {@link BandwidthSession}), sentido, número de flujos TCP paralelos
+ * y duración.
+ */
+public class BandwidthRequest {
+    public static final int DEFAULT_STREAMS = 4;
+    public static final int MAX_STREAMS = 16;
+    public static final long DEFAULT_DURATION_MS = 10_000;
+    public static final long MIN_DURATION_MS = 1_000;
+    public static final long MAX_DURATION_MS = 60_000;
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 3_000;
+
+    /**
+     * Sentido de los datos respecto al dispositivo
+     */
+    public enum Direction {
+        /** El dispositivo envía y el servidor descarta */
+        UPLOAD,
+        /** El servidor envía y el dispositivo descarta */
+        DOWNLOAD
+    }
+
+    private final PingTarget target;
+    private final Direction direction;
+    private final int streams;
+    private final long durationMs;
+    private final int bufferBytes;
+    private final int connectTimeoutMs;
+
+    private BandwidthRequest(Builder builder) {
+        this.target = builder.target;
+        this.direction = builder.direction;
+        this.streams = builder.streams;
+        this.durationMs = builder.durationMs;
+        this.bufferBytes = builder.bufferBytes;
+        this.connectTimeoutMs = builder.connectTimeoutMs;
+    }
+
+    public PingTarget getTarget() {
+        return target;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Conexiones TCP simultáneas
+     */
+    public int getStreams() {
+        return streams;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Tamaño del buffer directo de cada flujo
+     */
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public static class Builder {
+        private final PingTarget target;
+        private Direction direction = Direction.DOWNLOAD;
+        private int streams = DEFAULT_STREAMS;
+        private long durationMs = DEFAULT_DURATION_MS;
+        private int bufferBytes = DEFAULT_BUFFER_BYTES;
+        private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+
+        /**
+         * @param endpoint Destino "host:puerto" o "[ipv6]:puerto"
+         * @throws IllegalArgumentException si no es válido o no lleva puerto
+         */
+        public Builder(String endpoint) {
+            this(PingTarget.parse(endpoint));
+        }
+
+        public Builder(PingTarget target) {
+            this.target = target;
+        }
+
+        public Builder setDirection(Direction direction) {
+            this.direction = direction;
+            return this;
+        }
+
+        public Builder setStreams(int streams) {
+            this.streams = streams;
+            return this;
+        }
+
+        public Builder setDurationMs(long durationMs) {
+            this.durationMs = durationMs;
+            return this;
+        }
+
+        public Builder setBufferBytes(int bufferBytes) {
+            this.bufferBytes = bufferBytes;
+            return this;
+        }
+
+        public Builder setConnectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            return this;
+        }
+
+        public BandwidthRequest build() {
+            if (!target.hasPort() || target.isHttp()) {
+                throw new IllegalArgumentException("El test de velocidad necesita host:puerto: " + target);
+            }
+            if (streams < 1 || streams > MAX_STREAMS) {
+                throw new IllegalArgumentException("Número de flujos fuera de rango: " + streams);
+            }
+            if (durationMs < MIN_DURATION_MS || durationMs > MAX_DURATION_MS) {
+                throw new IllegalArgumentException("Duración fuera de rango: " + durationMs);
+            }
+            if (bufferBytes < 1024 || connectTimeoutMs <= 0) {
+                throw new IllegalArgumentException("Buffer o timeout no válidos");
+            }
+            return new BandwidthRequest(this);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Un test de velocidad en curso o terminado: N flujos TCP paralelos que suben o bajan
+ * datos durante un tiempo fijo.
+ *
+ * <p>Los flujos usan buffers directos, y la subida envía desde un fichero con
+ * FileChannel.transferTo cuando es posible, así que los datos no pasan por el heap. Cada
+ * flujo solo suma sus bytes en un contador; un hilo aparte los lee una vez por segundo
+ * para calcular el caudal del intervalo, total y por flujo.</p>
+ *
+ * <p>Protocolo con el servidor: el cliente abre una conexión TCP por flujo y envía un único
+ * byte de orden; con {@link #COMMAND_UPLOAD} el servidor lee y descarta hasta que el cliente
+ * cierra, con {@link #COMMAND_DOWNLOAD} envía datos sin parar hasta que el cliente cierra.</p>
+ */
+public class BandwidthSession {
+    private static final String TAG = "BandwidthSession";
+
+    public static final byte COMMAND_UPLOAD = 'U';
+    public static final byte COMMAND_DOWNLOAD = 'D';
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Un último intervalo más corto que esto no se informa (sería muy ruidoso)
+    private static final long MIN_FINAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BandwidthRequest request;
+    private final BandwidthEngine engine;
+    private final ExecutorService streamExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final Executor callbackExecutor;
+    private final List<BandwidthObserver> observers = new CopyOnWriteArrayList<>();
+    private final AtomicLongArray streamBytes;
+
+    // Protegidos por this
+    private final SocketChannel[] channels;
+    private final long[] reportedBytes;
+    // Bytes de cada flujo al terminar; lo que llegue después ya no cuenta
+    private long[] finalBytes;
+    private final List<BandwidthInterval> intervals = new ArrayList<>();
+    private long startNanos;
+    private long lastReportNanos;
+    private long endNanos;
+    private int failedStreams;
+    private boolean finished;
+    private boolean cancelled;
+    private ScheduledFuture<?> reporter;
+    private ScheduledFuture<?> deadline;
+    private volatile boolean running;
+
+    BandwidthSession(BandwidthRequest request, BandwidthEngine engine, ExecutorService streamExecutor,
+                  ScheduledExecutorService scheduler, Executor callbackExecutor) {
+        this.request = request;
+        this.engine = engine;
+        this.streamExecutor = streamExecutor;
+        this.scheduler = scheduler;
+        this.callbackExecutor = callbackExecutor;
+        int streams = request.getStreams();
+        this.streamBytes = new AtomicLongArray(streams);
+        this.channels = new SocketChannel[streams];
+        this.reportedBytes = new long[streams];
+    }
+
+    public void addObserver(BandwidthObserver observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(BandwidthObserver observer) {
+        observers.remove(observer);
+    }
+
+    void start() {
+        synchronized (this) {
+            running = true;
+            startNanos = System.nanoTime();
+            lastReportNanos = startNanos;
+        }
+        Log.d(TAG, "Iniciando test de velocidad " + request.getDirection() + " con "
+                + request.getStreams() + " flujos a " + request.getTarget());
+        dispatch(observer -> observer.onBandwidthStarted(this));
+        try {
+            for (int i = 0; i < request.getStreams(); i++) {
+                int stream = i;
+                streamExecutor.execute(() -> runStream(stream));
+            }
+            synchronized (this) {
+                reporter = scheduler.scheduleAtFixedRate(this::report,
+                        REPORT_INTERVAL_NANOS, REPORT_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+                deadline = scheduler.schedule(() -> finish(false), request.getDurationMs(), TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            fail("Motor de test de velocidad detenido");
+        }
+    }
+
+    /**
+     * Detiene el test; los flujos se cierran enseguida y los observadores reciben
+     * onBandwidthStopped
+     */
+    public void cancel() {
+        finish(true);
+    }
+
+    private void runStream(int stream) {
+        SocketChannel channel = null;
+        try {
+            PingTarget target = request.getTarget();
+            InetSocketAddress address = new InetSocketAddress(
+                    DnsResolver.getInstance().resolve(target.getHost()).getAddress(), target.getPort());
+            channel = SocketChannel.open();
+            synchronized (this) {
+                if (!running) {
+                    return;
+                }
+                channels[stream] = channel;
+            }
+            channel.socket().connect(address, request.getConnectTimeoutMs());
+            channel.socket().setTcpNoDelay(true);
+
+            boolean upload = request.getDirection() == BandwidthRequest.Direction.UPLOAD;
+            ByteBuffer command = ByteBuffer.allocate(1);
+            command.put(upload ? COMMAND_UPLOAD : COMMAND_DOWNLOAD).flip();
+            channel.write(command);
+            if (upload) {
+                upload(stream, channel);
+            } else {
+                download(stream, channel);
+            }
+        } catch (IOException e) {
+            // Al detener el test se cierran los canales y las operaciones en curso fallan
+            if (running) {
+                Log.w(TAG, "Error en el flujo " + stream + ": " + e.getMessage());
+                streamFailed(e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            // P. ej. una dirección sin resolver; sin esto el flujo moriría en silencio en su hilo
+            Log.e(TAG, "Error inesperado en el flujo " + stream, e);
+            streamFailed(e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    private void upload(int stream, SocketChannel channel) throws IOException {
+        File payload = engine.getPayloadFile();
+        int chunk = request.getBufferBytes();
+        if (payload != null) {
+            try (RandomAccessFile input = new RandomAccessFile(payload, "r");
+                 FileChannel file = input.getChannel()) {
+                long size = file.size();
+                long position = 0;
+                while (running) {
+                    // Trozos del tamaño del buffer para que el contador avance con fluidez
+                    long sent = file.transferTo(position, Math.min(chunk, size - position), channel);
+                    streamBytes.addAndGet(stream, sent);
+                    position += sent;
+                    if (position >= size) {
+                        position = 0;
+                    }
+                }
+            }
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(chunk);
+        while (running) {
+            buffer.clear();
+            while (buffer.hasRemaining() && running) {
+                streamBytes.addAndGet(stream, channel.write(buffer));
+            }
+        }
+    }
+
+    private void download(int stream, SocketChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(request.getBufferBytes());
+        while (running) {
+            buffer.clear();
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("El servidor cerró la conexión");
+            }
+            streamBytes.addAndGet(stream, read);
+        }
+    }
+
+    private void streamFailed(String message) {
+        boolean allFailed;
+        synchronized (this) {
+            failedStreams++;
+            allFailed = failedStreams >= request.getStreams();
+        }
+        if (allFailed) {
+            fail(message);
+        }
+    }
+
+    private void report() {
+        BandwidthInterval interval;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            interval = takeInterval(System.nanoTime(), readCounters());
+        }
+        dispatch(observer -> observer.onBandwidthInterval(this, interval));
+    }
+
+    private long[] readCounters() {
+        long[] bytes = new long[streamBytes.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = streamBytes.get(i);
+        }
+        return bytes;
+    }
+
+    // Caudal desde el último informe; se llama con el monitor tomado
+    private BandwidthInterval takeInterval(long now, long[] current) {
+        long[] delta = new long[reportedBytes.length];
+        for (int i = 0; i < delta.length; i++) {
+            delta[i] = current[i] - reportedBytes[i];
+            reportedBytes[i] = current[i];
+        }
+        BandwidthInterval interval = new BandwidthInterval(intervals.size() + 1, now - lastReportNanos, delta);
+        intervals.add(interval);
+        lastReportNanos = now;
+        return interval;
+    }
+
+    private void finish(boolean cancel) {
+        BandwidthInterval last = null;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            long now = System.nanoTime();
+            long[] current = readCounters();
+            if (now - lastReportNanos >= MIN_FINAL_INTERVAL_NANOS) {
+                last = takeInterval(now, current);
+            }
+            stop(now, current);
+            cancelled = cancel;
+        }
+        BandwidthInterval finalInterval = last;
+        if (finalInterval != null) {
+            dispatch(observer -> observer.onBandwidthInterval(this, finalInterval));
+        }
+        Log.d(TAG, String.format(Locale.ROOT, "Test de velocidad %s: %.1f Mbps de media",
+                cancel ? "detenido" : "completado", getAggregateMbps()));
+        if (cancel) {
+            dispatch(observer -> observer.onBandwidthStopped(this));
+        } else {
+            dispatch(observer -> observer.onBandwidthCompleted(this));
+        }
+    }
+
+    private void fail(String message) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            stop(System.nanoTime(), readCounters());
+        }
+        Log.e(TAG, "Error en el test de velocidad: " + message);
+        dispatch(observer -> observer.onBandwidthError(this, message));
+    }
+
+    // Se llama con el monitor tomado
+    private void stop(long now, long[] bytes) {
+        finished = true;
+        finalBytes = bytes;
+        running = false;
+        endNanos = now;
+        if (reporter != null) {
+            reporter.cancel(false);
+        }
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+        // Cerrar los canales desbloquea a los flujos que estén leyendo o escribiendo
+        for (SocketChannel channel : channels) {
+            closeQuietly(channel);
+        }
+    }
+
+    private void dispatch(Consumer<BandwidthObserver> event) {
+        try {
+            callbackExecutor.execute(() -> {
+                for (BandwidthObserver observer : observers) {
+                    event.accept(observer);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "No se pudo notificar a los observadores: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error cerrando un flujo: " + e.getMessage());
+            }
+        }
+    }
+
+    public BandwidthRequest getRequest() {
+        return request;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Intervalos informados hasta ahora, en orden
+     */
+    public synchronized List<BandwidthInterval> getIntervals() {
+        return new ArrayList<>(intervals);
+    }
+
+    /**
+     * Flujos que terminaron con error antes de tiempo
+     */
+    public synchronized int getFailedStreams() {
+        return failedStreams;
+    }
+
+    public long getTotalBytes() {
+        long total = 0;
+        for (int i = 0; i < streamBytes.length(); i++) {
+            total += getStreamBytes(i);
+        }
+        return total;
+    }
+
+    public long getStreamBytes(int stream) {
+        synchronized (this) {
+            if (finalBytes != null) {
+                return finalBytes[stream];
+            }
+        }
+        return streamBytes.get(stream);
+    }
+
+    /**
+     * Tiempo transcurrido desde el inicio, o duración total si ya terminó
+     */
+    public synchronized long getElapsedNanos() {
+        return (finished ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Caudal medio de todos los flujos juntos, en megabits por segundo
+     */
+    public double getAggregateMbps() {
+        return BandwidthInterval.toMbps(getTotalBytes(), getElapsedNanos());
+    }
+
+    /**
+     * Caudal medio de un flujo, en megabits por segundo
+     */
+    public double getStreamMbps(int stream) {
+        return BandwidthInterval.toMbps(getStreamBytes(stream), getElapsedNanos());
+    }
+}
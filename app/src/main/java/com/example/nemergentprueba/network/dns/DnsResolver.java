@@ -0,0 +1,318 @@
+package com.example.nemergentprueba.network.dns;
+
+import android.util.Log;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Resolución de nombres compartida por todas las sesiones de ping, separada de la medida
+ * de RTT. Cada consulta real al resolvedor del sistema se cronometra por su cuenta y el
+ * resultado se guarda en caché hasta que caduca; los fallos también se guardan, con una
+ * vida más corta, para no repetir consultas que van a fallar en cada intento.
+ *
+ * <p>Las direcciones literales (IPv4 o IPv6) no pasan por DNS ni por la caché: se analizan
+ * aquí mismo, sin llamar al sistema. Un nombre con forma de dirección pero no válido
+ * (p. ej. "999.1.1.1") falla al instante en lugar de acabar en una consulta DNS.</p>
+ */
+public final class DnsResolver {
+    private static final String TAG = "DnsResolver";
+
+    /** Vida de una resolución correcta en caché */
+    public static final long DEFAULT_TTL_MS = 30_000;
+    /** Vida de un fallo de resolución en caché */
+    public static final long DEFAULT_NEGATIVE_TTL_MS = 5_000;
+
+    private static DnsResolver instance;
+
+    /**
+     * Consulta al resolvedor; sustituible en pruebas
+     */
+    interface Lookup {
+        InetAddress[] lookup(String host) throws UnknownHostException;
+    }
+
+    private final Lookup lookup;
+    private final LongSupplier clock;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Resolución de un nombre
+     */
+    public static final class Resolution {
+        private final InetAddress[] addresses;
+        private final long lookupNanos;
+
+        Resolution(InetAddress[] addresses, long lookupNanos) {
+            this.addresses = addresses;
+            this.lookupNanos = lookupNanos;
+        }
+
+        /**
+         * Primera dirección devuelta por el resolvedor
+         */
+        public InetAddress getAddress() {
+            return addresses[0];
+        }
+
+        public InetAddress[] getAddresses() {
+            return addresses.clone();
+        }
+
+        /**
+         * Duración de la consulta DNS en nanosegundos, -1 si salió de la caché o el nombre
+         * era una dirección literal
+         */
+        public long getLookupNanos() {
+            return lookupNanos;
+        }
+
+        public boolean isLookup() {
+            return lookupNanos >= 0;
+        }
+    }
+
+    private static final class Entry {
+        final InetAddress[] addresses;
+        final String failure;
+        final long expiresAtNanos;
+
+        Entry(InetAddress[] addresses, String failure, long expiresAtNanos) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    public static synchronized DnsResolver getInstance() {
+        if (instance == null) {
+            instance = new DnsResolver(InetAddress::getAllByName, System::nanoTime,
+                    DEFAULT_TTL_MS, DEFAULT_NEGATIVE_TTL_MS);
+        }
+        return instance;
+    }
+
+    DnsResolver(Lookup lookup, LongSupplier clock, long ttlMs, long negativeTtlMs) {
+        this.lookup = lookup;
+        this.clock = clock;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+    }
+
+    /**
+     * Resolución sin bloquear: la de la caché o la de una dirección literal.
+     *
+     * @return null si hace falta consultar al DNS
+     * @throws UnknownHostException si el nombre falló hace poco y el fallo sigue en caché,
+     *         o si tiene forma de dirección literal pero no es válida
+     */
+    public Resolution peek(String host) throws UnknownHostException {
+        InetAddress literal = parseLiteral(host);
+        if (literal != null) {
+            return new Resolution(new InetAddress[]{literal}, -1);
+        }
+        Entry entry = cache.get(key(host));
+        if (entry == null || clock.getAsLong() - entry.expiresAtNanos >= 0) {
+            return null;
+        }
+        if (entry.failure != null) {
+            throw new UnknownHostException(entry.failure);
+        }
+        return new Resolution(entry.addresses, -1);
+    }
+
+    /**
+     * Resolución desde la caché si sigue vigente o con una consulta cronometrada si no.
+     * Puede bloquear.
+     */
+    public Resolution resolve(String host) throws UnknownHostException {
+        Resolution cached = peek(host);
+        return cached != null ? cached : lookup(host);
+    }
+
+    /**
+     * Consulta al DNS aunque haya una entrada vigente, y renueva la caché. Puede bloquear.
+     */
+    public Resolution lookup(String host) throws UnknownHostException {
+        InetAddress literal = parseLiteral(host);
+        if (literal != null) {
+            return new Resolution(new InetAddress[]{literal}, -1);
+        }
+        long start = clock.getAsLong();
+        try {
+            InetAddress[] addresses = lookup.lookup(host);
+            long end = clock.getAsLong();
+            cache.put(key(host), new Entry(addresses, null, end + ttlNanos));
+            return new Resolution(addresses, end - start);
+        } catch (UnknownHostException e) {
+            String reason = e.getMessage() != null ? e.getMessage() : host;
+            Log.w(TAG, "No se pudo resolver " + host + ": " + reason);
+            cache.put(key(host), new Entry(null, reason, clock.getAsLong() + negativeTtlNanos));
+            throw e;
+        }
+    }
+
+    /**
+     * Olvida todas las resoluciones guardadas (p. ej. tras un cambio de red)
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private static String key(String host) {
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Dirección de un nombre que es una IP literal, sin consultar al sistema: IPv4 en cuatro
+     * octetos decimales o IPv6 (con "::", IPv4 final y zona opcionales, entre corchetes o no)
+     *
+     * @return null si el nombre no tiene forma de dirección literal
+     * @throws UnknownHostException si la tiene pero no es válida
+     */
+    static InetAddress parseLiteral(String host) throws UnknownHostException {
+        byte[] address;
+        if (host.indexOf(':') >= 0) {
+            // Ningún nombre de host lleva ':'
+            int from = 0;
+            int to = host.length();
+            if (host.startsWith("[") && host.endsWith("]")) {
+                from++;
+                to--;
+            }
+            int zone = host.indexOf('%', from);
+            address = parseIpv6(host, from, zone >= 0 && zone < to ? zone : to);
+            if (address != null && zone >= 0 && zone < to) {
+                // Zona de enlace (fe80::1%wlan0): la dirección ya es válida y el sistema no consulta al DNS
+                return InetAddress.getByName(host.substring(from, to));
+            }
+        } else if (isDigitsAndDots(host)) {
+            address = new byte[4];
+            if (!parseIpv4(host, 0, host.length(), address, 0)) {
+                address = null;
+            }
+        } else {
+            return null;
+        }
+        if (address == null) {
+            throw new UnknownHostException("Dirección literal no válida: " + host);
+        }
+        return InetAddress.getByAddress(host, address);
+    }
+
+    private static boolean isDigitsAndDots(String host) {
+        if (host.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cuatro octetos decimales de 0 a 255, sin ceros a la izquierda
+    private static boolean parseIpv4(String text, int from, int to, byte[] out, int offset) {
+        int octets = 0;
+        int i = from;
+        while (octets < 4) {
+            int start = i;
+            int value = 0;
+            while (i < to && i - start < 3 && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                value = value * 10 + (text.charAt(i) - '0');
+                i++;
+            }
+            int digits = i - start;
+            if (digits == 0 || value > 255 || (digits > 1 && text.charAt(start) == '0')) {
+                return false;
+            }
+            out[offset + octets++] = (byte) value;
+            if (octets < 4) {
+                if (i >= to || text.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return i == to;
+    }
+
+    // Ocho grupos hexadecimales; "::" sustituye a uno o más grupos a cero
+    private static byte[] parseIpv6(String text, int from, int to) {
+        byte[] out = new byte[16];
+        int groups = 0;
+        int compressAt = -1;
+        int i = from;
+        if (text.startsWith("::", i)) {
+            compressAt = 0;
+            i += 2;
+        } else if (i < to && text.charAt(i) == ':') {
+            return null;
+        }
+        while (i < to) {
+            int end = i;
+            while (end < to && text.charAt(end) != ':') {
+                end++;
+            }
+            if (end == to && text.indexOf('.', i) >= 0 && text.indexOf('.', i) < to) {
+                // IPv4 en los dos últimos grupos
+                if (groups > 6 || !parseIpv4(text, i, to, out, groups * 2)) {
+                    return null;
+                }
+                groups += 2;
+                break;
+            }
+            int digits = end - i;
+            if (digits == 0 || digits > 4 || groups == 8) {
+                return null;
+            }
+            int value = 0;
+            for (int j = i; j < end; j++) {
+                int digit = Character.digit(text.charAt(j), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+            }
+            out[groups * 2] = (byte) (value >>> 8);
+            out[groups * 2 + 1] = (byte) value;
+            groups++;
+            if (end == to) {
+                break;
+            }
+            if (text.startsWith("::", end)) {
+                if (compressAt >= 0) {
+                    return null;
+                }
+                compressAt = groups;
+                i = end + 2;
+            } else if (end + 1 < to) {
+                i = end + 1;
+            } else {
+                // ':' final suelto
+                return null;
+            }
+        }
+        if (compressAt < 0) {
+            return groups == 8 ? out : null;
+        }
+        if (groups == 8) {
+            return null;
+        }
+        // Llevar los grupos posteriores al "::" al final
+        int tail = (groups - compressAt) * 2;
+        System.arraycopy(out, compressAt * 2, out, 16 - tail, tail);
+        Arrays.fill(out, compressAt * 2, 16 - tail, (byte) 0);
+        return out;
+    }
+}
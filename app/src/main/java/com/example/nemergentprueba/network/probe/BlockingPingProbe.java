@@ -0,0 +1,46 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Base para métodos de sondeo bloqueantes: cada intento ocupa un hilo del ejecutor
+ * de sondeos mientras espera la respuesta.
+ */
+public abstract class BlockingPingProbe implements PingProbe {
+    private final Executor executor;
+    private volatile boolean closed;
+
+    protected BlockingPingProbe(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public final void probe(PingTarget target, int timeoutMs, Callback callback) {
+        try {
+            executor.execute(() -> {
+                PingResult result = closed ? PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado") : probeBlocking(target, timeoutMs);
+                callback.onProbeComplete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, e.getMessage()));
+        }
+    }
+
+    /**
+     * Ejecuta un intento en el hilo actual
+     */
+    protected abstract PingResult probeBlocking(PingTarget target, int timeoutMs);
+
+    protected boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
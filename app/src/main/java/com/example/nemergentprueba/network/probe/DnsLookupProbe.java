@@ -0,0 +1,104 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sondeo que solo resuelve el nombre del destino: cada intento es una consulta DNS real,
+ * sin pasar por la caché, y su duración es la latencia medida. Sirve para comparar
+ * resolvedores o detectar un DNS lento sin mezclarlo con el RTT.
+ *
+ * <p>La consulta del sistema no se puede interrumpir ni limitar en tiempo, así que se hace
+ * en un hilo aparte y el intento deja de esperarla al vencer su timeout: el resultado (y el
+ * permiso del límite de sondeos) llega a su hora aunque la consulta siga en curso.</p>
+ */
+public class DnsLookupProbe extends BlockingPingProbe {
+
+    // Compartido por todos los sondeos; los hilos sobrantes mueren solos al quedar libres
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newCachedThreadPool(namedThreads("dns-lookup"));
+
+    /**
+     * Consulta bloqueante; permite sustituir el resolvedor en las pruebas
+     */
+    interface Lookup {
+        DnsResolver.Resolution lookup(String host) throws UnknownHostException;
+    }
+
+    private final Lookup lookup;
+    private final ExecutorService lookupExecutor;
+
+    public DnsLookupProbe(Executor executor) {
+        this(executor, host -> DnsResolver.getInstance().lookup(host), LOOKUP_EXECUTOR);
+    }
+
+    DnsLookupProbe(Executor executor, Lookup lookup, ExecutorService lookupExecutor) {
+        super(executor);
+        this.lookup = lookup;
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    @Override
+    protected PingResult probeBlocking(PingTarget target, int timeoutMs) {
+        long start = System.nanoTime();
+        Future<DnsResolver.Resolution> pending;
+        try {
+            pending = lookupExecutor.submit(() -> lookup.lookup(target.getHost()));
+        } catch (RejectedExecutionException e) {
+            return PingResult.failure(PingResult.STATUS_ERROR, e.getMessage());
+        }
+
+        DnsResolver.Resolution resolution;
+        try {
+            resolution = pending.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // La consulta termina por su cuenta en su hilo; el intento ya no la espera
+            pending.cancel(true);
+            PingResult result = PingResult.timeout();
+            result.setDnsNanos(System.nanoTime() - start);
+            return result;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnknownHostException) {
+                return PingResult.dnsFailure(cause.getMessage());
+            }
+            return PingResult.failure(PingResult.STATUS_ERROR, String.valueOf(cause));
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+            return PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado");
+        }
+
+        // Una dirección literal no necesita consulta: cuenta como resolución inmediata
+        long lookupNanos = Math.max(0, resolution.getLookupNanos());
+        if (lookupNanos > timeoutMs * 1_000_000L) {
+            PingResult result = PingResult.timeout();
+            result.setDnsNanos(lookupNanos);
+            return result;
+        }
+        PingResult result = PingResult.success(lookupNanos, resolution.getAddress());
+        result.setDnsNanos(lookupNanos);
+        return result;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
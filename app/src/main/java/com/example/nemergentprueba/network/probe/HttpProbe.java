@@ -0,0 +1,407 @@
+package com.example.nemergentprueba.network.probe;
+
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Sondeo a nivel de aplicación: una petición HTTP HEAD o GET ligera por intento sobre
+ * conexiones keep-alive que se reutilizan entre intentos del mismo destino.
+ *
+ * <p>Cada resultado separa las fases con {@link PingResult#setHttpTimings}: handshake TCP y
+ * TLS (solo cuando se abre una conexión nueva), tiempo hasta el primer byte de la respuesta
+ * y tiempo total, que es el RTT del intento. Cualquier respuesta HTTP cuenta como éxito; el
+ * código de estado queda en el resultado.</p>
+ */
+public class HttpProbe extends BlockingPingProbe {
+    private static final String TAG = "HttpProbe";
+
+    public static final String METHOD_HEAD = "HEAD";
+    public static final String METHOD_GET = "GET";
+    public static final int DEFAULT_HTTP_PORT = 80;
+    public static final int DEFAULT_HTTPS_PORT = 443;
+
+    // Conexiones ociosas que se guardan por destino (los intentos pueden solaparse)
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final int MAX_HEADER_LINE_BYTES = 8 * 1024;
+    private static final int SKIP_BUFFER_BYTES = 8 * 1024;
+
+    private final String method;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+
+    /**
+     * Conexión keep-alive con el servidor
+     */
+    private static final class Connection {
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error cerrando una conexión HTTP: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Respuesta ya leída por completo
+     */
+    private static final class Response {
+        int status;
+        long ttfbNanos;
+        boolean keepAlive;
+    }
+
+    /**
+     * @param method METHOD_HEAD o METHOD_GET
+     */
+    public HttpProbe(Executor executor, String method) {
+        super(executor);
+        this.method = method;
+    }
+
+    @Override
+    protected PingResult probeBlocking(PingTarget target, int timeoutMs) {
+        DnsResolver.Resolution resolution;
+        try {
+            resolution = DnsResolver.getInstance().resolve(target.getHost());
+        } catch (UnknownHostException e) {
+            return PingResult.dnsFailure(e.getMessage());
+        }
+        InetAddress address = resolution.getAddress();
+        boolean tls = target.isTls();
+        int port = target.hasPort() ? target.getPort() : (tls ? DEFAULT_HTTPS_PORT : DEFAULT_HTTP_PORT);
+        String path = target.getPath() != null ? target.getPath() : "/";
+
+        PingResult result = exchange(target, address, port, path, tls, timeoutMs);
+        result.setDnsNanos(resolution.getLookupNanos());
+        return result;
+    }
+
+    private PingResult exchange(PingTarget target, InetAddress address, int port, String path,
+                                boolean tls, int timeoutMs) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Connection connection = takeIdle();
+        // Una conexión reutilizada puede haberla cerrado el servidor; entonces se abre otra
+        while (true) {
+            boolean reused = connection != null;
+            long connectNanos = -1;
+            long tlsNanos = -1;
+            try {
+                if (!reused) {
+                    long connectStart = System.nanoTime();
+                    Socket socket = new Socket();
+                    try {
+                        socket.connect(new InetSocketAddress(address, port), remainingMs(deadline));
+                        connectNanos = System.nanoTime() - connectStart;
+                        if (tls) {
+                            long tlsStart = System.nanoTime();
+                            socket.setSoTimeout(remainingMs(deadline));
+                            socket = startTls(socket, target.getHost(), port);
+                            tlsNanos = System.nanoTime() - tlsStart;
+                        }
+                    } catch (IOException e) {
+                        socket.close();
+                        throw e;
+                    }
+                    connection = new Connection(socket);
+                }
+
+                connection.socket.setSoTimeout(remainingMs(deadline));
+                Response response = send(connection, target, path, reused);
+                long totalNanos = System.nanoTime() - start;
+                if (response.keepAlive) {
+                    release(connection);
+                } else {
+                    connection.close();
+                }
+                PingResult result = PingResult.success(totalNanos, address);
+                result.setHttpTimings(connectNanos, tlsNanos, response.ttfbNanos, response.status);
+                return result;
+            } catch (StaleConnectionException e) {
+                connection.close();
+                connection = null;
+            } catch (SocketTimeoutException e) {
+                closeQuietly(connection);
+                return PingResult.timeout();
+            } catch (ConnectException | NoRouteToHostException e) {
+                closeQuietly(connection);
+                return PingResult.failure(PingResult.STATUS_UNREACHABLE, e.getMessage());
+            } catch (IOException e) {
+                closeQuietly(connection);
+                return PingResult.failure(PingResult.STATUS_ERROR, e.getMessage());
+            }
+        }
+    }
+
+    private static Socket startTls(Socket socket, String host, int port) throws IOException {
+        SSLSocket ssl = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                .createSocket(socket, host, port, true);
+        ssl.startHandshake();
+        // createSocket no comprueba que el certificado corresponda al host
+        HostnameVerifier verifier = HttpsURLConnection.getDefaultHostnameVerifier();
+        if (!verifier.verify(host, ssl.getSession())) {
+            ssl.close();
+            throw new IOException("El certificado no corresponde a " + host);
+        }
+        return ssl;
+    }
+
+    /**
+     * Envía la petición y consume la respuesta entera para dejar la conexión lista
+     */
+    private Response send(Connection connection, PingTarget target, String path, boolean reused) throws IOException {
+        String host = target.getHost().indexOf(':') >= 0 ? "[" + target.getHost() + "]" : target.getHost();
+        if (target.hasPort()) {
+            host += ":" + target.getPort();
+        }
+        String request = method + " " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + "\r\n"
+                + "User-Agent: NemergentPrueba-ping\r\n"
+                + "Accept: */*\r\n"
+                + "Connection: keep-alive\r\n\r\n";
+        long requestStart = System.nanoTime();
+        try {
+            connection.out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+            connection.out.flush();
+        } catch (IOException e) {
+            if (reused) {
+                throw new StaleConnectionException();
+            }
+            throw e;
+        }
+
+        int first;
+        try {
+            first = connection.in.read();
+        } catch (SocketTimeoutException e) {
+            throw e;
+        } catch (IOException e) {
+            if (reused) {
+                throw new StaleConnectionException();
+            }
+            throw e;
+        }
+        if (first < 0) {
+            if (reused) {
+                throw new StaleConnectionException();
+            }
+            throw new EOFException("El servidor cerró la conexión sin responder");
+        }
+        Response response = new Response();
+        response.ttfbNanos = System.nanoTime() - requestStart;
+
+        String statusLine = (char) first + readLine(connection.in);
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new IOException("Respuesta HTTP no válida: " + statusLine);
+        }
+        try {
+            response.status = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Código de estado no válido: " + statusLine);
+        }
+
+        boolean http10 = parts[0].equals("HTTP/1.0");
+        response.keepAlive = !http10;
+        long contentLength = -1;
+        boolean chunked = false;
+        String line;
+        while (!(line = readLine(connection.in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "content-length":
+                    try {
+                        contentLength = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Content-Length no válido: " + value);
+                    }
+                    break;
+                case "transfer-encoding":
+                    chunked = value.contains("chunked");
+                    break;
+                case "connection":
+                    if (value.contains("close")) {
+                        response.keepAlive = false;
+                    } else if (value.contains("keep-alive")) {
+                        response.keepAlive = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        boolean noBody = method.equals(METHOD_HEAD) || response.status == 204 || response.status == 304
+                || (response.status >= 100 && response.status < 200);
+        if (!noBody) {
+            if (chunked) {
+                skipChunkedBody(connection.in);
+            } else if (contentLength >= 0) {
+                skipFully(connection.in, contentLength);
+            } else {
+                // Sin longitud el cuerpo termina al cerrarse la conexión
+                skipFully(connection.in, Long.MAX_VALUE);
+                response.keepAlive = false;
+            }
+        }
+        return response;
+    }
+
+    // Línea de cabecera en ISO-8859-1, sin el CRLF final
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            if (line.length() >= MAX_HEADER_LINE_BYTES) {
+                throw new IOException("Cabecera HTTP demasiado larga");
+            }
+            line.append((char) c);
+        }
+        throw new EOFException("Respuesta HTTP incompleta");
+    }
+
+    private static void skipChunkedBody(InputStream in) throws IOException {
+        while (true) {
+            String sizeLine = readLine(in);
+            int extension = sizeLine.indexOf(';');
+            String sizeText = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+            long size;
+            try {
+                size = Long.parseLong(sizeText, 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Tamaño de bloque no válido: " + sizeLine);
+            }
+            if (size == 0) {
+                // Cabeceras finales opcionales hasta la línea vacía
+                while (!readLine(in).isEmpty()) {
+                    // Se descartan
+                }
+                return;
+            }
+            skipFully(in, size);
+            readLine(in);
+        }
+    }
+
+    // Descarta exactamente count bytes; con Long.MAX_VALUE, hasta el final del flujo
+    private static void skipFully(InputStream in, long count) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_BYTES, Math.max(1, count))];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                if (count == Long.MAX_VALUE) {
+                    return;
+                }
+                throw new EOFException("Cuerpo HTTP incompleto");
+            }
+            remaining -= read;
+        }
+    }
+
+    private static int remainingMs(long deadlineNanos) throws SocketTimeoutException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Tiempo de espera agotado");
+        }
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    private Connection takeIdle() {
+        synchronized (idle) {
+            return idle.pollFirst();
+        }
+    }
+
+    /**
+     * Guarda una conexión para reutilizarla, o la cierra si el sondeo ya está cerrado o no
+     * caben más. La comprobación va bajo el mismo cerrojo que close(): si close() ya vació
+     * la lista, la conexión no se queda en ella sin cerrar.
+     */
+    private void release(Connection connection) {
+        synchronized (idle) {
+            if (!isClosed() && idle.size() < MAX_IDLE_CONNECTIONS) {
+                idle.addFirst(connection);
+                return;
+            }
+        }
+        connection.close();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        synchronized (idle) {
+            for (Connection connection : idle) {
+                connection.close();
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * Una conexión reutilizada ya no servía; se repite la petición con una nueva
+     */
+    private static final class StaleConnectionException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        StaleConnectionException() {
+            super("Conexión keep-alive cerrada por el servidor");
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.nemergentprueba.network.probe;
+
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructPollfd;
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sondeo ICMP echo por socket datagrama sin privilegios (SOCK_DGRAM + IPPROTO_ICMP), el mismo
+ * mecanismo que usa el comando ping de Android pero sin lanzar un proceso por intento.
+ *
+ * <p>El socket se abre en el primer intento y se mantiene durante toda la sesión: los
+ * envíos llevan un número de secuencia y un único hilo lector empareja cada respuesta con
+ * su envío pendiente, midiendo el RTT con System.nanoTime(). Los timeouts los vence el
+ * propio lector en cada vuelta de poll.</p>
+ *
+ * <p>Si el sistema no permite abrir el socket (ping_group_range restringido, sin soporte
+ * del kernel), el sondeo pasa a {@link ReachabilityProbe}, que a su vez solo recurre al
+ * comando ping como último recurso.</p>
+ */
+public class IcmpDatagramProbe implements PingProbe {
+    private static final String TAG = "IcmpDatagramProbe";
+
+    private static final int ECHO_REQUEST_V4 = 8;
+    private static final int ECHO_REPLY_V4 = 0;
+    private static final int ECHO_REQUEST_V6 = 128;
+    private static final int ECHO_REPLY_V6 = 129;
+
+    // Cabecera ICMP (tipo, código, checksum, identificador, secuencia) + carga
+    private static final int HEADER_BYTES = 8;
+    private static final int PAYLOAD_BYTES = 16;
+    private static final int PACKET_BYTES = HEADER_BYTES + PAYLOAD_BYTES;
+    private static final int RECEIVE_BUFFER_BYTES = 512;
+    // Cada cuánto despierta el lector para vencer timeouts y comprobar el cierre
+    private static final int POLL_INTERVAL_MS = 20;
+
+    private final Executor executor;
+    private final Object lock = new Object();
+    private final Map<Integer, PendingEcho> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSequence = new AtomicInteger();
+    private final byte[] sendBuffer = new byte[PACKET_BYTES];
+
+    // Protegidos por lock
+    private FileDescriptor socket;
+    private InetAddress address;
+    private PingProbe fallback;
+    private volatile boolean closed;
+
+    /**
+     * Envío a la espera de respuesta
+     */
+    private static final class PendingEcho {
+        final Callback callback;
+        final long timeoutNanos;
+        final long dnsNanos;
+        volatile long sentNanos;
+
+        PendingEcho(Callback callback, long timeoutNanos, long dnsNanos) {
+            this.callback = callback;
+            this.timeoutNanos = timeoutNanos;
+            this.dnsNanos = dnsNanos;
+        }
+
+        void complete(PingResult result) {
+            result.setDnsNanos(dnsNanos);
+            callback.onProbeComplete(result);
+        }
+    }
+
+    public IcmpDatagramProbe(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void probe(PingTarget target, int timeoutMs, Callback callback) {
+        try {
+            // El primer intento resuelve el destino y abre el socket, así que no se hace en
+            // el hilo que llama (el planificador de la sesión)
+            executor.execute(() -> sendEcho(target, timeoutMs, callback));
+        } catch (RejectedExecutionException e) {
+            callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, e.getMessage()));
+        }
+    }
+
+    private void sendEcho(PingTarget target, int timeoutMs, Callback callback) {
+        PingProbe delegate;
+        FileDescriptor fd;
+        InetAddress destination;
+        long dnsNanos = -1;
+        boolean needsOpen;
+        synchronized (lock) {
+            needsOpen = !closed && socket == null && fallback == null;
+        }
+        if (needsOpen) {
+            // La consulta DNS puede tardar segundos: se hace sin lock para que close(),
+            // llamado desde el hilo principal, nunca tenga que esperarla
+            DnsResolver.Resolution resolution;
+            try {
+                resolution = DnsResolver.getInstance().resolve(target.getHost());
+            } catch (UnknownHostException e) {
+                // Sin dirección no hay socket que abrir; se reintenta en el siguiente intento
+                callback.onProbeComplete(PingResult.dnsFailure(e.getMessage()));
+                return;
+            }
+            dnsNanos = resolution.getLookupNanos();
+            open(resolution.getAddress());
+        }
+        synchronized (lock) {
+            delegate = closed ? null : fallback;
+            fd = closed ? null : socket;
+            destination = address;
+        }
+        if (delegate != null) {
+            delegate.probe(target, timeoutMs, callback);
+            return;
+        }
+        if (fd == null) {
+            callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado"));
+            return;
+        }
+
+        int sequence = nextSequence.getAndIncrement() & 0xFFFF;
+        PendingEcho echo = new PendingEcho(callback, timeoutMs * 1_000_000L, dnsNanos);
+        pending.put(sequence, echo);
+        try {
+            synchronized (lock) {
+                if (socket == null) {
+                    // El lector ya terminó: nadie más fallará este envío
+                    if (pending.remove(sequence, echo)) {
+                        echo.complete(PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado"));
+                    }
+                    return;
+                }
+                writeEchoRequest(destination instanceof Inet6Address, sequence);
+                echo.sentNanos = System.nanoTime();
+                Os.sendto(fd, sendBuffer, 0, PACKET_BYTES, 0, destination, 0);
+            }
+        } catch (ErrnoException | IOException e) {
+            if (pending.remove(sequence, echo)) {
+                boolean unreachable = e instanceof ErrnoException
+                        && (((ErrnoException) e).errno == OsConstants.ENETUNREACH
+                        || ((ErrnoException) e).errno == OsConstants.EHOSTUNREACH);
+                echo.complete(PingResult.failure(
+                        unreachable ? PingResult.STATUS_UNREACHABLE : PingResult.STATUS_ERROR, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Abre el socket de la sesión hacia una dirección ya resuelta, o deja preparado el sondeo
+     * alternativo si no es posible. No hace nada si entretanto se cerró el sondeo u otro
+     * intento ya lo abrió. Solo hace llamadas que no bloquean, así que puede tomar lock.
+     */
+    private void open(InetAddress resolved) {
+        boolean ipv6 = resolved instanceof Inet6Address;
+        synchronized (lock) {
+            if (closed || socket != null || fallback != null) {
+                return;
+            }
+            FileDescriptor fd;
+            try {
+                fd = ipv6
+                        ? Os.socket(OsConstants.AF_INET6, OsConstants.SOCK_DGRAM, OsConstants.IPPROTO_ICMPV6)
+                        : Os.socket(OsConstants.AF_INET, OsConstants.SOCK_DGRAM, OsConstants.IPPROTO_ICMP);
+            } catch (ErrnoException e) {
+                Log.w(TAG, "No se pudo abrir el socket ICMP, usando isReachable: " + e.getMessage());
+                fallback = new ReachabilityProbe(executor);
+                return;
+            }
+            try {
+                executor.execute(() -> readLoop(fd, resolved, ipv6));
+            } catch (RejectedExecutionException e) {
+                // Sin hilo lector nadie cerraría el descriptor
+                try {
+                    Os.close(fd);
+                } catch (ErrnoException closeError) {
+                    Log.w(TAG, "Error cerrando el socket ICMP: " + closeError.getMessage());
+                }
+                Log.w(TAG, "No se pudo arrancar el lector ICMP, usando isReachable: " + e.getMessage());
+                fallback = new ReachabilityProbe(executor);
+                return;
+            }
+            socket = fd;
+            address = resolved;
+        }
+        Log.d(TAG, "Socket ICMP abierto para " + resolved.getHostAddress());
+    }
+
+    // Echo request con la secuencia en la cabecera y el instante de envío en la carga.
+    // El kernel sustituye el identificador por el del socket.
+    private void writeEchoRequest(boolean ipv6, int sequence) {
+        byte[] packet = sendBuffer;
+        packet[0] = (byte) (ipv6 ? ECHO_REQUEST_V6 : ECHO_REQUEST_V4);
+        packet[1] = 0;
+        packet[2] = 0;
+        packet[3] = 0;
+        packet[4] = 0;
+        packet[5] = 0;
+        packet[6] = (byte) (sequence >>> 8);
+        packet[7] = (byte) sequence;
+        long stamp = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            packet[HEADER_BYTES + i] = (byte) (stamp >>> (56 - 8 * i));
+        }
+        for (int i = HEADER_BYTES + 8; i < PACKET_BYTES; i++) {
+            packet[i] = (byte) i;
+        }
+        if (!ipv6) {
+            // En ICMPv6 el checksum incluye la pseudo-cabecera y lo calcula siempre el kernel
+            int checksum = checksum(packet, PACKET_BYTES);
+            packet[2] = (byte) (checksum >>> 8);
+            packet[3] = (byte) checksum;
+        }
+    }
+
+    private static int checksum(byte[] data, int length) {
+        int sum = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            sum += ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+        }
+        if ((length & 1) != 0) {
+            sum += (data[length - 1] & 0xFF) << 8;
+        }
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xFFFF) + (sum >>> 16);
+        }
+        return ~sum & 0xFFFF;
+    }
+
+    /**
+     * Bucle del hilo lector: empareja respuestas por secuencia y vence los timeouts hasta
+     * que se cierra el sondeo. Es el único que cierra el descriptor.
+     */
+    private void readLoop(FileDescriptor fd, InetAddress destination, boolean ipv6) {
+        byte[] buffer = new byte[RECEIVE_BUFFER_BYTES];
+        StructPollfd pollFd = new StructPollfd();
+        pollFd.fd = fd;
+        pollFd.events = (short) OsConstants.POLLIN;
+        StructPollfd[] pollFds = {pollFd};
+        int expectedType = ipv6 ? ECHO_REPLY_V6 : ECHO_REPLY_V4;
+
+        try {
+            while (!closed) {
+                pollFd.revents = 0;
+                int ready = Os.poll(pollFds, POLL_INTERVAL_MS);
+                long now = System.nanoTime();
+                if (ready > 0 && (pollFd.revents & OsConstants.POLLIN) != 0) {
+                    int length = Os.read(fd, buffer, 0, buffer.length);
+                    if (length >= HEADER_BYTES && (buffer[0] & 0xFF) == expectedType) {
+                        int sequence = ((buffer[6] & 0xFF) << 8) | (buffer[7] & 0xFF);
+                        PendingEcho echo = pending.remove(sequence);
+                        if (echo != null) {
+                            echo.complete(PingResult.success(now - echo.sentNanos, destination));
+                        }
+                    }
+                }
+                expireTimedOut(now);
+            }
+        } catch (ErrnoException | IOException e) {
+            if (!closed) {
+                Log.e(TAG, "Error leyendo del socket ICMP: " + e.getMessage());
+            }
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                socket = null;
+            }
+            try {
+                Os.close(fd);
+            } catch (ErrnoException e) {
+                Log.w(TAG, "Error cerrando el socket ICMP: " + e.getMessage());
+            }
+            failPending("Sondeo cancelado");
+        }
+    }
+
+    private void expireTimedOut(long now) {
+        Iterator<Map.Entry<Integer, PendingEcho>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, PendingEcho> entry = iterator.next();
+            PendingEcho echo = entry.getValue();
+            long sent = echo.sentNanos;
+            if (sent != 0 && now - sent >= echo.timeoutNanos && pending.remove(entry.getKey(), echo)) {
+                echo.complete(PingResult.timeout());
+            }
+        }
+    }
+
+    private void failPending(String reason) {
+        for (Integer sequence : pending.keySet()) {
+            PendingEcho echo = pending.remove(sequence);
+            if (echo != null) {
+                echo.complete(PingResult.failure(PingResult.STATUS_ERROR, reason));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        PingProbe delegate;
+        synchronized (lock) {
+            closed = true;
+            delegate = fallback;
+        }
+        // El lector termina en su siguiente vuelta de poll, cierra el socket y falla lo pendiente
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+
+/**
+ * Método de sondeo de un destino. Cada llamada a probe() entrega exactamente un resultado
+ * al callback, en cualquier hilo, como mucho tras el timeout (más el margen que necesite
+ * el propio método).
+ */
+public interface PingProbe {
+
+    interface Callback {
+        void onProbeComplete(PingResult result);
+    }
+
+    void probe(PingTarget target, int timeoutMs, Callback callback);
+
+    /**
+     * Libera los recursos del sondeo; los resultados posteriores se descartan
+     */
+    void close();
+}
@@ -0,0 +1,21 @@
+package com.example.nemergentprueba.network.probe;
+
+/**
+ * Métodos de sondeo disponibles para una sesión de ping
+ */
+public enum ProbeType {
+    /** ICMP echo por socket datagrama sin privilegios, con isReachable como alternativa */
+    ICMP,
+    /** InetAddress.isReachable, con el comando ping del sistema como alternativa */
+    REACHABILITY,
+    /** Solo el comando ping del sistema */
+    SYSTEM_PING,
+    /** Conexión TCP al puerto del destino (80 si no se indica) */
+    TCP_CONNECT,
+    /** Solo la resolución DNS del nombre, sin caché; mide el resolvedor */
+    RESOLVE_ONLY,
+    /** Petición HTTP HEAD sobre conexión keep-alive (es el sondeo de los destinos http:// y https://) */
+    HTTP_HEAD,
+    /** Petición HTTP GET sobre conexión keep-alive, descartando el cuerpo */
+    HTTP_GET
+}
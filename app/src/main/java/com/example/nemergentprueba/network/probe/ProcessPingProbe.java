@@ -0,0 +1,105 @@
+package com.example.nemergentprueba.network.probe;
+
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sondeo con el comando ping del sistema ("ping -c 1")
+ */
+public class ProcessPingProbe extends BlockingPingProbe {
+    private static final String TAG = "ProcessPingProbe";
+    // Margen sobre el timeout para que el proceso arranque y termine
+    private static final long PROCESS_GRACE_MS = 1000;
+
+    public ProcessPingProbe(Executor executor) {
+        super(executor);
+    }
+
+    @Override
+    protected PingResult probeBlocking(PingTarget target, int timeoutMs) {
+        // Se pasa la dirección ya resuelta para que el comando no mida también el DNS
+        DnsResolver.Resolution resolution;
+        try {
+            resolution = DnsResolver.getInstance().resolve(target.getHost());
+        } catch (UnknownHostException e) {
+            return PingResult.dnsFailure(e.getMessage());
+        }
+        PingResult result = execute(resolution.getAddress().getHostAddress(), timeoutMs);
+        result.setDnsNanos(resolution.getLookupNanos());
+        return result;
+    }
+
+    /**
+     * Ejecuta un único ping de sistema en el hilo actual. De la salida del comando solo se
+     * extrae el tiempo; no se conserva el texto.
+     */
+    static PingResult execute(String host, int timeoutMs) {
+        Process process = null;
+        boolean replied = false;
+        long rttNanos = -1;
+        // ping -W espera segundos enteros
+        long timeoutSeconds = Math.max(1, (timeoutMs + 999) / 1000);
+        long start = System.nanoTime();
+
+        try {
+            String pingCmd = "ping -c 1 -W " + timeoutSeconds + " " + host;
+            Log.d(TAG, "Ejecutando comando shell: " + pingCmd);
+
+            process = Runtime.getRuntime().exec(pingCmd);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // Extraer tiempo de ping si está disponible
+                    int timeIndex = line.indexOf("time=");
+                    if (timeIndex != -1) {
+                        replied = true;
+                        int endIndex = line.indexOf(" ms", timeIndex);
+                        if (endIndex != -1) {
+                            try {
+                                rttNanos = (long) (Double.parseDouble(line.substring(timeIndex + 5, endIndex)) * 1_000_000);
+                            } catch (NumberFormatException e) {
+                                Log.e(TAG, "Error al parsear el tiempo de ping: " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+            }
+
+            boolean finished = process.waitFor(timeoutMs + PROCESS_GRACE_MS, TimeUnit.MILLISECONDS);
+            if (!finished) {
+                Log.w(TAG, "El proceso ping no terminó a tiempo y fue cancelado");
+                return PingResult.timeout();
+            }
+            replied = replied || process.exitValue() == 0;
+            if (!replied) {
+                // ping devuelve 1 si no hubo respuesta y 2 ante otros errores
+                return process.exitValue() == 1
+                        ? PingResult.timeout()
+                        : PingResult.failure(PingResult.STATUS_ERROR, "código de salida " + process.exitValue());
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error de E/S durante el ping con Runtime.exec(): " + e.getMessage(), e);
+            return PingResult.failure(PingResult.STATUS_ERROR, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PingResult.failure(PingResult.STATUS_ERROR, "Proceso interrumpido");
+        } finally {
+            if (process != null) {
+                process.destroy();
+            }
+        }
+
+        // Sin tiempo en la salida se usa lo que tardó el proceso
+        return PingResult.success(rttNanos >= 0 ? rttNanos : System.nanoTime() - start, null);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.nemergentprueba.network.probe;
+
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executor;
+
+/**
+ * Sondeo con InetAddress.isReachable (ICMP si el proceso tiene permisos, si no TCP al puerto 7).
+ * El nombre se resuelve antes de empezar a medir; si hay un error de E/S se recurre al
+ * comando ping del sistema.
+ */
+public class ReachabilityProbe extends BlockingPingProbe {
+    private static final String TAG = "ReachabilityProbe";
+
+    public ReachabilityProbe(Executor executor) {
+        super(executor);
+    }
+
+    @Override
+    protected PingResult probeBlocking(PingTarget target, int timeoutMs) {
+        String host = target.getHost();
+        DnsResolver.Resolution resolution;
+        try {
+            resolution = DnsResolver.getInstance().resolve(host);
+        } catch (UnknownHostException e) {
+            return PingResult.dnsFailure(e.getMessage());
+        }
+        InetAddress address = resolution.getAddress();
+        PingResult result;
+        long start = System.nanoTime();
+        try {
+            result = address.isReachable(timeoutMs)
+                    ? PingResult.success(System.nanoTime() - start, address)
+                    : PingResult.timeout();
+        } catch (IOException e) {
+            Log.w(TAG, "Fallo de isReachable con " + host + ", usando el comando ping: " + e.getMessage());
+            result = isClosed()
+                    ? PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado")
+                    : ProcessPingProbe.execute(address.getHostAddress(), timeoutMs);
+        }
+        result.setDnsNanos(resolution.getLookupNanos());
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sondeo por conexión TCP: mide lo que tarda el handshake (SYN hasta conexión establecida)
+ * con el puerto del destino. No necesita permisos especiales y atraviesa redes que filtran
+ * ICMP.
+ *
+ * <p>Las conexiones son no bloqueantes y las lleva {@link TcpConnectSelector}. El nombre
+ * se resuelve con {@link DnsResolver} antes de medir; solo las consultas que no están en
+ * caché pasan por el ejecutor de sondeos.</p>
+ */
+public class TcpConnectProbe implements PingProbe {
+    public static final int DEFAULT_PORT = 80;
+
+    private final Executor executor;
+    private final TcpConnectSelector selector;
+    private final DnsResolver resolver = DnsResolver.getInstance();
+    private volatile boolean closed;
+
+    public TcpConnectProbe(Executor executor) {
+        this(executor, TcpConnectSelector.getInstance());
+    }
+
+    public TcpConnectProbe(Executor executor, TcpConnectSelector selector) {
+        this.executor = executor;
+        this.selector = selector;
+    }
+
+    @Override
+    public void probe(PingTarget target, int timeoutMs, Callback callback) {
+        if (closed) {
+            callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado"));
+            return;
+        }
+        int port = target.hasPort() ? target.getPort() : DEFAULT_PORT;
+        DnsResolver.Resolution cached;
+        try {
+            cached = resolver.peek(target.getHost());
+        } catch (UnknownHostException e) {
+            callback.onProbeComplete(PingResult.dnsFailure(e.getMessage()));
+            return;
+        }
+        if (cached != null) {
+            selector.connect(this, new InetSocketAddress(cached.getAddress(), port), timeoutMs, callback);
+            return;
+        }
+        try {
+            // La consulta DNS es bloqueante: no se hace en el hilo que llama
+            executor.execute(() -> resolveAndConnect(target.getHost(), port, timeoutMs, callback));
+        } catch (RejectedExecutionException e) {
+            callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, e.getMessage()));
+        }
+    }
+
+    private void resolveAndConnect(String host, int port, int timeoutMs, Callback callback) {
+        DnsResolver.Resolution resolution;
+        try {
+            resolution = resolver.resolve(host);
+        } catch (UnknownHostException e) {
+            callback.onProbeComplete(PingResult.dnsFailure(e.getMessage()));
+            return;
+        }
+        long dnsNanos = resolution.getLookupNanos();
+        selector.connect(this, new InetSocketAddress(resolution.getAddress(), port), timeoutMs, result -> {
+            result.setDnsNanos(dnsNanos);
+            callback.onProbeComplete(result);
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.cancel(this);
+    }
+}
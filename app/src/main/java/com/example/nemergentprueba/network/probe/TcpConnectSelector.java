@@ -0,0 +1,258 @@
+package com.example.nemergentprueba.network.probe;
+
+import android.util.Log;
+
+import com.example.nemergentprueba.network.PingResult;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hilo único con un Selector que lleva todas las conexiones TCP de sondeo en modo no
+ * bloqueante. Cada intento es un SocketChannel registrado con OP_CONNECT: el tiempo medido
+ * va desde connect() (envío del SYN) hasta que finishConnect() confirma la conexión, y
+ * cientos de intentos simultáneos no ocupan más hilos que este.
+ *
+ * <p>Todas las operaciones sobre canales se hacen en el hilo del selector; los demás hilos
+ * solo encolan tareas y lo despiertan.</p>
+ */
+public final class TcpConnectSelector {
+    private static final String TAG = "TcpConnectSelector";
+    // Espera máxima de select() sin intentos pendientes
+    private static final long IDLE_SELECT_MS = 1000;
+
+    private static TcpConnectSelector instance;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean shutdown;
+
+    /**
+     * Intento de conexión en curso; es el adjunto de su SelectionKey
+     */
+    private static final class PendingConnect {
+        final Object owner;
+        final InetSocketAddress address;
+        final PingProbe.Callback callback;
+        final long timeoutNanos;
+        SocketChannel channel;
+        long startNanos;
+
+        PendingConnect(Object owner, InetSocketAddress address, PingProbe.Callback callback, int timeoutMs) {
+            this.owner = owner;
+            this.address = address;
+            this.callback = callback;
+            this.timeoutNanos = timeoutMs * 1_000_000L;
+        }
+    }
+
+    public static synchronized TcpConnectSelector getInstance() {
+        if (instance == null) {
+            try {
+                instance = new TcpConnectSelector();
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo abrir el selector de sondeos TCP", e);
+            }
+        }
+        return instance;
+    }
+
+    TcpConnectSelector() throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, "ping-tcp-selector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Inicia un intento de conexión a una dirección ya resuelta. El callback se llama
+     * exactamente una vez, en el hilo del selector.
+     *
+     * @param owner Sondeo que lanza el intento, para poder abortar los suyos con {@link #cancel}
+     */
+    public void connect(Object owner, InetSocketAddress address, int timeoutMs, PingProbe.Callback callback) {
+        PendingConnect pending = new PendingConnect(owner, address, callback, timeoutMs);
+        if (!submit(() -> start(pending))) {
+            callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, "Selector detenido"));
+        }
+    }
+
+    /**
+     * Aborta los intentos en curso de un sondeo, que terminan como fallidos
+     */
+    public void cancel(Object owner) {
+        submit(() -> {
+            for (SelectionKey key : selector.keys()) {
+                PendingConnect pending = (PendingConnect) key.attachment();
+                if (pending != null && pending.owner == owner) {
+                    finish(key, PingResult.failure(PingResult.STATUS_ERROR, "Sondeo cancelado"));
+                }
+            }
+        });
+    }
+
+    private boolean submit(Runnable task) {
+        if (shutdown) {
+            return false;
+        }
+        tasks.add(task);
+        selector.wakeup();
+        return true;
+    }
+
+    private void run() {
+        try {
+            while (!shutdown) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                selector.select(nextSelectTimeoutMs());
+                long now = System.nanoTime();
+
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    if (key.isValid() && key.isConnectable()) {
+                        completeConnect(key, now);
+                    }
+                }
+                expireTimedOut(now);
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            Log.e(TAG, "Error en el selector de sondeos TCP: " + e.getMessage());
+        } finally {
+            shutdown = true;
+            failAll();
+        }
+    }
+
+    private void start(PendingConnect pending) {
+        if (shutdown) {
+            pending.callback.onProbeComplete(PingResult.failure(PingResult.STATUS_ERROR, "Selector detenido"));
+            return;
+        }
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            pending.channel = channel;
+            pending.startNanos = System.nanoTime();
+            if (channel.connect(pending.address)) {
+                // Conexión inmediata (habitual en loopback)
+                long rtt = System.nanoTime() - pending.startNanos;
+                closeQuietly(channel);
+                pending.callback.onProbeComplete(PingResult.success(rtt, pending.address.getAddress()));
+                return;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, pending);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            pending.callback.onProbeComplete(failureFor(e));
+        }
+    }
+
+    private void completeConnect(SelectionKey key, long now) {
+        PendingConnect pending = (PendingConnect) key.attachment();
+        try {
+            if (pending.channel.finishConnect()) {
+                finish(key, PingResult.success(now - pending.startNanos, pending.address.getAddress()));
+            }
+        } catch (IOException e) {
+            finish(key, failureFor(e));
+        }
+    }
+
+    private void expireTimedOut(long now) {
+        for (SelectionKey key : selector.keys()) {
+            PendingConnect pending = (PendingConnect) key.attachment();
+            if (pending != null && now - pending.startNanos >= pending.timeoutNanos) {
+                finish(key, PingResult.timeout());
+            }
+        }
+    }
+
+    // Milisegundos hasta el primer timeout pendiente (0 en select() es esperar sin límite)
+    private long nextSelectTimeoutMs() {
+        long now = System.nanoTime();
+        long earliest = Long.MAX_VALUE;
+        for (SelectionKey key : selector.keys()) {
+            PendingConnect pending = (PendingConnect) key.attachment();
+            if (pending != null) {
+                earliest = Math.min(earliest, pending.startNanos + pending.timeoutNanos - now);
+            }
+        }
+        if (earliest == Long.MAX_VALUE) {
+            return IDLE_SELECT_MS;
+        }
+        return Math.max(1, (earliest + 999_999) / 1_000_000);
+    }
+
+    // Quita el adjunto antes de notificar para que cada intento termine una sola vez
+    private void finish(SelectionKey key, PingResult result) {
+        PendingConnect pending = (PendingConnect) key.attachment();
+        if (pending == null) {
+            return;
+        }
+        key.attach(null);
+        key.cancel();
+        closeQuietly(pending.channel);
+        pending.callback.onProbeComplete(result);
+    }
+
+    private void failAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                finish(key, PingResult.failure(PingResult.STATUS_ERROR, "Selector detenido"));
+            }
+        } catch (ClosedSelectorException e) {
+            // Ya no quedan claves
+        }
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static PingResult failureFor(IOException e) {
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException) {
+            return PingResult.failure(PingResult.STATUS_UNREACHABLE, e.getMessage());
+        }
+        return PingResult.failure(PingResult.STATUS_ERROR, e.getMessage());
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error cerrando un canal de sondeo: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Detiene el hilo del selector; solo para instancias propias (pruebas)
+     */
+    void shutdown() throws InterruptedException {
+        shutdown = true;
+        selector.wakeup();
+        thread.join();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error cerrando el selector: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.nemergentprueba.network.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias log-lineal al estilo HDR, en microsegundos.
+ *
+ * Los valores por debajo de 2 * SUB_BUCKETS se guardan exactos; por encima, cada
+ * potencia de dos se divide en SUB_BUCKETS / 2 cubos lineales, así que el error
+ * relativo nunca pasa de 1 / (SUB_BUCKETS / 2). El tamaño es fijo (unos 13 KB) sea
+ * cual sea el número de muestras.
+ *
+ * Un único productor registra valores; cualquier hilo puede consultar percentiles a la
+ * vez sin bloquearlo. Una consulta concurrente puede no ver las últimas muestras.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    // Unos 35 minutos; los valores mayores se acumulan en el último cubo
+    static final long MAX_VALUE_MICROS = (1L << 31) - 1;
+    private static final int MAX_MAGNITUDE = 63 - Long.numberOfLeadingZeros(MAX_VALUE_MICROS) - (SUB_BUCKET_BITS - 1);
+    private static final int BUCKET_COUNT = SUB_BUCKETS + MAX_MAGNITUDE * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long valueMicros) {
+        counts.incrementAndGet(bucketIndex(valueMicros));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Valor por debajo del cual queda el porcentaje dado de las muestras
+     * @param percentile Entre 0 y 100
+     * @return Valor representativo del cubo en microsegundos, -1 si no hay muestras
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] result = new long[1];
+        getValuesAtPercentiles(new double[]{percentile}, result);
+        return result[0];
+    }
+
+    /**
+     * Calcula varios percentiles en una sola pasada
+     * @param percentiles Percentiles en orden ascendente, entre 0 y 100
+     * @param out Recibe los valores en microsegundos (-1 si no hay muestras)
+     */
+    public void getValuesAtPercentiles(double[] percentiles, long[] out) {
+        long total = getTotalCount();
+        int next = 0;
+        if (total > 0) {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT && next < percentiles.length; i++) {
+                cumulative += counts.get(i);
+                while (next < percentiles.length && cumulative >= rank(percentiles[next], total)) {
+                    out[next++] = representativeValue(i);
+                }
+            }
+            // Muestras añadidas durante la pasada: lo que falte cae en el último cubo con datos
+            while (next < percentiles.length) {
+                out[next++] = representativeValue(highestNonEmptyBucket());
+            }
+        } else {
+            while (next < percentiles.length) {
+                out[next++] = -1;
+            }
+        }
+    }
+
+    private static long rank(double percentile, long total) {
+        double clamped = Math.min(100, Math.max(0, percentile));
+        return Math.max(1, (long) Math.ceil(clamped / 100.0 * total));
+    }
+
+    private int highestNonEmptyBucket() {
+        for (int i = BUCKET_COUNT - 1; i > 0; i--) {
+            if (counts.get(i) > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    static int bucketIndex(long valueMicros) {
+        long value = Math.min(Math.max(0, valueMicros), MAX_VALUE_MICROS);
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> magnitude) - HALF_SUB_BUCKETS;
+        return SUB_BUCKETS + (magnitude - 1) * HALF_SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        int subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return (long) subBucket << magnitude;
+    }
+
+    // Punto medio del cubo: el error máximo queda repartido a ambos lados
+    static long representativeValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        return lowestValue(index) + ((1L << magnitude) >> 1);
+    }
+}
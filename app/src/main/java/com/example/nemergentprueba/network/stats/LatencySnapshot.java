@@ -0,0 +1,88 @@
+package com.example.nemergentprueba.network.stats;
+
+/**
+ * Instantánea inmutable de unas LatencyStats. Los tiempos están en microsegundos y
+ * valen -1 mientras no haya ninguna respuesta.
+ */
+public class LatencySnapshot {
+    private final long received;
+    private final long lost;
+    private final long minMicros;
+    private final long maxMicros;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long jitterMicros;
+    private final long ewmaMicros;
+
+    LatencySnapshot(long received, long lost, long minMicros, long maxMicros, long meanMicros,
+                    long p50Micros, long p90Micros, long p99Micros, long jitterMicros, long ewmaMicros) {
+        this.received = received;
+        this.lost = lost;
+        this.minMicros = minMicros;
+        this.maxMicros = maxMicros;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.jitterMicros = jitterMicros;
+        this.ewmaMicros = ewmaMicros;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+
+    public long getTotal() {
+        return received + lost;
+    }
+
+    /**
+     * Fracción de intentos sin respuesta, entre 0 y 1
+     */
+    public double getLossRate() {
+        long total = getTotal();
+        return total == 0 ? 0 : (double) lost / total;
+    }
+
+    public boolean hasLatency() {
+        return received > 0;
+    }
+
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getJitterMicros() {
+        return jitterMicros;
+    }
+
+    public long getEwmaMicros() {
+        return ewmaMicros;
+    }
+}
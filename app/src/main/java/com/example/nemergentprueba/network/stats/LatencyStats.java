@@ -0,0 +1,90 @@
+package com.example.nemergentprueba.network.stats;
+
+/**
+ * Estadísticas de latencia calculadas en streaming, sin guardar los resultados:
+ * histograma, mínimo, máximo, media, jitter (RFC 3550), pérdidas y media móvil
+ * exponencial. La memoria es constante sea cual sea la duración de la sesión.
+ *
+ * Solo un hilo a la vez puede registrar muestras (el que llama serializa); snapshot()
+ * se puede llamar desde cualquier hilo en cualquier momento sin bloquear al productor.
+ */
+public class LatencyStats {
+    // Mismo peso que el SRTT de TCP (RFC 6298)
+    private static final double EWMA_ALPHA = 0.125;
+    // Ganancia del estimador de jitter de RFC 3550
+    private static final double JITTER_GAIN = 1.0 / 16;
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    // Escritos por el único productor, leídos sin bloqueo
+    private volatile long received;
+    private volatile long lost;
+    private volatile long minMicros = Long.MAX_VALUE;
+    private volatile long maxMicros;
+    private volatile long sumMicros;
+    private volatile double jitterMicros;
+    private volatile double ewmaMicros = -1;
+    // Solo los usa el productor
+    private long lastTransitMicros = -1;
+
+    /**
+     * Registra un intento con respuesta
+     * @param latencyMicros Latencia corregida por omisión coordinada; alimenta la distribución
+     * @param transitMicros Tiempo de ida y vuelta medido por el sondeo; alimenta el jitter
+     */
+    public void recordSuccess(long latencyMicros, long transitMicros) {
+        histogram.record(latencyMicros);
+        if (latencyMicros < minMicros) {
+            minMicros = latencyMicros;
+        }
+        if (latencyMicros > maxMicros) {
+            maxMicros = latencyMicros;
+        }
+        sumMicros += latencyMicros;
+        ewmaMicros = ewmaMicros < 0 ? latencyMicros : ewmaMicros + EWMA_ALPHA * (latencyMicros - ewmaMicros);
+
+        // J = J + (|D| - J) / 16, con D la diferencia entre tiempos de tránsito consecutivos
+        if (lastTransitMicros >= 0) {
+            long difference = Math.abs(transitMicros - lastTransitMicros);
+            jitterMicros += (difference - jitterMicros) * JITTER_GAIN;
+        }
+        lastTransitMicros = transitMicros;
+        received++;
+    }
+
+    /**
+     * Registra un intento sin respuesta
+     */
+    public void recordLoss() {
+        lost++;
+    }
+
+    /**
+     * Copia coherente en lo esencial de las estadísticas actuales
+     */
+    public LatencySnapshot snapshot() {
+        long[] percentiles = new long[PERCENTILES.length];
+        histogram.getValuesAtPercentiles(PERCENTILES, percentiles);
+        long receivedNow = received;
+        long min = receivedNow == 0 ? -1 : minMicros;
+        long max = receivedNow == 0 ? -1 : maxMicros;
+        // Los percentiles salen del centro de su cubo; se acotan a los extremos exactos
+        for (int i = 0; i < percentiles.length; i++) {
+            if (percentiles[i] >= 0) {
+                percentiles[i] = Math.min(Math.max(percentiles[i], min), max);
+            }
+        }
+        return new LatencySnapshot(receivedNow, lost, min, max,
+                receivedNow == 0 ? -1 : sumMicros / receivedNow,
+                percentiles[0], percentiles[1], percentiles[2],
+                (long) jitterMicros, ewmaMicros < 0 ? -1 : (long) ewmaMicros);
+    }
+
+    /**
+     * Percentil arbitrario de la latencia, en microsegundos (-1 si no hay muestras)
+     */
+    public long getValueAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+}
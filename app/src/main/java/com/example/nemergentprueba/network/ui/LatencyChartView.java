@@ -0,0 +1,147 @@
+package com.example.nemergentprueba.network.ui;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.nemergentprueba.R;
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingSampleRing;
+
+/**
+ * Gráfica en vivo de la latencia de las últimas muestras de una sesión de ping.
+ * Dibuja directamente desde el buffer circular de la sesión: los arrays de trabajo se
+ * reservan una vez y onDraw() no crea ningún objeto. Los intentos sin respuesta se
+ * marcan con una raya vertical.
+ */
+public class LatencyChartView extends View {
+
+    // Puntos visibles como máximo; las muestras más antiguas quedan fuera
+    private static final int MAX_POINTS = 300;
+    private static final float LINE_WIDTH_DP = 2;
+    private static final float PADDING_DP = 4;
+    // Margen sobre la latencia máxima visible para que la línea no toque el borde
+    private static final float HEADROOM = 1.15f;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint lossPaint = new Paint();
+    private final Paint axisPaint = new Paint();
+
+    private final int[] rttBuffer = new int[MAX_POINTS];
+    private final byte[] statusBuffer = new byte[MAX_POINTS];
+    // 4 coordenadas por segmento para drawLines()
+    private final float[] linePoints = new float[MAX_POINTS * 4];
+    private final float[] lossPoints = new float[MAX_POINTS * 4];
+
+    private float padding;
+    private PingSampleRing samples;
+
+    public LatencyChartView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public LatencyChartView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    private void init(Context context) {
+        float density = context.getResources().getDisplayMetrics().density;
+        padding = PADDING_DP * density;
+        linePaint.setColor(ContextCompat.getColor(context, R.color.ping_success));
+        linePaint.setStrokeWidth(LINE_WIDTH_DP * density);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        lossPaint.setColor(ContextCompat.getColor(context, R.color.ping_failure));
+        lossPaint.setStrokeWidth(LINE_WIDTH_DP * density);
+        axisPaint.setColor(ContextCompat.getColor(context, R.color.textColor));
+        axisPaint.setStrokeWidth(density);
+    }
+
+    /**
+     * Muestra las muestras de una sesión; null para vaciar la gráfica
+     */
+    public void setSamples(@Nullable PingSampleRing samples) {
+        this.samples = samples;
+        invalidate();
+    }
+
+    /**
+     * Avisa de que hay muestras nuevas; se redibuja en el siguiente fotograma
+     */
+    public void onSamplesChanged() {
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        float left = padding;
+        float right = getWidth() - padding;
+        float top = padding;
+        float bottom = getHeight() - padding;
+        canvas.drawLine(left, bottom, right, bottom, axisPaint);
+        if (samples == null) {
+            return;
+        }
+
+        int count = samples.copyLatest(rttBuffer, statusBuffer);
+        if (count == 0) {
+            return;
+        }
+        int maxRtt = 1;
+        for (int i = 0; i < count; i++) {
+            if (statusBuffer[i] == PingResult.STATUS_OK && rttBuffer[i] > maxRtt) {
+                maxRtt = rttBuffer[i];
+            }
+        }
+        float yScale = (bottom - top) / (maxRtt * HEADROOM);
+        // Espaciado fijo: la gráfica se llena de izquierda a derecha hasta MAX_POINTS
+        float xStep = (right - left) / (MAX_POINTS - 1);
+
+        int lineCount = 0;
+        int lossCount = 0;
+        float previousX = 0;
+        float previousY = 0;
+        boolean hasPrevious = false;
+        for (int i = 0; i < count; i++) {
+            float x = left + i * xStep;
+            if (statusBuffer[i] != PingResult.STATUS_OK) {
+                lossPoints[lossCount++] = x;
+                lossPoints[lossCount++] = top;
+                lossPoints[lossCount++] = x;
+                lossPoints[lossCount++] = bottom;
+                hasPrevious = false;
+                continue;
+            }
+            float y = bottom - rttBuffer[i] * yScale;
+            if (hasPrevious) {
+                linePoints[lineCount++] = previousX;
+                linePoints[lineCount++] = previousY;
+                linePoints[lineCount++] = x;
+                linePoints[lineCount++] = y;
+            } else {
+                // Punto aislado: segmento de longitud cero, visible gracias al extremo redondeado
+                linePoints[lineCount++] = x;
+                linePoints[lineCount++] = y;
+                linePoints[lineCount++] = x;
+                linePoints[lineCount++] = y;
+            }
+            previousX = x;
+            previousY = y;
+            hasPrevious = true;
+        }
+        if (lossCount > 0) {
+            canvas.drawLines(lossPoints, 0, lossCount, lossPaint);
+        }
+        if (lineCount > 0) {
+            canvas.drawLines(linePoints, 0, lineCount, linePaint);
+        }
+    }
+}
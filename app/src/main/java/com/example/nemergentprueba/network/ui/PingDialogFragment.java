@@ -17,17 +17,22 @@ import androidx.fragment.app.DialogFragment;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nemergentprueba.R;
-import com.example.nemergentprueba.network.PingService;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.example.nemergentprueba.network.PingEngine;
+import com.example.nemergentprueba.network.PingObserver;
+import com.example.nemergentprueba.network.PingRequest;
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingSampleRing;
+import com.example.nemergentprueba.network.PingSession;
 
 /**
  * Diálogo para realizar y mostrar resultados de pings a Google.com
  */
-public class PingDialogFragment extends DialogFragment implements PingService.PingListener {
+public class PingDialogFragment extends DialogFragment implements PingObserver {
+    
+    private static final String TARGET_HOST = "8.8.8.8";
     
-    private PingService pingService;
+    private PingEngine pingEngine;
+    private PingSession pingSession;
     private PingResultAdapter adapter;
     
     // UI Components
@@ -40,6 +45,7 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
     private View summaryContainer;
     private TextView successfulCount;
     private TextView failedCount;
+    private TextView statsText;
     
     private int totalAttempts = 0;
     private int currentAttempt = 0;
@@ -53,9 +59,7 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
         super.onCreate(savedInstanceState);
         setStyle(DialogFragment.STYLE_NORMAL, R.style.FullScreenDialogStyle);
         
-        // Inicializar el servicio de ping
-        pingService = new PingService();
-        pingService.setPingListener(this);
+        pingEngine = PingEngine.getInstance(requireContext());
     }
     
     @Nullable
@@ -78,6 +82,7 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
         summaryContainer = view.findViewById(R.id.ping_summary_container);
         successfulCount = view.findViewById(R.id.ping_successful_count);
         failedCount = view.findViewById(R.id.ping_failed_count);
+        statsText = view.findViewById(R.id.ping_stats_text);
         
         // Configurar RecyclerView
         adapter = new PingResultAdapter();
@@ -85,7 +90,7 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
         
         // Configurar botón de inicio/detención
         toggleButton.setOnClickListener(v -> {
-            if (pingService.isRunning()) {
+            if (isPingRunning()) {
                 stopPing();
             } else {
                 startPing();
@@ -110,8 +115,9 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
     @Override
     public void onDestroy() {
         // Asegurarse de detener el ping si el fragmento se destruye
-        if (pingService != null && pingService.isRunning()) {
-            pingService.stopPing();
+        if (pingSession != null) {
+            pingSession.removeObserver(this);
+            pingSession.cancel();
         }
         super.onDestroy();
     }
@@ -141,8 +147,11 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
             toggleButton.setText(R.string.ping_stop_button);
             statusContainer.setVisibility(View.VISIBLE);
             summaryContainer.setVisibility(View.GONE);
+            statsText.setVisibility(View.GONE);
             
-            pingService.startPing(attempts);
+            PingRequest request = new PingRequest.Builder(TARGET_HOST, attempts).build();
+            pingSession = pingEngine.startSession(request, this);
+            adapter.setSamples(pingSession.getSamples());
             
         } catch (NumberFormatException e) {
             Toast.makeText(getContext(), R.string.ping_invalid_attempts, Toast.LENGTH_SHORT).show();
@@ -151,12 +160,18 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
     
     // Método para detener el ping
     private void stopPing() {
-        pingService.stopPing();
+        if (pingSession != null) {
+            pingSession.cancel();
+        }
+    }
+    
+    private boolean isPingRunning() {
+        return pingSession != null && pingSession.isRunning();
     }
     
     // Actualizar UI según el estado actual
     private void updateUI() {
-        if (pingService.isRunning()) {
+        if (isPingRunning()) {
             toggleButton.setText(R.string.ping_stop_button);
             statusContainer.setVisibility(View.VISIBLE);
             statusText.setText(getString(R.string.ping_status_in_progress, currentAttempt, totalAttempts));
@@ -189,59 +204,69 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
     
     // Mostrar resumen de resultados
     private void showSummary() {
-        List<PingService.PingResult> results = pingService.getResults();
-        int successful = 0;
-        int failed = 0;
-        
-        for (PingService.PingResult result : results) {
-            if (result.isSuccessful()) {
-                successful++;
-            } else {
-                failed++;
-            }
+        if (pingSession == null) {
+            return;
         }
-        
-        successfulCount.setText(String.valueOf(successful));
-        failedCount.setText(String.valueOf(failed));
+        successfulCount.setText(String.valueOf(pingSession.getSuccessCount()));
+        failedCount.setText(String.valueOf(pingSession.getFailureCount()));
         summaryContainer.setVisibility(View.VISIBLE);
+        statsText.setText(PingStatsFormatter.formatStats(requireContext(), pingSession.getStats()));
+        statsText.setVisibility(View.VISIBLE);
     }
     
-    // Implementación de PingListener
+    // Implementación de PingObserver
     
     @Override
-    public void onPingStarted() {
+    public void onPingStarted(PingSession session) {
+        if (getView() == null) return;
         currentAttempt = 0;
         updateUI();
     }
     
     @Override
-    public void onPingResult(PingService.PingResult result) {
-        currentAttempt++;
-        adapter.addResult(result);
+    public void onPingResult(PingSession session, PingResult result) {
+        // Puede quedar algún evento en cola de una sesión anterior ya detenida
+        if (getView() == null || session != pingSession) return;
+        currentAttempt = session.getCompletedCount();
+        adapter.onSampleAdded();
         statusText.setText(getString(R.string.ping_status_in_progress, currentAttempt, totalAttempts));
         updateEmptyView();
     }
     
     @Override
-    public void onPingCompleted(List<PingService.PingResult> results) {
+    public void onPingCompleted(PingSession session) {
+        if (getView() == null) return;
         statusText.setText(R.string.ping_status_completed);
         toggleButton.setText(R.string.ping_start_button);
         showSummary();
     }
     
     @Override
-    public void onPingStopped(List<PingService.PingResult> results) {
+    public void onPingStopped(PingSession session) {
+        if (getView() == null) return;
         statusText.setText(R.string.ping_status_stopped);
         toggleButton.setText(R.string.ping_start_button);
         showSummary();
     }
     
+    @Override
+    public void onPingError(PingSession session, String message) {
+        if (getView() == null) return;
+        statusText.setText(R.string.ping_status_stopped);
+        toggleButton.setText(R.string.ping_start_button);
+        Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+        showSummary();
+    }
+    
     /**
-     * Adaptador para el RecyclerView de resultados de ping
+     * Adaptador para el RecyclerView de resultados de ping; lee del buffer circular
+     * de la sesión en lugar de guardar cada resultado
      */
     private class PingResultAdapter extends RecyclerView.Adapter<PingResultAdapter.PingResultViewHolder> {
         
-        private final List<PingService.PingResult> results = new ArrayList<>();
+        private PingSampleRing samples;
+        private long firstSequence;
+        private int count;
         
         @NonNull
         @Override
@@ -253,21 +278,33 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
         
         @Override
         public void onBindViewHolder(@NonNull PingResultViewHolder holder, int position) {
-            holder.bind(results.get(position));
+            holder.bind(firstSequence + position);
         }
         
         @Override
         public int getItemCount() {
-            return results.size();
+            return count;
         }
         
-        public void addResult(PingService.PingResult result) {
-            results.add(result);
-            notifyItemInserted(results.size() - 1);
+        public void setSamples(PingSampleRing samples) {
+            this.samples = samples;
+            firstSequence = 0;
+            count = 0;
+            notifyDataSetChanged();
+        }
+        
+        public void onSampleAdded() {
+            count++;
+            notifyItemInserted(count - 1);
+            if (count > samples.getCapacity()) {
+                firstSequence++;
+                count--;
+                notifyItemRemoved(0);
+            }
         }
         
         public void clearResults() {
-            results.clear();
+            count = 0;
             notifyDataSetChanged();
         }
         
@@ -281,14 +318,14 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
                 textView = itemView.findViewById(R.id.ping_result_text);
             }
             
-            public void bind(PingService.PingResult result) {
-                if (result.isSuccessful()) {
+            public void bind(long sequence) {
+                if (!samples.contains(sequence)) {
+                    textView.setText("");
+                    return;
+                }
+                if (samples.getStatus(sequence) == PingResult.STATUS_OK) {
                     iconView.setBackgroundResource(R.color.ping_success);
-                    if (result.getPingTime() >= 0) {
-                        textView.setText(getString(R.string.ping_result_success, result.getPingTime()));
-                    } else {
-                        textView.setText(R.string.ping_result_success);
-                    }
+                    textView.setText(getString(R.string.ping_result_success, samples.getRttMicros(sequence) / 1000));
                 } else {
                     iconView.setBackgroundResource(R.color.ping_failure);
                     textView.setText(R.string.ping_result_failure);
@@ -296,4 +333,4 @@ public class PingDialogFragment extends DialogFragment implements PingService.Pi
             }
         }
     }
-}
\ No newline at end of file
+}
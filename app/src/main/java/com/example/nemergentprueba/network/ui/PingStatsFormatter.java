@@ -0,0 +1,74 @@
+package com.example.nemergentprueba.network.ui;
+
+import android.content.Context;
+
+import com.example.nemergentprueba.R;
+import com.example.nemergentprueba.network.PingPhaseStats;
+import com.example.nemergentprueba.network.PingTargetStream;
+import com.example.nemergentprueba.network.stats.LatencySnapshot;
+
+/**
+ * Textos de estadísticas de ping compartidos por los diálogos
+ */
+public final class PingStatsFormatter {
+
+    private PingStatsFormatter() {
+    }
+
+    /**
+     * Microsegundos como milisegundos con un decimal, o "—" si no hay dato
+     */
+    public static String formatLatency(Context context, long micros) {
+        if (micros < 0) {
+            return "—";
+        }
+        return context.getString(R.string.ping_rtt_value, micros / 1000.0);
+    }
+
+    /**
+     * Percentiles, máximo, jitter, pérdidas y EWMA en dos líneas
+     */
+    public static String formatStats(Context context, LatencySnapshot stats) {
+        return context.getString(R.string.ping_stats_summary,
+                formatLatency(context, stats.getP50Micros()),
+                formatLatency(context, stats.getP90Micros()),
+                formatLatency(context, stats.getP99Micros()),
+                formatLatency(context, stats.getMaxMicros()),
+                formatLatency(context, stats.getJitterMicros()),
+                stats.getLossRate() * 100,
+                formatLatency(context, stats.getEwmaMicros()));
+    }
+
+    /**
+     * Línea de la fase DNS: percentiles de las consultas reales y fallos de resolución
+     */
+    public static String formatDns(Context context, LatencySnapshot dnsStats) {
+        return context.getString(R.string.ping_dns_summary,
+                formatLatency(context, dnsStats.getP50Micros()),
+                formatLatency(context, dnsStats.getP99Micros()),
+                dnsStats.getTotal(), dnsStats.getLost());
+    }
+
+    /**
+     * Línea de las fases HTTP (medianas); conexión y TLS solo cuentan las conexiones nuevas
+     */
+    public static String formatHttp(Context context, PingPhaseStats phases, LatencySnapshot total) {
+        return context.getString(R.string.ping_http_summary,
+                formatLatency(context, phases.getConnect().getP50Micros()),
+                formatLatency(context, phases.getTls().getP50Micros()),
+                formatLatency(context, phases.getTtfb().getP50Micros()),
+                formatLatency(context, total.getP50Micros()));
+    }
+
+    /**
+     * Línea de la comparativa entre destinos
+     */
+    public static String formatTarget(Context context, PingTargetStream stream) {
+        LatencySnapshot stats = stream.getStats();
+        return context.getString(R.string.ping_target_summary, stream.getTarget().toString(),
+                stream.getSuccessCount(), stream.getCompletedCount(),
+                formatLatency(context, stats.getP50Micros()),
+                formatLatency(context, stats.getP99Micros()),
+                formatLatency(context, stats.hasLatency() ? stats.getJitterMicros() : -1));
+    }
+}
@@ -14,9 +14,18 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.DialogFragment;
 
 import com.example.nemergentprueba.R;
+import com.example.nemergentprueba.network.PingEngine;
+import com.example.nemergentprueba.network.PingObserver;
+import com.example.nemergentprueba.network.PingRequest;
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingSession;
+import com.example.nemergentprueba.network.ui.PingStatsFormatter;
 
-public class PingDialog extends DialogFragment implements PingService.PingListener {
-    private PingService pingService;
+public class PingDialog extends DialogFragment implements PingObserver {
+    private static final String GOOGLE_HOST = "google.com";
+    private static final int TIMEOUT_MS = 5000;
+
+    private PingSession pingSession;
     private EditText attemptsInput;
     private Button startStopButton;
     private TextView resultsText;
@@ -29,9 +38,6 @@ public class PingDialog extends DialogFragment implements PingService.PingListen
         LayoutInflater inflater = requireActivity().getLayoutInflater();
         View view = inflater.inflate(R.layout.dialog_ping_simple, null);
 
-        pingService = new PingService(requireContext());
-        pingService.addListener(this);
-
         attemptsInput = view.findViewById(R.id.attempts_input);
         startStopButton = view.findViewById(R.id.start_stop_button);
         resultsText = view.findViewById(R.id.results_text);
@@ -42,7 +48,7 @@ public class PingDialog extends DialogFragment implements PingService.PingListen
         builder.setView(view)
                 .setTitle(R.string.ping_button)
                 .setNegativeButton(R.string.close_button, (dialog, id) -> {
-                    pingService.stopPinging();
+                    stopPing();
                     dismiss();
                 });
 
@@ -50,46 +56,72 @@ public class PingDialog extends DialogFragment implements PingService.PingListen
     }
 
     private void togglePing() {
-        if (pingService.isRunning()) {
-            pingService.stopPinging();
-            startStopButton.setText(R.string.start_ping);
+        if (pingSession != null && pingSession.isRunning()) {
+            stopPing();
         } else {
             try {
                 int attempts = Integer.parseInt(attemptsInput.getText().toString());
                 if (attempts > 0) {
-                    pingService.startPinging(attempts);
+                    PingRequest request = new PingRequest.Builder(GOOGLE_HOST, attempts)
+                            .setTimeoutMs(TIMEOUT_MS)
+                            .build();
+                    pingSession = PingEngine.getInstance(requireContext()).startSession(request, this);
                     startStopButton.setText(R.string.stop_ping);
                     resultsText.setText("");
                     progressText.setText(getString(R.string.ping_status_in_progress, 0, attempts));
                 }
-            } catch (NumberFormatException e) {
+            } catch (IllegalArgumentException e) {
                 attemptsInput.setError(getString(R.string.ping_invalid_attempts));
             }
         }
     }
 
+    private void stopPing() {
+        if (pingSession != null) {
+            pingSession.cancel();
+        }
+    }
+
+    @Override
+    public void onPingStarted(PingSession session) {
+    }
+
     @Override
-    public void onPingResult(int attemptNumber, boolean success) {
-        requireActivity().runOnUiThread(() -> {
-            String result = success ? "✓" : "✗";
-            resultsText.append(result + " ");
-            progressText.setText(getString(R.string.ping_status_in_progress, attemptNumber, 
-                    Integer.parseInt(attemptsInput.getText().toString())));
-        });
+    public void onPingResult(PingSession session, PingResult result) {
+        String mark = result.isSuccessful() ? "✓" : "✗";
+        resultsText.append(mark + " ");
+        progressText.setText(getString(R.string.ping_status_in_progress,
+                session.getCompletedCount(), session.getTotalAttempts()));
     }
 
     @Override
-    public void onPingCompleted(int successCount, int failureCount) {
-        requireActivity().runOnUiThread(() -> {
-            startStopButton.setText(R.string.start_ping);
-            progressText.setText(getString(R.string.ping_summary, successCount, failureCount, 
-                    successCount + failureCount));
-        });
+    public void onPingCompleted(PingSession session) {
+        startStopButton.setText(R.string.start_ping);
+        int successCount = session.getSuccessCount();
+        int failureCount = session.getFailureCount();
+        progressText.setText(getString(R.string.ping_summary, successCount, failureCount,
+                successCount + failureCount) + "\n"
+                + PingStatsFormatter.formatStats(requireContext(), session.getStats()));
+    }
+
+    @Override
+    public void onPingStopped(PingSession session) {
+        startStopButton.setText(R.string.start_ping);
+        progressText.setText(R.string.ping_status_stopped);
+    }
+
+    @Override
+    public void onPingError(PingSession session, String message) {
+        startStopButton.setText(R.string.start_ping);
+        progressText.setText(getString(R.string.ping_error, message));
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        pingService.removeListener(this);
+        if (pingSession != null) {
+            pingSession.removeObserver(this);
+            pingSession.cancel();
+        }
     }
-}
\ No newline at end of file
+}
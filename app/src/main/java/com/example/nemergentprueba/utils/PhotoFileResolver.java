@@ -0,0 +1,130 @@
+package com.example.nemergentprueba.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Utilidad para resolver la ruta relativa guardada en {@code PhotoEntity}
+ * al archivo o URI real de la foto según la versión de Android.
+ */
+public class PhotoFileResolver {
+    private static final String TAG = "PhotoFileResolver";
+    private static final String CONTENT_SCHEME = "content://";
+    private static final String DCIM_PREFIX = "DCIM/";
+
+    private PhotoFileResolver() {
+    }
+
+    /**
+     * Indica si la ruta guardada es una URI de MediaStore
+     */
+    public static boolean isContentUri(String path) {
+        return path != null && path.startsWith(CONTENT_SCHEME);
+    }
+
+    /**
+     * Resuelve la ruta relativa a un archivo dentro de DCIM
+     * @param path Ruta relativa guardada en la base de datos (no debe ser una URI)
+     * @return El archivo correspondiente (puede no existir)
+     */
+    public static File resolveFile(String path) {
+        File dcim = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DCIM);
+        if (path.startsWith(DCIM_PREFIX) || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new File(dcim, path.replace(DCIM_PREFIX, ""));
+        }
+        // En versiones anteriores los nombres sin prefijo están en DCIM/Camera
+        return new File(dcim, "Camera/" + path);
+    }
+
+    /**
+     * Abre un flujo de lectura sobre la foto, sea URI o archivo
+     * @return El flujo abierto o null si la foto no existe
+     */
+    public static InputStream openInputStream(Context context, String path) throws IOException {
+        if (isContentUri(path)) {
+            return context.getContentResolver().openInputStream(Uri.parse(path));
+        }
+        File photoFile = resolveFile(path);
+        return photoFile.exists() ? new FileInputStream(photoFile) : null;
+    }
+
+    /**
+     * Busca la URI de MediaStore que corresponde a la ruta guardada.
+     * Solo tiene sentido en Android 10 (API 29) o superior, donde guardamos con RELATIVE_PATH.
+     * @return La URI de MediaStore o null si no se encuentra
+     */
+    public static Uri findMediaStoreUri(Context context, String path) {
+        if (isContentUri(path)) {
+            return Uri.parse(path);
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            return null;
+        }
+
+        int separator = path.lastIndexOf('/');
+        if (separator < 0) {
+            return null;
+        }
+        String relativeDir = path.substring(0, separator + 1);
+        String displayName = path.substring(separator + 1);
+
+        ContentResolver resolver = context.getContentResolver();
+        String[] projection = {MediaStore.Images.Media._ID};
+        String selection = MediaStore.MediaColumns.RELATIVE_PATH + "=? AND "
+                + MediaStore.MediaColumns.DISPLAY_NAME + "=?";
+        String[] args = {relativeDir, displayName};
+
+        try (Cursor cursor = resolver.query(MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                projection, selection, args, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                long id = cursor.getLong(0);
+                return ContentUris.withAppendedId(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, id);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "No se pudo consultar MediaStore para " + path + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Elimina la foto del almacenamiento. En Android 10 o superior se borra a través de
+     * MediaStore para que desaparezca también del índice del sistema.
+     * Hace E/S de disco: no llamar desde el hilo principal.
+     * @return true si se ha borrado, false si la foto ya no existía
+     * @throws IOException Si la foto existe pero no se ha podido borrar
+     */
+    public static boolean deletePhoto(Context context, String path) throws IOException {
+        try {
+            Uri uri = findMediaStoreUri(context, path);
+            if (uri != null && context.getContentResolver().delete(uri, null, null) > 0) {
+                return true;
+            }
+        } catch (SecurityException e) {
+            throw new IOException("Sin permiso para eliminar " + path, e);
+        }
+        if (isContentUri(path)) {
+            return false;
+        }
+
+        File photoFile = resolveFile(path);
+        if (!photoFile.exists()) {
+            return false;
+        }
+        if (!photoFile.delete()) {
+            throw new IOException("No se pudo eliminar " + photoFile.getAbsolutePath());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.nemergentprueba.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import com.example.nemergentprueba.database.PhotoEntity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Obtiene los metadatos que la galería necesita para maquetar una foto sin decodificarla:
+ * dimensiones, tamaño en bytes, tipo MIME y un color de marcador (el color medio de la imagen).
+ */
+public class PhotoMetadataExtractor {
+    private static final String TAG = "PhotoMetadataExtractor";
+
+    // Lado aproximado de la versión reducida usada para calcular el color del marcador
+    private static final int COLOR_SAMPLE_SIZE_PX = 8;
+
+    /**
+     * Metadatos de una foto
+     */
+    public static class PhotoMetadata {
+        public int width;
+        public int height;
+        public long fileSize;
+        public String mimeType;
+        public int placeholderColor;
+
+        /**
+         * Copia los metadatos en la entidad
+         */
+        public void applyTo(PhotoEntity photo) {
+            photo.setWidth(width);
+            photo.setHeight(height);
+            photo.setFileSize(fileSize);
+            photo.setMimeType(mimeType);
+            photo.setPlaceholderColor(placeholderColor);
+        }
+    }
+
+    private PhotoMetadataExtractor() {
+    }
+
+    /**
+     * Calcula los metadatos a partir de un bitmap ya decodificado (ruta de captura)
+     */
+    public static PhotoMetadata fromBitmap(Bitmap bitmap, String mimeType) {
+        PhotoMetadata metadata = new PhotoMetadata();
+        metadata.width = bitmap.getWidth();
+        metadata.height = bitmap.getHeight();
+        metadata.mimeType = mimeType;
+
+        int sampleWidth = Math.max(1, Math.min(COLOR_SAMPLE_SIZE_PX, bitmap.getWidth()));
+        int sampleHeight = Math.max(1, Math.min(COLOR_SAMPLE_SIZE_PX, bitmap.getHeight()));
+        Bitmap sample = Bitmap.createScaledBitmap(bitmap, sampleWidth, sampleHeight, true);
+        metadata.placeholderColor = averageColor(sample);
+        if (sample != bitmap) {
+            sample.recycle();
+        }
+        return metadata;
+    }
+
+    /**
+     * Lee los metadatos de una foto ya guardada (importación o relleno de filas antiguas)
+     * @return Los metadatos, o null si la foto no se puede leer
+     */
+    public static PhotoMetadata fromStoredPhoto(Context context, String path) {
+        try {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            try (InputStream is = PhotoFileResolver.openInputStream(context, path)) {
+                if (is == null) {
+                    return null;
+                }
+                BitmapFactory.decodeStream(is, null, bounds);
+            }
+            if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+                return null;
+            }
+
+            PhotoMetadata metadata = new PhotoMetadata();
+            metadata.width = bounds.outWidth;
+            metadata.height = bounds.outHeight;
+            metadata.mimeType = bounds.outMimeType;
+            metadata.fileSize = querySize(context, path);
+
+            // Decodificar una versión diminuta para el color del marcador
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = Math.max(1,
+                    Integer.highestOneBit(Math.min(bounds.outWidth, bounds.outHeight) / COLOR_SAMPLE_SIZE_PX));
+            try (InputStream is = PhotoFileResolver.openInputStream(context, path)) {
+                Bitmap sample = is != null ? BitmapFactory.decodeStream(is, null, options) : null;
+                if (sample != null) {
+                    metadata.placeholderColor = averageColor(sample);
+                    sample.recycle();
+                }
+            }
+            return metadata;
+        } catch (IOException e) {
+            Log.w(TAG, "No se pudieron leer los metadatos de " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Tamaño en bytes de la foto guardada, o 0 si no se puede determinar
+     */
+    public static long querySize(Context context, String path) {
+        if (!PhotoFileResolver.isContentUri(path)) {
+            File file = PhotoFileResolver.resolveFile(path);
+            if (file.exists()) {
+                return file.length();
+            }
+        }
+
+        Uri uri = PhotoFileResolver.findMediaStoreUri(context, path);
+        if (uri == null) {
+            return 0;
+        }
+        try (Cursor cursor = context.getContentResolver().query(uri,
+                new String[]{MediaStore.MediaColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "No se pudo consultar el tamaño de " + path + ": " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Color medio opaco de todos los píxeles de un bitmap pequeño
+     */
+    private static int averageColor(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        for (int pixel : pixels) {
+            red += Color.red(pixel);
+            green += Color.green(pixel);
+            blue += Color.blue(pixel);
+        }
+        int count = pixels.length;
+        return Color.rgb((int) (red / count), (int) (green / count), (int) (blue / count));
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.nemergentprueba.database;
+
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la agrupación en eventos: la regla entre dos fotos consecutivas y que el
+ * mantenimiento incremental (inserciones desordenadas, borrados y cambios de posición)
+ * deja los mismos eventos y agregados que una reconstrucción completa.
+ */
+public class EventClustererTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long BASE = 1_700_000_000_000L;
+
+    @Test
+    public void belongTogether_splitsOnTimeGap() {
+        TimelineEntry first = entry(1, BASE, 0, 0);
+        assertTrue(EventClusterer.belongTogether(first, entry(2, BASE + EventClusterer.MAX_TIME_GAP_MS, 0, 0)));
+        assertFalse(EventClusterer.belongTogether(first, entry(2, BASE + EventClusterer.MAX_TIME_GAP_MS + 1, 0, 0)));
+        // El orden de las dos fotos no importa
+        assertFalse(EventClusterer.belongTogether(entry(2, BASE + EventClusterer.MAX_TIME_GAP_MS + 1, 0, 0), first));
+    }
+
+    @Test
+    public void belongTogether_splitsOnDistanceJumpOnlyWhenBothAreGeotagged() {
+        TimelineEntry madrid = entry(1, BASE, 40.4168, -3.7038);
+        // Unos 5 km y unos 20 km al norte
+        assertTrue(EventClusterer.belongTogether(madrid, entry(2, BASE + MINUTE, 40.4618, -3.7038)));
+        assertFalse(EventClusterer.belongTogether(madrid, entry(2, BASE + MINUTE, 40.5968, -3.7038)));
+        // Sin coordenadas solo cuenta el tiempo
+        assertTrue(EventClusterer.belongTogether(madrid, entry(2, BASE + MINUTE, 0, 0)));
+        assertTrue(EventClusterer.belongTogether(entry(2, BASE, 0, 0), entry(3, BASE + MINUTE, 48.8566, 2.3522)));
+    }
+
+    @Test
+    public void incrementalUpdates_matchFullRebuild() {
+        Random random = new Random(11);
+        InMemoryStore store = new InMemoryStore();
+        EventClusterer clusterer = store.clusterer();
+
+        // Ráfagas de fotos en unas pocas ciudades separadas por huecos de horas, a veces sin posición
+        double[][] centers = {{40.4168, -3.7038}, {41.3874, 2.1686}, {48.8566, 2.3522}};
+        List<PhotoEntity> photos = new ArrayList<>();
+        long time = BASE;
+        double[] center = centers[0];
+        for (int i = 0; i < 400; i++) {
+            time += random.nextInt(10) == 0 ? (2 + random.nextInt(3)) * 60 * MINUTE : random.nextInt(30) * MINUTE;
+            if (random.nextInt(15) == 0) {
+                center = centers[random.nextInt(centers.length)];
+            }
+            boolean geotagged = random.nextInt(4) != 0;
+            photos.add(new PhotoEntity(new Date(time), "photo" + i + ".jpg",
+                    geotagged ? center[0] + random.nextGaussian() * 0.01 : 0,
+                    geotagged ? center[1] + random.nextGaussian() * 0.01 : 0, null));
+        }
+        // Algunas fotos con la misma fecha: el desempate es el ID
+        for (int i = 0; i < 20; i++) {
+            PhotoEntity twin = photos.get(random.nextInt(photos.size()));
+            photos.add(new PhotoEntity(twin.getCaptureDate(), "twin" + i + ".jpg", 0, 0, null));
+        }
+
+        // Inserción desordenada: obliga a dividir y unir eventos
+        Collections.shuffle(photos, random);
+        for (PhotoEntity photo : photos) {
+            photo.setId(clusterer.insertPhoto(photo));
+            assertNotNull(store.memberships.get(photo.getId()));
+        }
+        assertSameAsRebuild(store, clusterer);
+
+        // Borrar algunas y mover otras lejos (o quitarles la posición)
+        for (int i = 0; i < 60; i++) {
+            PhotoEntity photo = photos.remove(random.nextInt(photos.size()));
+            clusterer.deletePhoto(photo.getId());
+        }
+        for (int i = 0; i < 40; i++) {
+            PhotoEntity photo = photos.get(random.nextInt(photos.size()));
+            double[] target = random.nextBoolean() ? centers[random.nextInt(centers.length)] : new double[]{0, 0};
+            photo.setLatitude(target[0]);
+            photo.setLongitude(target[1]);
+            clusterer.onPhotoLocationChanged(photo.getId());
+        }
+        assertEquals(0, store.countPhotosWithoutEvent());
+        assertSameAsRebuild(store, clusterer);
+    }
+
+    @Test
+    public void rebuildIfNeeded_assignsPhotosWithoutEvent() {
+        InMemoryStore store = new InMemoryStore();
+        EventClusterer clusterer = store.clusterer();
+        // Fotos guardadas antes de existir los eventos
+        for (int i = 0; i < 5; i++) {
+            PhotoEntity photo = new PhotoEntity(new Date(BASE + i * MINUTE), i + ".jpg", 0, 0, null);
+            store.photoDao.insertPhoto(photo);
+        }
+        PhotoEntity late = new PhotoEntity(new Date(BASE + 10 * 60 * MINUTE), "late.jpg", 0, 0, null);
+        store.photoDao.insertPhoto(late);
+        assertEquals(6, store.countPhotosWithoutEvent());
+
+        clusterer.rebuildIfNeeded();
+        assertEquals(0, store.countPhotosWithoutEvent());
+        assertEquals(2, store.events.size());
+        int eventsBefore = store.events.size();
+
+        // Sin fotos pendientes no reconstruye nada
+        long lastEventId = store.nextEventId;
+        clusterer.rebuildIfNeeded();
+        assertEquals(lastEventId, store.nextEventId);
+        assertEquals(eventsBefore, store.events.size());
+    }
+
+    /**
+     * Compara eventos (fotos de cada uno) y agregados con los de una reconstrucción completa
+     */
+    private static void assertSameAsRebuild(InMemoryStore store, EventClusterer clusterer) {
+        Map<Set<Long>, EventEntity> incremental = store.eventsByMembers();
+        int created = clusterer.rebuild();
+        Map<Set<Long>, EventEntity> rebuilt = store.eventsByMembers();
+
+        assertEquals(rebuilt.size(), created);
+        assertEquals(rebuilt.keySet(), incremental.keySet());
+        for (Map.Entry<Set<Long>, EventEntity> entry : rebuilt.entrySet()) {
+            EventEntity expected = entry.getValue();
+            EventEntity actual = incremental.get(entry.getKey());
+            assertEquals(expected.getPhotoCount(), actual.getPhotoCount());
+            assertEquals(entry.getKey().size(), actual.getPhotoCount());
+            assertEquals(expected.getStartDate(), actual.getStartDate());
+            assertEquals(expected.getEndDate(), actual.getEndDate());
+            assertEquals(expected.getGeotaggedCount(), actual.getGeotaggedCount());
+            assertEquals(expected.getLatitude(), actual.getLatitude(), 1e-9);
+            assertEquals(expected.getLongitude(), actual.getLongitude(), 1e-9);
+        }
+    }
+
+    private static TimelineEntry entry(long id, long time, double latitude, double longitude) {
+        TimelineEntry entry = new TimelineEntry();
+        entry.id = id;
+        entry.captureDate = new Date(time);
+        entry.latitude = latitude;
+        entry.longitude = longitude;
+        return entry;
+    }
+
+    /**
+     * Tablas photos, events y event_photos en memoria con la semántica de las consultas de
+     * los DAO: las entidades se devuelven copiadas, como al leerlas de la base de datos
+     */
+    private static class InMemoryStore implements EventDao {
+        final TreeMap<Long, PhotoEntity> photos = new TreeMap<>();
+        final TreeMap<Long, EventEntity> events = new TreeMap<>();
+        final Map<Long, Long> memberships = new HashMap<>();
+        long nextPhotoId;
+        long nextEventId;
+
+        // Solo las operaciones de fotos que usa EventClusterer
+        final PhotoDao photoDao = (PhotoDao) Proxy.newProxyInstance(PhotoDao.class.getClassLoader(),
+                new Class<?>[]{PhotoDao.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "insertPhoto":
+                            PhotoEntity photo = (PhotoEntity) args[0];
+                            photo.setId(++nextPhotoId);
+                            photos.put(photo.getId(), photo);
+                            return photo.getId();
+                        case "deletePhotoById":
+                            photos.remove((Long) args[0]);
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        EventClusterer clusterer() {
+            return new EventClusterer(photoDao, this, Runnable::run);
+        }
+
+        Map<Set<Long>, EventEntity> eventsByMembers() {
+            Map<Long, Set<Long>> members = new HashMap<>();
+            for (Map.Entry<Long, Long> membership : memberships.entrySet()) {
+                members.computeIfAbsent(membership.getValue(), id -> new HashSet<>()).add(membership.getKey());
+            }
+            assertEquals("Eventos sin fotos o fotos en eventos inexistentes", events.keySet(), members.keySet());
+            Map<Set<Long>, EventEntity> result = new HashMap<>();
+            for (Map.Entry<Long, Set<Long>> entry : members.entrySet()) {
+                result.put(entry.getValue(), copy(events.get(entry.getKey())));
+            }
+            return result;
+        }
+
+        private List<TimelineEntry> timeline() {
+            List<TimelineEntry> entries = new ArrayList<>();
+            for (PhotoEntity photo : photos.values()) {
+                entries.add(toEntry(photo));
+            }
+            entries.sort(Comparator.comparing((TimelineEntry e) -> e.captureDate).thenComparingLong(e -> e.id));
+            return entries;
+        }
+
+        private TimelineEntry toEntry(PhotoEntity photo) {
+            TimelineEntry entry = entry(photo.getId(), photo.getCaptureDate().getTime(),
+                    photo.getLatitude(), photo.getLongitude());
+            entry.eventId = memberships.get(photo.getId());
+            return entry;
+        }
+
+        private static int compare(TimelineEntry entry, Date date, long photoId) {
+            int byDate = entry.captureDate.compareTo(date);
+            return byDate != 0 ? byDate : Long.compare(entry.id, photoId);
+        }
+
+        private static EventEntity copy(EventEntity event) {
+            if (event == null) {
+                return null;
+            }
+            EventEntity copy = new EventEntity(event.getStartDate(), event.getEndDate());
+            copy.setId(event.getId());
+            copy.setPhotoCount(event.getPhotoCount());
+            copy.setGeotaggedCount(event.getGeotaggedCount());
+            copy.setLatitude(event.getLatitude());
+            copy.setLongitude(event.getLongitude());
+            return copy;
+        }
+
+        @Override
+        public EventEntity getEvent(long eventId) {
+            return copy(events.get(eventId));
+        }
+
+        @Override
+        public long insertEvent(EventEntity event) {
+            EventEntity stored = copy(event);
+            stored.setId(++nextEventId);
+            events.put(stored.getId(), stored);
+            return stored.getId();
+        }
+
+        @Override
+        public void updateEvent(EventEntity event) {
+            if (events.containsKey(event.getId())) {
+                events.put(event.getId(), copy(event));
+            }
+        }
+
+        @Override
+        public void deleteEventById(long eventId) {
+            events.remove(eventId);
+        }
+
+        @Override
+        public void deleteAllEvents() {
+            events.clear();
+        }
+
+        @Override
+        public void setMembership(EventPhotoEntity membership) {
+            memberships.put(membership.getPhotoId(), membership.getEventId());
+        }
+
+        @Override
+        public void setMemberships(List<EventPhotoEntity> list) {
+            for (EventPhotoEntity membership : list) {
+                setMembership(membership);
+            }
+        }
+
+        @Override
+        public void deleteMembership(long photoId) {
+            memberships.remove(photoId);
+        }
+
+        @Override
+        public void deleteAllMemberships() {
+            memberships.clear();
+        }
+
+        @Override
+        public void moveMemberships(long fromEventId, long toEventId) {
+            memberships.replaceAll((photoId, eventId) -> eventId == fromEventId ? toEventId : eventId);
+        }
+
+        @Override
+        public void moveMembershipsFrom(long fromEventId, long toEventId, Date date, long photoId) {
+            for (TimelineEntry entry : timeline()) {
+                if (entry.eventId != null && entry.eventId == fromEventId && compare(entry, date, photoId) >= 0) {
+                    memberships.put(entry.id, toEventId);
+                }
+            }
+        }
+
+        @Override
+        public EventStats getEventStats(long eventId) {
+            EventStats stats = new EventStats();
+            double latitudeSum = 0;
+            double longitudeSum = 0;
+            for (TimelineEntry entry : timeline()) {
+                if (entry.eventId == null || entry.eventId != eventId) {
+                    continue;
+                }
+                if (stats.photoCount == 0 || entry.captureDate.before(stats.startDate)) {
+                    stats.startDate = entry.captureDate;
+                }
+                if (stats.photoCount == 0 || entry.captureDate.after(stats.endDate)) {
+                    stats.endDate = entry.captureDate;
+                }
+                stats.photoCount++;
+                if (entry.latitude != 0 || entry.longitude != 0) {
+                    stats.geotaggedCount++;
+                    latitudeSum += entry.latitude;
+                    longitudeSum += entry.longitude;
+                }
+            }
+            if (stats.geotaggedCount > 0) {
+                stats.latitude = latitudeSum / stats.geotaggedCount;
+                stats.longitude = longitudeSum / stats.geotaggedCount;
+            }
+            return stats;
+        }
+
+        @Override
+        public TimelineEntry getTimelineEntry(long photoId) {
+            PhotoEntity photo = photos.get(photoId);
+            return photo != null ? toEntry(photo) : null;
+        }
+
+        @Override
+        public TimelineEntry getPreviousInTimeline(Date date, long photoId) {
+            TimelineEntry previous = null;
+            for (TimelineEntry entry : timeline()) {
+                if (compare(entry, date, photoId) < 0) {
+                    previous = entry;
+                }
+            }
+            return previous;
+        }
+
+        @Override
+        public TimelineEntry getNextInTimeline(Date date, long photoId) {
+            List<TimelineEntry> page = getTimelinePage(date, photoId, 1);
+            return page.isEmpty() ? null : page.get(0);
+        }
+
+        @Override
+        public List<TimelineEntry> getTimelinePage(Date date, long photoId, int limit) {
+            List<TimelineEntry> page = new ArrayList<>();
+            for (TimelineEntry entry : timeline()) {
+                if (page.size() < limit && compare(entry, date, photoId) > 0) {
+                    page.add(entry);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public int countPhotosWithoutEvent() {
+            int count = 0;
+            for (Long photoId : photos.keySet()) {
+                if (!memberships.containsKey(photoId)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
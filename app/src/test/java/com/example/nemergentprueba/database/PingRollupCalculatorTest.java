@@ -0,0 +1,116 @@
+package com.example.nemergentprueba.database;
+
+import com.example.nemergentprueba.network.PingResult;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de los agregados del historial de pings: agrupación por destino e intervalo,
+ * pérdidas sin contar los fallos de DNS, percentil 95 y exclusión de los intervalos aún abiertos.
+ */
+public class PingRollupCalculatorTest {
+
+    private static final long MINUTE = PingRollupEntity.RESOLUTION_MINUTE_MS;
+    private static final long HOUR = PingRollupEntity.RESOLUTION_HOUR_MS;
+    // Una hora en punto cualquiera
+    private static final long BASE = 1_700_000_000_000L / HOUR * HOUR;
+
+    @Test
+    public void rollUp_groupsByTargetAndMinute() {
+        List<PingSampleEntity> samples = new ArrayList<>();
+        // a.com: 20 respuestas de 1..20 ms, 1 pérdida y 1 fallo de DNS en el primer minuto
+        for (int i = 1; i <= 20; i++) {
+            samples.add(ok("a.com", BASE + i * 1000L, i * 1000L));
+        }
+        samples.add(lost("a.com", BASE + 30_000));
+        samples.add(dnsFailure("a.com", BASE + 40_000));
+        // a.com: una respuesta en el segundo minuto
+        samples.add(ok("a.com", BASE + MINUTE + 5_000, 7_000));
+        // b.com: solo pérdidas
+        samples.add(lost("b.com", BASE + 1_000));
+
+        List<PingRollupEntity> rollups = PingRollupCalculator.rollUp(samples, MINUTE, BASE + HOUR);
+
+        assertEquals(3, rollups.size());
+        PingRollupEntity first = rollups.get(0);
+        assertEquals("a.com", first.getTarget());
+        assertEquals(BASE, first.getBucketStart());
+        assertEquals(MINUTE, first.getResolutionMs());
+        // El fallo de DNS no cuenta como intento ni como pérdida
+        assertEquals(21, first.getCount());
+        assertEquals(1, first.getLost());
+        assertEquals(1_000, first.getMinMicros());
+        assertEquals(20_000, first.getMaxMicros());
+        assertEquals(10_500, first.getAvgMicros());
+        assertEquals(19_000, first.getP95Micros());
+
+        PingRollupEntity second = rollups.get(1);
+        assertEquals(BASE + MINUTE, second.getBucketStart());
+        assertEquals(1, second.getCount());
+        assertEquals(7_000, second.getP95Micros());
+
+        PingRollupEntity unreachable = rollups.get(2);
+        assertEquals("b.com", unreachable.getTarget());
+        assertEquals(100.0, unreachable.getLossPercent(), 0.0);
+        assertEquals(-1, unreachable.getMinMicros());
+        assertEquals(-1, unreachable.getP95Micros());
+    }
+
+    @Test
+    public void rollUp_skipsBucketsWithOnlyDnsFailures() {
+        List<PingSampleEntity> samples = new ArrayList<>();
+        samples.add(dnsFailure("a.com", BASE + 1_000));
+        samples.add(dnsFailure("a.com", BASE + 2_000));
+        samples.add(dnsFailure("a.com", BASE + MINUTE + 1_000));
+        samples.add(lost("a.com", BASE + MINUTE + 2_000));
+
+        List<PingRollupEntity> rollups = PingRollupCalculator.rollUp(samples, MINUTE, BASE + HOUR);
+        assertEquals(1, rollups.size());
+        assertEquals(BASE + MINUTE, rollups.get(0).getBucketStart());
+        assertEquals(1, rollups.get(0).getCount());
+        assertEquals(100.0, rollups.get(0).getLossPercent(), 0.0);
+    }
+
+    @Test
+    public void rollUp_skipsOpenBuckets() {
+        List<PingSampleEntity> samples = new ArrayList<>();
+        samples.add(ok("a.com", BASE + 10_000, 1_000));
+        samples.add(ok("a.com", BASE + MINUTE + 10_000, 2_000));
+
+        // El segundo minuto termina después del corte
+        List<PingRollupEntity> minutes = PingRollupCalculator.rollUp(samples, MINUTE, BASE + MINUTE + 30_000);
+        assertEquals(1, minutes.size());
+        assertEquals(BASE, minutes.get(0).getBucketStart());
+
+        // La hora tampoco está cerrada todavía; al cerrarse agrega ambas muestras
+        assertTrue(PingRollupCalculator.rollUp(samples, HOUR, BASE + MINUTE + 30_000).isEmpty());
+        List<PingRollupEntity> hours = PingRollupCalculator.rollUp(samples, HOUR, BASE + HOUR);
+        assertEquals(1, hours.size());
+        assertEquals(2, hours.get(0).getCount());
+        assertEquals(1_500, hours.get(0).getAvgMicros());
+    }
+
+    @Test
+    public void bucketStart_alignsToResolution() {
+        assertEquals(BASE, PingRollupCalculator.bucketStart(BASE + HOUR - 1, HOUR));
+        assertEquals(BASE + MINUTE, PingRollupCalculator.bucketStart(BASE + MINUTE, MINUTE));
+        assertEquals(-MINUTE, PingRollupCalculator.bucketStart(-1, MINUTE));
+    }
+
+    private static PingSampleEntity ok(String target, long timestamp, long rttMicros) {
+        return new PingSampleEntity(target, timestamp, PingResult.STATUS_OK, rttMicros);
+    }
+
+    private static PingSampleEntity lost(String target, long timestamp) {
+        return new PingSampleEntity(target, timestamp, PingResult.STATUS_TIMEOUT, -1);
+    }
+
+    private static PingSampleEntity dnsFailure(String target, long timestamp) {
+        return new PingSampleEntity(target, timestamp, PingResult.STATUS_DNS_FAILURE, -1);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.nemergentprueba.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del índice de secciones: posiciones de cabeceras y fotos, búsqueda por fecha,
+ * inserciones y borrados incrementales y cambio de agrupación entre días y meses con el
+ * mismo resultado que una construcción completa.
+ */
+public class SectionIndexTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    // 1 de marzo de 2024 a las 00:00 UTC
+    private static final long BASE = 1_709_251_200_000L;
+
+    @Test
+    public void build_mapsHeadersAndPhotosToAdapterPositions() {
+        // Dos fotos el 3 de marzo, una el 2 y tres el 1
+        long[] timestamps = {BASE + 2 * DAY + 5 * HOUR, BASE + 2 * DAY + HOUR, BASE + DAY + 3 * HOUR,
+                BASE + 20 * HOUR, BASE + 10 * HOUR, BASE};
+        SectionIndex index = SectionIndex.build(timestamps, SectionIndex.Granularity.DAY, UTC);
+
+        assertEquals(3, index.getSectionCount());
+        assertEquals(6, index.getPhotoCount());
+        assertEquals(9, index.getItemCount());
+        assertEquals(BASE + 2 * DAY, index.getSectionKey(0));
+        assertEquals(2, index.getSectionSize(0));
+        assertEquals(3, index.getSectionSize(2));
+
+        // [H0, p0, p1, H1, p2, H2, p3, p4, p5]
+        assertEquals(0, index.getHeaderPosition(0));
+        assertEquals(3, index.getHeaderPosition(1));
+        assertEquals(5, index.getHeaderPosition(2));
+        assertTrue(index.isHeader(3));
+        assertFalse(index.isHeader(4));
+        assertEquals(2, index.photoIndexForAdapterPosition(4));
+        assertEquals(1, index.sectionForAdapterPosition(4));
+        assertEquals(2, index.sectionForAdapterPosition(8));
+        assertEquals(5, index.photoIndexForAdapterPosition(8));
+        for (int photo = 0; photo < 6; photo++) {
+            int position = index.adapterPositionForPhotoIndex(photo);
+            assertFalse(index.isHeader(position));
+            assertEquals(photo, index.photoIndexForAdapterPosition(position));
+        }
+    }
+
+    @Test
+    public void sectionForTime_jumpsToSameOrNextOlderSection() {
+        long[] timestamps = {BASE + 10 * DAY, BASE + 5 * DAY, BASE};
+        SectionIndex index = SectionIndex.build(timestamps, SectionIndex.Granularity.DAY, UTC);
+
+        assertEquals(1, index.sectionForTime(BASE + 5 * DAY + 12 * HOUR));
+        // Sin fotos ese día: la siguiente sección más antigua
+        assertEquals(1, index.sectionForTime(BASE + 7 * DAY));
+        assertEquals(0, index.sectionForTime(BASE + 30 * DAY));
+        // Anterior a todas: la última
+        assertEquals(2, index.sectionForTime(BASE - 30 * DAY));
+        assertEquals(-1, SectionIndex.build(new long[0], SectionIndex.Granularity.DAY, UTC).sectionForTime(BASE));
+    }
+
+    @Test
+    public void insertAndRemove_updateSectionsAndOffsets() {
+        long[] timestamps = {BASE + 2 * DAY, BASE};
+        SectionIndex index = SectionIndex.build(timestamps, SectionIndex.Granularity.DAY, UTC);
+
+        // Nuevo día entre los dos existentes
+        assertEquals(1, index.insert(BASE + DAY + HOUR));
+        assertEquals(3, index.getSectionCount());
+        assertEquals(4, index.getHeaderPosition(2));
+        // Mismo día que una sección existente
+        assertEquals(0, index.insert(BASE + 2 * DAY + HOUR));
+        assertEquals(2, index.getSectionSize(0));
+        assertEquals(3, index.getHeaderPosition(1));
+
+        assertFalse(index.remove(BASE + 2 * DAY));
+        assertTrue(index.remove(BASE + DAY + HOUR));
+        assertEquals(2, index.getSectionCount());
+        assertEquals(2, index.getHeaderPosition(1));
+        assertEquals(4, index.getItemCount());
+        // Una fecha sin sección no cambia nada
+        assertFalse(index.remove(BASE + 40 * DAY));
+        assertEquals(2, index.getPhotoCount());
+    }
+
+    @Test
+    public void adjustGranularity_matchesFullBuildWhileGrowingAndShrinking() {
+        int maxDays = 5;
+        Random random = new Random(7);
+        List<Long> photos = new ArrayList<>();
+        SectionIndex incremental = SectionIndex.build(new long[0], maxDays, UTC);
+        assertEquals(SectionIndex.Granularity.DAY, incremental.getGranularity());
+
+        // Crece hasta superar el máximo de días y pasa a meses
+        for (int i = 0; i < 40; i++) {
+            long timestamp = BASE + random.nextInt(60) * DAY + random.nextInt(24) * HOUR;
+            photos.add(timestamp);
+            incremental.insert(timestamp);
+            incremental.adjustGranularity();
+            assertSameSections(SectionIndex.build(descending(photos), maxDays, UTC), incremental);
+        }
+        assertEquals(SectionIndex.Granularity.MONTH, incremental.getGranularity());
+
+        // Encoge hasta volver a días
+        while (!photos.isEmpty()) {
+            long timestamp = photos.remove(random.nextInt(photos.size()));
+            incremental.remove(timestamp);
+            incremental.adjustGranularity();
+            assertSameSections(SectionIndex.build(descending(photos), maxDays, UTC), incremental.copy());
+        }
+        assertEquals(SectionIndex.Granularity.DAY, incremental.getGranularity());
+        assertEquals(0, incremental.getItemCount());
+    }
+
+    @Test
+    public void fixedGranularity_neverSwitches() {
+        SectionIndex index = SectionIndex.build(new long[]{BASE + 3 * DAY, BASE + 2 * DAY, BASE + DAY, BASE},
+                SectionIndex.Granularity.DAY, UTC);
+        assertFalse(index.adjustGranularity());
+        assertEquals(4, index.getSectionCount());
+    }
+
+    private static long[] descending(List<Long> timestamps) {
+        List<Long> sorted = new ArrayList<>(timestamps);
+        sorted.sort((a, b) -> Long.compare(b, a));
+        long[] result = new long[sorted.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sorted.get(i);
+        }
+        return result;
+    }
+
+    private static void assertSameSections(SectionIndex expected, SectionIndex actual) {
+        assertEquals(expected.getGranularity(), actual.getGranularity());
+        assertEquals(expected.getSectionCount(), actual.getSectionCount());
+        assertEquals(expected.getPhotoCount(), actual.getPhotoCount());
+        for (int i = 0; i < expected.getSectionCount(); i++) {
+            assertEquals(expected.getSectionKey(i), actual.getSectionKey(i));
+            assertEquals(expected.getSectionSize(i), actual.getSectionSize(i));
+            assertEquals(expected.getHeaderPosition(i), actual.getHeaderPosition(i));
+        }
+    }
+}
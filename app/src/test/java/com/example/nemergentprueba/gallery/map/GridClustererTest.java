@@ -0,0 +1,170 @@
+package com.example.nemergentprueba.gallery.map;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la agrupación por rejilla: proyección Mercator con latitudes recortadas,
+ * límites semiabiertos de las teselas y centroides de cada celda comparados con un
+ * recorrido exhaustivo.
+ */
+public class GridClustererTest {
+
+    @Test
+    public void mercator_mapsReferencePointsAndClampsPoles() {
+        assertEquals(0.5, GridClusterer.mercatorX(0), 1e-12);
+        assertEquals(0.5, GridClusterer.mercatorY(0), 1e-12);
+        assertEquals(0.0, GridClusterer.mercatorX(-180), 0.0);
+        assertEquals(0.75, GridClusterer.mercatorX(90), 1e-12);
+        // Los extremos quedan dentro de [0, 1) para caer siempre en una tesela
+        assertTrue(GridClusterer.mercatorX(180) < 1);
+        assertTrue(GridClusterer.mercatorX(200) < 1);
+        assertEquals(0.0, GridClusterer.mercatorX(-200), 0.0);
+
+        // Norte arriba (y pequeña) y simetría respecto al ecuador
+        assertTrue(GridClusterer.mercatorY(40) < 0.5);
+        assertEquals(1.0, GridClusterer.mercatorY(40) + GridClusterer.mercatorY(-40), 1e-12);
+
+        // Por encima de la latitud máxima todo se recorta al borde del mapa
+        assertEquals(0.0, GridClusterer.mercatorY(GridClusterer.MAX_LATITUDE), 1e-9);
+        assertEquals(GridClusterer.mercatorY(GridClusterer.MAX_LATITUDE), GridClusterer.mercatorY(90), 0.0);
+        assertTrue(GridClusterer.mercatorY(-90) < 1);
+        assertEquals(1.0, GridClusterer.mercatorY(-90), 1e-9);
+        assertFalse(Double.isNaN(GridClusterer.mercatorY(90)));
+    }
+
+    @Test
+    public void cluster_assignsEveryPhotoToExactlyOneTile() {
+        Random random = new Random(5);
+        int n = 2_000;
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            lats[i] = random.nextDouble() * 180 - 90;
+            lons[i] = random.nextDouble() * 360 - 180;
+        }
+        // Polos, antimeridiano y el origen, justo en las esquinas de varias teselas
+        double[][] edges = {{90, 0}, {-90, 0}, {0, 180}, {0, -180}, {0, 0}, {89.99, 179.99}};
+        for (int i = 0; i < edges.length; i++) {
+            lats[i] = edges[i][0];
+            lons[i] = edges[i][1];
+        }
+        GridClusterer clusterer = new GridClusterer(ids, lats, lons, n);
+
+        for (int zoom = 0; zoom <= 4; zoom++) {
+            int tiles = 1 << zoom;
+            Set<Long> seen = new HashSet<>();
+            int total = 0;
+            for (int x = 0; x < tiles; x++) {
+                for (int y = 0; y < tiles; y++) {
+                    ClusterTile tile = clusterer.cluster(zoom, x, y, 4);
+                    assertEquals(ClusterTile.key(zoom, x, y), tile.key);
+                    for (int c = 0; c < tile.size; c++) {
+                        total += tile.counts[c];
+                        assertTrue(seen.add(tile.photoIds[c]));
+                        // El centroide cae dentro de la tesela
+                        double span = 1.0 / tiles;
+                        assertTrue(tile.centerX[c] >= x * span && tile.centerX[c] < (x + 1) * span);
+                        assertTrue(tile.centerY[c] >= y * span && tile.centerY[c] < (y + 1) * span);
+                    }
+                }
+            }
+            assertEquals("zoom " + zoom, n, total);
+        }
+    }
+
+    @Test
+    public void cluster_tileBoundsAreHalfOpen() {
+        // Longitud 0 es x = 0.5: borde izquierdo de la tesela (1, 0) a zoom 1
+        GridClusterer clusterer = new GridClusterer(new long[]{7}, new double[]{40}, new double[]{0}, 1);
+        assertEquals(0, clusterer.cluster(1, 0, 0, 2).size);
+        ClusterTile right = clusterer.cluster(1, 1, 0, 2);
+        assertEquals(1, right.size);
+        assertEquals(7, right.photoIds[0]);
+        assertEquals(0, clusterer.cluster(1, 1, 1, 2).size);
+    }
+
+    @Test
+    public void cluster_placesEachCellAtTheCentroidOfItsPhotos() {
+        Random random = new Random(9);
+        int n = 3_000;
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        // Concentradas en torno a la península para llenar varias celdas
+        for (int i = 0; i < n; i++) {
+            ids[i] = 1000 + i;
+            lats[i] = 40 + random.nextGaussian() * 3;
+            lons[i] = -3.7 + random.nextGaussian() * 4;
+        }
+        GridClusterer clusterer = new GridClusterer(ids, lats, lons, n);
+
+        int zoom = 5;
+        int cellsPerSide = 8;
+        double span = 1.0 / (1 << zoom);
+        // Tesela que contiene Madrid
+        int tileX = (int) (GridClusterer.mercatorX(-3.7) / span);
+        int tileY = (int) (GridClusterer.mercatorY(40) / span);
+
+        // Recorrido exhaustivo: número de fotos y suma de posiciones por celda
+        Map<Integer, double[]> expected = new HashMap<>();
+        Map<Integer, Set<Long>> members = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            double x = GridClusterer.mercatorX(lons[i]);
+            double y = GridClusterer.mercatorY(lats[i]);
+            if ((int) (x / span) != tileX || (int) (y / span) != tileY) {
+                continue;
+            }
+            int column = Math.min(cellsPerSide - 1, (int) ((x - tileX * span) / span * cellsPerSide));
+            int row = Math.min(cellsPerSide - 1, (int) ((y - tileY * span) / span * cellsPerSide));
+            int cell = row * cellsPerSide + column;
+            double[] sums = expected.computeIfAbsent(cell, k -> new double[3]);
+            sums[0]++;
+            sums[1] += x;
+            sums[2] += y;
+            members.computeIfAbsent(cell, k -> new HashSet<>()).add(ids[i]);
+        }
+        assertTrue("La prueba necesita varias celdas con fotos", expected.size() > 4);
+
+        ClusterTile tile = clusterer.cluster(zoom, tileX, tileY, cellsPerSide);
+        assertEquals(expected.size(), tile.size);
+        for (int c = 0; c < tile.size; c++) {
+            int column = (int) ((tile.centerX[c] - tileX * span) / span * cellsPerSide);
+            int row = (int) ((tile.centerY[c] - tileY * span) / span * cellsPerSide);
+            double[] sums = expected.get(row * cellsPerSide + column);
+            assertNotNull(sums);
+            assertEquals((int) sums[0], tile.counts[c]);
+            assertEquals(sums[1] / sums[0], tile.centerX[c], 1e-12);
+            assertEquals(sums[2] / sums[0], tile.centerY[c], 1e-12);
+            assertTrue(members.get(row * cellsPerSide + column).contains(tile.photoIds[c]));
+        }
+    }
+
+    @Test
+    public void constructor_computesBoundingBox() {
+        GridClusterer clusterer = new GridClusterer(new long[]{1, 2, 3},
+                new double[]{40, -33.9, 51.5}, new double[]{-3.7, 151.2, -0.1}, 3);
+        assertEquals(3, clusterer.size());
+        assertEquals(GridClusterer.mercatorX(-3.7), clusterer.minX, 0.0);
+        assertEquals(GridClusterer.mercatorX(151.2), clusterer.maxX, 0.0);
+        assertEquals(GridClusterer.mercatorY(51.5), clusterer.minY, 0.0);
+        assertEquals(GridClusterer.mercatorY(-33.9), clusterer.maxY, 0.0);
+    }
+
+    @Test
+    public void tileKey_roundTrips() {
+        long key = ClusterTile.key(17, 123_456, 98_765);
+        assertEquals(17, ClusterTile.zoomOf(key));
+        assertEquals(123_456, ClusterTile.xOf(key));
+        assertEquals(98_765, ClusterTile.yOf(key));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.nemergentprueba.gallery.viewer;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la traducción entre la foto mostrada (girada según EXIF) y los píxeles guardados:
+ * tamaños intercambiados a 90 y 270 grados y rectángulos comparados píxel a píxel con el giro.
+ */
+public class ImageOrientationTest {
+
+    private static final int SOURCE_WIDTH = 7;
+    private static final int SOURCE_HEIGHT = 4;
+
+    @Test
+    public void size_swapsSidesForQuarterTurns() {
+        assertEquals(7, new ImageOrientation(0, 7, 4).getWidth());
+        assertEquals(4, new ImageOrientation(180, 7, 4).getHeight());
+        assertEquals(4, new ImageOrientation(90, 7, 4).getWidth());
+        assertEquals(7, new ImageOrientation(90, 7, 4).getHeight());
+        assertEquals(4, new ImageOrientation(270, 7, 4).getWidth());
+        assertFalse(new ImageOrientation(180, 7, 4).swapsSides());
+    }
+
+    @Test
+    public void toSource_coversExactlyThePixelsShownInTheRect() {
+        for (int degrees = 0; degrees < 360; degrees += 90) {
+            ImageOrientation orientation = new ImageOrientation(degrees, SOURCE_WIDTH, SOURCE_HEIGHT);
+            int width = orientation.getWidth();
+            int height = orientation.getHeight();
+            // Todos los rectángulos no vacíos de la foto mostrada
+            for (int left = 0; left < width; left++) {
+                for (int right = left + 1; right <= width; right++) {
+                    for (int top = 0; top < height; top++) {
+                        for (int bottom = top + 1; bottom <= height; bottom++) {
+                            int[] source = orientation.toSource(left, top, right, bottom);
+                            String label = degrees + "º " + left + "," + top + "," + right + "," + bottom;
+                            assertEquals(label, shownPixels(degrees, left, top, right, bottom), pixels(source));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void toSource_fullImageMapsToFullSource() {
+        for (int degrees = 0; degrees < 360; degrees += 90) {
+            ImageOrientation orientation = new ImageOrientation(degrees, SOURCE_WIDTH, SOURCE_HEIGHT);
+            int[] source = orientation.toSource(0, 0, orientation.getWidth(), orientation.getHeight());
+            assertArrayEquals(new int[]{0, 0, SOURCE_WIDTH, SOURCE_HEIGHT}, source);
+        }
+    }
+
+    @Test
+    public void constructor_rejectsOtherAngles() {
+        try {
+            new ImageOrientation(45, 7, 4);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // Correcto
+        }
+    }
+
+    // Píxeles guardados que se ven en el rectángulo, girando cada píxel mostrado hacia atrás
+    private static Set<Long> shownPixels(int degrees, int left, int top, int right, int bottom) {
+        Set<Long> result = new HashSet<>();
+        for (int x = left; x < right; x++) {
+            for (int y = top; y < bottom; y++) {
+                int sourceX;
+                int sourceY;
+                switch (degrees) {
+                    case 90:
+                        sourceX = y;
+                        sourceY = SOURCE_HEIGHT - 1 - x;
+                        break;
+                    case 180:
+                        sourceX = SOURCE_WIDTH - 1 - x;
+                        sourceY = SOURCE_HEIGHT - 1 - y;
+                        break;
+                    case 270:
+                        sourceX = SOURCE_WIDTH - 1 - y;
+                        sourceY = x;
+                        break;
+                    default:
+                        sourceX = x;
+                        sourceY = y;
+                }
+                result.add(key(sourceX, sourceY));
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> pixels(int[] rect) {
+        Set<Long> result = new HashSet<>();
+        for (int x = rect[0]; x < rect[2]; x++) {
+            for (int y = rect[1]; y < rect[3]; y++) {
+                assertTrue(x >= 0 && x < SOURCE_WIDTH && y >= 0 && y < SOURCE_HEIGHT);
+                result.add(key(x, y));
+            }
+        }
+        return result;
+    }
+
+    private static long key(int x, int y) {
+        return (long) x << 32 | y;
+    }
+}
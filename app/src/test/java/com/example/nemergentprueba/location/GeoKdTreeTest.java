@@ -0,0 +1,215 @@
+package com.example.nemergentprueba.location;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del índice espacial: resultados idénticos a una búsqueda exhaustiva por haversine
+ * (también tras inserciones y borrados incrementales y con un catálogo de 100.000 puntos).
+ * El benchmark de construcción y consulta con ese mismo catálogo no comprueba tiempos y solo
+ * se ejecuta con -Pbenchmarks; sus resultados salen por la salida estándar del informe.
+ */
+public class GeoKdTreeTest {
+
+    private static final int LARGE_POINTS = 100_000;
+    private static final int LARGE_QUERIES = 50;
+    private static final int BENCHMARK_QUERIES = 20_000;
+    private static final int K = 50;
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6371.0 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Distancias de los k puntos vivos más cercanos, calculadas recorriéndolos todos
+    private static double[] bruteForce(double[] lats, double[] lons, boolean[] alive,
+                                       double lat, double lon, int k) {
+        double[] distances = new double[lats.length];
+        int n = 0;
+        for (int i = 0; i < lats.length; i++) {
+            if (alive[i]) {
+                distances[n++] = haversineKm(lat, lon, lats[i], lons[i]);
+            }
+        }
+        double[] sorted = Arrays.copyOf(distances, n);
+        Arrays.sort(sorted);
+        return Arrays.copyOf(sorted, Math.min(k, n));
+    }
+
+    private static void assertMatchesBruteForce(GeoKdTree tree, double[] lats, double[] lons,
+                                                boolean[] alive, Random random) {
+        long[] ids = new long[K];
+        double[] distances = new double[K];
+        for (int q = 0; q < 200; q++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            int found = tree.nearest(lat, lon, K, ids, distances);
+            double[] expected = bruteForce(lats, lons, alive, lat, lon, K);
+
+            assertEquals(expected.length, found);
+            for (int i = 0; i < found; i++) {
+                assertEquals(expected[i], distances[i], 1e-6);
+                int index = (int) ids[i];
+                assertTrue("Devuelto un punto borrado", alive[index]);
+                assertEquals(distances[i], haversineKm(lat, lon, lats[index], lons[index]), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void nearest_matchesBruteForceAfterIncrementalUpdates() {
+        Random random = new Random(7);
+        int n = 5_000;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        long[] ids = new long[n];
+        boolean[] alive = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = random.nextDouble() * 180 - 90;
+            lons[i] = random.nextDouble() * 360 - 180;
+            ids[i] = i;
+        }
+
+        // Mitad construida de golpe, mitad insertada de una en una (provoca reconstrucciones)
+        GeoKdTree tree = new GeoKdTree();
+        tree.build(ids, lats, lons, n / 2);
+        Arrays.fill(alive, 0, n / 2, true);
+        for (int i = n / 2; i < n; i++) {
+            tree.insert(i, lats[i], lons[i]);
+            alive[i] = true;
+        }
+        assertEquals(n, tree.size());
+        assertMatchesBruteForce(tree, lats, lons, alive, random);
+
+        // Borrar un tercio y mover otro tanto
+        for (int i = 0; i < n; i += 3) {
+            assertTrue(tree.remove(i));
+            alive[i] = false;
+        }
+        assertFalse(tree.remove(0));
+        for (int i = 1; i < n; i += 3) {
+            lats[i] = random.nextDouble() * 180 - 90;
+            lons[i] = random.nextDouble() * 360 - 180;
+            tree.insert(i, lats[i], lons[i]);
+        }
+        assertEquals(n - (n + 2) / 3, tree.size());
+        assertMatchesBruteForce(tree, lats, lons, alive, random);
+    }
+
+    @Test
+    public void nearest_handlesAntimeridianAndEmptyIndex() {
+        GeoKdTree tree = new GeoKdTree();
+        long[] ids = new long[2];
+        double[] distances = new double[2];
+        assertEquals(0, tree.nearest(0, 0, 2, ids, distances));
+
+        tree.insert(1, 0, 179.9);
+        tree.insert(2, 0, 170);
+        assertEquals(2, tree.nearest(0, -179.9, 2, ids, distances));
+        assertEquals(1, ids[0]);
+        assertEquals(haversineKm(0, -179.9, 0, 179.9), distances[0], 1e-6);
+    }
+
+    // Catálogo realista: la mayoría de fotos concentradas en unas pocas ciudades
+    private static void fillClusteredCatalog(Random random, long[] ids, double[] lats, double[] lons) {
+        double[][] centers = {{40.4168, -3.7038}, {41.3874, 2.1686}, {48.8566, 2.3522}, {35.6762, 139.6503}};
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+            if (random.nextInt(10) < 8) {
+                double[] center = centers[random.nextInt(centers.length)];
+                lats[i] = center[0] + random.nextGaussian() * 0.05;
+                lons[i] = center[1] + random.nextGaussian() * 0.05;
+            } else {
+                lats[i] = random.nextDouble() * 140 - 70;
+                lons[i] = random.nextDouble() * 360 - 180;
+            }
+        }
+    }
+
+    @Test
+    public void nearest_matchesBruteForceOnLargeClusteredCatalog() {
+        Random random = new Random(42);
+        long[] ids = new long[LARGE_POINTS];
+        double[] lats = new double[LARGE_POINTS];
+        double[] lons = new double[LARGE_POINTS];
+        boolean[] alive = new boolean[LARGE_POINTS];
+        fillClusteredCatalog(random, ids, lats, lons);
+        Arrays.fill(alive, true);
+
+        GeoKdTree tree = new GeoKdTree();
+        tree.build(ids, lats, lons, LARGE_POINTS);
+        assertEquals(LARGE_POINTS, tree.size());
+
+        // Consultas junto a puntos del catálogo: los vecinos están muy apiñados
+        long[] outIds = new long[K];
+        double[] outDistances = new double[K];
+        for (int q = 0; q < LARGE_QUERIES; q++) {
+            int source = random.nextInt(LARGE_POINTS);
+            double lat = lats[source] + random.nextGaussian() * 0.01;
+            double lon = lons[source] + random.nextGaussian() * 0.01;
+            int found = tree.nearest(lat, lon, K, outIds, outDistances);
+            double[] expected = bruteForce(lats, lons, alive, lat, lon, K);
+
+            assertEquals(K, found);
+            for (int i = 0; i < found; i++) {
+                assertEquals(expected[i], outDistances[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void benchmark_buildAndQuery100kPoints() {
+        Assume.assumeTrue("Benchmark desactivado; se activa con -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        Random random = new Random(42);
+        long[] ids = new long[LARGE_POINTS];
+        double[] lats = new double[LARGE_POINTS];
+        double[] lons = new double[LARGE_POINTS];
+        fillClusteredCatalog(random, ids, lats, lons);
+
+        GeoKdTree tree = new GeoKdTree();
+        // Calentamiento del JIT
+        for (int i = 0; i < 3; i++) {
+            tree.build(ids, lats, lons, LARGE_POINTS);
+        }
+        long buildStart = System.nanoTime();
+        tree.build(ids, lats, lons, LARGE_POINTS);
+        long buildNs = System.nanoTime() - buildStart;
+
+        long[] outIds = new long[K];
+        double[] outDistances = new double[K];
+        double[] queryLats = new double[BENCHMARK_QUERIES];
+        double[] queryLons = new double[BENCHMARK_QUERIES];
+        for (int q = 0; q < BENCHMARK_QUERIES; q++) {
+            int source = random.nextInt(LARGE_POINTS);
+            queryLats[q] = lats[source] + random.nextGaussian() * 0.01;
+            queryLons[q] = lons[source] + random.nextGaussian() * 0.01;
+        }
+        for (int q = 0; q < BENCHMARK_QUERIES; q++) {
+            tree.nearest(queryLats[q], queryLons[q], K, outIds, outDistances);
+        }
+
+        long[] latencies = new long[BENCHMARK_QUERIES];
+        for (int q = 0; q < BENCHMARK_QUERIES; q++) {
+            long start = System.nanoTime();
+            tree.nearest(queryLats[q], queryLons[q], K, outIds, outDistances);
+            latencies[q] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        // Solo informa: los tiempos dependen de la máquina y no se comprueban
+        System.out.println(String.format(Locale.ROOT,
+                "GeoKdTree %d puntos: construcción %.1f ms, consulta k=%d p50 %.1f us, p99 %.1f us",
+                LARGE_POINTS, buildNs / 1e6, K,
+                latencies[BENCHMARK_QUERIES / 2] / 1e3, latencies[BENCHMARK_QUERIES * 99 / 100] / 1e3));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.nemergentprueba.location;
+
+import android.location.Location;
+
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del reparto de posiciones del motor con un proveedor simulado: la posición conocida
+ * llega a cada consumidor nuevo, también cuando la suscripción se cierra y se vuelve a abrir.
+ */
+public class LocationEngineTest {
+
+    private File traceDirectory;
+    private FakeProvider provider;
+    private LocationEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        traceDirectory = Files.createTempDirectory("engine").toFile();
+        provider = new FakeProvider();
+        engine = new LocationEngine(null, provider, new LocationCache(null), new LocationTraceLog(traceDirectory));
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = traceDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        traceDirectory.delete();
+    }
+
+    @Test
+    public void addConsumer_afterRemovingEveryConsumerDeliversLastFix() {
+        RecordingConsumer first = new RecordingConsumer();
+        engine.addConsumer(first);
+        assertTrue(engine.isActive());
+        Location fix = new TestLocation(40.4, -3.7, 1_000_000_000L);
+        provider.deliver(fix);
+        assertEquals(Collections.singletonList(fix), first.fixes);
+
+        engine.removeConsumer(first);
+        assertFalse(engine.isActive());
+        assertNull(provider.callback);
+
+        // Al reabrir, la última posición del proveedor es la misma y el motor la descarta
+        provider.lastKnown = fix;
+        RecordingConsumer second = new RecordingConsumer();
+        engine.addConsumer(second);
+        assertTrue(engine.isActive());
+        assertEquals(Collections.singletonList(fix), second.fixes);
+
+        // Las siguientes posiciones llegan con normalidad
+        Location next = new TestLocation(40.5, -3.6, 2_000_000_000L);
+        provider.deliver(next);
+        assertEquals(2, second.fixes.size());
+        assertSame(next, second.fixes.get(1));
+        assertEquals(1, first.fixes.size());
+    }
+
+    @Test
+    public void addConsumer_whileActiveDeliversLastFixOnce() {
+        RecordingConsumer first = new RecordingConsumer();
+        engine.addConsumer(first);
+        Location fix = new TestLocation(40.4, -3.7, 1_000_000_000L);
+        provider.deliver(fix);
+
+        RecordingConsumer second = new RecordingConsumer();
+        engine.addConsumer(second);
+        engine.addConsumer(second);
+        assertEquals(Collections.singletonList(fix), second.fixes);
+        assertEquals(1, first.fixes.size());
+        assertEquals(1, provider.subscriptions);
+    }
+
+    @Test
+    public void addConsumer_withoutKnownFixWaitsForProvider() {
+        RecordingConsumer consumer = new RecordingConsumer();
+        engine.addConsumer(consumer);
+        assertTrue(consumer.fixes.isEmpty());
+
+        // Una posición más antigua que la entregada se descarta
+        Location fix = new TestLocation(40.4, -3.7, 5_000_000_000L);
+        provider.deliver(fix);
+        provider.deliver(new TestLocation(41, -3, 4_000_000_000L));
+        assertEquals(Collections.singletonList(fix), consumer.fixes);
+        assertEquals(1, engine.getFixesDropped());
+    }
+
+    private static class FakeProvider implements LocationEngine.Provider {
+        LocationCallback callback;
+        Location lastKnown;
+        int subscriptions;
+
+        void deliver(Location location) {
+            callback.onLocationResult(LocationResult.create(Collections.singletonList(location)));
+        }
+
+        @Override
+        public boolean hasPermission() {
+            return true;
+        }
+
+        @Override
+        public void requestUpdates(LocationRequest request, LocationCallback callback) {
+            if (this.callback != callback) {
+                subscriptions++;
+            }
+            this.callback = callback;
+        }
+
+        @Override
+        public void removeUpdates(LocationCallback callback) {
+            if (this.callback == callback) {
+                this.callback = null;
+            }
+        }
+
+        @Override
+        public void getLastLocation(OnSuccessListener<Location> listener) {
+            listener.onSuccess(lastKnown);
+        }
+
+        @Override
+        public void getCurrentLocation(int priority, OnSuccessListener<Location> listener) {
+            listener.onSuccess(lastKnown);
+        }
+    }
+
+    private static class RecordingConsumer implements LocationEngine.Consumer {
+        final List<Location> fixes = new ArrayList<>();
+
+        @Override
+        public void onLocationChanged(Location location) {
+            fixes.add(location);
+        }
+
+        @Override
+        public void onLocationError(String error) {
+            fail("Error inesperado: " + error);
+        }
+    }
+
+    // Location de android.jar no guarda nada en las pruebas locales
+    private static class TestLocation extends Location {
+        private final double latitude;
+        private final double longitude;
+        private final long elapsedRealtimeNanos;
+
+        TestLocation(double latitude, double longitude, long elapsedRealtimeNanos) {
+            super("test");
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+        }
+
+        @Override
+        public double getLatitude() {
+            return latitude;
+        }
+
+        @Override
+        public double getLongitude() {
+            return longitude;
+        }
+
+        @Override
+        public long getElapsedRealtimeNanos() {
+            return elapsedRealtimeNanos;
+        }
+
+        @Override
+        public long getTime() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public boolean hasAccuracy() {
+            return false;
+        }
+    }
+}
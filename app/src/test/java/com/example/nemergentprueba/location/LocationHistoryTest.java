@@ -0,0 +1,141 @@
+package com.example.nemergentprueba.location;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del historial de posiciones: búfer circular (capacidad, sobrescritura de la más
+ * antigua y orden tras dar la vuelta) e interpolación en el instante de captura
+ * (corte por hueco de 30 s y antigüedad de la posición usada).
+ */
+public class LocationHistoryTest {
+
+    private static final float ACCURACY = 5f;
+
+    @Test
+    public void add_keepsLastCapacityEntriesAcrossWraparound() {
+        LocationHistory history = new LocationHistory(4);
+        for (int i = 1; i <= 10; i++) {
+            history.add(i * 1000L, i, -i, ACCURACY);
+        }
+        assertEquals(4, history.size());
+
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        // Las entradas 1..6 se han sobrescrito: lo más antiguo disponible es t=7000
+        assertTrue(history.locate(1000, fix));
+        assertEquals(7, fix.latitude, 0.0);
+        assertEquals(6000, fix.stalenessMs);
+        assertFalse(fix.interpolated);
+
+        // Tras dar la vuelta la búsqueda binaria sigue viendo el orden lógico
+        assertTrue(history.locate(8500, fix));
+        assertEquals(8.5, fix.latitude, 1e-9);
+        assertEquals(-8.5, fix.longitude, 1e-9);
+        assertTrue(fix.interpolated);
+
+        assertTrue(history.locate(20_000, fix));
+        assertEquals(10, fix.latitude, 0.0);
+        assertEquals(10_000, fix.stalenessMs);
+    }
+
+    @Test
+    public void add_ignoresOutOfOrderEntries() {
+        LocationHistory history = new LocationHistory(4);
+        history.add(2000, 1, 1, ACCURACY);
+        history.add(2000, 2, 2, ACCURACY);
+        history.add(1000, 3, 3, ACCURACY);
+        assertEquals(1, history.size());
+    }
+
+    @Test
+    public void locate_emptyHistoryLeavesFixUntouched() {
+        LocationHistory history = new LocationHistory(2);
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        fix.latitude = 42;
+        assertFalse(history.locate(1000, fix));
+        assertEquals(42, fix.latitude, 0.0);
+
+        history.add(1000, 1, 1, ACCURACY);
+        history.clear();
+        assertEquals(0, history.size());
+        assertFalse(history.locate(1000, fix));
+    }
+
+    @Test
+    public void locate_interpolatesWithinGapAndReportsStaleness() {
+        LocationHistory history = new LocationHistory(8);
+        history.add(10_000, 40.0, -3.0, 4f);
+        history.add(30_000, 41.0, -4.0, 12f);
+
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        assertTrue(history.locate(15_000, fix));
+        assertTrue(fix.interpolated);
+        assertEquals(40.25, fix.latitude, 1e-9);
+        assertEquals(-3.25, fix.longitude, 1e-9);
+        // La peor precisión de los dos extremos y la distancia al más cercano
+        assertEquals(12f, fix.accuracy, 0f);
+        assertEquals(5000, fix.stalenessMs);
+
+        // Coincidencia exacta: la posición tal cual
+        assertTrue(history.locate(30_000, fix));
+        assertFalse(fix.interpolated);
+        assertEquals(41.0, fix.latitude, 0.0);
+        assertEquals(0, fix.stalenessMs);
+    }
+
+    @Test
+    public void resolve_usesNearestSideBeyondGapCutoff() {
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        long gap = LocationHistory.MAX_INTERPOLATION_GAP_MS;
+
+        // Justo en el límite todavía se interpola
+        LocationHistory.resolve(1000, true, 0, 0, 0, 1f, true, gap, 10, 10, 1f, fix);
+        assertTrue(fix.interpolated);
+
+        // Hueco mayor: la más cercana en el tiempo
+        LocationHistory.resolve(1000, true, 0, 1, 1, 1f, true, gap + 1, 2, 2, 1f, fix);
+        assertFalse(fix.interpolated);
+        assertEquals(1, fix.latitude, 0.0);
+        assertEquals(1000, fix.stalenessMs);
+
+        LocationHistory.resolve(gap, true, 0, 1, 1, 1f, true, gap + 1, 2, 2, 1f, fix);
+        assertEquals(2, fix.latitude, 0.0);
+        assertEquals(1, fix.stalenessMs);
+
+        // Solo un lado disponible
+        LocationHistory.resolve(5000, false, 0, 0, 0, 0f, true, 9000, 3, 3, 2f, fix);
+        assertEquals(3, fix.latitude, 0.0);
+        assertEquals(4000, fix.stalenessMs);
+        LocationHistory.resolve(5000, true, 1000, 4, 4, 2f, false, 0, 0, 0, 0f, fix);
+        assertEquals(4, fix.latitude, 0.0);
+        assertEquals(4000, fix.stalenessMs);
+    }
+
+    @Test
+    public void add_treatsNonFiniteOrNegativeAccuracyAsUnknown() {
+        LocationHistory history = new LocationHistory(4);
+        history.add(1000, 1, 1, Float.NaN);
+        history.add(2000, 2, 2, Float.POSITIVE_INFINITY);
+        history.add(3000, 3, 3, -1f);
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        for (long t = 1000; t <= 3000; t += 500) {
+            assertTrue(history.locate(t, fix));
+            assertNull(fix.getAccuracyOrNull());
+        }
+
+        // Un valor no válido leído de otra fuente tampoco sale de resolve
+        LocationHistory.resolve(1000, true, 1000, 0, 0, Float.NEGATIVE_INFINITY, false, 0, 0, 0, 0f, fix);
+        assertNull(fix.getAccuracyOrNull());
+    }
+
+    @Test
+    public void constructor_rejectsTinyCapacity() {
+        try {
+            new LocationHistory(1);
+            fail("Debería exigir capacidad 2");
+        } catch (IllegalArgumentException expected) {
+            // Capacidad insuficiente para interpolar
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.nemergentprueba.location;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prueba de estrés del publicador de instantáneas: lectores y escritores concurrentes
+ * sin cerrojos, comprobando que nunca se lee una instantánea mezclada ni se retrocede.
+ */
+public class LocationSnapshotPublisherTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int PUBLISHES_PER_WRITER = 200_000;
+
+    // Instantánea cuyos campos derivan todos de la secuencia para detectar lecturas mezcladas
+    private static LocationSnapshot snapshotFor(long sequence) {
+        return new LocationSnapshot(null, sequence, -sequence, sequence % 100, sequence, sequence, sequence);
+    }
+
+    @Test
+    public void publish_discardsOlderSnapshots() {
+        LocationSnapshotPublisher publisher = new LocationSnapshotPublisher();
+        assertSame(LocationSnapshot.EMPTY, publisher.get());
+
+        assertTrue(publisher.publish(snapshotFor(10)));
+        assertFalse(publisher.publish(snapshotFor(5)));
+        assertFalse(publisher.publish(snapshotFor(10)));
+        assertEquals(10, publisher.get().sequence);
+
+        assertTrue(publisher.publish(snapshotFor(11)));
+        assertEquals(11.0, publisher.get().latitude, 0.0);
+    }
+
+    @Test
+    public void concurrentReadersNeverSeeTornOrOlderSnapshots() throws Exception {
+        LocationSnapshotPublisher publisher = new LocationSnapshotPublisher();
+        AtomicLong sequenceSource = new AtomicLong();
+        AtomicBoolean writersDone = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        AtomicLong totalReads = new AtomicLong();
+
+        for (int w = 0; w < WRITERS; w++) {
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < PUBLISHES_PER_WRITER; i++) {
+                    // Las secuencias se reparten entre escritores y llegan desordenadas
+                    publisher.publish(snapshotFor(sequenceSource.incrementAndGet()));
+                }
+            }, "writer-" + w));
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                long lastSequence = -1;
+                long reads = 0;
+                while (!writersDone.get() && failure.get() == null) {
+                    LocationSnapshot snapshot = publisher.get();
+                    long sequence = snapshot.sequence;
+                    if (snapshot != LocationSnapshot.EMPTY
+                            && (snapshot.latitude != sequence || snapshot.longitude != -sequence
+                            || snapshot.timeMs != sequence || snapshot.elapsedRealtimeMs != sequence)) {
+                        failure.compareAndSet(null, "Instantánea mezclada en la secuencia " + sequence);
+                    }
+                    if (sequence < lastSequence) {
+                        failure.compareAndSet(null, "Retroceso de " + lastSequence + " a " + sequence);
+                    }
+                    lastSequence = sequence;
+                    reads++;
+                }
+                totalReads.addAndGet(reads);
+            }, "reader-" + r));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (int i = 0; i < WRITERS; i++) {
+            threads.get(i).join(TimeUnit.SECONDS.toMillis(60));
+        }
+        writersDone.set(true);
+        for (int i = WRITERS; i < threads.size(); i++) {
+            threads.get(i).join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(totalReads.get() > 0);
+        // La última secuencia emitida siempre acaba publicada
+        assertEquals(sequenceSource.get(), publisher.get().sequence);
+    }
+
+    @Test
+    public void readsDoNotAllocate() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        LocationSnapshotPublisher publisher = new LocationSnapshotPublisher();
+        publisher.publish(snapshotFor(1));
+
+        double sum = 0;
+        // Calentamiento para que el JIT compile el bucle
+        for (int i = 0; i < 100_000; i++) {
+            sum += publisher.get().latitude;
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            LocationSnapshot snapshot = publisher.get();
+            sum += snapshot.latitude + snapshot.longitude;
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(sum > 0);
+        // Margen para la propia medición; un millón de lecturas con reserva superaría los MB
+        assertTrue("Bytes reservados durante las lecturas: " + allocated, allocated < 4096);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
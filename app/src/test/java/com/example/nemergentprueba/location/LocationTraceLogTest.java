@@ -0,0 +1,158 @@
+package com.example.nemergentprueba.location;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del registro persistente de posiciones con segmentos pequeños: cambio de segmento,
+ * búsqueda por hora entre segmentos, retención por número y por antigüedad, reapertura
+ * desde disco y precisión no válida.
+ */
+public class LocationTraceLogTest {
+
+    private static final int RECORDS_PER_SEGMENT = 4;
+    // Horas recientes: al abrir el registro se borra lo que supera la retención
+    private static final long BASE = System.currentTimeMillis() - 3_600_000L;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("trace").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void append_rollsOverToNewSegmentsWhenFull() throws IOException {
+        LocationTraceLog log = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(log.append(BASE + i * 1000L, i, i, 5f));
+        }
+        assertEquals(10, log.size());
+        assertEquals(3, log.getSegmentCount());
+        assertEquals(3, directory.listFiles().length);
+
+        // Las que no son posteriores a la última se ignoran
+        assertFalse(log.append(BASE + 9000, 0, 0, 5f));
+        assertFalse(log.append(BASE, 0, 0, 5f));
+        assertEquals(10, log.size());
+    }
+
+    @Test
+    public void locate_findsNeighboursAcrossSegmentBoundaries() throws IOException {
+        LocationTraceLog log = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        for (int i = 0; i < 10; i++) {
+            log.append(BASE + i * 10_000L, i, -i, 5f);
+        }
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+
+        // Entre el último registro del primer segmento (3) y el primero del segundo (4)
+        assertTrue(log.locate(BASE + 35_000, fix));
+        assertTrue(fix.interpolated);
+        assertEquals(3.5, fix.latitude, 1e-9);
+        assertEquals(5000, fix.stalenessMs);
+
+        // Coincidencia exacta con el primer registro de un segmento
+        assertTrue(log.locate(BASE + 80_000, fix));
+        assertEquals(8, fix.latitude, 0.0);
+        assertEquals(0, fix.stalenessMs);
+
+        // Fuera del rango: el extremo más cercano
+        assertTrue(log.locate(BASE - 60_000, fix));
+        assertEquals(0, fix.latitude, 0.0);
+        assertEquals(60_000, fix.stalenessMs);
+        assertTrue(log.locate(BASE + 200_000, fix));
+        assertEquals(9, fix.latitude, 0.0);
+        assertFalse(fix.interpolated);
+    }
+
+    @Test
+    public void locate_emptyLogReturnsFalse() throws IOException {
+        LocationTraceLog log = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        assertFalse(log.locate(BASE, new LocationHistory.Fix()));
+    }
+
+    @Test
+    public void retention_dropsSegmentsBeyondMaxCount() throws IOException {
+        LocationTraceLog log = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        int records = RECORDS_PER_SEGMENT * (LocationTraceLog.MAX_SEGMENTS + 2);
+        for (int i = 0; i < records; i++) {
+            log.append(BASE + i * 1000L, i, i, 5f);
+        }
+        assertEquals(LocationTraceLog.MAX_SEGMENTS, log.getSegmentCount());
+        assertEquals(LocationTraceLog.MAX_SEGMENTS, directory.listFiles().length);
+
+        // Lo más antiguo que queda es el primer registro del segmento más antiguo conservado
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        log.locate(BASE, fix);
+        assertEquals(2 * RECORDS_PER_SEGMENT, fix.latitude, 0.0);
+    }
+
+    @Test
+    public void retention_dropsSegmentsOlderThanRetention() throws IOException {
+        long old = BASE - LocationTraceLog.RETENTION_MS - 60_000;
+        LocationTraceLog log = new LocationTraceLog(directory, 2);
+        log.append(old, 1, 1, 5f);
+        log.append(old + 1000, 2, 2, 5f);
+        // El segmento nuevo aplica la retención respecto a su propia hora
+        log.append(BASE, 3, 3, 5f);
+
+        assertEquals(1, log.getSegmentCount());
+        assertEquals(1, log.size());
+    }
+
+    @Test
+    public void reopen_readsRecordsBackFromDisk() throws IOException {
+        LocationTraceLog log = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        for (int i = 0; i < 6; i++) {
+            log.append(BASE + i * 1000L, 40 + i, -3, 8f);
+        }
+        log.flush();
+
+        LocationTraceLog reopened = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        assertEquals(6, reopened.size());
+        assertEquals(2, reopened.getSegmentCount());
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+        assertTrue(reopened.locate(BASE + 5000, fix));
+        assertEquals(45, fix.latitude, 0.0);
+        assertEquals(Float.valueOf(8f), fix.getAccuracyOrNull());
+        // Sigue aceptando registros a continuación
+        assertTrue(reopened.append(BASE + 6000, 46, -3, 8f));
+        assertFalse(reopened.append(BASE + 5000, 0, 0, 8f));
+    }
+
+    @Test
+    public void append_storesInvalidAccuracyAsUnknown() throws IOException {
+        LocationTraceLog log = new LocationTraceLog(directory, RECORDS_PER_SEGMENT);
+        log.append(BASE, 1, 1, Float.POSITIVE_INFINITY);
+        log.append(BASE + 1000, 2, 2, -3f);
+        log.append(BASE + 2000, 3, 3, 4f);
+        LocationHistory.Fix fix = new LocationHistory.Fix();
+
+        log.locate(BASE, fix);
+        assertNull(fix.getAccuracyOrNull());
+        // Interpolar con un extremo sin precisión da precisión desconocida
+        log.locate(BASE + 1500, fix);
+        assertTrue(fix.interpolated);
+        assertNull(fix.getAccuracyOrNull());
+        log.locate(BASE + 2000, fix);
+        assertEquals(Float.valueOf(4f), fix.getAccuracyOrNull());
+    }
+}
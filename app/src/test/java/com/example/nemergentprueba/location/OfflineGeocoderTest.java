@@ -0,0 +1,59 @@
+package com.example.nemergentprueba.location;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del geocodificador sin red: carga perezosa del índice una sola vez, fallo de
+ * carga sin reintentos y distinción entre "sin lugar cerca" e "índice no disponible".
+ */
+public class OfflineGeocoderTest {
+
+    @Test
+    public void getPlaceName_loadsIndexLazilyOnce() {
+        AtomicInteger opens = new AtomicInteger();
+        byte[] bytes = PlaceIndexTest.indexBytes("Madrid", 40.4168, -3.7038);
+        OfflineGeocoder geocoder = new OfflineGeocoder(() -> {
+            opens.incrementAndGet();
+            return new ByteArrayInputStream(bytes);
+        });
+        assertEquals(0, opens.get());
+
+        assertEquals("Madrid", geocoder.getPlaceName(40.42, -3.70));
+        assertEquals("Madrid", geocoder.getPlaceName(40.40, -3.71));
+        assertEquals(1, opens.get());
+    }
+
+    @Test
+    public void getPlaceName_returnsEmptyWhenNothingIsNear() {
+        byte[] bytes = PlaceIndexTest.indexBytes("Madrid", 40.4168, -3.7038);
+        OfflineGeocoder geocoder = new OfflineGeocoder(() -> new ByteArrayInputStream(bytes));
+
+        assertEquals("", geocoder.getPlaceName(48.8566, 2.3522));
+    }
+
+    @Test
+    public void getPlaceName_returnsNullWithoutRetryingWhenIndexFails() {
+        AtomicInteger opens = new AtomicInteger();
+        OfflineGeocoder geocoder = new OfflineGeocoder(() -> {
+            opens.incrementAndGet();
+            throw new FileNotFoundException("places.bin");
+        });
+
+        assertNull(geocoder.getPlaceName(40.42, -3.70));
+        assertNull(geocoder.getPlaceName(40.42, -3.70));
+        assertEquals(1, opens.get());
+    }
+
+    @Test
+    public void getPlaceName_returnsNullForCorruptIndex() {
+        OfflineGeocoder geocoder = new OfflineGeocoder(() -> new ByteArrayInputStream(new byte[]{0, 1, 2}));
+
+        assertNull(geocoder.getPlaceName(40.42, -3.70));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.nemergentprueba.location;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del índice de lugares: búsqueda del más cercano dentro del radio, celdas vecinas,
+ * antimeridiano, latitudes altas donde las celdas son más estrechas que el radio y el
+ * índice incluido en los assets.
+ */
+public class PlaceIndexTest {
+
+    private static final double RADIUS_KM = OfflineGeocoder.MAX_LABEL_DISTANCE_KM;
+
+    @Test
+    public void nearestName_picksClosestPlaceWithinRadius() throws IOException {
+        PlaceIndex index = index(
+                "Madrid", 40.4168, -3.7038,
+                "Getafe", 40.3057, -3.7329,
+                "Toledo", 39.8628, -4.0273);
+        assertEquals(3, index.size());
+
+        assertEquals("Madrid", index.nearestName(40.42, -3.70, RADIUS_KM));
+        assertEquals("Getafe", index.nearestName(40.30, -3.73, RADIUS_KM));
+        // Toledo está a unos 15 km: dentro del radio aunque caiga en otra celda
+        assertEquals("Toledo", index.nearestName(39.99, -4.00, RADIUS_KM));
+        // Nada a menos de 25 km
+        assertNull(index.nearestName(41.0, -3.7, RADIUS_KM));
+        assertNull(index.nearestName(40.42, -3.70, 0.01));
+    }
+
+    @Test
+    public void nearestName_wrapsAroundAntimeridian() throws IOException {
+        PlaceIndex index = index("Taveuni", -16.85, 179.98);
+        // Unos 10 km al este, al otro lado de la longitud 180
+        assertEquals("Taveuni", index.nearestName(-16.85, -179.925, RADIUS_KM));
+    }
+
+    @Test
+    public void nearestName_widensLongitudeSearchAtHighLatitudes() throws IOException {
+        // A 84° una celda mide unos 16 km en longitud: un lugar a 20 km queda a dos celdas
+        double latitude = 84;
+        double cellDeg = 360.0 / 256;
+        double queryLon = 10 * cellDeg + cellDeg * 0.95;
+        double kmPerDeg = Math.PI / 180 * 6371 * Math.cos(Math.toRadians(latitude));
+        double placeLon = queryLon + 20 / kmPerDeg;
+        PlaceIndex index = index("Alert", latitude, placeLon);
+
+        assertTrue(PlaceIndex.haversineKm(latitude, queryLon, latitude, placeLon) < RADIUS_KM);
+        assertEquals("Alert", index.nearestName(latitude, queryLon, RADIUS_KM));
+        // Junto al polo todas las longitudes están cerca
+        PlaceIndex pole = index("Polo", 89.95, 120);
+        assertEquals("Polo", pole.nearestName(89.95, -60, RADIUS_KM));
+    }
+
+    @Test
+    public void cellKey_isSharedByNearbyPointsOnly() {
+        long key = PlaceIndex.cellKey(40.4168, -3.7038, 16);
+        assertEquals(key, PlaceIndex.cellKey(40.4169, -3.7037, 16));
+        assertTrue(key != PlaceIndex.cellKey(40.45, -3.7038, 16));
+    }
+
+    @Test
+    public void load_rejectsInvalidData() {
+        try {
+            PlaceIndex.load(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}));
+            fail("Debería rechazar un archivo sin la cabecera del índice");
+        } catch (IOException expected) {
+            // Magic incorrecto
+        }
+    }
+
+    @Test
+    public void bundledAsset_resolvesKnownPlaces() throws IOException {
+        File asset = new File("src/main/assets/places.bin");
+        if (!asset.exists()) {
+            asset = new File("app/src/main/assets/places.bin");
+        }
+        assertTrue("No se encuentra " + asset, asset.exists());
+        PlaceIndex index;
+        try (InputStream is = new FileInputStream(asset)) {
+            index = PlaceIndex.load(is);
+        }
+        assertTrue(index.size() > 100);
+        assertEquals("Madrid", index.nearestName(40.4168, -3.7038, RADIUS_KM));
+        assertEquals("Buenos Aires", index.nearestName(-34.6037, -58.3816, RADIUS_KM));
+        // En mitad del Atlántico no hay nada
+        assertNull(index.nearestName(30.0, -40.0, RADIUS_KM));
+    }
+
+    /**
+     * Construye un índice en memoria con el formato de tools/places/PlaceIndexBuilder
+     * @param places Nombre, latitud y longitud de cada lugar, seguidos
+     */
+    static PlaceIndex index(Object... places) throws IOException {
+        return PlaceIndex.load(new ByteArrayInputStream(indexBytes(places)));
+    }
+
+    /**
+     * Bytes del índice con esos lugares, en el formato del asset
+     */
+    static byte[] indexBytes(Object... places) {
+        List<Object[]> records = new ArrayList<>();
+        for (int i = 0; i < places.length; i += 3) {
+            double latitude = ((Number) places[i + 1]).doubleValue();
+            double longitude = ((Number) places[i + 2]).doubleValue();
+            long key = PlaceIndex.cellKey(latitude, longitude, PlaceIndex.KEY_BITS);
+            records.add(new Object[]{key, latitude, longitude, places[i]});
+        }
+        records.sort(Comparator.comparingLong(r -> (Long) r[0]));
+
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(16 + records.size() * 20 + 1024);
+        buffer.putInt(0x504C4349).putInt(1).putInt(records.size()).putInt(16 + records.size() * 20);
+        for (Object[] record : records) {
+            byte[] name = ((String) record[3]).getBytes(StandardCharsets.UTF_8);
+            buffer.putLong((Long) record[0]);
+            buffer.putFloat(((Double) record[1]).floatValue());
+            buffer.putFloat(((Double) record[2]).floatValue());
+            buffer.putInt(names.size());
+            names.write(name.length >> 8);
+            names.write(name.length);
+            names.write(name, 0, name.length);
+        }
+        buffer.put(names.toByteArray());
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.nemergentprueba.network;
+
+import com.example.nemergentprueba.network.probe.BlockingPingProbe;
+import com.example.nemergentprueba.network.probe.PingProbe;
+import com.example.nemergentprueba.network.probe.ProbeType;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del motor de ping contra servidores TCP locales: resultados separados por destino,
+ * límite global de sondeos simultáneos, cancelación y registro de resultados sin observadores.
+ */
+public class PingEngineTest {
+
+    private final ExecutorService callbacks = Executors.newSingleThreadExecutor();
+    private final List<ServerSocket> servers = new ArrayList<>();
+    private PingEngine engine;
+
+    @After
+    public void tearDown() throws IOException {
+        if (engine != null) {
+            engine.shutdown();
+        }
+        for (ServerSocket server : servers) {
+            server.close();
+        }
+        callbacks.shutdownNow();
+    }
+
+    private PingTarget listen() throws IOException {
+        // El handshake lo completa el sistema aunque nadie llame a accept()
+        ServerSocket server = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        servers.add(server);
+        return new PingTarget("127.0.0.1", server.getLocalPort());
+    }
+
+    private static PingTarget closedPort() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return new PingTarget("127.0.0.1", server.getLocalPort());
+        }
+    }
+
+    @Test
+    public void multiTarget_reportsResultsPerTarget() throws Exception {
+        engine = new PingEngine(callbacks, 4, PingEngine::createProbe);
+        PingTarget first = listen();
+        PingTarget second = listen();
+        PingTarget closed = closedPort();
+        PingRequest request = new PingRequest.Builder(Arrays.asList(first, closed, second), 5)
+                .setIntervalMs(20)
+                .build();
+
+        RecordingObserver observer = new RecordingObserver();
+        PingSession session = engine.startSession(request, observer);
+        assertTrue("La sesión no terminó", observer.finished.await(10, TimeUnit.SECONDS));
+
+        assertTrue(observer.completed);
+        assertEquals(15, observer.results.size());
+        assertEquals(15, session.getCompletedCount());
+        assertEquals(10, session.getSuccessCount());
+        assertEquals(5, session.getFailureCount());
+        for (PingTarget target : Arrays.asList(first, second)) {
+            PingTargetStream stream = session.getTargetStream(target);
+            assertEquals(5, stream.getSuccessCount());
+            assertEquals(5, stream.getStats().getReceived());
+            assertTrue(stream.getStats().getP50Micros() >= 0);
+        }
+        PingTargetStream closedStream = session.getTargetStream(closed);
+        assertEquals(0, closedStream.getSuccessCount());
+        assertEquals(5, closedStream.getFailureCount());
+        assertEquals(1.0, closedStream.getStats().getLossRate(), 1e-9);
+        assertEquals(5, session.getStats().getLost());
+        assertEquals(10, session.getStats().getReceived());
+        for (PingResult result : observer.results) {
+            assertEquals(!result.getTarget().equals(closed), result.isSuccessful());
+        }
+
+        List<PingTargetStream> ranking = session.getTargetRanking();
+        assertEquals(closed, ranking.get(ranking.size() - 1).getTarget());
+    }
+
+    @Test
+    public void globalLimit_boundsConcurrentProbes() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        // Sondeo lento: mantiene el permiso 30 ms antes de conectar
+        PingEngine.ProbeFactory slowFactory = (target, type, executor) -> new BlockingPingProbe(executor) {
+            @Override
+            protected PingResult probeBlocking(PingTarget t, int timeoutMs) {
+                int now = active.incrementAndGet();
+                maxActive.accumulateAndGet(now, Math::max);
+                long start = System.nanoTime();
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+                return PingResult.success(System.nanoTime() - start, null);
+            }
+        };
+        engine = new PingEngine(callbacks, 2, slowFactory);
+        List<PingTarget> targets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            targets.add(listen());
+        }
+        PingRequest request = new PingRequest.Builder(targets, 5)
+                .setIntervalMs(10)
+                .setProbeType(ProbeType.TCP_CONNECT)
+                .build();
+
+        RecordingObserver observer = new RecordingObserver();
+        engine.startSession(request, observer);
+        assertTrue("La sesión no terminó", observer.finished.await(10, TimeUnit.SECONDS));
+
+        assertEquals(20, observer.results.size());
+        assertTrue("Sondeos simultáneos: " + maxActive.get(), maxActive.get() <= 2);
+        // La espera por el límite cuenta como latencia (corrección de omisión coordinada)
+        long maxCorrected = 0;
+        for (PingResult result : observer.results) {
+            assertTrue(result.getCorrectedRttNanos() >= result.getRttNanos());
+            maxCorrected = Math.max(maxCorrected, result.getCorrectedRttNanos());
+        }
+        assertTrue(maxCorrected > TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void cancel_stopsDeliveringResults() throws Exception {
+        engine = new PingEngine(callbacks, 4, PingEngine::createProbe);
+        PingRequest request = new PingRequest.Builder(Collections.singletonList(listen()), 100)
+                .setIntervalMs(20)
+                .build();
+
+        RecordingObserver observer = new RecordingObserver();
+        PingSession session = engine.startSession(request, observer);
+        assertTrue(observer.firstResult.await(5, TimeUnit.SECONDS));
+        session.cancel();
+        assertTrue(observer.finished.await(5, TimeUnit.SECONDS));
+        int delivered = observer.results.size();
+        Thread.sleep(100);
+
+        assertTrue(observer.stopped);
+        assertFalse(session.isRunning());
+        assertEquals(delivered, observer.results.size());
+        assertTrue(delivered < 100);
+    }
+
+    @Test
+    public void recorder_receivesEveryResultWithoutObservers() throws Exception {
+        List<PingResult> recorded = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch flushed = new CountDownLatch(1);
+        PingEngine.ResultRecorder recorder = new PingEngine.ResultRecorder() {
+            @Override
+            public void record(PingResult result) {
+                recorded.add(result);
+            }
+
+            @Override
+            public void flush() {
+                flushed.countDown();
+            }
+        };
+        engine = new PingEngine(callbacks, 4, PingEngine::createProbe, recorder);
+        PingTarget open = listen();
+        PingTarget closed = closedPort();
+        PingRequest request = new PingRequest.Builder(Arrays.asList(open, closed), 3)
+                .setIntervalMs(20)
+                .build();
+
+        // Sin ningún observador, como cuando se cierra la pantalla con la sesión en marcha
+        PingSession session = engine.startSession(request, null);
+        assertTrue("La sesión no terminó", flushed.await(10, TimeUnit.SECONDS));
+
+        assertFalse(session.isRunning());
+        assertEquals(6, recorded.size());
+        int successes = 0;
+        for (PingResult result : recorded) {
+            assertNotNull(result.getTarget());
+            if (result.isSuccessful()) {
+                successes++;
+                assertEquals(open, result.getTarget());
+            }
+        }
+        assertEquals(3, successes);
+    }
+
+    private static class RecordingObserver implements PingObserver {
+        final List<PingResult> results = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstResult = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile boolean completed;
+        volatile boolean stopped;
+
+        @Override
+        public void onPingStarted(PingSession session) {
+        }
+
+        @Override
+        public void onPingResult(PingSession session, PingResult result) {
+            results.add(result);
+            firstResult.countDown();
+        }
+
+        @Override
+        public void onPingCompleted(PingSession session) {
+            completed = true;
+            finished.countDown();
+        }
+
+        @Override
+        public void onPingStopped(PingSession session) {
+            stopped = true;
+            finished.countDown();
+        }
+
+        @Override
+        public void onPingError(PingSession session, String message) {
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.nemergentprueba.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del buffer circular de muestras: sobrescritura de las más antiguas y copia
+ * ordenada de las últimas.
+ */
+public class PingSampleRingTest {
+
+    @Test
+    public void add_overwritesOldestWhenFull() {
+        PingSampleRing ring = new PingSampleRing(4);
+        for (int i = 0; i < 10; i++) {
+            ring.add(1000 + i, i * 100, i % 3 == 0 ? PingResult.STATUS_TIMEOUT : PingResult.STATUS_OK, i + 1, i % 2);
+        }
+
+        assertEquals(10, ring.getWrittenCount());
+        assertEquals(4, ring.size());
+        assertFalse(ring.contains(5));
+        assertTrue(ring.contains(6));
+        assertFalse(ring.contains(10));
+        assertEquals(1009, ring.getTimestamp(9));
+        assertEquals(900, ring.getRttMicros(9));
+        assertEquals(PingResult.STATUS_TIMEOUT, ring.getStatus(9));
+        assertEquals(10, ring.getAttempt(9));
+        assertEquals(1, ring.getTargetIndex(9));
+    }
+
+    @Test
+    public void copyLatest_returnsNewestInArrivalOrder() {
+        PingSampleRing ring = new PingSampleRing(8);
+        int[] rtt = new int[3];
+        byte[] statuses = new byte[3];
+        assertEquals(0, ring.copyLatest(rtt, statuses));
+
+        for (int i = 0; i < 11; i++) {
+            ring.add(i, i, PingResult.STATUS_OK, i, 0);
+        }
+        assertEquals(3, ring.copyLatest(rtt, statuses));
+        assertArrayEquals(new int[]{8, 9, 10}, rtt);
+
+        int[] all = new int[20];
+        assertEquals(8, ring.copyLatest(all, new byte[20]));
+        assertEquals(3, all[0]);
+        assertEquals(10, all[7]);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.nemergentprueba.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del límite de sondeos simultáneos: cola de espera, cadenas largas de sondeos que
+ * terminan al instante sin crecer la pila y límite respetado con varios hilos.
+ */
+public class ProbeLimiterTest {
+
+    @Test
+    public void submit_queuesLaunchesBeyondLimitUntilRelease() {
+        ProbeLimiter limiter = new ProbeLimiter(2);
+        List<Integer> started = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int launch = i;
+            limiter.submit(() -> started.add(launch));
+        }
+        assertEquals(2, started.size());
+
+        limiter.release();
+        assertEquals(3, started.size());
+        limiter.release();
+        limiter.release();
+        // En orden de llegada
+        assertEquals(4, started.size());
+        assertEquals(Integer.valueOf(3), started.get(3));
+    }
+
+    @Test
+    public void release_insideLaunchDoesNotRecurse() {
+        ProbeLimiter limiter = new ProbeLimiter(1);
+        int launches = 200_000;
+        AtomicInteger depth = new AtomicInteger();
+        AtomicInteger maxDepth = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        // Con el permiso ocupado se acumula la cola; cada lanzamiento libera su permiso al instante
+        limiter.submit(() -> { });
+        for (int i = 0; i < launches; i++) {
+            limiter.submit(() -> {
+                maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+                completed.incrementAndGet();
+                limiter.release();
+                depth.decrementAndGet();
+            });
+        }
+        assertEquals(0, completed.get());
+
+        limiter.release();
+        assertEquals(launches, completed.get());
+        assertEquals(1, maxDepth.get());
+    }
+
+    @Test
+    public void concurrentSubmitAndRelease_neverExceedLimit() throws InterruptedException {
+        int limit = 3;
+        int threads = 8;
+        int perThread = 5_000;
+        ProbeLimiter limiter = new ProbeLimiter(limit);
+        ExecutorService completions = Executors.newFixedThreadPool(4);
+        ExecutorService submitters = Executors.newFixedThreadPool(threads);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads * perThread);
+
+        for (int t = 0; t < threads; t++) {
+            submitters.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    boolean synchronous = i % 2 == 0;
+                    limiter.submit(() -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Runnable finish = () -> {
+                            running.decrementAndGet();
+                            done.countDown();
+                            limiter.release();
+                        };
+                        // Mitad de los sondeos terminan al instante y mitad en otro hilo
+                        if (synchronous) {
+                            finish.run();
+                        } else {
+                            completions.execute(finish);
+                        }
+                    });
+                }
+            });
+        }
+
+        assertTrue("No se completaron todos los lanzamientos", done.await(30, TimeUnit.SECONDS));
+        submitters.shutdown();
+        completions.shutdown();
+        assertTrue(maxRunning.get() <= limit);
+        assertEquals(0, running.get());
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del test de velocidad contra el servidor de pega en loopback: bajada y subida
+ * con varios flujos, informes por segundo coherentes con el total, destino sin servidor
+ * y reutilización del fichero de datos de subida.
+ */
+public class BandwidthEngineTest {
+
+    private final ExecutorService callbacks = Executors.newSingleThreadExecutor();
+    private BandwidthEngine engine;
+    private BandwidthStandInServer server;
+    private File directory;
+    private File payload;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bandwidth").toFile();
+        payload = new File(directory, "payload.bin");
+        engine = new BandwidthEngine(callbacks, payload);
+        server = new BandwidthStandInServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        engine.shutdown();
+        server.close();
+        callbacks.shutdownNow();
+        payload.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void download_reportsPerSecondAndAggregateThroughput() throws Exception {
+        BandwidthRequest request = new BandwidthRequest.Builder(server.getEndpoint())
+                .setDirection(BandwidthRequest.Direction.DOWNLOAD)
+                .setStreams(3)
+                .setDurationMs(1500)
+                .build();
+
+        RecordingObserver observer = new RecordingObserver();
+        BandwidthSession test = engine.startTest(request, observer);
+        assertTrue("El test no terminó", observer.finished.await(10, TimeUnit.SECONDS));
+
+        assertTrue(observer.completed);
+        assertFalse(test.isRunning());
+        assertEquals(3, server.getConnectionCount());
+        assertEquals(2, observer.intervals.size());
+        assertEquals(1, observer.intervals.get(0).getIndex());
+
+        long intervalBytes = 0;
+        for (BandwidthInterval interval : observer.intervals) {
+            assertEquals(3, interval.getStreamCount());
+            assertTrue(interval.getMbps() > 0);
+            intervalBytes += interval.getBytes();
+        }
+        // Los intervalos cubren todo el test y cuadran con el total
+        assertEquals(test.getTotalBytes(), intervalBytes);
+        for (int i = 0; i < 3; i++) {
+            assertTrue("Flujo sin datos: " + i, test.getStreamBytes(i) > 0);
+        }
+        assertTrue(test.getAggregateMbps() > 0);
+        assertTrue(server.getBytesSent() >= test.getTotalBytes());
+        assertEquals(1.5, test.getElapsedNanos() / 1e9, 0.3);
+    }
+
+    @Test
+    public void upload_sendsFromPayloadFile() throws Exception {
+        BandwidthRequest request = new BandwidthRequest.Builder(server.getEndpoint())
+                .setDirection(BandwidthRequest.Direction.UPLOAD)
+                .setStreams(2)
+                .setDurationMs(1000)
+                .build();
+
+        RecordingObserver observer = new RecordingObserver();
+        BandwidthSession test = engine.startTest(request, observer);
+        assertTrue("El test no terminó", observer.finished.await(10, TimeUnit.SECONDS));
+
+        assertTrue(observer.completed);
+        assertEquals(payload, engine.getPayloadFile());
+        assertTrue(test.getStreamBytes(0) > 0);
+        assertTrue(test.getStreamBytes(1) > 0);
+        assertTrue(server.getBytesReceived() > 0);
+        assertTrue(test.getAggregateMbps() > 0);
+    }
+
+    @Test
+    public void unreachableEndpoint_reportsError() throws Exception {
+        int port;
+        try (ServerSocket closed = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = closed.getLocalPort();
+        }
+        BandwidthRequest request = new BandwidthRequest.Builder("127.0.0.1:" + port)
+                .setStreams(2)
+                .setDurationMs(5000)
+                .build();
+
+        RecordingObserver observer = new RecordingObserver();
+        BandwidthSession test = engine.startTest(request, observer);
+        assertTrue(observer.finished.await(5, TimeUnit.SECONDS));
+
+        assertNotNull(observer.error);
+        assertEquals(2, test.getFailedStreams());
+        assertFalse(test.isRunning());
+    }
+
+    @Test
+    public void payloadFile_isReusedWhenCompleteAndRewrittenOtherwise() throws IOException {
+        assertEquals(payload, BandwidthEngine.preparePayloadFile(payload));
+        assertEquals(BandwidthEngine.PAYLOAD_FILE_BYTES, payload.length());
+        byte[] first = Files.readAllBytes(payload.toPath());
+
+        // Otro motor (p. ej. tras reiniciar la aplicación) usa el mismo fichero sin reescribirlo
+        BandwidthEngine other = new BandwidthEngine(callbacks, payload);
+        assertEquals(payload, other.getPayloadFile());
+        other.shutdown();
+        assertTrue(Arrays.equals(first, Files.readAllBytes(payload.toPath())));
+        assertEquals(1, directory.listFiles().length);
+
+        // Un fichero a medias se vuelve a escribir entero
+        try (RandomAccessFile file = new RandomAccessFile(payload, "rw")) {
+            file.setLength(1000);
+        }
+        BandwidthEngine.preparePayloadFile(payload);
+        assertEquals(BandwidthEngine.PAYLOAD_FILE_BYTES, payload.length());
+    }
+
+    @Test
+    public void endpointWithoutPort_isRejected() {
+        try {
+            new BandwidthRequest.Builder("example.com").build();
+            fail("Debería exigir un puerto");
+        } catch (IllegalArgumentException expected) {
+            // Destino sin puerto
+        }
+    }
+
+    private static class RecordingObserver implements BandwidthObserver {
+        final List<BandwidthInterval> intervals = new CopyOnWriteArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile boolean completed;
+        volatile String error;
+
+        @Override
+        public void onBandwidthStarted(BandwidthSession test) {
+        }
+
+        @Override
+        public void onBandwidthInterval(BandwidthSession test, BandwidthInterval interval) {
+            intervals.add(interval);
+        }
+
+        @Override
+        public void onBandwidthCompleted(BandwidthSession test) {
+            completed = true;
+            finished.countDown();
+        }
+
+        @Override
+        public void onBandwidthStopped(BandwidthSession test) {
+            finished.countDown();
+        }
+
+        @Override
+        public void onBandwidthError(BandwidthSession test, String message) {
+            error = message;
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.nemergentprueba.network.bandwidth;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor de pega para probar el test de velocidad en loopback, sin red. Habla el
+ * protocolo descrito en {@link BandwidthSession}.
+ */
+public class BandwidthStandInServer implements Closeable {
+    private static final String TAG = "BandwidthStandInServer";
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final List<SocketChannel> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Abre el servidor en un puerto libre de loopback y empieza a aceptar conexiones
+     */
+    public BandwidthStandInServer() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread acceptor = new Thread(this::acceptLoop, "bandwidth-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Destino para {@link BandwidthRequest.Builder}
+     */
+    public String getEndpoint() {
+        return "127.0.0.1:" + getPort();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (!closed) {
+                SocketChannel client = serverChannel.accept();
+                connections.incrementAndGet();
+                clients.add(client);
+                Thread handler = new Thread(() -> serve(client), "bandwidth-stand-in-client");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                Log.e(TAG, "Error aceptando conexiones: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try (SocketChannel channel = client) {
+            buffer.limit(1);
+            if (channel.read(buffer) < 1) {
+                return;
+            }
+            byte command = buffer.get(0);
+            if (command == BandwidthSession.COMMAND_UPLOAD) {
+                int read;
+                do {
+                    buffer.clear();
+                    read = channel.read(buffer);
+                    if (read > 0) {
+                        bytesReceived.addAndGet(read);
+                    }
+                } while (read >= 0);
+            } else if (command == BandwidthSession.COMMAND_DOWNLOAD) {
+                while (!closed) {
+                    buffer.clear();
+                    bytesSent.addAndGet(channel.write(buffer));
+                }
+            } else {
+                Log.w(TAG, "Orden desconocida: " + command);
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión: fin normal del flujo
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+    }
+}
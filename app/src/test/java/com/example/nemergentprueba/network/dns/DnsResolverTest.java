@@ -0,0 +1,136 @@
+package com.example.nemergentprueba.network.dns;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la caché de resolución con un reloj y un resolvedor simulados: caducidad,
+ * fallos en caché, consultas forzadas y direcciones literales.
+ */
+public class DnsResolverTest {
+
+    private static final long TTL_MS = 1000;
+    private static final long NEGATIVE_TTL_MS = 200;
+    // Cada consulta simulada tarda 3 ms de reloj
+    private static final long LOOKUP_NANOS = TimeUnit.MILLISECONDS.toNanos(3);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile boolean failing;
+
+    private final DnsResolver resolver = new DnsResolver(host -> {
+        lookups.incrementAndGet();
+        clock.addAndGet(LOOKUP_NANOS);
+        if (failing) {
+            throw new UnknownHostException(host);
+        }
+        return new InetAddress[]{InetAddress.getByAddress(host, new byte[]{10, 0, 0, 1})};
+    }, clock::get, TTL_MS, NEGATIVE_TTL_MS);
+
+    private void advanceMs(long ms) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    @Test
+    public void resolve_measuresLookupAndCachesUntilTtl() throws Exception {
+        DnsResolver.Resolution first = resolver.resolve("example.com");
+        assertTrue(first.isLookup());
+        assertEquals(LOOKUP_NANOS, first.getLookupNanos());
+
+        advanceMs(TTL_MS - 1);
+        DnsResolver.Resolution cached = resolver.resolve("EXAMPLE.com");
+        assertFalse(cached.isLookup());
+        assertEquals(first.getAddress(), cached.getAddress());
+        assertNotNull(resolver.peek("example.com"));
+        assertEquals(1, lookups.get());
+
+        advanceMs(1);
+        assertNull(resolver.peek("example.com"));
+        assertTrue(resolver.resolve("example.com").isLookup());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void failures_areCachedForTheNegativeTtl() throws Exception {
+        failing = true;
+        try {
+            resolver.resolve("missing.example");
+            fail("Debería fallar la resolución");
+        } catch (UnknownHostException expected) {
+            // Fallo real
+        }
+        failing = false;
+        try {
+            resolver.peek("missing.example");
+            fail("El fallo debería seguir en caché");
+        } catch (UnknownHostException expected) {
+            // Fallo en caché, sin consulta
+        }
+        assertEquals(1, lookups.get());
+
+        advanceMs(NEGATIVE_TTL_MS);
+        assertTrue(resolver.resolve("missing.example").isLookup());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void lookup_bypassesCacheAndLiteralsSkipDns() throws Exception {
+        resolver.resolve("example.com");
+        assertTrue(resolver.lookup("example.com").isLookup());
+        assertEquals(2, lookups.get());
+
+        DnsResolver.Resolution literal = resolver.resolve("192.0.2.7");
+        assertFalse(literal.isLookup());
+        assertEquals("192.0.2.7", literal.getAddress().getHostAddress());
+        assertNotNull(resolver.peek("::1"));
+        assertEquals(2, lookups.get());
+        assertNull(DnsResolver.parseLiteral("1example.com"));
+    }
+
+    @Test
+    public void parseLiteral_parsesValidAddressesWithoutDns() throws Exception {
+        assertArrayEquals(new byte[]{(byte) 192, 0, 2, (byte) 255},
+                DnsResolver.parseLiteral("192.0.2.255").getAddress());
+        assertArrayEquals(new byte[]{0, 0, 0, 0}, DnsResolver.parseLiteral("0.0.0.0").getAddress());
+        assertEquals("2001:db8:0:0:0:0:0:1", DnsResolver.parseLiteral("2001:db8::1").getHostAddress());
+        assertEquals("0:0:0:0:0:0:0:1", DnsResolver.parseLiteral("[::1]").getHostAddress());
+        assertEquals("0:0:0:0:0:0:0:0", DnsResolver.parseLiteral("::").getHostAddress());
+        assertEquals("fe80:0:0:0:0:0:0:0", DnsResolver.parseLiteral("fe80::").getHostAddress());
+        assertEquals("1:2:3:4:5:6:7:8", DnsResolver.parseLiteral("1:2:3:4:5:6:7:8").getHostAddress());
+        assertEquals("64:ff9b:0:0:0:0:c000:207",
+                DnsResolver.parseLiteral("64:ff9b::192.0.2.7").getHostAddress());
+        // Los nombres de host no son literales
+        assertNull(DnsResolver.parseLiteral("example.com"));
+        assertNull(DnsResolver.parseLiteral("1.2.3.4.example"));
+        assertNull(DnsResolver.parseLiteral(""));
+    }
+
+    @Test
+    public void malformedLiterals_failWithoutDns() {
+        String[] malformed = {"999.1.1.1", "256.0.0.1", "1.2.3", "1.2.3.4.5", "1..2.3", "01.2.3.4", "1.2.3.",
+                "1234", "1:2", ":::", "1:::2", "1::2::3", "1:2:3:4:5:6:7:8:9", "12345::1", "g::1",
+                "::1:", ":1::", "1:2:3:4:5:6:7::8", "::1.2.3.999", "[::1", "1:2:3:4:5:6:7:1.2.3.4"};
+        for (String host : malformed) {
+            try {
+                resolver.peek(host);
+                fail("Debería rechazar " + host);
+            } catch (UnknownHostException expected) {
+                // Rechazada sin consultar
+            }
+            try {
+                resolver.resolve(host);
+                fail("Debería rechazar " + host);
+            } catch (UnknownHostException expected) {
+                // Rechazada sin consultar
+            }
+        }
+        assertEquals(0, lookups.get());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+import com.example.nemergentprueba.network.dns.DnsResolver;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del sondeo DNS con una consulta simulada: el intento acaba al vencer su timeout
+ * aunque la consulta siga bloqueada, y los fallos de resolución se informan como tales.
+ */
+public class DnsLookupProbeTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ExecutorService lookupExecutor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        lookupExecutor.shutdownNow();
+    }
+
+    @Test
+    public void probe_reportsTimeoutAtTheDeadlineWhileTheLookupHangs() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DnsLookupProbe probe = new DnsLookupProbe(executor, host -> {
+            // Consulta del sistema que no atiende interrupciones
+            while (true) {
+                try {
+                    release.await();
+                    return DnsResolver.getInstance().lookup("127.0.0.1");
+                } catch (InterruptedException ignored) {
+                    // Sigue esperando, como getaddrinfo
+                }
+            }
+        }, lookupExecutor);
+
+        long start = System.nanoTime();
+        PingResult result = probeOnce(probe, new PingTarget("lento.example", PingTarget.NO_PORT), 200);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        try {
+            assertEquals(PingResult.STATUS_TIMEOUT, result.getStatus());
+            assertTrue("El timeout llegó tarde: " + elapsedMs + " ms", elapsedMs < 2000);
+            assertTrue(result.getDnsNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void probe_literalAddressSucceedsImmediately() throws Exception {
+        DnsLookupProbe probe = new DnsLookupProbe(executor,
+                host -> DnsResolver.getInstance().lookup(host), lookupExecutor);
+        PingResult result = probeOnce(probe, new PingTarget("127.0.0.1", PingTarget.NO_PORT), 1000);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(0, result.getDnsNanos());
+    }
+
+    @Test
+    public void probe_unknownHostIsDnsFailure() throws Exception {
+        DnsLookupProbe probe = new DnsLookupProbe(executor, host -> {
+            throw new UnknownHostException(host);
+        }, lookupExecutor);
+        PingResult result = probeOnce(probe, new PingTarget("no.existe", PingTarget.NO_PORT), 1000);
+
+        assertEquals(PingResult.STATUS_DNS_FAILURE, result.getStatus());
+    }
+
+    private static PingResult probeOnce(PingProbe probe, PingTarget target, int timeoutMs) throws InterruptedException {
+        PingResult[] holder = new PingResult[1];
+        CountDownLatch done = new CountDownLatch(1);
+        probe.probe(target, timeoutMs, result -> {
+            holder[0] = result;
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return holder[0];
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del sondeo HTTP contra un servidor HTTP/1.1 mínimo en loopback: reutilización de
+ * la conexión keep-alive, desglose de fases, cuerpos chunked, "Connection: close" y timeout.
+ */
+public class HttpProbeTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private StandInServer server;
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void head_reusesKeepAliveConnection() throws Exception {
+        server = new StandInServer("HTTP/1.1 200 OK\r\nContent-Length: 42\r\n\r\n", false, 0);
+        PingTarget target = PingTarget.parse("http://127.0.0.1:" + server.getPort() + "/health");
+        assertTrue(target.isHttp());
+        assertFalse(target.isTls());
+        assertEquals("/health", target.getPath());
+        HttpProbe probe = new HttpProbe(executor, HttpProbe.METHOD_HEAD);
+
+        for (int i = 0; i < 5; i++) {
+            PingResult result = probeOnce(probe, target);
+            assertTrue(result.getOutput(), result.isSuccessful());
+            assertEquals(200, result.getHttpStatus());
+            assertTrue(result.getTtfbNanos() > 0);
+            assertTrue(result.getRttNanos() >= result.getTtfbNanos());
+            assertEquals(-1, result.getTlsNanos());
+            if (i == 0) {
+                assertTrue(result.getConnectNanos() >= 0);
+            } else {
+                assertEquals("La conexión debería reutilizarse", -1, result.getConnectNanos());
+            }
+        }
+        probe.close();
+
+        assertEquals(1, server.connections.get());
+        assertEquals(5, server.requestLines.size());
+        assertEquals("HEAD /health HTTP/1.1", server.requestLines.get(0));
+    }
+
+    @Test
+    public void get_readsChunkedBodyAndHonoursConnectionClose() throws Exception {
+        server = new StandInServer("HTTP/1.1 503 Service Unavailable\r\nTransfer-Encoding: chunked\r\n"
+                + "Connection: close\r\n\r\n5\r\nhello\r\n6;x=y\r\n world\r\n0\r\n\r\n", true, 0);
+        PingTarget target = PingTarget.parse("http://127.0.0.1:" + server.getPort());
+        HttpProbe probe = new HttpProbe(executor, HttpProbe.METHOD_GET);
+
+        for (int i = 0; i < 3; i++) {
+            PingResult result = probeOnce(probe, target);
+            assertTrue(result.isSuccessful());
+            assertEquals(503, result.getHttpStatus());
+            assertTrue(result.getConnectNanos() >= 0);
+        }
+        probe.close();
+
+        assertEquals(3, server.connections.get());
+        assertEquals("GET / HTTP/1.1", server.requestLines.get(0));
+    }
+
+    @Test
+    public void slowServer_timesOut() throws Exception {
+        server = new StandInServer("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n", false, 500);
+        PingTarget target = PingTarget.parse("http://127.0.0.1:" + server.getPort() + "/");
+        HttpProbe probe = new HttpProbe(executor, HttpProbe.METHOD_HEAD);
+
+        PingResult result = probeOnce(probe, target, 100);
+        probe.close();
+
+        assertFalse(result.isSuccessful());
+        assertEquals(PingResult.STATUS_TIMEOUT, result.getStatus());
+    }
+
+    private static PingResult probeOnce(PingProbe probe, PingTarget target) throws InterruptedException {
+        return probeOnce(probe, target, 2000);
+    }
+
+    private static PingResult probeOnce(PingProbe probe, PingTarget target, int timeoutMs) throws InterruptedException {
+        PingResult[] holder = new PingResult[1];
+        CountDownLatch done = new CountDownLatch(1);
+        probe.probe(target, timeoutMs, result -> {
+            holder[0] = result;
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return holder[0];
+    }
+
+    /**
+     * Servidor HTTP de pega: contesta siempre la misma respuesta a cada petición de cada
+     * conexión, tras un retardo opcional
+     */
+    private static final class StandInServer {
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> requestLines = new CopyOnWriteArrayList<>();
+        private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final List<Socket> clients = new CopyOnWriteArrayList<>();
+        private final byte[] response;
+        private final boolean closeAfterResponse;
+        private final long delayMs;
+
+        StandInServer(String response, boolean closeAfterResponse, long delayMs) throws IOException {
+            this.response = response.getBytes(StandardCharsets.ISO_8859_1);
+            this.closeAfterResponse = closeAfterResponse;
+            this.delayMs = delayMs;
+            Thread acceptor = new Thread(this::acceptLoop, "http-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            try {
+                while (true) {
+                    Socket client = serverSocket.accept();
+                    connections.incrementAndGet();
+                    clients.add(client);
+                    Thread handler = new Thread(() -> serve(client), "http-stand-in-client");
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+            } catch (IOException e) {
+                // Servidor cerrado
+            }
+        }
+
+        private void serve(Socket client) {
+            try (Socket socket = client) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                OutputStream out = socket.getOutputStream();
+                String requestLine;
+                while ((requestLine = reader.readLine()) != null) {
+                    requestLines.add(requestLine);
+                    String header;
+                    while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                        // Cabeceras de la petición, no se usan
+                    }
+                    if (delayMs > 0) {
+                        Thread.sleep(delayMs);
+                    }
+                    out.write(response);
+                    out.flush();
+                    if (closeAfterResponse) {
+                        return;
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Cliente desconectado
+            }
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+}
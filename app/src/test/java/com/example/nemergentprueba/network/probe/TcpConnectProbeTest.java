@@ -0,0 +1,117 @@
+package com.example.nemergentprueba.network.probe;
+
+import com.example.nemergentprueba.network.PingResult;
+import com.example.nemergentprueba.network.PingTarget;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del sondeo TCP no bloqueante contra un ServerSocketChannel local: cientos de
+ * conexiones simultáneas sin un hilo por intento, puerto cerrado y cancelación.
+ */
+public class TcpConnectProbeTest {
+
+    private static final int CONCURRENT_PROBES = 300;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private TcpConnectSelector selector;
+    private ServerSocketChannel server;
+
+    @Before
+    public void setUp() throws IOException {
+        selector = new TcpConnectSelector();
+        server = ServerSocketChannel.open();
+        // El sistema completa el handshake sin accept() mientras haya hueco en la cola
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CONCURRENT_PROBES * 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        selector.shutdown();
+        executor.shutdownNow();
+    }
+
+    private PingTarget serverTarget() {
+        return new PingTarget("127.0.0.1", server.socket().getLocalPort());
+    }
+
+    @Test
+    public void concurrentProbes_shareTheSelectorThread() throws Exception {
+        TcpConnectProbe probe = new TcpConnectProbe(executor, selector);
+        PingTarget target = serverTarget();
+        // Una dirección literal no pasa por DNS: todos los intentos van directos al selector
+        assertTrue(probeOnce(probe, target).isSuccessful());
+
+        List<PingResult> results = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(CONCURRENT_PROBES);
+        for (int i = 0; i < CONCURRENT_PROBES; i++) {
+            probe.probe(target, 2000, result -> {
+                results.add(result);
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            });
+        }
+        assertTrue("Faltan resultados", done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(CONCURRENT_PROBES, results.size());
+        for (PingResult result : results) {
+            assertTrue(result.isSuccessful());
+            assertTrue(result.getRttNanos() > 0);
+        }
+        for (String thread : threads) {
+            assertEquals("ping-tcp-selector", thread);
+        }
+    }
+
+    @Test
+    public void closedPort_isUnreachable() throws Exception {
+        int port;
+        try (ServerSocketChannel closed = ServerSocketChannel.open()) {
+            closed.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            port = closed.socket().getLocalPort();
+        }
+        PingResult result = probeOnce(new TcpConnectProbe(executor, selector), new PingTarget("127.0.0.1", port));
+
+        assertFalse(result.isSuccessful());
+        assertEquals(PingResult.STATUS_UNREACHABLE, result.getStatus());
+    }
+
+    @Test
+    public void close_failsLaterProbes() throws Exception {
+        TcpConnectProbe probe = new TcpConnectProbe(executor, selector);
+        probe.close();
+        PingResult result = probeOnce(probe, serverTarget());
+
+        assertFalse(result.isSuccessful());
+        assertEquals(PingResult.STATUS_ERROR, result.getStatus());
+    }
+
+    private static PingResult probeOnce(PingProbe probe, PingTarget target) throws InterruptedException {
+        PingResult[] holder = new PingResult[1];
+        CountDownLatch done = new CountDownLatch(1);
+        probe.probe(target, 2000, result -> {
+            holder[0] = result;
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return holder[0];
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.nemergentprueba.network.stats;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las estadísticas en streaming: precisión de los percentiles frente a una
+ * ordenación exacta, jitter de RFC 3550 y pérdidas.
+ */
+public class LatencyStatsTest {
+
+    // Error relativo máximo del histograma: medio cubo de 1/64
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 64;
+
+    @Test
+    public void bucketIndex_roundTripsAcrossTheWholeRange() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.lowestValue(index) <= value);
+            assertTrue(LatencyHistogram.lowestValue(index + 1) > value);
+        }
+        int last = LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE_MICROS);
+        assertEquals(last, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertTrue(LatencyHistogram.lowestValue(last) <= LatencyHistogram.MAX_VALUE_MICROS);
+    }
+
+    @Test
+    public void percentiles_matchExactValuesWithinBucketPrecision() {
+        Random random = new Random(3);
+        int n = 50_000;
+        long[] values = new long[n];
+        LatencyStats stats = new LatencyStats();
+        for (int i = 0; i < n; i++) {
+            // Distribución log-normal con cola larga, como la latencia de red
+            values[i] = (long) Math.exp(9 + random.nextGaussian());
+            stats.recordSuccess(values[i], values[i]);
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        LatencySnapshot snapshot = stats.snapshot();
+        assertEquals(n, snapshot.getReceived());
+        assertEquals(sorted[0], snapshot.getMinMicros());
+        assertEquals(sorted[n - 1], snapshot.getMaxMicros());
+        assertWithin(sorted[n / 2 - 1], snapshot.getP50Micros());
+        assertWithin(sorted[n * 90 / 100 - 1], snapshot.getP90Micros());
+        assertWithin(sorted[n * 99 / 100 - 1], snapshot.getP99Micros());
+        assertWithin(sorted[n * 999 / 1000 - 1], stats.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void jitterAndLoss_followRfc3550() {
+        LatencyStats stats = new LatencyStats();
+        assertFalse(stats.snapshot().hasLatency());
+        assertEquals(-1, stats.snapshot().getP50Micros());
+
+        // Tránsitos alternos 10 ms / 20 ms: |D| = 10 ms constante, J tiende a 10 ms
+        for (int i = 0; i < 400; i++) {
+            long transit = i % 2 == 0 ? 10_000 : 20_000;
+            stats.recordSuccess(transit, transit);
+        }
+        stats.recordLoss();
+        LatencySnapshot snapshot = stats.snapshot();
+        assertEquals(10_000, snapshot.getJitterMicros(), 50);
+        assertEquals(1, snapshot.getLost());
+        assertEquals(1.0 / 401, snapshot.getLossRate(), 1e-9);
+        assertEquals(15_000, snapshot.getMeanMicros());
+        assertTrue(snapshot.getEwmaMicros() >= 10_000 && snapshot.getEwmaMicros() <= 20_000);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        double error = Math.abs(actual - expected) / (double) Math.max(1, expected);
+        assertTrue("Esperado " + expected + ", obtenido " + actual, error <= MAX_RELATIVE_ERROR);
+    }
+}
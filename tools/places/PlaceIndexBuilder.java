@@ -0,0 +1,117 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Genera el índice de lugares de la aplicación (app/src/main/assets/places.bin) a partir
+ * de un CSV "nombre,latitud,longitud". El formato es el que lee
+ * com.example.nemergentprueba.location.PlaceIndex; las claves se calculan igual que allí.
+ *
+ * Uso, desde la raíz del repositorio (JDK 11 o superior):
+ *   java tools/places/PlaceIndexBuilder.java tools/places/places.csv app/src/main/assets/places.bin
+ */
+public class PlaceIndexBuilder {
+
+    private static final int MAGIC = 0x504C4349; // "PLCI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 20;
+    private static final int KEY_BITS = 26;
+
+    private static final class Place {
+        final String name;
+        final double latitude;
+        final double longitude;
+        final long key;
+
+        Place(String name, double latitude, double longitude) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.key = interleave(quantize(longitude, -180, 360), quantize(latitude, -90, 180));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: PlaceIndexBuilder <places.csv> <places.bin>");
+            System.exit(2);
+        }
+        List<Place> places = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            // El nombre puede llevar comas: latitud y longitud son siempre los dos últimos campos
+            int lonComma = line.lastIndexOf(',');
+            int latComma = line.lastIndexOf(',', lonComma - 1);
+            if (latComma <= 0) {
+                throw new IOException("Línea " + lineNumber + " no válida: " + line);
+            }
+            double latitude = Double.parseDouble(line.substring(latComma + 1, lonComma));
+            double longitude = Double.parseDouble(line.substring(lonComma + 1));
+            if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                throw new IOException("Línea " + lineNumber + " fuera de rango: " + line);
+            }
+            places.add(new Place(line.substring(0, latComma).trim(), latitude, longitude));
+        }
+
+        Path output = Paths.get(args[1]);
+        Files.write(output, build(places));
+        System.out.println(places.size() + " lugares escritos en " + output);
+    }
+
+    static byte[] build(List<Place> places) {
+        List<Place> sorted = new ArrayList<>(places);
+        sorted.sort(Comparator.comparingLong((Place p) -> p.key).thenComparing(p -> p.name));
+
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        ByteBuffer records = ByteBuffer.allocate(sorted.size() * RECORD_SIZE).order(ByteOrder.BIG_ENDIAN);
+        for (Place place : sorted) {
+            byte[] name = place.name.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new IllegalArgumentException("Nombre demasiado largo: " + place.name);
+            }
+            records.putLong(place.key);
+            records.putFloat((float) place.latitude);
+            records.putFloat((float) place.longitude);
+            records.putInt(names.size());
+            names.write(name.length >> 8);
+            names.write(name.length);
+            names.write(name, 0, name.length);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + records.capacity() + names.size())
+                .order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(sorted.size()).putInt(HEADER_SIZE + records.capacity());
+        out.put(records.array());
+        out.put(names.toByteArray());
+        return out.array();
+    }
+
+    private static int quantize(double value, double min, double range) {
+        long bits = (long) ((value - min) / range * (1L << KEY_BITS));
+        return (int) Math.max(0, Math.min((1L << KEY_BITS) - 1, bits));
+    }
+
+    // Intercala los bits de longitud y latitud (longitud primero, como en geohash)
+    private static long interleave(int lonBits, int latBits) {
+        long key = 0;
+        for (int i = KEY_BITS - 1; i >= 0; i--) {
+            key = (key << 1) | ((lonBits >> i) & 1);
+            key = (key << 1) | ((latBits >> i) & 1);
+        }
+        return key;
+    }
+}